@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.codecs.quantized;
+
+import java.io.IOException;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.KnnVectorsReader;
+import org.apache.lucene.codecs.KnnVectorsWriter;
+import org.apache.lucene.codecs.lucene90.Lucene90HnswVectorsFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+
+/**
+ * Vectors format that searches HNSW graphs using vectors quantized to a byte per dimension, and
+ * rescores the best candidates using the original float vectors. Quantized vectors take 4 times
+ * less space than floats, so searches access less data and compare vectors faster.
+ *
+ * <p>Float vectors and graphs are stored using {@link Lucene90HnswVectorsFormat}, which is also
+ * used to build graphs from the float vectors. Quantization is calibrated for each field of each
+ * segment, by computing the quantiles of the vectors' components that bound the configured
+ * confidence interval. Values are clipped to these quantiles, and mapped linearly to [0, 127].
+ *
+ * <p>Searches collect the best {@code rescoreFactor * k} nodes according to the quantized vectors,
+ * then compute the similarity of the query with the float vectors of these nodes to return the
+ * best k. The rescore factor is recorded in the index when segments are written.
+ *
+ * <p>Fields whose vectors have {@link org.apache.lucene.index.VectorEncoding#BYTE} encoding are not
+ * quantized, they are stored and searched by {@link Lucene90HnswVectorsFormat} only.
+ *
+ * <p>In addition to the files of {@link Lucene90HnswVectorsFormat}, the format consists of two
+ * files:
+ *
+ * <h2>.veq (quantized vector data) file</h2>
+ *
+ * <p>For each field, for each document having a vector, in ordinal order:
+ *
+ * <ul>
+ *   <li><b>array[byte]</b> the quantized value of each dimension
+ *   <li><b>[int32]</b> the bits of the float correction of the vector's scores
+ * </ul>
+ *
+ * <h2>.vemq (quantized vector metadata) file</h2>
+ *
+ * <p>For each field:
+ *
+ * <ul>
+ *   <li><b>[int32]</b> field number
+ *   <li><b>[int32]</b> vector similarity function ordinal
+ *   <li><b>[int32]</b> dimension of this field's vectors
+ *   <li><b>[int32]</b> the number of documents having values for this field
+ *   <li><b>[int32]</b> the bits of the float lower quantile
+ *   <li><b>[int32]</b> the bits of the float upper quantile
+ *   <li><b>[int32]</b> the rescore factor, or 0 if hits are not rescored
+ *   <li><b>[vlong]</b> offset to this field's vectors in the .veq file
+ *   <li><b>[vlong]</b> length of this field's vectors, in bytes
+ * </ul>
+ *
+ * @lucene.experimental
+ */
+public final class HnswScalarQuantizedVectorsFormat extends KnnVectorsFormat {
+
+  static final String META_CODEC_NAME = "HnswScalarQuantizedVectorsFormatMeta";
+  static final String QUANTIZED_DATA_CODEC_NAME = "HnswScalarQuantizedVectorsFormatData";
+  static final String META_EXTENSION = "vemq";
+  static final String QUANTIZED_DATA_EXTENSION = "veq";
+
+  static final int VERSION_START = 0;
+  static final int VERSION_CURRENT = VERSION_START;
+
+  /** The default proportion of the values of vectors that are not clipped by quantization. */
+  public static final float DEFAULT_CONFIDENCE_INTERVAL = 0.99f;
+
+  /** The default ratio between the number of hits that are rescored and the number of hits. */
+  public static final int DEFAULT_RESCORE_FACTOR = 2;
+
+  /** Stores the float vectors and the graph, and builds the graph. */
+  private final Lucene90HnswVectorsFormat rawVectorsFormat;
+
+  /** The proportion of the values of vectors that are not clipped when quantizing them. */
+  private final float confidenceInterval;
+
+  /**
+   * The number of hits that are rescored using float vectors, as a multiple of the number of hits
+   * to return. 0 disables rescoring, and scores hits using quantized vectors.
+   */
+  private final int rescoreFactor;
+
+  public HnswScalarQuantizedVectorsFormat() {
+    this(
+        Lucene90HnswVectorsFormat.DEFAULT_MAX_CONN,
+        Lucene90HnswVectorsFormat.DEFAULT_BEAM_WIDTH,
+        DEFAULT_CONFIDENCE_INTERVAL,
+        DEFAULT_RESCORE_FACTOR);
+  }
+
+  /**
+   * Creates a format with the given parameters.
+   *
+   * @param maxConn the maximum number of connections of a node in the graph
+   * @param beamWidth the size of the queue used while searching for the neighbors of a new node
+   * @param confidenceInterval the proportion of the values of the vectors' components that are not
+   *     clipped when quantizing them, in (0, 1]
+   * @param rescoreFactor the number of hits that are rescored using float vectors, as a multiple of
+   *     the number of hits to return. 0 disables rescoring.
+   */
+  public HnswScalarQuantizedVectorsFormat(
+      int maxConn, int beamWidth, float confidenceInterval, int rescoreFactor) {
+    super("HnswScalarQuantizedVectorsFormat");
+    if (confidenceInterval <= 0 || confidenceInterval > 1) {
+      throw new IllegalArgumentException(
+          "confidenceInterval must be in (0, 1], got " + confidenceInterval);
+    }
+    if (rescoreFactor < 0) {
+      throw new IllegalArgumentException("rescoreFactor must be >= 0, got " + rescoreFactor);
+    }
+    this.rawVectorsFormat = new Lucene90HnswVectorsFormat(maxConn, beamWidth);
+    this.confidenceInterval = confidenceInterval;
+    this.rescoreFactor = rescoreFactor;
+  }
+
+  @Override
+  public KnnVectorsWriter fieldsWriter(SegmentWriteState state) throws IOException {
+    return new HnswScalarQuantizedVectorsWriter(
+        state, rawVectorsFormat.fieldsWriter(state), confidenceInterval, rescoreFactor);
+  }
+
+  @Override
+  public KnnVectorsReader fieldsReader(SegmentReadState state) throws IOException {
+    return new HnswScalarQuantizedVectorsReader(state, rawVectorsFormat.fieldsReader(state));
+  }
+
+  @Override
+  public String toString() {
+    return "HnswScalarQuantizedVectorsFormat(confidenceInterval="
+        + confidenceInterval
+        + ", rescoreFactor="
+        + rescoreFactor
+        + ", rawVectorsFormat="
+        + rawVectorsFormat.getName()
+        + ")";
+  }
+}
@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.codecs.quantized;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.KnnVectorsReader;
+import org.apache.lucene.codecs.lucene90.Lucene90HnswVectorsReader;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.RandomAccessVectorValuesProducer;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.hnsw.HnswGraph;
+import org.apache.lucene.util.hnsw.NeighborQueue;
+import org.apache.lucene.util.hnsw.RandomVectorScorer;
+
+/**
+ * Reads float vectors and graphs using a delegate reader, and searches graphs using quantized
+ * vectors.
+ *
+ * @lucene.experimental
+ */
+public final class HnswScalarQuantizedVectorsReader extends KnnVectorsReader {
+
+  private final Lucene90HnswVectorsReader rawVectorsReader;
+  private final Map<String, FieldEntry> fields = new HashMap<>();
+  private final IndexInput quantizedData;
+  private final long checksumSeed;
+
+  HnswScalarQuantizedVectorsReader(SegmentReadState state, KnnVectorsReader rawVectorsReader)
+      throws IOException {
+    this.rawVectorsReader = (Lucene90HnswVectorsReader) rawVectorsReader;
+    boolean success = false;
+    try {
+      int versionMeta = readMetadata(state);
+      quantizedData = openDataInput(state, versionMeta);
+      checksumSeed = CodecUtil.retrieveChecksum(quantizedData);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(this);
+      }
+    }
+  }
+
+  private int readMetadata(SegmentReadState state) throws IOException {
+    String metaFileName =
+        IndexFileNames.segmentFileName(
+            state.segmentInfo.name,
+            state.segmentSuffix,
+            HnswScalarQuantizedVectorsFormat.META_EXTENSION);
+    int versionMeta = -1;
+    try (ChecksumIndexInput meta = state.directory.openChecksumInput(metaFileName, state.context)) {
+      Throwable priorE = null;
+      try {
+        versionMeta =
+            CodecUtil.checkIndexHeader(
+                meta,
+                HnswScalarQuantizedVectorsFormat.META_CODEC_NAME,
+                HnswScalarQuantizedVectorsFormat.VERSION_START,
+                HnswScalarQuantizedVectorsFormat.VERSION_CURRENT,
+                state.segmentInfo.getId(),
+                state.segmentSuffix);
+        readFields(meta, state.fieldInfos);
+      } catch (Throwable exception) {
+        priorE = exception;
+      } finally {
+        CodecUtil.checkFooter(meta, priorE);
+      }
+    }
+    return versionMeta;
+  }
+
+  private static IndexInput openDataInput(SegmentReadState state, int versionMeta)
+      throws IOException {
+    String fileName =
+        IndexFileNames.segmentFileName(
+            state.segmentInfo.name,
+            state.segmentSuffix,
+            HnswScalarQuantizedVectorsFormat.QUANTIZED_DATA_EXTENSION);
+    // searches access quantized vectors in random order
+    IndexInput in =
+        state.directory.openInput(
+            fileName, new IOContext(state.context, state.context.readOnce, true));
+    boolean success = false;
+    try {
+      int versionQuantizedData =
+          CodecUtil.checkIndexHeader(
+              in,
+              HnswScalarQuantizedVectorsFormat.QUANTIZED_DATA_CODEC_NAME,
+              HnswScalarQuantizedVectorsFormat.VERSION_START,
+              HnswScalarQuantizedVectorsFormat.VERSION_CURRENT,
+              state.segmentInfo.getId(),
+              state.segmentSuffix);
+      if (versionMeta != versionQuantizedData) {
+        throw new CorruptIndexException(
+            "Format versions mismatch: meta="
+                + versionMeta
+                + ", "
+                + HnswScalarQuantizedVectorsFormat.QUANTIZED_DATA_CODEC_NAME
+                + "="
+                + versionQuantizedData,
+            in);
+      }
+      success = true;
+      return in;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(in);
+      }
+    }
+  }
+
+  private void readFields(ChecksumIndexInput meta, FieldInfos infos) throws IOException {
+    for (int fieldNumber = meta.readInt(); fieldNumber != -1; fieldNumber = meta.readInt()) {
+      FieldInfo info = infos.fieldInfo(fieldNumber);
+      if (info == null) {
+        throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
+      }
+      FieldEntry fieldEntry = new FieldEntry(meta, readSimilarityFunction(meta));
+      validateFieldEntry(info, fieldEntry);
+      fieldEntry.ordToDoc = readOrdToDoc(info, fieldEntry);
+      fields.put(info.name, fieldEntry);
+    }
+  }
+
+  private void validateFieldEntry(FieldInfo info, FieldEntry fieldEntry) {
+    int dimension = info.getVectorDimension();
+    if (dimension != fieldEntry.dimension) {
+      throw new IllegalStateException(
+          "Inconsistent vector dimension for field=\""
+              + info.name
+              + "\"; "
+              + dimension
+              + " != "
+              + fieldEntry.dimension);
+    }
+
+    long numBytes = (long) fieldEntry.size * (dimension + Float.BYTES);
+    if (numBytes != fieldEntry.quantizedDataLength) {
+      throw new IllegalStateException(
+          "Quantized vector data length "
+              + fieldEntry.quantizedDataLength
+              + " not matching size="
+              + fieldEntry.size
+              + " * (dim="
+              + dimension
+              + " + 4) = "
+              + numBytes);
+    }
+  }
+
+  /** Maps the ordinals of quantized vectors to doc ids, using the ordinals of the float vectors. */
+  private int[] readOrdToDoc(FieldInfo info, FieldEntry fieldEntry) throws IOException {
+    int[] ordToDoc = new int[fieldEntry.size];
+    VectorValues vectors = rawVectorsReader.getVectorValues(info.name);
+    int ord = 0;
+    if (vectors != null) {
+      for (int doc = vectors.nextDoc(); doc != NO_MORE_DOCS; doc = vectors.nextDoc()) {
+        if (ord == ordToDoc.length) {
+          break;
+        }
+        ordToDoc[ord++] = doc;
+      }
+    }
+    if (ord != fieldEntry.size || (vectors != null && vectors.size() != fieldEntry.size)) {
+      throw new IllegalStateException(
+          "Inconsistent number of vectors for field=\""
+              + info.name
+              + "\"; "
+              + fieldEntry.size
+              + " quantized vectors, "
+              + (vectors == null ? 0 : vectors.size())
+              + " vectors");
+    }
+    return ordToDoc;
+  }
+
+  private VectorSimilarityFunction readSimilarityFunction(DataInput input) throws IOException {
+    int similarityFunctionId = input.readInt();
+    if (similarityFunctionId < 0
+        || similarityFunctionId >= VectorSimilarityFunction.values().length) {
+      throw new CorruptIndexException(
+          "Invalid similarity function id: " + similarityFunctionId, input);
+    }
+    return VectorSimilarityFunction.values()[similarityFunctionId];
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long totalBytes =
+        RamUsageEstimator.shallowSizeOfInstance(HnswScalarQuantizedVectorsReader.class);
+    totalBytes +=
+        RamUsageEstimator.sizeOfMap(
+            fields, RamUsageEstimator.shallowSizeOfInstance(FieldEntry.class));
+    for (FieldEntry entry : fields.values()) {
+      totalBytes += RamUsageEstimator.sizeOf(entry.ordToDoc);
+    }
+    return totalBytes + rawVectorsReader.ramBytesUsed();
+  }
+
+  @Override
+  public void checkIntegrity() throws IOException {
+    rawVectorsReader.checkIntegrity();
+    CodecUtil.checksumEntireFile(quantizedData);
+  }
+
+  @Override
+  public VectorValues getVectorValues(String field) throws IOException {
+    return rawVectorsReader.getVectorValues(field);
+  }
+
+  @Override
+  public TopDocs search(String field, float[] target, int k, Bits acceptDocs, int visitedLimit)
+      throws IOException {
+    FieldEntry fieldEntry = fields.get(field);
+    if (fieldEntry == null) {
+      // fields with byte vectors are not quantized
+      return rawVectorsReader.search(field, target, k, acceptDocs, visitedLimit);
+    }
+    if (fieldEntry.dimension == 0) {
+      return null;
+    }
+    VectorSimilarityFunction similarityFunction = fieldEntry.similarityFunction;
+
+    byte[] quantizedTarget = new byte[fieldEntry.dimension];
+    float targetCorrection =
+        fieldEntry.quantizer.quantize(target, quantizedTarget, similarityFunction);
+    QuantizedVectorScorer scorer =
+        new QuantizedVectorScorer(
+            fieldEntry,
+            quantizedData.slice(
+                "quantized-vector-data",
+                fieldEntry.quantizedDataOffset,
+                fieldEntry.quantizedDataLength),
+            quantizedTarget,
+            targetCorrection);
+
+    int numCandidates = fieldEntry.rescoreFactor == 0 ? k : k * fieldEntry.rescoreFactor;
+    // use a seed that is fixed for the index so we get reproducible results for the same query
+    final SplittableRandom random = new SplittableRandom(checksumSeed);
+    NeighborQueue results =
+        HnswGraph.search(
+            scorer,
+            numCandidates,
+            numCandidates,
+            similarityFunction.reversed,
+            rawVectorsReader.getGraphValues(field),
+            getAcceptOrds(acceptDocs, fieldEntry),
+            visitedLimit,
+            random);
+
+    RandomAccessVectorValues rawVectors = null;
+    if (fieldEntry.rescoreFactor > 0) {
+      rawVectors =
+          ((RandomAccessVectorValuesProducer) rawVectorsReader.getVectorValues(field))
+              .randomAccess();
+    }
+    ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+    for (int i = scoreDocs.length - 1; results.size() > 0; i--) {
+      int node = results.topNode();
+      float score;
+      if (rawVectors != null) {
+        score = similarityFunction.compare(target, rawVectors.vectorValue(node));
+      } else {
+        score = results.topScore();
+      }
+      results.pop();
+      // quantized dot products may slightly exceed the range of the float dot products
+      score = Math.max(0, similarityFunction.convertToScore(score));
+      scoreDocs[i] = new ScoreDoc(fieldEntry.ordToDoc[node], score);
+    }
+    if (rawVectors != null) {
+      Arrays.sort(
+          scoreDocs,
+          (a, b) -> {
+            int cmp = Float.compare(b.score, a.score);
+            return cmp != 0 ? cmp : Integer.compare(a.doc, b.doc);
+          });
+    }
+    if (scoreDocs.length > k) {
+      scoreDocs = Arrays.copyOf(scoreDocs, k);
+    }
+    TotalHits.Relation relation =
+        results.incomplete()
+            ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO
+            : TotalHits.Relation.EQUAL_TO;
+    return new TopDocs(new TotalHits(results.visitedCount(), relation), scoreDocs);
+  }
+
+  private Bits getAcceptOrds(Bits acceptDocs, FieldEntry fieldEntry) {
+    if (acceptDocs == null) {
+      return null;
+    }
+    return new Bits() {
+      @Override
+      public boolean get(int index) {
+        return acceptDocs.get(fieldEntry.ordToDoc[index]);
+      }
+
+      @Override
+      public int length() {
+        return fieldEntry.ordToDoc.length;
+      }
+    };
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.close(quantizedData, rawVectorsReader);
+  }
+
+  private static class FieldEntry {
+
+    final VectorSimilarityFunction similarityFunction;
+    final int dimension;
+    final int size;
+    final ScalarQuantizer quantizer;
+    final int rescoreFactor;
+    final long quantizedDataOffset;
+    final long quantizedDataLength;
+    int[] ordToDoc;
+
+    FieldEntry(DataInput input, VectorSimilarityFunction similarityFunction) throws IOException {
+      this.similarityFunction = similarityFunction;
+      dimension = input.readInt();
+      size = input.readInt();
+      float minQuantile = Float.intBitsToFloat(input.readInt());
+      float maxQuantile = Float.intBitsToFloat(input.readInt());
+      quantizer = new ScalarQuantizer(minQuantile, maxQuantile);
+      rescoreFactor = input.readInt();
+      quantizedDataOffset = input.readVLong();
+      quantizedDataLength = input.readVLong();
+    }
+  }
+
+  /** Scores quantized vectors read from the index input against a quantized query. */
+  private static final class QuantizedVectorScorer implements RandomVectorScorer {
+
+    private final FieldEntry fieldEntry;
+    private final IndexInput dataIn;
+    private final byte[] target;
+    private final float targetCorrection;
+    private final byte[] value;
+    private final int byteSize;
+
+    QuantizedVectorScorer(
+        FieldEntry fieldEntry, IndexInput dataIn, byte[] target, float targetCorrection) {
+      this.fieldEntry = fieldEntry;
+      this.dataIn = dataIn;
+      this.target = target;
+      this.targetCorrection = targetCorrection;
+      value = new byte[fieldEntry.dimension];
+      byteSize = fieldEntry.dimension + Float.BYTES;
+    }
+
+    @Override
+    public float score(int node) throws IOException {
+      dataIn.seek((long) node * byteSize);
+      dataIn.readBytes(value, 0, value.length);
+      float correction = Float.intBitsToFloat(dataIn.readInt());
+      return fieldEntry.quantizer.score(
+          fieldEntry.similarityFunction, target, targetCorrection, value, correction);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.codecs.quantized;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+import java.io.IOException;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.KnnVectorsWriter;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.MergeState;
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.RandomAccessVectorValuesProducer;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.VectorEncoding;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.IOUtils;
+
+/**
+ * Writes float vectors and graphs using a delegate writer, and quantized vectors alongside them.
+ *
+ * @lucene.experimental
+ */
+public final class HnswScalarQuantizedVectorsWriter extends KnnVectorsWriter {
+
+  private final KnnVectorsWriter rawVectorsWriter;
+  private final IndexOutput meta, quantizedData;
+  private final float confidenceInterval;
+  private final int rescoreFactor;
+  private boolean finished;
+
+  HnswScalarQuantizedVectorsWriter(
+      SegmentWriteState state,
+      KnnVectorsWriter rawVectorsWriter,
+      float confidenceInterval,
+      int rescoreFactor)
+      throws IOException {
+    this.rawVectorsWriter = rawVectorsWriter;
+    this.confidenceInterval = confidenceInterval;
+    this.rescoreFactor = rescoreFactor;
+
+    String metaFileName =
+        IndexFileNames.segmentFileName(
+            state.segmentInfo.name,
+            state.segmentSuffix,
+            HnswScalarQuantizedVectorsFormat.META_EXTENSION);
+    String quantizedDataFileName =
+        IndexFileNames.segmentFileName(
+            state.segmentInfo.name,
+            state.segmentSuffix,
+            HnswScalarQuantizedVectorsFormat.QUANTIZED_DATA_EXTENSION);
+
+    boolean success = false;
+    try {
+      meta = state.directory.createOutput(metaFileName, state.context);
+      quantizedData = state.directory.createOutput(quantizedDataFileName, state.context);
+
+      CodecUtil.writeIndexHeader(
+          meta,
+          HnswScalarQuantizedVectorsFormat.META_CODEC_NAME,
+          HnswScalarQuantizedVectorsFormat.VERSION_CURRENT,
+          state.segmentInfo.getId(),
+          state.segmentSuffix);
+      CodecUtil.writeIndexHeader(
+          quantizedData,
+          HnswScalarQuantizedVectorsFormat.QUANTIZED_DATA_CODEC_NAME,
+          HnswScalarQuantizedVectorsFormat.VERSION_CURRENT,
+          state.segmentInfo.getId(),
+          state.segmentSuffix);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(this);
+      }
+    }
+  }
+
+  @Override
+  public void writeField(FieldInfo fieldInfo, VectorValues vectors) throws IOException {
+    rawVectorsWriter.writeField(fieldInfo, vectors);
+    if (fieldInfo.getVectorEncoding() == VectorEncoding.BYTE) {
+      // byte vectors are as compact as quantized vectors already
+      return;
+    }
+    if (vectors instanceof RandomAccessVectorValuesProducer == false) {
+      throw new IllegalArgumentException(
+          "Quantizing vectors requires a random access vector values, got " + vectors);
+    }
+    // the delegate consumed the vectors, so their ordinals are those of the written vectors
+    writeQuantizedVectors(fieldInfo, ((RandomAccessVectorValuesProducer) vectors).randomAccess());
+  }
+
+  @Override
+  public void mergeOneField(FieldInfo fieldInfo, MergeState mergeState) throws IOException {
+    // let the delegate merge, so that it may reuse graphs of the merged segments
+    rawVectorsWriter.mergeOneField(fieldInfo, mergeState);
+    if (fieldInfo.getVectorEncoding() == VectorEncoding.BYTE) {
+      return;
+    }
+    VectorValues vectors = mergeVectorValues(fieldInfo, mergeState);
+    // iterate over the merged vectors to assign them ordinals, which skips deleted documents
+    while (vectors.nextDoc() != NO_MORE_DOCS) {}
+    writeQuantizedVectors(fieldInfo, ((RandomAccessVectorValuesProducer) vectors).randomAccess());
+  }
+
+  private void writeQuantizedVectors(FieldInfo fieldInfo, RandomAccessVectorValues vectors)
+      throws IOException {
+    VectorSimilarityFunction similarityFunction = fieldInfo.getVectorSimilarityFunction();
+    ScalarQuantizer quantizer = ScalarQuantizer.fromVectors(vectors, confidenceInterval);
+    long quantizedDataOffset = quantizedData.getFilePointer();
+    byte[] quantized = new byte[fieldInfo.getVectorDimension()];
+    int size = vectors.size();
+    for (int ord = 0; ord < size; ord++) {
+      float correction =
+          quantizer.quantize(vectors.vectorValue(ord), quantized, similarityFunction);
+      quantizedData.writeBytes(quantized, quantized.length);
+      quantizedData.writeInt(Float.floatToIntBits(correction));
+    }
+    long quantizedDataLength = quantizedData.getFilePointer() - quantizedDataOffset;
+
+    meta.writeInt(fieldInfo.number);
+    meta.writeInt(similarityFunction.ordinal());
+    meta.writeInt(fieldInfo.getVectorDimension());
+    meta.writeInt(size);
+    meta.writeInt(Float.floatToIntBits(quantizer.minQuantile));
+    meta.writeInt(Float.floatToIntBits(quantizer.maxQuantile));
+    meta.writeInt(rescoreFactor);
+    meta.writeVLong(quantizedDataOffset);
+    meta.writeVLong(quantizedDataLength);
+  }
+
+  @Override
+  public void finish() throws IOException {
+    if (finished) {
+      throw new IllegalStateException("already finished");
+    }
+    finished = true;
+    rawVectorsWriter.finish();
+
+    if (meta != null) {
+      // write end of fields marker
+      meta.writeInt(-1);
+      CodecUtil.writeFooter(meta);
+    }
+    if (quantizedData != null) {
+      CodecUtil.writeFooter(quantizedData);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.close(meta, quantizedData, rawVectorsWriter);
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.codecs.quantized;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.util.VectorUtil;
+
+/**
+ * Quantizes the components of float vectors to bytes in the range [0, 127]. Values are clipped to
+ * an interval [minQuantile, maxQuantile], and mapped linearly to the range of bytes, so that a
+ * value {@code v} is approximated by {@code alpha * q + minQuantile} where {@code q} is its
+ * quantized value and {@code alpha = (maxQuantile - minQuantile) / 127}.
+ *
+ * <p>The squared euclidean distance of two vectors is then approximated by {@code alpha^2 *
+ * squareDistance(qa, qb)}. Their dot product is approximated by {@code alpha^2 * dotProduct(qa, qb)
+ * + ca + cb} where {@code ca} and {@code cb} are corrections that only depend on each vector, and
+ * that are computed when quantizing them.
+ */
+final class ScalarQuantizer {
+
+  /** The largest quantized value */
+  static final int MAX_QUANTIZED_VALUE = 127;
+
+  /** The maximum number of values that are sampled to compute quantiles */
+  static final int MAX_SAMPLED_VALUES = 1 << 20;
+
+  final float minQuantile;
+  final float maxQuantile;
+  private final float alpha;
+  private final float scale;
+
+  ScalarQuantizer(float minQuantile, float maxQuantile) {
+    if (maxQuantile < minQuantile) {
+      throw new IllegalArgumentException(
+          "maxQuantile must be greater than minQuantile, got " + minQuantile + " " + maxQuantile);
+    }
+    this.minQuantile = minQuantile;
+    this.maxQuantile = maxQuantile;
+    alpha = (maxQuantile - minQuantile) / MAX_QUANTIZED_VALUE;
+    scale = alpha == 0 ? 0 : MAX_QUANTIZED_VALUE / (maxQuantile - minQuantile);
+  }
+
+  /**
+   * Quantizes a vector.
+   *
+   * @param vector the vector to quantize
+   * @param dest where to write the quantized values, must have the same length as the vector
+   * @param similarityFunction the similarity function used to compare the vector with others
+   * @return the correction of the vector's scores
+   */
+  float quantize(float[] vector, byte[] dest, VectorSimilarityFunction similarityFunction) {
+    if (vector.length != dest.length) {
+      throw new IllegalArgumentException(
+          "vector dimensions differ: " + vector.length + "!=" + dest.length);
+    }
+    int sum = 0;
+    for (int i = 0; i < vector.length; i++) {
+      float value = Math.min(maxQuantile, Math.max(minQuantile, vector[i]));
+      int quantized = Math.round((value - minQuantile) * scale);
+      dest[i] = (byte) quantized;
+      sum += quantized;
+    }
+    if (similarityFunction == VectorSimilarityFunction.DOT_PRODUCT) {
+      return alpha * minQuantile * sum + vector.length * minQuantile * minQuantile / 2;
+    }
+    return 0;
+  }
+
+  /**
+   * Approximates the similarity of two quantized vectors. The returned value is ordered like the
+   * scores of the similarity function, see {@link VectorSimilarityFunction#reversed}.
+   */
+  float score(
+      VectorSimilarityFunction similarityFunction,
+      byte[] a,
+      float aCorrection,
+      byte[] b,
+      float bCorrection) {
+    if (similarityFunction == VectorSimilarityFunction.DOT_PRODUCT) {
+      return alpha * alpha * VectorUtil.dotProduct(a, b) + aCorrection + bCorrection;
+    }
+    return alpha * alpha * VectorUtil.squareDistance(a, b);
+  }
+
+  /**
+   * Creates a quantizer whose interval contains the given proportion of the values of the vectors'
+   * components. If there are many vectors, quantiles are computed over a sample of the vectors.
+   *
+   * @param vectors the vectors to quantize
+   * @param confidenceInterval the proportion of values that are not clipped, in (0, 1]
+   */
+  static ScalarQuantizer fromVectors(RandomAccessVectorValues vectors, float confidenceInterval)
+      throws IOException {
+    int size = vectors.size();
+    if (size == 0) {
+      return new ScalarQuantizer(0, 0);
+    }
+    int dimension = vectors.dimension();
+    int numSampled = Math.min(size, Math.max(1, MAX_SAMPLED_VALUES / dimension));
+    float[] values = new float[numSampled * dimension];
+    for (int i = 0; i < numSampled; i++) {
+      // sample evenly spaced vectors, which gives reproducible quantiles
+      int ord = (int) ((long) i * size / numSampled);
+      System.arraycopy(vectors.vectorValue(ord), 0, values, i * dimension, dimension);
+    }
+    Arrays.sort(values);
+    int lowerIndex = (int) ((values.length - 1) * (1 - confidenceInterval) / 2);
+    int upperIndex = values.length - 1 - lowerIndex;
+    return new ScalarQuantizer(values[lowerIndex], values[upperIndex]);
+  }
+}
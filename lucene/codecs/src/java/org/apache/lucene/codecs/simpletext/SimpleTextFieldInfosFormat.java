@@ -28,6 +28,7 @@ import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.VectorEncoding;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.Directory;
@@ -68,6 +69,7 @@ public class SimpleTextFieldInfosFormat extends FieldInfosFormat {
   static final BytesRef INDEX_DIM_COUNT = new BytesRef("  index dimensional count ");
   static final BytesRef DIM_NUM_BYTES = new BytesRef("  dimensional num bytes ");
   static final BytesRef VECTOR_NUM_DIMS = new BytesRef("  vector number of dimensions ");
+  static final BytesRef VECTOR_ENCODING = new BytesRef("  vector encoding ");
   static final BytesRef VECTOR_SEARCH_STRATEGY = new BytesRef("  vector search strategy ");
   static final BytesRef SOFT_DELETES = new BytesRef("  soft-deletes ");
 
@@ -155,6 +157,11 @@ public class SimpleTextFieldInfosFormat extends FieldInfosFormat {
         assert StringHelper.startsWith(scratch.get(), VECTOR_NUM_DIMS);
         int vectorNumDimensions = Integer.parseInt(readString(VECTOR_NUM_DIMS.length, scratch));
 
+        SimpleTextUtil.readLine(input, scratch);
+        assert StringHelper.startsWith(scratch.get(), VECTOR_ENCODING);
+        VectorEncoding vectorEncoding =
+            VectorEncoding.valueOf(readString(VECTOR_ENCODING.length, scratch));
+
         SimpleTextUtil.readLine(input, scratch);
         assert StringHelper.startsWith(scratch.get(), VECTOR_SEARCH_STRATEGY);
         String scoreFunction = readString(VECTOR_SEARCH_STRATEGY.length, scratch);
@@ -179,6 +186,7 @@ public class SimpleTextFieldInfosFormat extends FieldInfosFormat {
                 indexDimensionalCount,
                 dimensionalNumBytes,
                 vectorNumDimensions,
+                vectorEncoding,
                 vectorDistFunc,
                 isSoftDeletesField);
       }
@@ -297,6 +305,10 @@ public class SimpleTextFieldInfosFormat extends FieldInfosFormat {
         SimpleTextUtil.write(out, Integer.toString(fi.getVectorDimension()), scratch);
         SimpleTextUtil.writeNewline(out);
 
+        SimpleTextUtil.write(out, VECTOR_ENCODING);
+        SimpleTextUtil.write(out, fi.getVectorEncoding().name(), scratch);
+        SimpleTextUtil.writeNewline(out);
+
         SimpleTextUtil.write(out, VECTOR_SEARCH_STRATEGY);
         SimpleTextUtil.write(out, fi.getVectorSimilarityFunction().name(), scratch);
         SimpleTextUtil.writeNewline(out);
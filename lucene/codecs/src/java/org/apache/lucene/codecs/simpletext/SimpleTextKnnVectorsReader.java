@@ -31,6 +31,7 @@ import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.RandomAccessVectorValues;
 import org.apache.lucene.index.RandomAccessVectorValuesProducer;
 import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.VectorEncoding;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.index.VectorValues;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -48,6 +49,7 @@ import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.VectorUtil;
 
 /**
  * Reads vector values from a simple text format. All vectors are read up front and cached in RAM in
@@ -140,11 +142,12 @@ public class SimpleTextKnnVectorsReader extends KnnVectorsReader {
     }
     IndexInput bytesSlice =
         dataIn.slice("vector-data", fieldEntry.vectorDataOffset, fieldEntry.vectorDataLength);
-    return new SimpleTextVectorValues(fieldEntry, bytesSlice);
+    return new SimpleTextVectorValues(fieldEntry, info.getVectorEncoding(), bytesSlice);
   }
 
   @Override
-  public TopDocs search(String field, float[] target, int k, Bits acceptDocs) throws IOException {
+  public TopDocs search(String field, float[] target, int k, Bits acceptDocs, int visitedLimit)
+      throws IOException {
     VectorValues values = getVectorValues(field);
     if (target.length != values.dimension()) {
       throw new IllegalArgumentException(
@@ -152,14 +155,31 @@ public class SimpleTextKnnVectorsReader extends KnnVectorsReader {
     }
     FieldInfo info = readState.fieldInfos.fieldInfo(field);
     VectorSimilarityFunction vectorSimilarity = info.getVectorSimilarityFunction();
+    BytesRef byteTarget =
+        info.getVectorEncoding() == VectorEncoding.BYTE ? VectorUtil.toBytesRef(target) : null;
     HitQueue topK = new HitQueue(k, false);
+
+    int numVisited = 0;
+    TotalHits.Relation relation = TotalHits.Relation.EQUAL_TO;
+
     int doc;
     while ((doc = values.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
       if (acceptDocs != null && acceptDocs.get(doc) == false) {
         continue;
       }
-      float[] vector = values.vectorValue();
-      float score = vectorSimilarity.compare(vector, target);
+
+      if (numVisited >= visitedLimit) {
+        relation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+        break;
+      }
+      numVisited++;
+
+      float score;
+      if (byteTarget != null) {
+        score = vectorSimilarity.compare(byteTarget, values.binaryValue());
+      } else {
+        score = vectorSimilarity.compare(values.vectorValue(), target);
+      }
       if (vectorSimilarity.reversed) {
         score = 1 / (score + 1);
       }
@@ -169,7 +189,7 @@ public class SimpleTextKnnVectorsReader extends KnnVectorsReader {
     for (int i = topScoreDocs.length - 1; i >= 0; i--) {
       topScoreDocs[i] = topK.pop();
     }
-    return new TopDocs(new TotalHits(values.size(), TotalHits.Relation.EQUAL_TO), topScoreDocs);
+    return new TopDocs(new TotalHits(numVisited, relation), topScoreDocs);
   }
 
   @Override
@@ -252,17 +272,20 @@ public class SimpleTextKnnVectorsReader extends KnnVectorsReader {
 
     private final BytesRefBuilder scratch = new BytesRefBuilder();
     private final FieldEntry entry;
+    private final VectorEncoding encoding;
     private final IndexInput in;
     private final BytesRef binaryValue;
     private final float[][] values;
 
     int curOrd;
 
-    SimpleTextVectorValues(FieldEntry entry, IndexInput in) throws IOException {
+    SimpleTextVectorValues(FieldEntry entry, VectorEncoding encoding, IndexInput in)
+        throws IOException {
       this.entry = entry;
+      this.encoding = encoding;
       this.in = in;
       values = new float[entry.size()][entry.dimension];
-      binaryValue = new BytesRef(entry.dimension * Float.BYTES);
+      binaryValue = new BytesRef(entry.dimension * encoding.byteSize);
       binaryValue.length = binaryValue.bytes.length;
       curOrd = -1;
       readAllVectors();
@@ -285,7 +308,18 @@ public class SimpleTextKnnVectorsReader extends KnnVectorsReader {
 
     @Override
     public BytesRef binaryValue() {
-      ByteBuffer.wrap(binaryValue.bytes).asFloatBuffer().get(values[curOrd]);
+      return binaryValue(values[curOrd]);
+    }
+
+    private BytesRef binaryValue(float[] value) {
+      if (encoding == VectorEncoding.BYTE) {
+        // byte vectors are written as the floats they widen to
+        for (int i = 0; i < value.length; i++) {
+          binaryValue.bytes[i] = (byte) value[i];
+        }
+      } else {
+        ByteBuffer.wrap(binaryValue.bytes).asFloatBuffer().get(value);
+      }
       return binaryValue;
     }
 
@@ -351,7 +385,7 @@ public class SimpleTextKnnVectorsReader extends KnnVectorsReader {
 
     @Override
     public BytesRef binaryValue(int targetOrd) throws IOException {
-      throw new UnsupportedOperationException();
+      return binaryValue(values[targetOrd]);
     }
   }
 
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.quantized;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.BaseKnnVectorsFormatTestCase;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.VectorUtil;
+
+/** Tests HnswScalarQuantizedVectorsFormat */
+public class TestHnswScalarQuantizedVectorsFormat extends BaseKnnVectorsFormatTestCase {
+  private final Codec codec =
+      TestUtil.alwaysKnnVectorsFormat(new HnswScalarQuantizedVectorsFormat());
+
+  @Override
+  protected Codec getCodec() {
+    return codec;
+  }
+
+  public void testIllegalParameters() {
+    expectThrows(
+        IllegalArgumentException.class, () -> new HnswScalarQuantizedVectorsFormat(16, 100, 0, 2));
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> new HnswScalarQuantizedVectorsFormat(16, 100, 1.5f, 2));
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> new HnswScalarQuantizedVectorsFormat(16, 100, 0.9f, -1));
+  }
+
+  /** Rescored hits have the scores of the float vectors, and are sorted by these scores. */
+  public void testRescoredScores() throws Exception {
+    VectorSimilarityFunction similarityFunction = randomSimilarity();
+    int dimension = atLeast(4);
+    try (Directory dir = newDirectory();
+        IndexWriter w =
+            new IndexWriter(
+                dir,
+                new IndexWriterConfig()
+                    .setCodec(
+                        TestUtil.alwaysKnnVectorsFormat(
+                            new HnswScalarQuantizedVectorsFormat(16, 100, 0.9f, 3))))) {
+      int numDocs = atLeast(100);
+      for (int i = 0; i < numDocs; i++) {
+        Document doc = new Document();
+        doc.add(new KnnVectorField("v", randomVector(dimension), similarityFunction));
+        w.addDocument(doc);
+      }
+      w.forceMerge(1);
+      try (IndexReader reader = DirectoryReader.open(w)) {
+        LeafReader leafReader = getOnlyLeafReader(reader);
+        float[] query = randomVector(dimension);
+        TopDocs topDocs = leafReader.searchNearestVectors("v", query, 10, null, Integer.MAX_VALUE);
+        assertEquals(10, topDocs.scoreDocs.length);
+        float lastScore = Float.POSITIVE_INFINITY;
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+          VectorValues vectors = leafReader.getVectorValues("v");
+          assertEquals(scoreDoc.doc, vectors.advance(scoreDoc.doc));
+          float expected =
+              similarityFunction.convertToScore(
+                  similarityFunction.compare(query, vectors.vectorValue()));
+          assertEquals(expected, scoreDoc.score, 1e-6);
+          assertTrue(scoreDoc.score <= lastScore);
+          lastScore = scoreDoc.score;
+        }
+      }
+    }
+  }
+
+  /** Searching quantized vectors should find most of the true nearest neighbors. */
+  public void testRecall() throws Exception {
+    VectorSimilarityFunction similarityFunction = randomSimilarity();
+    int dimension = 16;
+    int numDocs = atLeast(500);
+    float[][] vectors = new float[numDocs][];
+    try (Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setCodec(codec))) {
+      for (int i = 0; i < numDocs; i++) {
+        vectors[i] = randomVector(dimension);
+        Document doc = new Document();
+        doc.add(new StoredField("id", i));
+        doc.add(new KnnVectorField("v", vectors[i], similarityFunction));
+        w.addDocument(doc);
+      }
+      w.forceMerge(1);
+      try (IndexReader reader = DirectoryReader.open(w)) {
+        LeafReader leafReader = getOnlyLeafReader(reader);
+        int k = 10;
+        int numQueries = 20;
+        int found = 0;
+        for (int q = 0; q < numQueries; q++) {
+          float[] query = randomVector(dimension);
+          TopDocs topDocs = leafReader.searchNearestVectors("v", query, k, null, Integer.MAX_VALUE);
+          Set<Integer> expected = exactNearestNeighbors(vectors, query, k, similarityFunction);
+          for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            int id = leafReader.document(scoreDoc.doc).getField("id").numericValue().intValue();
+            if (expected.contains(id)) {
+              found++;
+            }
+          }
+        }
+        double recall = found / (double) (k * numQueries);
+        assertTrue("recall=" + recall, recall >= 0.8);
+      }
+    }
+  }
+
+  private static Set<Integer> exactNearestNeighbors(
+      float[][] vectors, float[] query, int k, VectorSimilarityFunction similarityFunction) {
+    Set<Integer> neighbors = new HashSet<>();
+    for (int n = 0; n < k; n++) {
+      int best = -1;
+      float bestScore = Float.NEGATIVE_INFINITY;
+      for (int i = 0; i < vectors.length; i++) {
+        if (neighbors.contains(i)) {
+          continue;
+        }
+        float score =
+            similarityFunction.convertToScore(similarityFunction.compare(query, vectors[i]));
+        if (score > bestScore) {
+          best = i;
+          bestScore = score;
+        }
+      }
+      neighbors.add(best);
+    }
+    return neighbors;
+  }
+
+  private static VectorSimilarityFunction randomSimilarity() {
+    return VectorSimilarityFunction.values()[
+        random().nextInt(VectorSimilarityFunction.values().length)];
+  }
+
+  private static float[] randomVector(int dimension) {
+    float[] v = new float[dimension];
+    for (int i = 0; i < dimension; i++) {
+      v[i] = random().nextFloat() * 2 - 1;
+    }
+    VectorUtil.l2normalize(v);
+    return v;
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.lucene.codecs;
 import java.io.Closeable;
 import java.io.IOException;
 import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedDocValues;
@@ -65,6 +66,14 @@ public abstract class DocValuesProducer implements Closeable {
    */
   public abstract SortedSetDocValues getSortedSet(FieldInfo field) throws IOException;
 
+  /**
+   * Returns a {@link DocValuesSkipper} for this field, or null if the field doesn't have a skip
+   * index. The returned instance need not be thread-safe: it will only be used by a single thread.
+   */
+  public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+    return null;
+  }
+
   /**
    * Checks consistency of this producer
    *
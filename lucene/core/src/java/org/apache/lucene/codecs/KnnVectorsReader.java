@@ -54,10 +54,15 @@ public abstract class KnnVectorsReader implements Closeable, Accountable {
    * @param k the number of docs to return
    * @param acceptDocs {@link Bits} that represents the allowed documents to match, or {@code null}
    *     if they are all allowed to match.
+   * @param visitedLimit the maximum number of nodes that the search is allowed to visit
    * @return the k nearest neighbor documents, along with their (searchStrategy-specific) scores.
+   *     The total hits relation is {@link org.apache.lucene.search.TotalHits.Relation#EQUAL_TO} if
+   *     the search completed, and {@link
+   *     org.apache.lucene.search.TotalHits.Relation#GREATER_THAN_OR_EQUAL_TO} if it stopped early
+   *     because it reached the visited nodes limit.
    */
-  public abstract TopDocs search(String field, float[] target, int k, Bits acceptDocs)
-      throws IOException;
+  public abstract TopDocs search(
+      String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException;
 
   /**
    * Returns an instance optimized for merging. This instance may only be consumed in the thread
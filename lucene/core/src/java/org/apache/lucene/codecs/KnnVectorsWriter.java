@@ -56,17 +56,35 @@ public abstract class KnnVectorsWriter implements Closeable {
     }
     for (FieldInfo fieldInfo : mergeState.mergeFieldInfos) {
       if (fieldInfo.hasVectorValues()) {
-        mergeVectors(fieldInfo, mergeState);
+        if (mergeState.infoStream.isEnabled("VV")) {
+          mergeState.infoStream.message("VV", "merging " + mergeState.segmentInfo);
+        }
+        mergeOneField(fieldInfo, mergeState);
+        if (mergeState.infoStream.isEnabled("VV")) {
+          mergeState.infoStream.message("VV", "merge done " + mergeState.segmentInfo);
+        }
       }
     }
     finish();
   }
 
-  private void mergeVectors(FieldInfo mergeFieldInfo, final MergeState mergeState)
-      throws IOException {
-    if (mergeState.infoStream.isEnabled("VV")) {
-      mergeState.infoStream.message("VV", "merging " + mergeState.segmentInfo);
-    }
+  /**
+   * Merges the vector values of a single field from multiple segments. The default implementation
+   * writes the merged values with {@link #writeField(FieldInfo, VectorValues)}; formats may
+   * override it to reuse data structures of the segments being merged.
+   */
+  public void mergeOneField(FieldInfo fieldInfo, MergeState mergeState) throws IOException {
+    writeField(fieldInfo, mergeVectorValues(fieldInfo, mergeState));
+  }
+
+  /**
+   * Returns a view over the vector values of a field in all segments being merged. Deleted
+   * documents are skipped and doc ids are mapped through {@link MergeState#docMaps}. The returned
+   * values are also a {@link RandomAccessVectorValuesProducer}, whose random access ordinals are
+   * only valid once all documents have been iterated.
+   */
+  protected static VectorValues mergeVectorValues(
+      FieldInfo mergeFieldInfo, final MergeState mergeState) throws IOException {
     List<VectorValuesSub> subs = new ArrayList<>();
     int dimension = -1;
     VectorSimilarityFunction similarityFunction = null;
@@ -107,10 +125,7 @@ public abstract class KnnVectorsWriter implements Closeable {
     }
     // Create a new VectorValues by iterating over the sub vectors, mapping the resulting
     // docids using docMaps in the mergeState.
-    writeField(mergeFieldInfo, new VectorValuesMerger(subs, mergeState));
-    if (mergeState.infoStream.isEnabled("VV")) {
-      mergeState.infoStream.message("VV", "merge done " + mergeState.segmentInfo);
-    }
+    return new VectorValuesMerger(subs, mergeState);
   }
 
   /** Tracks state of one sub-reader that we are merging */
@@ -268,6 +283,18 @@ public abstract class KnnVectorsWriter implements Closeable {
       @Override
       public float[] vectorValue(int target) throws IOException {
         int unmappedOrd = ordMap[target];
+        int segmentOrd = segmentOrd(unmappedOrd);
+        return raSubs.get(segmentOrd).vectorValue(unmappedOrd - ordBase[segmentOrd]);
+      }
+
+      @Override
+      public BytesRef binaryValue(int target) throws IOException {
+        int unmappedOrd = ordMap[target];
+        int segmentOrd = segmentOrd(unmappedOrd);
+        return raSubs.get(segmentOrd).binaryValue(unmappedOrd - ordBase[segmentOrd]);
+      }
+
+      private int segmentOrd(int unmappedOrd) {
         int segmentOrd = Arrays.binarySearch(ordBase, unmappedOrd);
         if (segmentOrd < 0) {
           // get the index of the greatest lower bound
@@ -277,12 +304,7 @@ public abstract class KnnVectorsWriter implements Closeable {
           // forward over empty segments which will share the same ordBase
           segmentOrd++;
         }
-        return raSubs.get(segmentOrd).vectorValue(unmappedOrd - ordBase[segmentOrd]);
-      }
-
-      @Override
-      public BytesRef binaryValue(int targetOrd) throws IOException {
-        throw new UnsupportedOperationException();
+        return segmentOrd;
       }
     }
   }
@@ -18,6 +18,8 @@ package org.apache.lucene.codecs;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Objects;
+import java.util.function.IntFunction;
 import org.apache.lucene.index.StoredFieldVisitor;
 
 /**
@@ -36,6 +38,31 @@ public abstract class StoredFieldsReader implements Cloneable, Closeable {
   /** Visit the stored fields for document <code>docID</code> */
   public abstract void visitDocument(int docID, StoredFieldVisitor visitor) throws IOException;
 
+  /**
+   * Expert: Visit the stored fields of the first {@code count} documents of {@code docIDs}, which
+   * must be sorted in strictly increasing order. The {@code i}-th document is visited with {@code
+   * visitors.apply(i)}, and fields that this visitor doesn't {@link StoredFieldVisitor#needsField
+   * need} are skipped without being decoded. This is typically more efficient than calling {@link
+   * #visitDocument} on every document when only a few fields of many documents are needed, since
+   * implementations may then decompress data that is shared by several documents only once.
+   *
+   * <p>The default implementation calls {@link #visitDocument} on every document.
+   */
+  public void visitDocuments(int[] docIDs, int count, IntFunction<StoredFieldVisitor> visitors)
+      throws IOException {
+    Objects.checkFromIndexSize(0, count, docIDs.length);
+    for (int i = 0; i < count; ++i) {
+      if (i > 0 && docIDs[i] <= docIDs[i - 1]) {
+        throw new IllegalArgumentException(
+            "docIDs must be sorted in strictly increasing order, got "
+                + docIDs[i - 1]
+                + " before "
+                + docIDs[i]);
+      }
+      visitDocument(docIDs[i], visitors.apply(i));
+    }
+  }
+
   @Override
   public abstract StoredFieldsReader clone();
 
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+import static org.apache.lucene.codecs.lucene90.ForUtil.BLOCK_SIZE;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.packed.PackedInts;
+
+/**
+ * Utility class to encode blocks of 128 doc deltas. Blocks are encoded with {@link PForUtil}, or as
+ * a bit set of the doc IDs of the block when dense blocks are enabled and doc IDs are close enough
+ * to one another.
+ */
+final class DocBlockUtil {
+
+  /**
+   * Maximum number of longs of a bit set, which guarantees that bit sets are only used for blocks
+   * whose density is 1/8 or more.
+   */
+  static final int MAX_BIT_SET_LONGS = BLOCK_SIZE * Byte.SIZE / Long.SIZE;
+
+  private final PForUtil pforUtil;
+  private final boolean denseBlocks;
+  private final long[] bitSet = new long[MAX_BIT_SET_LONGS];
+  private int numLongs; // number of longs of the last decoded bit set
+  private long firstDoc; // first doc of the last decoded bit set
+
+  DocBlockUtil(PForUtil pforUtil, boolean denseBlocks) {
+    this.pforUtil = pforUtil;
+    this.denseBlocks = denseBlocks;
+  }
+
+  /**
+   * Returns the number of longs that are needed to encode the given doc deltas as a bit set, or 0
+   * if the block should be encoded with {@link PForUtil}. Bit sets are only used if they are not
+   * larger than the doc deltas packed with the number of bits required by the largest delta.
+   */
+  private static int bitSetLongs(long[] docDeltas) {
+    if (PForUtil.allEqual(docDeltas)) {
+      // PForUtil only needs to record a single value
+      return 0;
+    }
+    long range = 0;
+    long or = 0;
+    for (int i = 1; i < BLOCK_SIZE; ++i) {
+      range += docDeltas[i];
+      or |= docDeltas[i];
+    }
+    final long numLongs = (range >>> 6) + 1;
+    if (numLongs > MAX_BIT_SET_LONGS
+        || numLongs * Long.SIZE > (long) PackedInts.bitsRequired(or) * BLOCK_SIZE) {
+      return 0;
+    }
+    return (int) numLongs;
+  }
+
+  /** Encode 128 doc deltas. */
+  void encode(long[] docDeltas, DataOutput out) throws IOException {
+    if (denseBlocks) {
+      final int numLongs = bitSetLongs(docDeltas);
+      out.writeByte((byte) numLongs);
+      if (numLongs > 0) {
+        // Doc IDs are relative to the first doc of the block, which is always set
+        Arrays.fill(bitSet, 0, numLongs, 0L);
+        long doc = 0;
+        bitSet[0] = 1L;
+        for (int i = 1; i < BLOCK_SIZE; ++i) {
+          doc += docDeltas[i];
+          bitSet[(int) (doc >>> 6)] |= 1L << doc;
+        }
+        out.writeVLong(docDeltas[0]);
+        for (int i = 0; i < numLongs; ++i) {
+          out.writeLong(bitSet[i]);
+        }
+        return;
+      }
+    }
+    pforUtil.encode(docDeltas, out);
+  }
+
+  /**
+   * Decode 128 doc deltas and apply prefix sum logic, like {@link PForUtil#decodeAndPrefixSum}.
+   * Returns {@code true} if the block was encoded as a bit set, in which case {@link
+   * #findFirstGreater} may be used to locate doc IDs within the block.
+   */
+  boolean decodeAndPrefixSum(DataInput in, long base, long[] docs) throws IOException {
+    if (denseBlocks) {
+      final int numLongs = in.readByte();
+      if (numLongs != 0) {
+        readBitSet(in, numLongs, base, docs);
+        return true;
+      }
+    }
+    pforUtil.decodeAndPrefixSum(in, base, docs);
+    return false;
+  }
+
+  private void readBitSet(DataInput in, int numLongs, long base, long[] docs) throws IOException {
+    if (numLongs < 0 || numLongs > MAX_BIT_SET_LONGS) {
+      throw new CorruptIndexException("Illegal number of longs: " + numLongs, in);
+    }
+    this.numLongs = numLongs;
+    firstDoc = base + in.readVLong();
+    in.readLongs(bitSet, 0, numLongs);
+    int cardinality = 0;
+    for (int i = 0; i < numLongs; ++i) {
+      cardinality += Long.bitCount(bitSet[i]);
+    }
+    if (cardinality != BLOCK_SIZE) {
+      throw new CorruptIndexException(
+          "Bit set blocks must have " + BLOCK_SIZE + " docs, got " + cardinality, in);
+    }
+    int upto = 0;
+    for (int i = 0; i < numLongs; ++i) {
+      final long wordBase = firstDoc + ((long) i << 6);
+      long word = bitSet[i];
+      while (word != 0) {
+        docs[upto++] = wordBase + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+      }
+    }
+  }
+
+  /**
+   * Return the index of the first doc that is greater than or equal to {@code target} in the last
+   * block that was decoded as a bit set, or {@link ForUtil#BLOCK_SIZE} if there is no such doc.
+   * This counts the bits that are set before the target rather than scanning doc IDs.
+   */
+  int findFirstGreater(int target) {
+    final long index = target - firstDoc;
+    if (index <= 0) {
+      return 0;
+    }
+    final int wordIndex = (int) (index >>> 6);
+    if (wordIndex >= numLongs) {
+      return BLOCK_SIZE;
+    }
+    int count = Long.bitCount(bitSet[wordIndex] & ((1L << index) - 1));
+    for (int i = 0; i < wordIndex; ++i) {
+      count += Long.bitCount(bitSet[i]);
+    }
+    return count;
+  }
+}
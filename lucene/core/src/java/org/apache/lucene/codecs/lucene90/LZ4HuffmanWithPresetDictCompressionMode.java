@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.compress.Huffman;
+import org.apache.lucene.util.compress.LZ4;
+
+/**
+ * A compression mode that entropy-codes the output of high-compression LZ4 with Huffman codes. It
+ * aims at a compression ratio that is close to {@link DeflateWithPresetDictCompressionMode} with
+ * faster decompression, at the cost of slower compression. Like the other modes, the first bytes of
+ * every block are used as a preset dictionary for its sub blocks, and all sub blocks of a block
+ * share the same Huffman codes.
+ *
+ * <p>This mode is not exposed through {@link Lucene90StoredFieldsFormat.Mode}: it decompresses only
+ * about 1.4x faster than {@link DeflateWithPresetDictCompressionMode}, with a worse compression
+ * ratio and slower compression.
+ *
+ * @lucene.internal
+ */
+public final class LZ4HuffmanWithPresetDictCompressionMode extends CompressionMode {
+
+  // Shoot for 10 sub blocks
+  private static final int NUM_SUB_BLOCKS = 10;
+  // And a dictionary whose size is about 6x smaller than sub blocks
+  private static final int DICT_SIZE_FACTOR = 6;
+  // Whether LZ4 streams are stored as-is or entropy-coded
+  private static final byte RAW = 0;
+  private static final byte HUFFMAN = 1;
+
+  /** Sole constructor. */
+  public LZ4HuffmanWithPresetDictCompressionMode() {}
+
+  @Override
+  public Compressor newCompressor() {
+    return new LZ4HuffmanWithPresetDictCompressor();
+  }
+
+  @Override
+  public Decompressor newDecompressor() {
+    return new LZ4HuffmanWithPresetDictDecompressor();
+  }
+
+  @Override
+  public String toString() {
+    return "LZ4_HUFFMAN";
+  }
+
+  private static final class LZ4HuffmanWithPresetDictDecompressor extends Decompressor {
+
+    private final Huffman huffman;
+    private final ByteArrayDataInput lz4In;
+    private boolean huffmanEncoded;
+    // LZ4 and encoded lengths of the dictionary and sub blocks, interleaved
+    private int[] compressedLengths;
+    private byte[] lz4Buffer;
+    private byte[] buffer;
+
+    LZ4HuffmanWithPresetDictDecompressor() {
+      huffman = new Huffman();
+      lz4In = new ByteArrayDataInput();
+      compressedLengths = new int[0];
+      lz4Buffer = new byte[0];
+      buffer = new byte[0];
+    }
+
+    private void readCompressedLengths(DataInput in, int block) throws IOException {
+      compressedLengths = ArrayUtil.grow(compressedLengths, 2 * block + 2);
+      compressedLengths[2 * block] = in.readVInt();
+      // Raw LZ4 streams don't record encoded lengths since they are the same
+      compressedLengths[2 * block + 1] =
+          huffmanEncoded ? in.readVInt() : compressedLengths[2 * block];
+    }
+
+    private int readCompressedLengths(
+        DataInput in, int originalLength, int dictLength, int blockLength) throws IOException {
+      readCompressedLengths(in, 0); // dictionary
+      int totalLength = dictLength;
+      int i = 0;
+      while (totalLength < originalLength) {
+        readCompressedLengths(in, ++i);
+        totalLength += blockLength;
+      }
+      return i;
+    }
+
+    /** Decode the Huffman codes if necessary and then the LZ4 stream of a sub block. */
+    private void decompressBlock(DataInput in, int block, int length, int dOff) throws IOException {
+      DataInput lz4In = in;
+      if (huffmanEncoded) {
+        final int lz4Length = compressedLengths[2 * block];
+        lz4Buffer = ArrayUtil.grow(lz4Buffer, lz4Length);
+        huffman.decode(in, compressedLengths[2 * block + 1], lz4Buffer, 0, lz4Length);
+        this.lz4In.reset(lz4Buffer, 0, lz4Length);
+        lz4In = this.lz4In;
+      }
+      if (LZ4.decompress(lz4In, length, buffer, dOff) < dOff + length) {
+        throw new CorruptIndexException("Illegal block length", in);
+      }
+    }
+
+    @Override
+    public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes)
+        throws IOException {
+      assert offset + length <= originalLength;
+
+      if (length == 0) {
+        bytes.length = 0;
+        return;
+      }
+
+      final int dictLength = in.readVInt();
+      final int blockLength = in.readVInt();
+      final byte encoding = in.readByte();
+      if (encoding == HUFFMAN) {
+        huffman.readCodes(in);
+      } else if (encoding != RAW) {
+        throw new CorruptIndexException("Illegal encoding: " + encoding, in);
+      }
+      huffmanEncoded = encoding == HUFFMAN;
+
+      final int numBlocks = readCompressedLengths(in, originalLength, dictLength, blockLength);
+
+      buffer = ArrayUtil.grow(buffer, dictLength + blockLength);
+      bytes.length = 0;
+      // Read the dictionary
+      decompressBlock(in, 0, dictLength, 0);
+
+      int offsetInBlock = dictLength;
+      int offsetInBytesRef = offset;
+      int block = 1;
+      if (offset >= dictLength) {
+        offsetInBytesRef -= dictLength;
+
+        // Skip unneeded blocks
+        long numBytesToSkip = 0;
+        for (; block <= numBlocks && offsetInBlock + blockLength < offset; ++block) {
+          numBytesToSkip += compressedLengths[2 * block + 1];
+          offsetInBlock += blockLength;
+          offsetInBytesRef -= blockLength;
+        }
+        in.skipBytes(numBytesToSkip);
+      } else {
+        // The dictionary contains some bytes we need, copy its content to the BytesRef
+        bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength);
+        System.arraycopy(buffer, 0, bytes.bytes, 0, dictLength);
+        bytes.length = dictLength;
+      }
+
+      // Read blocks that intersect with the interval we need
+      while (offsetInBlock < offset + length) {
+        final int bytesToDecompress = Math.min(blockLength, offset + length - offsetInBlock);
+        decompressBlock(in, block++, bytesToDecompress, dictLength);
+        bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + bytesToDecompress);
+        System.arraycopy(buffer, dictLength, bytes.bytes, bytes.length, bytesToDecompress);
+        bytes.length += bytesToDecompress;
+        offsetInBlock += blockLength;
+      }
+
+      bytes.offset = offsetInBytesRef;
+      bytes.length = length;
+      assert bytes.isValid();
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new LZ4HuffmanWithPresetDictDecompressor();
+    }
+  }
+
+  private static class LZ4HuffmanWithPresetDictCompressor extends Compressor {
+
+    final ByteBuffersDataOutput compressed;
+    final ByteBuffersDataOutput encoded;
+    final LZ4.HighCompressionHashTable hashTable;
+    final Huffman huffman;
+    final int[] histogram;
+    // LZ4 and Huffman-encoded lengths of the dictionary and sub blocks, interleaved
+    int[] compressedLengths;
+    byte[] buffer;
+
+    LZ4HuffmanWithPresetDictCompressor() {
+      compressed = ByteBuffersDataOutput.newResettableInstance();
+      encoded = ByteBuffersDataOutput.newResettableInstance();
+      hashTable = new LZ4.HighCompressionHashTable();
+      huffman = new Huffman();
+      histogram = new int[256];
+      compressedLengths = new int[0];
+      buffer = BytesRef.EMPTY_BYTES;
+    }
+
+    private void doCompress(byte[] bytes, int dictLen, int len, int block) throws IOException {
+      long prevCompressedSize = compressed.size();
+      LZ4.compressWithDictionary(bytes, 0, dictLen, len, compressed, hashTable);
+      compressedLengths = ArrayUtil.grow(compressedLengths, 2 * block + 2);
+      compressedLengths[2 * block] = Math.toIntExact(compressed.size() - prevCompressedSize);
+    }
+
+    @Override
+    public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      final int dictLength = len / (NUM_SUB_BLOCKS * DICT_SIZE_FACTOR);
+      final int blockLength = (len - dictLength + NUM_SUB_BLOCKS - 1) / NUM_SUB_BLOCKS;
+      buffer = ArrayUtil.grow(buffer, dictLength + blockLength);
+      out.writeVInt(dictLength);
+      out.writeVInt(blockLength);
+      final int end = off + len;
+
+      compressed.reset();
+      // Compress the dictionary first
+      System.arraycopy(bytes, off, buffer, 0, dictLength);
+      doCompress(buffer, 0, dictLength, 0);
+
+      // And then sub blocks
+      int numBlocks = 1;
+      for (int start = off + dictLength; start < end; start += blockLength) {
+        int l = Math.min(blockLength, off + len - start);
+        System.arraycopy(bytes, start, buffer, dictLength, l);
+        doCompress(buffer, dictLength, l, numBlocks++);
+      }
+
+      // Compute Huffman codes that are shared by all sub blocks, and encode sub blocks with them
+      // unless entropy coding doesn't make the data smaller, e.g. on small or random inputs
+      final byte[] lz4Bytes = compressed.toArrayCopy();
+      Arrays.fill(histogram, 0);
+      Huffman.updateHistogram(histogram, lz4Bytes, 0, lz4Bytes.length);
+      huffman.computeCodes(histogram);
+      encoded.reset();
+      if (huffman.encodedLength(histogram) < lz4Bytes.length) {
+        out.writeByte(HUFFMAN);
+        huffman.writeCodes(out);
+        for (int block = 0, lz4Offset = 0; block < numBlocks; ++block) {
+          final long prevEncodedSize = encoded.size();
+          final int lz4Length = compressedLengths[2 * block];
+          huffman.encode(lz4Bytes, lz4Offset, lz4Length, encoded);
+          compressedLengths[2 * block + 1] = Math.toIntExact(encoded.size() - prevEncodedSize);
+          lz4Offset += lz4Length;
+        }
+        // Write lengths first, and then encoded data
+        for (int i = 0; i < 2 * numBlocks; ++i) {
+          out.writeVInt(compressedLengths[i]);
+        }
+        encoded.copyTo(out);
+      } else {
+        out.writeByte(RAW);
+        for (int block = 0; block < numBlocks; ++block) {
+          out.writeVInt(compressedLengths[2 * block]);
+        }
+        out.writeBytes(lz4Bytes, lz4Bytes.length);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      // no-op
+    }
+  }
+}
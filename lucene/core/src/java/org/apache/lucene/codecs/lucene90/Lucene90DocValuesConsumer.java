@@ -19,6 +19,7 @@ package org.apache.lucene.codecs.lucene90;
 import static org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat.DIRECT_MONOTONIC_BLOCK_SHIFT;
 import static org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat.NUMERIC_BLOCK_SHIFT;
 import static org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat.NUMERIC_BLOCK_SIZE;
+import static org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat.SKIP_INDEX_INTERVAL_SIZE;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -45,6 +46,7 @@ import org.apache.lucene.search.SortedSetSelector;
 import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.store.ByteBuffersDataOutput;
 import org.apache.lucene.store.ByteBuffersIndexOutput;
+import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
@@ -62,6 +64,7 @@ final class Lucene90DocValuesConsumer extends DocValuesConsumer {
 
   IndexOutput data, meta;
   final int maxDoc;
+  private final boolean writeSkipIndex;
   private byte[] termsDictBuffer;
 
   /** expert: Creates a new writer */
@@ -70,9 +73,11 @@ final class Lucene90DocValuesConsumer extends DocValuesConsumer {
       String dataCodec,
       String dataExtension,
       String metaCodec,
-      String metaExtension)
+      String metaExtension,
+      boolean writeSkipIndex)
       throws IOException {
     this.termsDictBuffer = new byte[1 << 14];
+    this.writeSkipIndex = writeSkipIndex;
     boolean success = false;
     try {
       String dataName =
@@ -330,9 +335,76 @@ final class Lucene90DocValuesConsumer extends DocValuesConsumer {
     }
     meta.writeLong(data.getFilePointer() - startOffset); // valuesLength
     meta.writeLong(jumpTableOffset);
+    writeSkipIndex(valuesProducer.getSortedNumeric(field));
     return new long[] {numDocsWithValue, numValues};
   }
 
+  /** Accumulates the doc ID and value ranges of an interval of the skip index. */
+  private static class SkipAccumulator {
+    int minDocID, maxDocID, docCount;
+    long minValue, maxValue;
+
+    SkipAccumulator() {
+      reset();
+    }
+
+    private void reset() {
+      minDocID = -1;
+      maxDocID = -1;
+      docCount = 0;
+      minValue = Long.MAX_VALUE;
+      maxValue = Long.MIN_VALUE;
+    }
+
+    /** Accumulate a document whose values are between {@code min} and {@code max}. */
+    void accumulate(int docID, long min, long max) {
+      if (minDocID == -1) {
+        minDocID = docID;
+      }
+      maxDocID = docID;
+      minValue = Math.min(minValue, min);
+      maxValue = Math.max(maxValue, max);
+      ++docCount;
+    }
+
+    /** Write the interval and get ready for accumulating documents of the next interval. */
+    void nextInterval(DataOutput out) throws IOException {
+      out.writeInt(maxDocID);
+      out.writeInt(minDocID);
+      out.writeLong(maxValue);
+      out.writeLong(minValue);
+      out.writeInt(docCount);
+      reset();
+    }
+  }
+
+  private void writeSkipIndex(SortedNumericDocValues values) throws IOException {
+    if (writeSkipIndex == false) {
+      meta.writeLong(-1L); // skipIndexOffset
+      return;
+    }
+    long start = data.getFilePointer();
+    meta.writeLong(start); // skipIndexOffset
+    SkipAccumulator accumulator = new SkipAccumulator();
+    for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+      final int count = values.docValueCount();
+      // values are sorted
+      final long min = values.nextValue();
+      long max = min;
+      for (int i = 1; i < count; ++i) {
+        max = values.nextValue();
+      }
+      accumulator.accumulate(doc, min, max);
+      if (accumulator.docCount == SKIP_INDEX_INTERVAL_SIZE) {
+        accumulator.nextInterval(data);
+      }
+    }
+    if (accumulator.docCount > 0) {
+      accumulator.nextInterval(data);
+    }
+    meta.writeLong(data.getFilePointer() - start); // skipIndexLength
+  }
+
   private void writeValuesSingleBlock(
       SortedNumericDocValues values,
       long numValues,
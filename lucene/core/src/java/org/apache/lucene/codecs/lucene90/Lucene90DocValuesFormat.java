@@ -127,6 +127,15 @@ import org.apache.lucene.util.packed.DirectWriter;
  *       numeric strategies above.
  * </ul>
  *
+ * <p>Optionally, a skip index can be written for {@link DocValuesType#NUMERIC NUMERIC}, {@link
+ * DocValuesType#SORTED SORTED}, {@link DocValuesType#SORTED_SET SORTED_SET} and {@link
+ * DocValuesType#SORTED_NUMERIC SORTED_NUMERIC} fields, see {@link
+ * #Lucene90DocValuesFormat(boolean)}. Documents that have a value are split into intervals of 4096
+ * documents, and the skip index records the min and max doc IDs, the min and max values (ordinals
+ * for sorted fields) and the number of documents of every interval, which allows queries to skip or
+ * fully match intervals without looking at their values through a {@link
+ * org.apache.lucene.index.DocValuesSkipper}.
+ *
  * <p>Files:
  *
  * <ol>
@@ -138,15 +147,30 @@ import org.apache.lucene.util.packed.DirectWriter;
  */
 public final class Lucene90DocValuesFormat extends DocValuesFormat {
 
-  /** Default constructor. */
+  private final boolean writeSkipIndex;
+
+  /** Default constructor, which doesn't write skip indexes. */
   public Lucene90DocValuesFormat() {
+    this(false);
+  }
+
+  /**
+   * Creates a format that may write a skip index for the fields it writes. Skip indexes are
+   * recorded per field, so fields that need one may be configured via {@link
+   * org.apache.lucene.codecs.perfield.PerFieldDocValuesFormat}. Segments are readable regardless of
+   * this option.
+   *
+   * @param writeSkipIndex whether to write a skip index for all non-binary fields
+   */
+  public Lucene90DocValuesFormat(boolean writeSkipIndex) {
     super("Lucene90");
+    this.writeSkipIndex = writeSkipIndex;
   }
 
   @Override
   public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
     return new Lucene90DocValuesConsumer(
-        state, DATA_CODEC, DATA_EXTENSION, META_CODEC, META_EXTENSION);
+        state, DATA_CODEC, DATA_EXTENSION, META_CODEC, META_EXTENSION, writeSkipIndex);
   }
 
   @Override
@@ -160,7 +184,8 @@ public final class Lucene90DocValuesFormat extends DocValuesFormat {
   static final String META_CODEC = "Lucene90DocValuesMetadata";
   static final String META_EXTENSION = "dvm";
   static final int VERSION_START = 0;
-  static final int VERSION_CURRENT = VERSION_START;
+  static final int VERSION_SKIP_INDEX = 1;
+  static final int VERSION_CURRENT = VERSION_SKIP_INDEX;
 
   // indicates docvalues type
   static final byte NUMERIC = 0;
@@ -181,4 +206,8 @@ public final class Lucene90DocValuesFormat extends DocValuesFormat {
   static final int TERMS_DICT_REVERSE_INDEX_SHIFT = 10;
   static final int TERMS_DICT_REVERSE_INDEX_SIZE = 1 << TERMS_DICT_REVERSE_INDEX_SHIFT;
   static final int TERMS_DICT_REVERSE_INDEX_MASK = TERMS_DICT_REVERSE_INDEX_SIZE - 1;
+
+  static final int SKIP_INDEX_INTERVAL_SIZE = 4096;
+  // maxDocID, minDocID, maxValue, minValue, docCount
+  static final int SKIP_INDEX_INTERVAL_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
 }
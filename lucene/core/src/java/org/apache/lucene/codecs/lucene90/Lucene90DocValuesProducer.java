@@ -27,6 +27,7 @@ import org.apache.lucene.index.BaseTermsEnum;
 import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.ImpactsEnum;
@@ -39,6 +40,7 @@ import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.index.TermsEnum.SeekStatus;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.DataInput;
@@ -185,6 +187,14 @@ final class Lucene90DocValuesProducer extends DocValuesProducer {
     entry.valuesOffset = meta.readLong();
     entry.valuesLength = meta.readLong();
     entry.valueJumpTableOffset = meta.readLong();
+    if (version >= Lucene90DocValuesFormat.VERSION_SKIP_INDEX) {
+      entry.skipIndexOffset = meta.readLong();
+      if (entry.skipIndexOffset != -1) {
+        entry.skipIndexLength = meta.readLong();
+      }
+    } else {
+      entry.skipIndexOffset = -1;
+    }
   }
 
   private BinaryEntry readBinary(IndexInput meta) throws IOException {
@@ -301,6 +311,8 @@ final class Lucene90DocValuesProducer extends DocValuesProducer {
     long valuesOffset;
     long valuesLength;
     long valueJumpTableOffset; // -1 if no jump-table
+    long skipIndexOffset; // -1 if no skip index
+    long skipIndexLength;
   }
 
   private static class BinaryEntry {
@@ -1422,6 +1434,102 @@ final class Lucene90DocValuesProducer extends DocValuesProducer {
     };
   }
 
+  @Override
+  public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+    final NumericEntry entry;
+    switch (field.getDocValuesType()) {
+      case NUMERIC:
+        entry = numerics.get(field.name);
+        break;
+      case SORTED:
+        entry = sorted.get(field.name).ordsEntry;
+        break;
+      case SORTED_SET:
+        SortedSetEntry sortedSetEntry = sortedSets.get(field.name);
+        entry =
+            sortedSetEntry.singleValueEntry != null
+                ? sortedSetEntry.singleValueEntry.ordsEntry
+                : sortedSetEntry.ordsEntry;
+        break;
+      case SORTED_NUMERIC:
+        entry = sortedNumerics.get(field.name);
+        break;
+      case BINARY:
+      case NONE:
+      default:
+        return null;
+    }
+    if (entry.skipIndexOffset == -1) {
+      return null;
+    }
+
+    final RandomAccessInput slice =
+        data.randomAccessSlice(entry.skipIndexOffset, entry.skipIndexLength);
+    final long numIntervals =
+        entry.skipIndexLength / Lucene90DocValuesFormat.SKIP_INDEX_INTERVAL_BYTES;
+    return new DocValuesSkipper() {
+      long interval = -1;
+      int minDocID = -1;
+      int maxDocID = -1;
+      long minValue, maxValue;
+      int docCount;
+
+      @Override
+      public void advance(int target) throws IOException {
+        if (target <= maxDocID) {
+          return; // the current interval is still the first one that may contain the target
+        }
+        // binary search the first interval whose max doc ID is greater than or equal to the target
+        long lo = interval + 1;
+        long hi = numIntervals - 1;
+        while (lo <= hi) {
+          final long mid = (lo + hi) >>> 1;
+          if (slice.readInt(mid * Lucene90DocValuesFormat.SKIP_INDEX_INTERVAL_BYTES) < target) {
+            lo = mid + 1;
+          } else {
+            hi = mid - 1;
+          }
+        }
+        interval = lo;
+        if (interval >= numIntervals) {
+          minDocID = maxDocID = DocIdSetIterator.NO_MORE_DOCS;
+        } else {
+          long offset = interval * Lucene90DocValuesFormat.SKIP_INDEX_INTERVAL_BYTES;
+          maxDocID = slice.readInt(offset);
+          minDocID = slice.readInt(offset + Integer.BYTES);
+          maxValue = slice.readLong(offset + 2 * Integer.BYTES);
+          minValue = slice.readLong(offset + 2 * Integer.BYTES + Long.BYTES);
+          docCount = slice.readInt(offset + 2 * Integer.BYTES + 2 * Long.BYTES);
+        }
+      }
+
+      @Override
+      public int minDocID() {
+        return minDocID;
+      }
+
+      @Override
+      public int maxDocID() {
+        return maxDocID;
+      }
+
+      @Override
+      public long minValue() {
+        return minValue;
+      }
+
+      @Override
+      public long maxValue() {
+        return maxValue;
+      }
+
+      @Override
+      public int docCount() {
+        return docCount;
+      }
+    };
+  }
+
   @Override
   public void checkIntegrity() throws IOException {
     CodecUtil.checksumEntireFile(data);
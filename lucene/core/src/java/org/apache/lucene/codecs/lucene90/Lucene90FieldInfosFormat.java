@@ -29,6 +29,7 @@ import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.VectorEncoding;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.DataOutput;
@@ -105,6 +106,9 @@ import org.apache.lucene.store.IndexOutput;
  *         <li>1: EUCLIDEAN_HNSW distance. ({@link VectorSimilarityFunction#EUCLIDEAN})
  *         <li>2: DOT_PRODUCT_HNSW score. ({@link VectorSimilarityFunction#DOT_PRODUCT})
  *       </ul>
+ *   <li>VectorEncoding: a byte containing the encoding of vector values, the ordinal of the
+ *       {@link VectorEncoding}. Only written since {@code FORMAT_VECTOR_ENCODING}, fields of older
+ *       segments are read as {@link VectorEncoding#FLOAT32}.
  * </ul>
  *
  * @lucene.experimental
@@ -124,13 +128,14 @@ public final class Lucene90FieldInfosFormat extends FieldInfosFormat {
       Throwable priorE = null;
       FieldInfo[] infos = null;
       try {
-        CodecUtil.checkIndexHeader(
-            input,
-            Lucene90FieldInfosFormat.CODEC_NAME,
-            Lucene90FieldInfosFormat.FORMAT_START,
-            Lucene90FieldInfosFormat.FORMAT_CURRENT,
-            segmentInfo.getId(),
-            segmentSuffix);
+        int format =
+            CodecUtil.checkIndexHeader(
+                input,
+                Lucene90FieldInfosFormat.CODEC_NAME,
+                Lucene90FieldInfosFormat.FORMAT_START,
+                Lucene90FieldInfosFormat.FORMAT_CURRENT,
+                segmentInfo.getId(),
+                segmentSuffix);
 
         final int size = input.readVInt(); // read in the size
         infos = new FieldInfo[size];
@@ -173,6 +178,12 @@ public final class Lucene90FieldInfosFormat extends FieldInfosFormat {
           }
           final int vectorDimension = input.readVInt();
           final VectorSimilarityFunction vectorDistFunc = getDistFunc(input, input.readByte());
+          final VectorEncoding vectorEncoding;
+          if (format >= FORMAT_VECTOR_ENCODING) {
+            vectorEncoding = getVectorEncoding(input, input.readByte());
+          } else {
+            vectorEncoding = VectorEncoding.FLOAT32;
+          }
 
           try {
             infos[i] =
@@ -190,6 +201,7 @@ public final class Lucene90FieldInfosFormat extends FieldInfosFormat {
                     pointIndexDimensionCount,
                     pointNumBytes,
                     vectorDimension,
+                    vectorEncoding,
                     vectorDistFunc,
                     isSoftDeletesField);
             infos[i].checkConsistency();
@@ -260,6 +272,13 @@ public final class Lucene90FieldInfosFormat extends FieldInfosFormat {
     return VectorSimilarityFunction.values()[b];
   }
 
+  private static VectorEncoding getVectorEncoding(IndexInput input, byte b) throws IOException {
+    if (b < 0 || b >= VectorEncoding.values().length) {
+      throw new CorruptIndexException("invalid vector encoding: " + b, input);
+    }
+    return VectorEncoding.values()[b];
+  }
+
   static {
     // We "mirror" IndexOptions enum values with the constants below; let's try to ensure if we add
     // a new IndexOption while this format is
@@ -347,6 +366,7 @@ public final class Lucene90FieldInfosFormat extends FieldInfosFormat {
         }
         output.writeVInt(fi.getVectorDimension());
         output.writeByte((byte) fi.getVectorSimilarityFunction().ordinal());
+        output.writeByte((byte) fi.getVectorEncoding().ordinal());
       }
       CodecUtil.writeFooter(output);
     }
@@ -358,7 +378,8 @@ public final class Lucene90FieldInfosFormat extends FieldInfosFormat {
   // Codec header
   static final String CODEC_NAME = "Lucene90FieldInfos";
   static final int FORMAT_START = 0;
-  static final int FORMAT_CURRENT = FORMAT_START;
+  static final int FORMAT_VECTOR_ENCODING = 1;
+  static final int FORMAT_CURRENT = FORMAT_VECTOR_ENCODING;
 
   // Field flags
   static final byte STORE_TERMVECTOR = 0x1;
@@ -18,6 +18,7 @@
 package org.apache.lucene.codecs.lucene90;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 import org.apache.lucene.codecs.KnnVectorsFormat;
 import org.apache.lucene.codecs.KnnVectorsReader;
 import org.apache.lucene.codecs.KnnVectorsWriter;
@@ -93,19 +94,55 @@ public final class Lucene90HnswVectorsFormat extends KnnVectorsFormat {
    */
   private final int beamWidth;
 
+  /**
+   * The number of workers that concurrently insert nodes into the graph when it is built on flush
+   * or merge. Defaults to 1, which builds the graph on the indexing thread.
+   */
+  private final int numBuildWorkers;
+
+  /** The executor that runs the graph build workers, or {@code null} for single-threaded builds. */
+  private final ExecutorService buildExecutor;
+
   public Lucene90HnswVectorsFormat() {
     this(DEFAULT_MAX_CONN, DEFAULT_BEAM_WIDTH);
   }
 
   public Lucene90HnswVectorsFormat(int maxConn, int beamWidth) {
+    this(maxConn, beamWidth, 1, null);
+  }
+
+  /**
+   * Creates a format that builds graphs with several concurrent workers. Graphs built concurrently
+   * have similar quality to those built by a single thread, but are not repeatable since they
+   * depend on the order in which workers insert nodes.
+   *
+   * @param maxConn the maximum number of connections of a node in the graph
+   * @param beamWidth the size of the queue used while searching for the neighbors of a new node
+   * @param numBuildWorkers the number of workers inserting nodes into the graph concurrently
+   * @param buildExecutor the executor that runs the workers. It must be provided if {@code
+   *     numBuildWorkers} is greater than 1.
+   */
+  public Lucene90HnswVectorsFormat(
+      int maxConn, int beamWidth, int numBuildWorkers, ExecutorService buildExecutor) {
     super("Lucene90HnswVectorsFormat");
+    if (numBuildWorkers <= 0) {
+      throw new IllegalArgumentException(
+          "numBuildWorkers must be positive, got " + numBuildWorkers);
+    }
+    if (numBuildWorkers > 1 && buildExecutor == null) {
+      throw new IllegalArgumentException(
+          "an executor is required when building graphs with more than one worker");
+    }
     this.maxConn = maxConn;
     this.beamWidth = beamWidth;
+    this.numBuildWorkers = numBuildWorkers;
+    this.buildExecutor = buildExecutor;
   }
 
   @Override
   public KnnVectorsWriter fieldsWriter(SegmentWriteState state) throws IOException {
-    return new Lucene90HnswVectorsWriter(state, maxConn, beamWidth);
+    return new Lucene90HnswVectorsWriter(
+        state, maxConn, beamWidth, numBuildWorkers, buildExecutor);
   }
 
   @Override
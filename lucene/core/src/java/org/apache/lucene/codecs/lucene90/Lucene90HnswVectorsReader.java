@@ -35,6 +35,7 @@ import org.apache.lucene.index.KnnGraphValues;
 import org.apache.lucene.index.RandomAccessVectorValues;
 import org.apache.lucene.index.RandomAccessVectorValuesProducer;
 import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.VectorEncoding;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.index.VectorValues;
 import org.apache.lucene.search.ScoreDoc;
@@ -42,13 +43,17 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MemoryMappedIndexInput;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.VectorUtil;
 import org.apache.lucene.util.hnsw.HnswGraph;
 import org.apache.lucene.util.hnsw.NeighborQueue;
+import org.apache.lucene.util.hnsw.RandomVectorScorer;
 
 /**
  * Reads vectors from the index segments along with index data structures supporting KNN search.
@@ -128,7 +133,10 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
       throws IOException {
     String fileName =
         IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, fileExtension);
-    IndexInput in = state.directory.openInput(fileName, state.context);
+    // searches access vectors and the graph in random order
+    IndexInput in =
+        state.directory.openInput(
+            fileName, new IOContext(state.context, state.context.readOnce, true));
     int versionVectorData =
         CodecUtil.checkIndexHeader(
             in,
@@ -158,7 +166,7 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
         throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
       }
 
-      FieldEntry fieldEntry = readField(meta);
+      FieldEntry fieldEntry = readField(meta, info);
       validateFieldEntry(info, fieldEntry);
       fields.put(info.name, fieldEntry);
     }
@@ -176,7 +184,8 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
               + fieldEntry.dimension);
     }
 
-    long numBytes = (long) fieldEntry.size() * dimension * Float.BYTES;
+    int byteSize = fieldEntry.vectorEncoding.byteSize;
+    long numBytes = (long) fieldEntry.size() * dimension * byteSize;
     if (numBytes != fieldEntry.vectorDataLength) {
       throw new IllegalStateException(
           "Vector data length "
@@ -185,7 +194,9 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
               + fieldEntry.size()
               + " * dim="
               + dimension
-              + " * 4 = "
+              + " * "
+              + byteSize
+              + " = "
               + numBytes);
     }
   }
@@ -200,9 +211,9 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
     return VectorSimilarityFunction.values()[similarityFunctionId];
   }
 
-  private FieldEntry readField(DataInput input) throws IOException {
+  private FieldEntry readField(DataInput input, FieldInfo info) throws IOException {
     VectorSimilarityFunction similarityFunction = readSimilarityFunction(input);
-    return new FieldEntry(input, similarityFunction);
+    return new FieldEntry(input, similarityFunction, info.getVectorEncoding());
   }
 
   @Override
@@ -234,7 +245,8 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
   }
 
   @Override
-  public TopDocs search(String field, float[] target, int k, Bits acceptDocs) throws IOException {
+  public TopDocs search(String field, float[] target, int k, Bits acceptDocs, int visitedLimit)
+      throws IOException {
     FieldEntry fieldEntry = fields.get(field);
     if (fieldEntry == null || fieldEntry.dimension == 0) {
       return null;
@@ -246,13 +258,13 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
     final SplittableRandom random = new SplittableRandom(checksumSeed);
     NeighborQueue results =
         HnswGraph.search(
-            target,
+            vectorValues.scorer(target),
             k,
             k,
-            vectorValues,
-            fieldEntry.similarityFunction,
+            fieldEntry.similarityFunction.reversed,
             getGraphValues(fieldEntry),
             getAcceptOrds(acceptDocs, fieldEntry),
+            visitedLimit,
             random);
     int i = 0;
     ScoreDoc[] scoreDocs = new ScoreDoc[Math.min(results.size(), k)];
@@ -262,11 +274,11 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
       results.pop();
       scoreDocs[scoreDocs.length - ++i] = new ScoreDoc(fieldEntry.ordToDoc[node], score);
     }
-    // always return >= the case where we can assert == is only when there are fewer than topK
-    // vectors in the index
-    return new TopDocs(
-        new TotalHits(results.visitedCount(), TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO),
-        scoreDocs);
+    TotalHits.Relation relation =
+        results.incomplete()
+            ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO
+            : TotalHits.Relation.EQUAL_TO;
+    return new TopDocs(new TotalHits(results.visitedCount(), relation), scoreDocs);
   }
 
   private OffHeapVectorValues getOffHeapVectorValues(FieldEntry fieldEntry) throws IOException {
@@ -320,6 +332,7 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
 
     final int dimension;
     final VectorSimilarityFunction similarityFunction;
+    final VectorEncoding vectorEncoding;
 
     final long vectorDataOffset;
     final long vectorDataLength;
@@ -328,8 +341,13 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
     final int[] ordToDoc;
     final long[] ordOffsets;
 
-    FieldEntry(DataInput input, VectorSimilarityFunction similarityFunction) throws IOException {
+    FieldEntry(
+        DataInput input,
+        VectorSimilarityFunction similarityFunction,
+        VectorEncoding vectorEncoding)
+        throws IOException {
       this.similarityFunction = similarityFunction;
+      this.vectorEncoding = vectorEncoding;
       vectorDataOffset = input.readVLong();
       vectorDataLength = input.readVLong();
       indexDataOffset = input.readVLong();
@@ -372,7 +390,7 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
     OffHeapVectorValues(FieldEntry fieldEntry, IndexInput dataIn) {
       this.fieldEntry = fieldEntry;
       this.dataIn = dataIn;
-      byteSize = Float.BYTES * fieldEntry.dimension;
+      byteSize = fieldEntry.vectorEncoding.byteSize * fieldEntry.dimension;
       byteBuffer = ByteBuffer.allocate(byteSize);
       value = new float[fieldEntry.dimension];
       binaryValue = new BytesRef(byteBuffer.array(), byteBuffer.arrayOffset(), byteSize);
@@ -390,9 +408,7 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
 
     @Override
     public float[] vectorValue() throws IOException {
-      dataIn.seek((long) ord * byteSize);
-      dataIn.readFloats(value, 0, value.length);
-      return value;
+      return vectorValue(ord);
     }
 
     @Override
@@ -443,8 +459,43 @@ public final class Lucene90HnswVectorsReader extends KnnVectorsReader {
       return new OffHeapVectorValues(fieldEntry, dataIn.clone());
     }
 
+    /**
+     * Returns a scorer of the target against the vectors of the given ordinals. Byte vectors are
+     * compared to the target with integer arithmetic. Memory-mapped float vectors are compared to
+     * the target directly against the mapped bytes, without decoding them to a float[] first.
+     */
+    RandomVectorScorer scorer(float[] target) {
+      VectorSimilarityFunction similarityFunction = fieldEntry.similarityFunction;
+      if (fieldEntry.vectorEncoding == VectorEncoding.BYTE) {
+        BytesRef byteTarget = VectorUtil.toBytesRef(target);
+        return node -> similarityFunction.compare(byteTarget, binaryValue(node));
+      }
+      if (dataIn instanceof MemoryMappedIndexInput) {
+        MemoryMappedIndexInput mappedIn = (MemoryMappedIndexInput) dataIn;
+        return node -> {
+          ByteBuffer view = mappedIn.viewOrNull((long) node * byteSize, byteSize);
+          if (view == null) {
+            // the vector cannot be viewed in place, eg. it spans two mapped chunks
+            return similarityFunction.compare(target, vectorValue(node));
+          }
+          return similarityFunction.compare(target, view);
+        };
+      }
+      return node -> similarityFunction.compare(target, vectorValue(node));
+    }
+
     @Override
     public float[] vectorValue(int targetOrd) throws IOException {
+      if (fieldEntry.vectorEncoding == VectorEncoding.BYTE) {
+        // widen the bytes to floats
+        readValue(targetOrd);
+        byte[] bytes = byteBuffer.array();
+        int offset = byteBuffer.arrayOffset();
+        for (int i = 0; i < value.length; i++) {
+          value[i] = bytes[offset + i];
+        }
+        return value;
+      }
       dataIn.seek((long) targetOrd * byteSize);
       dataIn.readFloats(value, 0, value.length);
       return value;
@@ -21,16 +21,24 @@ import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
 import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.KnnVectorsReader;
 import org.apache.lucene.codecs.KnnVectorsWriter;
+import org.apache.lucene.codecs.perfield.PerFieldKnnVectorsFormat;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.KnnGraphValues;
+import org.apache.lucene.index.MergeState;
+import org.apache.lucene.index.RandomAccessVectorValues;
 import org.apache.lucene.index.RandomAccessVectorValuesProducer;
 import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.VectorEncoding;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.index.VectorValues;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.hnsw.HnswGraph;
 import org.apache.lucene.util.hnsw.HnswGraphBuilder;
@@ -48,12 +56,21 @@ public final class Lucene90HnswVectorsWriter extends KnnVectorsWriter {
 
   private final int maxConn;
   private final int beamWidth;
+  private final int numBuildWorkers;
+  private final ExecutorService buildExecutor;
   private boolean finished;
 
-  Lucene90HnswVectorsWriter(SegmentWriteState state, int maxConn, int beamWidth)
+  Lucene90HnswVectorsWriter(
+      SegmentWriteState state,
+      int maxConn,
+      int beamWidth,
+      int numBuildWorkers,
+      ExecutorService buildExecutor)
       throws IOException {
     this.maxConn = maxConn;
     this.beamWidth = beamWidth;
+    this.numBuildWorkers = numBuildWorkers;
+    this.buildExecutor = buildExecutor;
 
     assert state.fieldInfos.hasVectorValues();
     segmentWriteState = state;
@@ -108,6 +125,74 @@ public final class Lucene90HnswVectorsWriter extends KnnVectorsWriter {
 
   @Override
   public void writeField(FieldInfo fieldInfo, VectorValues vectors) throws IOException {
+    writeField(fieldInfo, vectors, null);
+  }
+
+  @Override
+  public void mergeOneField(FieldInfo fieldInfo, MergeState mergeState) throws IOException {
+    GraphInitializer initializer = selectGraphInitializer(fieldInfo, mergeState);
+    if (initializer != null && mergeState.infoStream.isEnabled("VV")) {
+      mergeState.infoStream.message(
+          "VV",
+          "initialize graph of field "
+              + fieldInfo.name
+              + " from segment "
+              + initializer.segment
+              + " with "
+              + initializer.docs.length
+              + " vectors");
+    }
+    writeField(fieldInfo, mergeVectorValues(fieldInfo, mergeState), initializer);
+  }
+
+  /**
+   * Selects the largest segment being merged whose graph may be reused to seed the merged graph.
+   * Its graph must have been written by this format, and the segment must have no deletions so
+   * that all of its nodes survive the merge. Returns null if there is no such segment.
+   */
+  private static GraphInitializer selectGraphInitializer(
+      FieldInfo fieldInfo, MergeState mergeState) throws IOException {
+    int segment = -1;
+    int segmentSize = 0;
+    Lucene90HnswVectorsReader segmentReader = null;
+    for (int i = 0; i < mergeState.knnVectorsReaders.length; i++) {
+      KnnVectorsReader reader = mergeState.knnVectorsReaders[i];
+      if (reader instanceof PerFieldKnnVectorsFormat.FieldsReader) {
+        reader = ((PerFieldKnnVectorsFormat.FieldsReader) reader).getFieldReader(fieldInfo.name);
+      }
+      if (reader instanceof Lucene90HnswVectorsReader == false
+          || mergeState.liveDocs[i] != null) {
+        continue;
+      }
+      VectorValues values = reader.getVectorValues(fieldInfo.name);
+      if (values != null && values.size() > segmentSize) {
+        segment = i;
+        segmentSize = values.size();
+        segmentReader = (Lucene90HnswVectorsReader) reader;
+      }
+    }
+    if (segment == -1) {
+      return null;
+    }
+    KnnGraphValues graph = segmentReader.getGraphValues(fieldInfo.name);
+    if (graph.size() != segmentSize) {
+      return null;
+    }
+    // nodes of the graph are the ordinals of the segment's vectors, which are in doc id order
+    int[] docs = new int[segmentSize];
+    VectorValues values = segmentReader.getVectorValues(fieldInfo.name);
+    MergeState.DocMap docMap = mergeState.docMaps[segment];
+    int ord = 0;
+    for (int doc = values.nextDoc(); doc != NO_MORE_DOCS; doc = values.nextDoc()) {
+      docs[ord++] = docMap.get(doc);
+      assert docs[ord - 1] != -1 : "document " + doc + " was deleted";
+    }
+    assert ord == segmentSize;
+    return new GraphInitializer(segment, graph, docs);
+  }
+
+  private void writeField(FieldInfo fieldInfo, VectorValues vectors, GraphInitializer initializer)
+      throws IOException {
     long pos = vectorData.getFilePointer();
     // write floats aligned at 4 bytes. This will not survive CFS, but it shows a small benefit when
     // CFS is not used, eg for larger indexes
@@ -121,7 +206,7 @@ public final class Lucene90HnswVectorsWriter extends KnnVectorsWriter {
     int count = 0;
     for (int docV = vectors.nextDoc(); docV != NO_MORE_DOCS; docV = vectors.nextDoc(), count++) {
       // write vector
-      writeVectorValue(vectors);
+      writeVectorValue(vectors, fieldInfo.getVectorEncoding());
       docIds[count] = docV;
     }
     // count may be < vectors.size() e,g, if some documents were deleted
@@ -135,9 +220,9 @@ public final class Lucene90HnswVectorsWriter extends KnnVectorsWriter {
           fieldInfo.getVectorSimilarityFunction(),
           vectorIndexOffset,
           offsets,
+          docIds,
           count,
-          maxConn,
-          beamWidth);
+          initializer);
     } else {
       throw new IllegalArgumentException(
           "Indexing an HNSW graph requires a random access vector values, got " + vectors);
@@ -177,10 +262,10 @@ public final class Lucene90HnswVectorsWriter extends KnnVectorsWriter {
     }
   }
 
-  private void writeVectorValue(VectorValues vectors) throws IOException {
+  private void writeVectorValue(VectorValues vectors, VectorEncoding encoding) throws IOException {
     // write vector value
     BytesRef binaryValue = vectors.binaryValue();
-    assert binaryValue.length == vectors.dimension() * Float.BYTES;
+    assert binaryValue.length == vectors.dimension() * encoding.byteSize;
     vectorData.writeBytes(binaryValue.bytes, binaryValue.offset, binaryValue.length);
   }
 
@@ -198,25 +283,48 @@ public final class Lucene90HnswVectorsWriter extends KnnVectorsWriter {
       VectorSimilarityFunction similarityFunction,
       long graphDataOffset,
       long[] offsets,
+      int[] docIds,
       int count,
-      int maxConn,
-      int beamWidth)
+      GraphInitializer initializer)
       throws IOException {
+    // the graph's nodes are the vectors' ordinals, unless it is seeded from an initializer graph,
+    // whose nodes come first
+    int[] graphOrdToOrd = null, ordToGraphOrd = null;
+    RandomAccessVectorValuesProducer graphVectors = vectorValues;
+    if (initializer != null) {
+      graphOrdToOrd = initializer.mapOrdinals(docIds, count);
+      ordToGraphOrd = new int[count];
+      for (int graphOrd = 0; graphOrd < count; graphOrd++) {
+        ordToGraphOrd[graphOrdToOrd[graphOrd]] = graphOrd;
+      }
+      graphVectors = new ReorderedVectorValues(vectorValues, graphOrdToOrd);
+    }
+    // byte vectors are widened to floats to build the graph: their float similarities are ordered
+    // like their integer similarities, which is all that graph construction depends on
     HnswGraphBuilder hnswGraphBuilder =
         new HnswGraphBuilder(
-            vectorValues, similarityFunction, maxConn, beamWidth, HnswGraphBuilder.randSeed);
+            graphVectors, similarityFunction, maxConn, beamWidth, HnswGraphBuilder.randSeed);
     hnswGraphBuilder.setInfoStream(segmentWriteState.infoStream);
-    HnswGraph graph = hnswGraphBuilder.build(vectorValues.randomAccess());
+    if (initializer != null) {
+      hnswGraphBuilder.initializeFromGraph(initializer.graph);
+    }
+    HnswGraph graph = hnswGraphBuilder.build(graphVectors, buildExecutor, numBuildWorkers);
 
     for (int ord = 0; ord < count; ord++) {
       // write graph
       offsets[ord] = graphData.getFilePointer() - graphDataOffset;
 
-      NeighborArray neighbors = graph.getNeighbors(ord);
+      int graphOrd = ordToGraphOrd == null ? ord : ordToGraphOrd[ord];
+      NeighborArray neighbors = graph.getNeighbors(graphOrd);
       int size = neighbors.size();
 
       // Destructively modify; it's ok we are discarding it after this
       int[] nodes = neighbors.node();
+      if (graphOrdToOrd != null) {
+        for (int i = 0; i < size; i++) {
+          nodes[i] = graphOrdToOrd[nodes[i]];
+        }
+      }
       Arrays.sort(nodes, 0, size);
       graphData.writeInt(size);
 
@@ -253,4 +361,83 @@ public final class Lucene90HnswVectorsWriter extends KnnVectorsWriter {
   public void close() throws IOException {
     IOUtils.close(meta, vectorData, vectorIndex);
   }
+
+  /** The graph of a segment being merged, used to seed the graph of the merged segment. */
+  private static class GraphInitializer {
+
+    final int segment;
+    final KnnGraphValues graph;
+    // for each node of the graph, the doc id of its vector in the merged segment
+    final int[] docs;
+
+    GraphInitializer(int segment, KnnGraphValues graph, int[] docs) {
+      this.segment = segment;
+      this.graph = graph;
+      this.docs = docs;
+    }
+
+    /**
+     * Maps the ordinals of the graph being built to the ordinals of the merged vectors. The nodes
+     * of the initializer graph keep their ordinals, and the other vectors follow in ordinal order.
+     *
+     * @param docIds the doc ids of the merged vectors, in ordinal order
+     * @param count the number of merged vectors
+     */
+    int[] mapOrdinals(int[] docIds, int count) {
+      int[] graphOrdToOrd = new int[count];
+      FixedBitSet initialized = new FixedBitSet(count);
+      for (int node = 0; node < docs.length; node++) {
+        int ord = Arrays.binarySearch(docIds, 0, count, docs[node]);
+        assert ord >= 0 : "document " + docs[node] + " has no vector";
+        graphOrdToOrd[node] = ord;
+        initialized.set(ord);
+      }
+      int graphOrd = docs.length;
+      for (int ord = 0; ord < count; ord++) {
+        if (initialized.get(ord) == false) {
+          graphOrdToOrd[graphOrd++] = ord;
+        }
+      }
+      assert graphOrd == count;
+      return graphOrdToOrd;
+    }
+  }
+
+  /** Exposes vectors in the order of the nodes of the graph being built. */
+  private static class ReorderedVectorValues implements RandomAccessVectorValuesProducer {
+
+    private final RandomAccessVectorValuesProducer in;
+    private final int[] graphOrdToOrd;
+
+    ReorderedVectorValues(RandomAccessVectorValuesProducer in, int[] graphOrdToOrd) {
+      this.in = in;
+      this.graphOrdToOrd = graphOrdToOrd;
+    }
+
+    @Override
+    public RandomAccessVectorValues randomAccess() {
+      RandomAccessVectorValues values = in.randomAccess();
+      return new RandomAccessVectorValues() {
+        @Override
+        public int size() {
+          return graphOrdToOrd.length;
+        }
+
+        @Override
+        public int dimension() {
+          return values.dimension();
+        }
+
+        @Override
+        public float[] vectorValue(int targetOrd) throws IOException {
+          return values.vectorValue(graphOrdToOrd[targetOrd]);
+        }
+
+        @Override
+        public BytesRef binaryValue(int targetOrd) throws IOException {
+          return values.binaryValue(graphOrdToOrd[targetOrd]);
+        }
+      };
+    }
+  }
 }
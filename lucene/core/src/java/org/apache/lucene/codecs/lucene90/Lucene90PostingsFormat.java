@@ -161,10 +161,17 @@ import org.apache.lucene.util.packed.PackedInts;
  *       IndexOptions#DOCS}). It also saves skip data to the beginning of each packed or VInt block,
  *       when the length of document list is larger than packed block size.
  *       <ul>
- *         <li>docFile(.doc) --&gt; Header, &lt;TermFreqs, SkipData?&gt;<sup>TermCount</sup>, Footer
+ *         <li>docFile(.doc) --&gt; Header, DenseBlocks, &lt;TermFreqs,
+ *             SkipData?&gt;<sup>TermCount</sup>, Footer
  *         <li>Header --&gt; {@link CodecUtil#writeIndexHeader IndexHeader}
+ *         <li>DenseBlocks --&gt; {@link DataOutput#writeByte Byte}
  *         <li>TermFreqs --&gt; &lt;PackedBlock&gt; <sup>PackedDocBlockNum</sup>, VIntBlock?
- *         <li>PackedBlock --&gt; PackedDocDeltaBlock, PackedFreqBlock?
+ *         <li>PackedBlock --&gt; BitSetLength?, (PackedDocDeltaBlock | DenseDocBlock),
+ *             PackedFreqBlock?
+ *         <li>DenseDocBlock --&gt; FirstDocDelta, DocBits<sup>BitSetLength</sup>
+ *         <li>BitSetLength --&gt; {@link DataOutput#writeByte Byte}
+ *         <li>FirstDocDelta --&gt; {@link DataOutput#writeVLong VLong}
+ *         <li>DocBits --&gt; {@link DataOutput#writeLong Long}
  *         <li>VIntBlock --&gt; &lt;DocDelta[,
  *             Freq?]&gt;<sup>DocFreq-PackedBlockSize*PackedDocBlockNum</sup>
  *         <li>SkipData --&gt; &lt;&lt;SkipLevelLength, SkipLevel&gt; <sup>NumSkipLevels-1</sup>,
@@ -193,6 +200,12 @@ import org.apache.lucene.util.packed.PackedInts;
  *                   blocks.
  *             </ol>
  *             If frequencies are not omitted, PackedFreqBlock will be generated without d-gap step.
+ *         <li>DenseBlocks is 1 if the segment was written with dense blocks enabled, and 0
+ *             otherwise. When it is 1, every PackedBlock starts with BitSetLength, which is 0 if
+ *             doc deltas are stored in a PackedDocDeltaBlock, or the number of longs of a
+ *             DenseDocBlock otherwise. A DenseDocBlock stores the d-gap of the first document of
+ *             the block, followed by a bit set of the documents of the block relative to the first
+ *             one.
  *         <li>VIntBlock stores remaining d-gaps (along with frequencies when possible) with a
  *             format that encodes DocDelta and Freq:
  *             <p>DocDelta: if frequencies are indexed, this determines both the document number and
@@ -371,10 +384,12 @@ public final class Lucene90PostingsFormat extends PostingsFormat {
 
   // Increment version to change it
   static final int VERSION_START = 0;
-  static final int VERSION_CURRENT = VERSION_START;
+  static final int VERSION_DENSE_BLOCKS = 1;
+  static final int VERSION_CURRENT = VERSION_DENSE_BLOCKS;
 
   private final int minTermBlockSize;
   private final int maxTermBlockSize;
+  private final boolean writeDenseBlocksAsBitSets;
 
   /** Creates {@code Lucene90PostingsFormat} with default settings. */
   public Lucene90PostingsFormat() {
@@ -391,10 +406,27 @@ public final class Lucene90PostingsFormat extends PostingsFormat {
    *     Lucene90BlockTreeTermsWriter#Lucene90BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int)
    */
   public Lucene90PostingsFormat(int minTermBlockSize, int maxTermBlockSize) {
+    this(minTermBlockSize, maxTermBlockSize, false);
+  }
+
+  /**
+   * Creates {@code Lucene90PostingsFormat} with custom values for {@code minBlockSize} and {@code
+   * maxBlockSize} passed to block terms dictionary, and optionally encodes dense blocks of doc IDs
+   * as bit sets. Bit sets are only used for packed blocks whose doc IDs have a density of 1/8 or
+   * more and when they are not larger than the packed doc deltas. They make the postings of very
+   * frequent terms faster to decode and to advance, at the cost of one additional byte per packed
+   * block.
+   *
+   * @see
+   *     Lucene90BlockTreeTermsWriter#Lucene90BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int)
+   */
+  public Lucene90PostingsFormat(
+      int minTermBlockSize, int maxTermBlockSize, boolean writeDenseBlocksAsBitSets) {
     super("Lucene90");
     Lucene90BlockTreeTermsWriter.validateSettings(minTermBlockSize, maxTermBlockSize);
     this.minTermBlockSize = minTermBlockSize;
     this.maxTermBlockSize = maxTermBlockSize;
+    this.writeDenseBlocksAsBitSets = writeDenseBlocksAsBitSets;
   }
 
   @Override
@@ -404,7 +436,8 @@ public final class Lucene90PostingsFormat extends PostingsFormat {
 
   @Override
   public FieldsConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
-    PostingsWriterBase postingsWriter = new Lucene90PostingsWriter(state);
+    PostingsWriterBase postingsWriter =
+        new Lucene90PostingsWriter(state, writeDenseBlocksAsBitSets);
     boolean success = false;
     try {
       FieldsConsumer ret =
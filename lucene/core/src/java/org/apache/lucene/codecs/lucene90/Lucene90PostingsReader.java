@@ -23,6 +23,7 @@ import static org.apache.lucene.codecs.lucene90.Lucene90PostingsFormat.PAY_CODEC
 import static org.apache.lucene.codecs.lucene90.Lucene90PostingsFormat.POS_CODEC;
 import static org.apache.lucene.codecs.lucene90.Lucene90PostingsFormat.TERMS_CODEC;
 import static org.apache.lucene.codecs.lucene90.Lucene90PostingsFormat.VERSION_CURRENT;
+import static org.apache.lucene.codecs.lucene90.Lucene90PostingsFormat.VERSION_DENSE_BLOCKS;
 import static org.apache.lucene.codecs.lucene90.Lucene90PostingsFormat.VERSION_START;
 
 import java.io.IOException;
@@ -39,6 +40,7 @@ import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.index.SlowImpactsEnum;
+import org.apache.lucene.search.DocAndFreqBuffer;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.util.ArrayUtil;
@@ -58,6 +60,7 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
   private final IndexInput payIn;
 
   private final int version;
+  private final boolean denseBlocks;
 
   /** Sole constructor. */
   public Lucene90PostingsReader(SegmentReadState state) throws IOException {
@@ -84,6 +87,11 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
               VERSION_CURRENT,
               state.segmentInfo.getId(),
               state.segmentSuffix);
+      if (version >= VERSION_DENSE_BLOCKS) {
+        denseBlocks = docIn.readByte() != 0;
+      } else {
+        denseBlocks = false;
+      }
       CodecUtil.retrieveChecksum(docIn);
 
       if (state.fieldInfos.hasProx()) {
@@ -307,11 +315,13 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
   final class BlockDocsEnum extends PostingsEnum {
 
     final PForUtil pforUtil = new PForUtil(new ForUtil());
+    final DocBlockUtil docBlockUtil = new DocBlockUtil(pforUtil, denseBlocks);
 
     private final long[] docBuffer = new long[BLOCK_SIZE + 1];
     private final long[] freqBuffer = new long[BLOCK_SIZE];
 
     private int docBufferUpto;
+    private boolean bitSetBlock; // whether the buffered block was encoded as a bit set
 
     private Lucene90SkipReader skipper;
     private boolean skipped;
@@ -452,7 +462,7 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
       assert left >= 0;
 
       if (left >= BLOCK_SIZE) {
-        pforUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
+        bitSetBlock = docBlockUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
 
         if (indexHasFreq) {
           if (needsFreq) {
@@ -463,11 +473,13 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
         }
         blockUpto += BLOCK_SIZE;
       } else if (docFreq == 1) {
+        bitSetBlock = false;
         docBuffer[0] = singletonDocID;
         freqBuffer[0] = totalTermFreq;
         docBuffer[1] = NO_MORE_DOCS;
         blockUpto++;
       } else {
+        bitSetBlock = false;
         // Read vInts:
         readVIntBlock(docIn, docBuffer, freqBuffer, left, indexHasFreq);
         prefixSum(docBuffer, left, accum);
@@ -538,6 +550,11 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
         refillDocs();
       }
 
+      if (bitSetBlock) {
+        // Count the docs before the target rather than scanning them
+        docBufferUpto = Math.max(docBufferUpto, docBlockUtil.findFirstGreater(target));
+      }
+
       // Now scan... this is an inlined/pared down version
       // of nextDoc():
       long doc;
@@ -554,6 +571,38 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
       return this.doc = (int) doc;
     }
 
+    @Override
+    public void nextPostings(int upTo, DocAndFreqBuffer buffer) throws IOException {
+      assert doc != -1;
+      if (doc >= upTo) {
+        buffer.size = 0;
+        return;
+      }
+
+      // Copy postings from the current doc to the end of the buffered block or upTo, whichever
+      // comes first. The NO_MORE_DOCS sentinel after the last buffered doc stops the scan.
+      final int start = docBufferUpto - 1;
+      int end = docBufferUpto;
+      while (docBuffer[end] < upTo) {
+        ++end;
+      }
+      if (isFreqsRead == false) {
+        pforUtil.decode(docIn, freqBuffer); // read freqBuffer for this block
+        isFreqsRead = true;
+      }
+      final int size = end - start;
+      buffer.growNoCopy(size);
+      for (int i = 0; i < size; ++i) {
+        buffer.docs[i] = (int) docBuffer[start + i];
+        buffer.freqs[i] = (int) freqBuffer[start + i];
+      }
+      buffer.size = size;
+
+      docBufferUpto = end;
+      doc = buffer.docs[size - 1];
+      nextDoc();
+    }
+
     @Override
     public long cost() {
       return docFreq;
@@ -564,6 +613,7 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
   final class EverythingEnum extends PostingsEnum {
 
     final PForUtil pforUtil = new PForUtil(new ForUtil());
+    final DocBlockUtil docBlockUtil = new DocBlockUtil(pforUtil, denseBlocks);
 
     private final long[] docBuffer = new long[BLOCK_SIZE + 1];
     private final long[] freqBuffer = new long[BLOCK_SIZE + 1];
@@ -751,7 +801,7 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
       assert left >= 0;
 
       if (left >= BLOCK_SIZE) {
-        pforUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
+        docBlockUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
         pforUtil.decode(docIn, freqBuffer);
         blockUpto += BLOCK_SIZE;
       } else if (docFreq == 1) {
@@ -1048,11 +1098,13 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
   final class BlockImpactsDocsEnum extends ImpactsEnum {
 
     final PForUtil pforUtil = new PForUtil(new ForUtil());
+    final DocBlockUtil docBlockUtil = new DocBlockUtil(pforUtil, denseBlocks);
 
     private final long[] docBuffer = new long[BLOCK_SIZE + 1];
     private final long[] freqBuffer = new long[BLOCK_SIZE];
 
     private int docBufferUpto;
+    private boolean bitSetBlock; // whether the buffered block was encoded as a bit set
 
     private final Lucene90ScoreSkipReader skipper;
 
@@ -1141,12 +1193,13 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
       assert left >= 0;
 
       if (left >= BLOCK_SIZE) {
-        pforUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
+        bitSetBlock = docBlockUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
         if (indexHasFreqs) {
           pforUtil.decode(docIn, freqBuffer);
         }
         blockUpto += BLOCK_SIZE;
       } else {
+        bitSetBlock = false;
         readVIntBlock(docIn, docBuffer, freqBuffer, left, indexHasFreqs);
         prefixSum(docBuffer, left, accum);
         docBuffer[left] = NO_MORE_DOCS;
@@ -1206,12 +1259,51 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
         refillDocs();
       }
 
-      int next = findFirstGreater(docBuffer, target, docBufferUpto);
+      int next;
+      if (bitSetBlock) {
+        // Count the docs before the target rather than scanning them
+        next = Math.max(docBufferUpto, docBlockUtil.findFirstGreater(target));
+      } else {
+        next = findFirstGreater(docBuffer, target, docBufferUpto);
+      }
       this.doc = (int) docBuffer[next];
       docBufferUpto = next + 1;
       return doc;
     }
 
+    @Override
+    public void nextPostings(int upTo, DocAndFreqBuffer buffer) throws IOException {
+      assert doc != -1;
+      assert seekTo == -1 : "the block of the current doc was skipped by advanceShallow";
+      if (doc >= upTo) {
+        buffer.size = 0;
+        return;
+      }
+
+      // Copy postings from the current doc to the end of the buffered block or upTo, whichever
+      // comes first. The NO_MORE_DOCS sentinel after the last buffered doc stops the scan.
+      final int start = docBufferUpto - 1;
+      int end = docBufferUpto;
+      while (docBuffer[end] < upTo) {
+        ++end;
+      }
+      if (isFreqsRead == false) {
+        pforUtil.decode(docIn, freqBuffer); // read freqBuffer for this block
+        isFreqsRead = true;
+      }
+      final int size = end - start;
+      buffer.growNoCopy(size);
+      for (int i = 0; i < size; ++i) {
+        buffer.docs[i] = (int) docBuffer[start + i];
+        buffer.freqs[i] = (int) freqBuffer[start + i];
+      }
+      buffer.size = size;
+
+      docBufferUpto = end;
+      doc = buffer.docs[size - 1];
+      nextDoc();
+    }
+
     @Override
     public int nextPosition() throws IOException {
       return -1;
@@ -1241,6 +1333,7 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
   final class BlockImpactsPostingsEnum extends ImpactsEnum {
 
     final PForUtil pforUtil = new PForUtil(new ForUtil());
+    final DocBlockUtil docBlockUtil = new DocBlockUtil(pforUtil, denseBlocks);
 
     private final long[] docBuffer = new long[BLOCK_SIZE];
     private final long[] freqBuffer = new long[BLOCK_SIZE];
@@ -1352,7 +1445,7 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
       assert left >= 0;
 
       if (left >= BLOCK_SIZE) {
-        pforUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
+        docBlockUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
         pforUtil.decode(docIn, freqBuffer);
       } else {
         readVIntBlock(docIn, docBuffer, freqBuffer, left, true);
@@ -1533,6 +1626,7 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
   final class BlockImpactsEverythingEnum extends ImpactsEnum {
 
     final PForUtil pforUtil = new PForUtil(new ForUtil());
+    final DocBlockUtil docBlockUtil = new DocBlockUtil(pforUtil, denseBlocks);
 
     private final long[] docBuffer = new long[BLOCK_SIZE];
     private final long[] freqBuffer = new long[BLOCK_SIZE];
@@ -1741,7 +1835,7 @@ public final class Lucene90PostingsReader extends PostingsReaderBase {
       assert left >= 0;
 
       if (left >= BLOCK_SIZE) {
-        pforUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
+        docBlockUtil.decodeAndPrefixSum(docIn, accum, docBuffer);
         if (indexHasFreq) {
           isFreqsRead =
               false; // freq block will be loaded lazily when necessary, we don't load it here
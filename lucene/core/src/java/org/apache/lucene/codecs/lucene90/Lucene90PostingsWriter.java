@@ -90,6 +90,7 @@ public final class Lucene90PostingsWriter extends PushPostingsWriterBase {
   private int docCount;
 
   private final PForUtil pforUtil;
+  private final DocBlockUtil docBlockUtil;
   private final Lucene90SkipWriter skipWriter;
 
   private boolean fieldHasNorms;
@@ -99,6 +100,16 @@ public final class Lucene90PostingsWriter extends PushPostingsWriterBase {
 
   /** Creates a postings writer */
   public Lucene90PostingsWriter(SegmentWriteState state) throws IOException {
+    this(state, false);
+  }
+
+  /**
+   * Creates a postings writer that optionally encodes dense blocks of doc IDs as bit sets.
+   *
+   * @see Lucene90PostingsFormat#Lucene90PostingsFormat(int, int, boolean)
+   */
+  public Lucene90PostingsWriter(SegmentWriteState state, boolean writeDenseBlocksAsBitSets)
+      throws IOException {
 
     String docFileName =
         IndexFileNames.segmentFileName(
@@ -110,7 +121,9 @@ public final class Lucene90PostingsWriter extends PushPostingsWriterBase {
     try {
       CodecUtil.writeIndexHeader(
           docOut, DOC_CODEC, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+      docOut.writeByte((byte) (writeDenseBlocksAsBitSets ? 1 : 0));
       pforUtil = new PForUtil(new ForUtil());
+      docBlockUtil = new DocBlockUtil(pforUtil, writeDenseBlocksAsBitSets);
       if (state.fieldInfos.hasProx()) {
         posDeltaBuffer = new long[BLOCK_SIZE];
         String posFileName =
@@ -240,7 +253,7 @@ public final class Lucene90PostingsWriter extends PushPostingsWriterBase {
     docCount++;
 
     if (docBufferUpto == BLOCK_SIZE) {
-      pforUtil.encode(docDeltaBuffer, docOut);
+      docBlockUtil.encode(docDeltaBuffer, docOut);
       if (writeFreqs) {
         pforUtil.encode(freqBuffer, docOut);
       }
@@ -43,6 +43,28 @@ import org.apache.lucene.util.packed.DirectMonotonicWriter;
  */
 public class Lucene90CompressingStoredFieldsFormat extends StoredFieldsFormat {
 
+  private static volatile StoredFieldsBlockCache DEFAULT_BLOCK_CACHE;
+
+  /**
+   * Expert: Get the default {@link StoredFieldsBlockCache} or {@code null} if the cache is
+   * disabled, which is the default.
+   *
+   * @lucene.internal
+   */
+  public static StoredFieldsBlockCache getDefaultBlockCache() {
+    return DEFAULT_BLOCK_CACHE;
+  }
+
+  /**
+   * Expert: set the default {@link StoredFieldsBlockCache} instance, or {@code null} to disable
+   * caching. This only applies to readers that are opened after this method is called.
+   *
+   * @lucene.internal
+   */
+  public static void setDefaultBlockCache(StoredFieldsBlockCache blockCache) {
+    DEFAULT_BLOCK_CACHE = blockCache;
+  }
+
   private final String formatName;
   private final String segmentSuffix;
   private final CompressionMode compressionMode;
@@ -131,7 +153,14 @@ public class Lucene90CompressingStoredFieldsFormat extends StoredFieldsFormat {
   public StoredFieldsReader fieldsReader(
       Directory directory, SegmentInfo si, FieldInfos fn, IOContext context) throws IOException {
     return new Lucene90CompressingStoredFieldsReader(
-        directory, si, segmentSuffix, fn, context, formatName, compressionMode);
+        directory,
+        si,
+        segmentSuffix,
+        fn,
+        context,
+        formatName,
+        compressionMode,
+        DEFAULT_BLOCK_CACHE);
   }
 
   @Override
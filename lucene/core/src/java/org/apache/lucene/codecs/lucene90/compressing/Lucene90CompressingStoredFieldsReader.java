@@ -40,6 +40,8 @@ import static org.apache.lucene.codecs.lucene90.compressing.Lucene90CompressingS
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.Objects;
+import java.util.function.IntFunction;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.compressing.CompressionMode;
@@ -85,6 +87,8 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
   private final long numChunks; // number of written blocks
   private final long numDirtyChunks; // number of incomplete compressed blocks written
   private final long numDirtyDocs; // cumulative number of docs in incomplete chunks
+  private final StoredFieldsBlockCache blockCache; // null if blocks are not cached
+  private final Object blockCacheKey; // shared with clones
   private boolean closed;
 
   // used by clone
@@ -103,11 +107,17 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
     this.numDirtyChunks = reader.numDirtyChunks;
     this.numDirtyDocs = reader.numDirtyDocs;
     this.merging = merging;
+    // merges read all blocks sequentially, they would only pollute the cache
+    this.blockCache = merging ? null : reader.blockCache;
+    this.blockCacheKey = reader.blockCacheKey;
     this.state = new BlockState();
     this.closed = false;
   }
 
-  /** Sole constructor. */
+  /**
+   * Sole constructor. Decompressed blocks are shared through the given {@code blockCache}, unless
+   * it is {@code null}.
+   */
   public Lucene90CompressingStoredFieldsReader(
       Directory d,
       SegmentInfo si,
@@ -115,9 +125,12 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
       FieldInfos fn,
       IOContext context,
       String formatName,
-      CompressionMode compressionMode)
+      CompressionMode compressionMode,
+      StoredFieldsBlockCache blockCache)
       throws IOException {
     this.compressionMode = compressionMode;
+    this.blockCache = blockCache;
+    this.blockCacheKey = new Object();
     final String segment = si.name;
     boolean success = false;
     fieldInfos = fn;
@@ -228,6 +241,9 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
   @Override
   public void close() throws IOException {
     if (!closed) {
+      if (blockCache != null) {
+        blockCache.clearSegment(blockCacheKey);
+      }
       IOUtils.close(indexReader, fieldsStream);
       closed = true;
     }
@@ -404,6 +420,14 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
     private final BytesRef spare;
     private final BytesRef bytes;
 
+    // the decompressed block if it is cached, null otherwise
+    private byte[] cachedBytes;
+
+    // documents of the block whose index is in [batchFrom, batchTo) that have been decompressed at
+    // once into batchBytes
+    private int batchFrom, batchTo;
+    private final BytesRef batchBytes = new BytesRef();
+
     BlockState() {
       if (merging) {
         spare = new BytesRef();
@@ -435,7 +459,25 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
       }
     }
 
+    /** Reset this block from a cached block that contains the given doc id. */
+    void reset(StoredFieldsBlockCache.Block block, int docID) {
+      docBase = block.docBase;
+      chunkDocs = block.chunkDocs;
+      assert contains(docID);
+      sliced = false;
+      batchFrom = batchTo = 0;
+      // copy arrays since they get overwritten when reading the next block
+      offsets = ArrayUtil.grow(offsets, chunkDocs + 1);
+      System.arraycopy(block.offsets, 0, offsets, 0, chunkDocs + 1);
+      numStoredFields = ArrayUtil.grow(numStoredFields, chunkDocs);
+      System.arraycopy(block.numStoredFields, 0, numStoredFields, 0, chunkDocs);
+      cachedBytes = block.bytes;
+    }
+
     private void doReset(int docID) throws IOException {
+      cachedBytes = null;
+      batchFrom = batchTo = 0;
+      final long blockStartPointer = fieldsStream.getFilePointer();
       docBase = fieldsStream.readVInt();
       final int token = fieldsStream.readVInt();
       chunkDocs = token >>> 2;
@@ -504,9 +546,59 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
               "Corrupted: expected chunk size = " + totalLength + ", got " + bytes.length,
               fieldsStream);
         }
+      } else if (blockCache != null && sliced == false) {
+        // decompress the whole block so that other documents of the block can be served from the
+        // cache too
+        final int totalLength = Math.toIntExact(offsets[chunkDocs]);
+        final BytesRef bytes = new BytesRef();
+        decompressor.decompress(fieldsStream, totalLength, 0, totalLength, bytes);
+        if (bytes.length != totalLength) {
+          throw new CorruptIndexException(
+              "Corrupted: expected chunk size = " + totalLength + ", got " + bytes.length,
+              fieldsStream);
+        }
+        cachedBytes = BytesRef.deepCopyOf(bytes).bytes;
+        blockCache.put(
+            blockCacheKey,
+            blockStartPointer,
+            new StoredFieldsBlockCache.Block(
+                docBase,
+                chunkDocs,
+                ArrayUtil.copyOfSubArray(offsets, 0, chunkDocs + 1),
+                ArrayUtil.copyOfSubArray(numStoredFields, 0, chunkDocs),
+                cachedBytes));
       }
     }
 
+    /**
+     * Decompress the documents of the current block between the given doc IDs, inclusive, at once,
+     * so that {@link #document} doesn't need to decompress them one by one.
+     */
+    void decompressDocuments(int fromDocID, int toDocID) throws IOException {
+      assert contains(fromDocID) && contains(toDocID) && fromDocID <= toDocID;
+      if (merging || cachedBytes != null || sliced) {
+        // already decompressed, or a single document that is decompressed lazily
+        return;
+      }
+      final int from = fromDocID - docBase;
+      final int to = toDocID - docBase + 1;
+      if (from >= batchFrom && to <= batchTo) {
+        return;
+      }
+      final int offset = Math.toIntExact(offsets[from]);
+      final int length = Math.toIntExact(offsets[to]) - offset;
+      final int totalLength = Math.toIntExact(offsets[chunkDocs]);
+      batchFrom = batchTo = 0;
+      fieldsStream.seek(startPointer);
+      decompressor.decompress(fieldsStream, totalLength, offset, length, batchBytes);
+      if (batchBytes.length != length) {
+        throw new CorruptIndexException(
+            "Corrupted: expected length = " + length + ", got " + batchBytes.length, fieldsStream);
+      }
+      batchFrom = from;
+      batchTo = to;
+    }
+
     /**
      * Get the serialized representation of the given docID. This docID has to be contained in the
      * current block.
@@ -536,6 +628,13 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
       } else if (merging) {
         // already decompressed
         documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length);
+      } else if (cachedBytes != null) {
+        documentInput = new ByteArrayDataInput(cachedBytes, offset, length);
+      } else if (index >= batchFrom && index < batchTo) {
+        // decompressed together with other documents of the block
+        final int offsetInBatch = offset - Math.toIntExact(offsets[batchFrom]);
+        documentInput =
+            new ByteArrayDataInput(batchBytes.bytes, batchBytes.offset + offsetInBatch, length);
       } else if (sliced) {
         fieldsStream.seek(startPointer);
         decompressor.decompress(
@@ -602,12 +701,24 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
   }
 
   SerializedDocument document(int docID) throws IOException {
+    loadBlock(docID);
+    return state.document(docID);
+  }
+
+  /** Make the block state point to the block that contains the given doc ID. */
+  private void loadBlock(int docID) throws IOException {
     if (state.contains(docID) == false) {
-      fieldsStream.seek(indexReader.getStartPointer(docID));
-      state.reset(docID);
+      final long startPointer = indexReader.getStartPointer(docID);
+      final StoredFieldsBlockCache.Block block =
+          blockCache == null ? null : blockCache.get(blockCacheKey, startPointer);
+      if (block != null) {
+        state.reset(block, docID);
+      } else {
+        fieldsStream.seek(startPointer);
+        state.reset(docID);
+      }
     }
     assert state.contains(docID);
-    return state.document(docID);
   }
 
   /** Checks if a given docID was loaded in the current block state. */
@@ -624,9 +735,40 @@ public final class Lucene90CompressingStoredFieldsReader extends StoredFieldsRea
 
   @Override
   public void visitDocument(int docID, StoredFieldVisitor visitor) throws IOException {
+    visitDocument(document(docID), visitor);
+  }
 
-    final SerializedDocument doc = document(docID);
+  @Override
+  public void visitDocuments(int[] docIDs, int count, IntFunction<StoredFieldVisitor> visitors)
+      throws IOException {
+    Objects.checkFromIndexSize(0, count, docIDs.length);
+    for (int i = 0; i < count; ) {
+      checkSorted(docIDs, i);
+      loadBlock(docIDs[i]);
+      // find all requested documents of the block, and decompress them at once
+      int end = i + 1;
+      for (; end < count && state.contains(docIDs[end]); ++end) {
+        checkSorted(docIDs, end);
+      }
+      state.decompressDocuments(docIDs[i], docIDs[end - 1]);
+      for (; i < end; ++i) {
+        visitDocument(state.document(docIDs[i]), visitors.apply(i));
+      }
+    }
+  }
 
+  private static void checkSorted(int[] docIDs, int i) {
+    if (i > 0 && docIDs[i] <= docIDs[i - 1]) {
+      throw new IllegalArgumentException(
+          "docIDs must be sorted in strictly increasing order, got "
+              + docIDs[i - 1]
+              + " before "
+              + docIDs[i]);
+    }
+  }
+
+  private void visitDocument(SerializedDocument doc, StoredFieldVisitor visitor)
+      throws IOException {
     for (int fieldIDX = 0; fieldIDX < doc.numStoredFields; fieldIDX++) {
       final long infoAndBits = doc.in.readVLong();
       final int fieldNumber = (int) (infoAndBits >>> TYPE_BITS);
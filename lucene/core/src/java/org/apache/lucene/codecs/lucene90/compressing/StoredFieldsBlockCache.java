@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90.compressing;
+
+import static org.apache.lucene.util.RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY;
+import static org.apache.lucene.util.RamUsageEstimator.LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A cache of decompressed blocks of stored documents that is shared across the readers of all
+ * segments that it is {@link Lucene90CompressingStoredFieldsFormat#setDefaultBlockCache
+ * configured} for. Fetching documents from a cached block only needs to copy their bytes, so this
+ * helps when the same documents are retrieved over and over again, for instance because they are
+ * popular results of many queries, or when the top hits of a query are clustered in a few blocks.
+ *
+ * <p>Blocks are evicted in least-recently-used order so that the memory usage of the cache stays
+ * under the configured number of bytes, and entries of a segment are evicted when its reader is
+ * closed. Blocks that store a single large document in several slices are never cached, and neither
+ * are blocks that are retrieved through {@link
+ * org.apache.lucene.codecs.StoredFieldsReader#getMergeInstance() merge instances}. Lookups and
+ * insertions don't wait for the lock of the cache: if another thread holds it, blocks are
+ * decompressed without going through the cache.
+ *
+ * <p>This cache exposes some global statistics ({@link #getHitCount() hit count}, {@link
+ * #getMissCount() miss count}, {@link #getCacheSize() number of cache entries}, {@link
+ * #getCacheCount() total number of blocks that have ever been cached}, {@link #getEvictionCount()
+ * number of evicted entries}) which help figure out whether caching pays off.
+ *
+ * @lucene.experimental
+ */
+public class StoredFieldsBlockCache implements Accountable {
+
+  private static final long BLOCK_KEY_RAM_BYTES_USED =
+      RamUsageEstimator.shallowSizeOfInstance(BlockKey.class);
+
+  private final long maxRamBytesUsed;
+  // access-ordered, so that iteration starts with the least recently used block
+  private final Map<BlockKey, Block> cache;
+  // the keys of the cached blocks of each segment, so that a segment can be cleared without
+  // iterating over the whole cache
+  private final Map<Object, Set<BlockKey>> segmentKeys;
+  private final ReentrantLock lock;
+
+  // incremented without the lock since lookups may skip the cache when the lock is busy
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+
+  // these variables are volatile so that we do not need to sync reads
+  // but increments need to be performed under the lock
+  private volatile long ramBytesUsed;
+  private volatile long cacheCount;
+  private volatile long cacheSize;
+
+  /** Create a new instance that will use at most <code>maxRamBytesUsed</code> bytes of memory. */
+  public StoredFieldsBlockCache(long maxRamBytesUsed) {
+    if (maxRamBytesUsed < 0) {
+      throw new IllegalArgumentException("maxRamBytesUsed must be >= 0, got " + maxRamBytesUsed);
+    }
+    this.maxRamBytesUsed = maxRamBytesUsed;
+    cache = new LinkedHashMap<>(16, 0.75f, true);
+    segmentKeys = new IdentityHashMap<>();
+    lock = new ReentrantLock();
+  }
+
+  /**
+   * Return the cached block that starts at the given pointer, or {@code null} if not cached or if
+   * the cache is busy.
+   */
+  Block get(Object segmentKey, long startPointer) {
+    final BlockKey key = new BlockKey(segmentKey, startPointer);
+    // the get call moves the block to the most-recently-used position, so it needs the lock
+    // if the lock is already busy, prefer decompressing the block than waiting
+    if (lock.tryLock() == false) {
+      missCount.increment();
+      return null;
+    }
+    final Block block;
+    try {
+      block = cache.get(key);
+    } finally {
+      lock.unlock();
+    }
+    if (block == null) {
+      missCount.increment();
+    } else {
+      hitCount.increment();
+    }
+    return block;
+  }
+
+  /**
+   * Cache the block that starts at the given pointer, evicting other blocks if necessary. The block
+   * is not cached if the cache is busy.
+   */
+  void put(Object segmentKey, long startPointer, Block block) {
+    final long blockRamBytesUsed = ramBytesUsed(block);
+    if (blockRamBytesUsed > maxRamBytesUsed) {
+      // this block would evict everything else
+      return;
+    }
+    final BlockKey key = new BlockKey(segmentKey, startPointer);
+    // if the lock is already busy, prefer not caching the block than waiting
+    if (lock.tryLock() == false) {
+      return;
+    }
+    try {
+      final Block previous = cache.put(key, block);
+      if (previous == null) {
+        segmentKeys.computeIfAbsent(segmentKey, k -> new HashSet<>()).add(key);
+        cacheCount += 1;
+        cacheSize += 1;
+      } else {
+        // another thread decompressed the same block concurrently
+        ramBytesUsed -= ramBytesUsed(previous);
+      }
+      ramBytesUsed += blockRamBytesUsed;
+      evictIfNecessary();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void evictIfNecessary() {
+    assert lock.isHeldByCurrentThread();
+    final Iterator<Map.Entry<BlockKey, Block>> iterator = cache.entrySet().iterator();
+    while (ramBytesUsed > maxRamBytesUsed && iterator.hasNext()) {
+      final Map.Entry<BlockKey, Block> entry = iterator.next();
+      iterator.remove();
+      final BlockKey key = entry.getKey();
+      final Set<BlockKey> keys = segmentKeys.get(key.segmentKey);
+      keys.remove(key);
+      if (keys.isEmpty()) {
+        segmentKeys.remove(key.segmentKey);
+      }
+      onEviction(entry.getValue());
+    }
+  }
+
+  private void onEviction(Block block) {
+    assert lock.isHeldByCurrentThread();
+    ramBytesUsed -= ramBytesUsed(block);
+    cacheSize -= 1;
+  }
+
+  /** Remove all blocks of the given segment from this cache. */
+  void clearSegment(Object segmentKey) {
+    lock.lock();
+    try {
+      final Set<BlockKey> keys = segmentKeys.remove(segmentKey);
+      if (keys != null) {
+        for (BlockKey key : keys) {
+          onEviction(cache.remove(key));
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Clear the content of this cache. */
+  public void clear() {
+    lock.lock();
+    try {
+      for (Block block : cache.values()) {
+        onEviction(block);
+      }
+      cache.clear();
+      segmentKeys.clear();
+      assert ramBytesUsed == 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static long ramBytesUsed(Block block) {
+    // entries of the cache and of the keys of the segment
+    return LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY
+        + HASHTABLE_RAM_BYTES_PER_ENTRY
+        + BLOCK_KEY_RAM_BYTES_USED
+        + block.ramBytesUsed();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesUsed;
+  }
+
+  /**
+   * Return the total number of times that a block has been looked up in this cache.
+   *
+   * @see #getHitCount()
+   * @see #getMissCount()
+   */
+  public final long getTotalCount() {
+    return getHitCount() + getMissCount();
+  }
+
+  /**
+   * Over the {@link #getTotalCount() total} number of times that a block has been looked up,
+   * return how many times the block was found in the cache.
+   *
+   * @see #getTotalCount()
+   * @see #getMissCount()
+   */
+  public final long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Over the {@link #getTotalCount() total} number of times that a block has been looked up,
+   * return how many times the block had to be decompressed.
+   *
+   * @see #getTotalCount()
+   * @see #getHitCount()
+   */
+  public final long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Return the number of blocks which are currently stored in the cache.
+   *
+   * @see #getCacheCount()
+   * @see #getEvictionCount()
+   */
+  public final long getCacheSize() {
+    return cacheSize;
+  }
+
+  /**
+   * Return the total number of blocks that have ever been put in the cache.
+   *
+   * @see #getCacheSize()
+   * @see #getEvictionCount()
+   */
+  public final long getCacheCount() {
+    return cacheCount;
+  }
+
+  /**
+   * Return the number of blocks that have been removed from the cache either in order to stay under
+   * the maximum configured ram usage, or because a segment has been closed. A number of evictions
+   * that is close to the {@link #getCacheCount() cache count} suggests that the cache is too small
+   * for the documents that are retrieved.
+   *
+   * @see #getCacheCount()
+   * @see #getCacheSize()
+   */
+  public final long getEvictionCount() {
+    return getCacheCount() - getCacheSize();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName()
+        + "(maxRamBytesUsed="
+        + maxRamBytesUsed
+        + ", ramBytesUsed="
+        + ramBytesUsed
+        + ", hitCount="
+        + getHitCount()
+        + ", missCount="
+        + getMissCount()
+        + ")";
+  }
+
+  private static final class BlockKey {
+
+    // identity of the reader of the segment, shared with its clones
+    final Object segmentKey;
+    final long startPointer;
+
+    BlockKey(Object segmentKey, long startPointer) {
+      this.segmentKey = segmentKey;
+      this.startPointer = startPointer;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != BlockKey.class) {
+        return false;
+      }
+      final BlockKey that = (BlockKey) obj;
+      return segmentKey == that.segmentKey && startPointer == that.startPointer;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(segmentKey) + Long.hashCode(startPointer);
+    }
+  }
+
+  /** An immutable decompressed block of documents. */
+  static final class Block implements Accountable {
+
+    private static final long BASE_RAM_BYTES_USED =
+        RamUsageEstimator.shallowSizeOfInstance(Block.class);
+
+    final int docBase;
+    final int chunkDocs;
+    // chunkDocs + 1 offsets of documents in bytes
+    final long[] offsets;
+    final long[] numStoredFields;
+    final byte[] bytes;
+
+    Block(int docBase, int chunkDocs, long[] offsets, long[] numStoredFields, byte[] bytes) {
+      assert offsets.length == chunkDocs + 1;
+      assert numStoredFields.length == chunkDocs;
+      assert bytes.length == offsets[chunkDocs];
+      this.docBase = docBase;
+      this.chunkDocs = chunkDocs;
+      this.offsets = offsets;
+      this.numStoredFields = numStoredFields;
+      this.bytes = bytes;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED
+          + RamUsageEstimator.sizeOf(offsets)
+          + RamUsageEstimator.sizeOf(numStoredFields)
+          + RamUsageEstimator.sizeOf(bytes);
+    }
+  }
+}
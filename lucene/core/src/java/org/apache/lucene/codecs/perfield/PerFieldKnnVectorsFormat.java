@@ -27,6 +27,7 @@ import org.apache.lucene.codecs.KnnVectorsFormat;
 import org.apache.lucene.codecs.KnnVectorsReader;
 import org.apache.lucene.codecs.KnnVectorsWriter;
 import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.MergeState;
 import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.index.SegmentWriteState;
 import org.apache.lucene.index.VectorValues;
@@ -102,6 +103,11 @@ public abstract class PerFieldKnnVectorsFormat extends KnnVectorsFormat {
       getInstance(fieldInfo).writeField(fieldInfo, values);
     }
 
+    @Override
+    public void mergeOneField(FieldInfo fieldInfo, MergeState mergeState) throws IOException {
+      getInstance(fieldInfo).mergeOneField(fieldInfo, mergeState);
+    }
+
     @Override
     public void finish() throws IOException {
       for (WriterAndSuffix was : formats.values()) {
@@ -241,12 +247,13 @@ public abstract class PerFieldKnnVectorsFormat extends KnnVectorsFormat {
     }
 
     @Override
-    public TopDocs search(String field, float[] target, int k, Bits acceptDocs) throws IOException {
+    public TopDocs search(String field, float[] target, int k, Bits acceptDocs, int visitedLimit)
+        throws IOException {
       KnnVectorsReader knnVectorsReader = fields.get(field);
       if (knnVectorsReader == null) {
         return new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
       } else {
-        return knnVectorsReader.search(field, target, k, acceptDocs);
+        return knnVectorsReader.search(field, target, k, acceptDocs, visitedLimit);
       }
     }
 
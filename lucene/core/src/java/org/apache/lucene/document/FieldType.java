@@ -24,6 +24,7 @@ import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableFieldType;
 import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.VectorEncoding;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.index.VectorValues;
 
@@ -44,6 +45,7 @@ public class FieldType implements IndexableFieldType {
   private int indexDimensionCount;
   private int dimensionNumBytes;
   private int vectorDimension;
+  private VectorEncoding vectorEncoding = VectorEncoding.FLOAT32;
   private VectorSimilarityFunction vectorSimilarityFunction = VectorSimilarityFunction.EUCLIDEAN;
   private Map<String, String> attributes;
 
@@ -62,6 +64,7 @@ public class FieldType implements IndexableFieldType {
     this.indexDimensionCount = ref.pointIndexDimensionCount();
     this.dimensionNumBytes = ref.pointNumBytes();
     this.vectorDimension = ref.vectorDimension();
+    this.vectorEncoding = ref.vectorEncoding();
     this.vectorSimilarityFunction = ref.vectorSimilarityFunction();
     if (ref.getAttributes() != null) {
       this.attributes = new HashMap<>(ref.getAttributes());
@@ -373,6 +376,15 @@ public class FieldType implements IndexableFieldType {
   /** Enable vector indexing, with the specified number of dimensions and distance function. */
   public void setVectorDimensionsAndSimilarityFunction(
       int numDimensions, VectorSimilarityFunction distFunc) {
+    setVectorAttributes(numDimensions, VectorEncoding.FLOAT32, distFunc);
+  }
+
+  /**
+   * Enable vector indexing, with the specified number of dimensions, encoding and distance
+   * function.
+   */
+  public void setVectorAttributes(
+      int numDimensions, VectorEncoding encoding, VectorSimilarityFunction distFunc) {
     checkIfFrozen();
     if (numDimensions <= 0) {
       throw new IllegalArgumentException("vector numDimensions must be > 0; got " + numDimensions);
@@ -385,6 +397,7 @@ public class FieldType implements IndexableFieldType {
               + numDimensions);
     }
     this.vectorDimension = numDimensions;
+    this.vectorEncoding = Objects.requireNonNull(encoding);
     this.vectorSimilarityFunction = Objects.requireNonNull(distFunc);
   }
 
@@ -393,6 +406,11 @@ public class FieldType implements IndexableFieldType {
     return vectorDimension;
   }
 
+  @Override
+  public VectorEncoding vectorEncoding() {
+    return vectorEncoding;
+  }
+
   @Override
   public VectorSimilarityFunction vectorSimilarityFunction() {
     return vectorSimilarityFunction;
@@ -17,8 +17,11 @@
 
 package org.apache.lucene.document;
 
+import org.apache.lucene.index.IndexableFieldType;
+import org.apache.lucene.index.VectorEncoding;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.util.BytesRef;
 
 /**
  * A field that contains a single floating-point numeric vector (or none) for each document. Vectors
@@ -30,6 +33,10 @@ import org.apache.lucene.index.VectorValues;
  * search similarity function defining the metric used for nearest-neighbor search among vectors of
  * that field.
  *
+ * <p>Vectors may alternatively be indexed with {@link VectorEncoding#BYTE} encoding, one signed
+ * byte per dimension, passed as a {@link BytesRef} whose length is the vector dimension. Such
+ * vectors take a quarter of the space of float vectors and are compared using integer arithmetic.
+ *
  * @lucene.experimental
  */
 public class KnnVectorField extends Field {
@@ -38,7 +45,18 @@ public class KnnVectorField extends Field {
     if (v == null) {
       throw new IllegalArgumentException("vector value must not be null");
     }
-    int dimension = v.length;
+    return createType(v.length, VectorEncoding.FLOAT32, similarityFunction);
+  }
+
+  private static FieldType createType(BytesRef v, VectorSimilarityFunction similarityFunction) {
+    if (v == null) {
+      throw new IllegalArgumentException("vector value must not be null");
+    }
+    return createType(v.length, VectorEncoding.BYTE, similarityFunction);
+  }
+
+  private static FieldType createType(
+      int dimension, VectorEncoding encoding, VectorSimilarityFunction similarityFunction) {
     if (dimension == 0) {
       throw new IllegalArgumentException("cannot index an empty vector");
     }
@@ -50,11 +68,23 @@ public class KnnVectorField extends Field {
       throw new IllegalArgumentException("similarity function must not be null");
     }
     FieldType type = new FieldType();
-    type.setVectorDimensionsAndSimilarityFunction(dimension, similarityFunction);
+    type.setVectorAttributes(dimension, encoding, similarityFunction);
     type.freeze();
     return type;
   }
 
+  private static IndexableFieldType checkType(
+      IndexableFieldType fieldType, VectorEncoding encoding) {
+    if (fieldType != null && fieldType.vectorEncoding() != encoding) {
+      throw new IllegalArgumentException(
+          "field type has vector encoding "
+              + fieldType.vectorEncoding()
+              + " but the value is encoded as "
+              + encoding);
+    }
+    return fieldType;
+  }
+
   /**
    * A convenience method for creating a vector field type.
    *
@@ -70,6 +100,22 @@ public class KnnVectorField extends Field {
     return type;
   }
 
+  /**
+   * A convenience method for creating a vector field type.
+   *
+   * @param dimension dimension of vectors
+   * @param vectorEncoding the encoding of the vector values
+   * @param similarityFunction a function defining vector proximity.
+   * @throws IllegalArgumentException if any parameter is null, or has dimension &gt; 1024.
+   */
+  public static FieldType createFieldType(
+      int dimension, VectorEncoding vectorEncoding, VectorSimilarityFunction similarityFunction) {
+    FieldType type = new FieldType();
+    type.setVectorAttributes(dimension, vectorEncoding, similarityFunction);
+    type.freeze();
+    return type;
+  }
+
   /**
    * Creates a numeric vector field. Fields are single-valued: each document has either one value or
    * no value. Vectors of a single field share the same dimension and similarity function. Note that
@@ -112,17 +158,58 @@ public class KnnVectorField extends Field {
    *     dimension &gt; 1024.
    */
   public KnnVectorField(String name, float[] vector, FieldType fieldType) {
-    super(name, fieldType);
+    super(name, checkType(fieldType, VectorEncoding.FLOAT32));
+    fieldsData = vector;
+  }
+
+  /**
+   * Creates a numeric vector field with {@link VectorEncoding#BYTE} encoding. Fields are
+   * single-valued: each document has either one value or no value. Vectors of a single field share
+   * the same dimension and similarity function.
+   *
+   * @param name field name
+   * @param vector value, one signed byte per dimension
+   * @param similarityFunction a function defining vector proximity.
+   * @throws IllegalArgumentException if any parameter is null, or the vector is empty or has
+   *     dimension &gt; 1024.
+   */
+  public KnnVectorField(String name, BytesRef vector, VectorSimilarityFunction similarityFunction) {
+    super(name, createType(vector, similarityFunction));
     fieldsData = vector;
   }
 
-  /** Return the vector value of this field */
+  /**
+   * Creates a numeric vector field with {@link VectorEncoding#BYTE} encoding. Fields are
+   * single-valued: each document has either one value or no value. Vectors of a single field share
+   * the same dimension and similarity function.
+   *
+   * @param name field name
+   * @param vector value, one signed byte per dimension
+   * @param fieldType field type, whose vector encoding must be {@link VectorEncoding#BYTE}
+   * @throws IllegalArgumentException if any parameter is null, or the vector is empty or has
+   *     dimension &gt; 1024.
+   */
+  public KnnVectorField(String name, BytesRef vector, FieldType fieldType) {
+    super(name, checkType(fieldType, VectorEncoding.BYTE));
+    fieldsData = vector;
+  }
+
+  /**
+   * Return the vector value of this field
+   *
+   * @throws IllegalStateException if the field has {@link VectorEncoding#BYTE} encoding, whose
+   *     values are returned by {@link #binaryValue()}
+   */
   public float[] vectorValue() {
+    if (fieldsData instanceof float[] == false) {
+      throw new IllegalStateException("vector of field \"" + name + "\" is not float-encoded");
+    }
     return (float[]) fieldsData;
   }
 
   /**
-   * Set the vector value of this field
+   * Set the vector value of this field. Values of {@link VectorEncoding#BYTE} fields are set with
+   * {@link #setBytesValue(BytesRef)}.
    *
    * @param value the value to set; must not be null, and length must match the field type
    */
@@ -130,6 +217,7 @@ public class KnnVectorField extends Field {
     if (value == null) {
       throw new IllegalArgumentException("value must not be null");
     }
+    checkType(type, VectorEncoding.FLOAT32);
     if (value.length != type.vectorDimension()) {
       throw new IllegalArgumentException(
           "value length " + value.length + " must match field dimension " + type.vectorDimension());
@@ -97,4 +97,21 @@ public class SortedDocValuesField extends Field {
   public static Query newSlowExactQuery(String field, BytesRef value) {
     return newSlowRangeQuery(field, value, value, true, true);
   }
+
+  /**
+   * Create a query that matches all documents that have at least one of the given values.
+   *
+   * <p><b>NOTE</b>: Such queries cannot efficiently advance to the next match, which makes them
+   * slow if they are not ANDed with a selective query. As a consequence, they are best used wrapped
+   * in an {@link IndexOrDocValuesQuery}, alongside a {@link
+   * org.apache.lucene.search.TermInSetQuery} on the same values.
+   */
+  public static Query newSlowSetQuery(String field, BytesRef... values) {
+    return new SortedSetDocValuesSetQuery(field, values) {
+      @Override
+      SortedSetDocValues getValues(LeafReader reader, String field) throws IOException {
+        return DocValues.singleton(DocValues.getSorted(reader, field));
+      }
+    };
+  }
 }
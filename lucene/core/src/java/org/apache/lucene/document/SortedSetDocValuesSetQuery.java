@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.document;
+
+import java.io.IOException;
+import java.util.Objects;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.index.PrefixCodedTerms.TermIterator;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/** Matches documents that have any of the given values in a sorted (set) doc values field. */
+abstract class SortedSetDocValuesSetQuery extends Query implements Accountable {
+
+  private static final long BASE_RAM_BYTES_USED =
+      RamUsageEstimator.shallowSizeOfInstance(SortedSetDocValuesSetQuery.class);
+
+  private final String field;
+  private final PrefixCodedTerms termData;
+  private final int termDataHashCode; // cached hashcode of termData
+
+  SortedSetDocValuesSetQuery(String field, BytesRef... values) {
+    this.field = Objects.requireNonNull(field);
+    BytesRef[] sortedValues = values.clone();
+    ArrayUtil.timSort(sortedValues);
+    PrefixCodedTerms.Builder builder = new PrefixCodedTerms.Builder();
+    BytesRef previous = null;
+    for (BytesRef value : sortedValues) {
+      if (value.equals(previous) == false) {
+        builder.add(field, value);
+        previous = value;
+      }
+    }
+    termData = builder.finish();
+    termDataHashCode = termData.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (sameClassAs(obj) == false) {
+      return false;
+    }
+    SortedSetDocValuesSetQuery that = (SortedSetDocValuesSetQuery) obj;
+    // termData might be heavy to compare so check the hash code first
+    return field.equals(that.field)
+        && termDataHashCode == that.termDataHashCode
+        && termData.equals(that.termData);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = classHash();
+    h = 31 * h + field.hashCode();
+    h = 31 * h + termDataHashCode;
+    return h;
+  }
+
+  @Override
+  public void visit(QueryVisitor visitor) {
+    if (visitor.acceptField(field)) {
+      visitor.visitLeaf(this);
+    }
+  }
+
+  @Override
+  public String toString(String field) {
+    StringBuilder b = new StringBuilder();
+    if (this.field.equals(field) == false) {
+      b.append(this.field).append(":");
+    }
+    b.append("[");
+    TermIterator iterator = termData.iterator();
+    boolean first = true;
+    for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+      if (first == false) {
+        b.append(' ');
+      }
+      first = false;
+      b.append(term);
+    }
+    return b.append(']').toString();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + termData.ramBytesUsed();
+  }
+
+  @Override
+  public Query rewrite(IndexReader reader) throws IOException {
+    if (termData.size() == 0) {
+      return new MatchNoDocsQuery();
+    }
+    return super.rewrite(reader);
+  }
+
+  abstract SortedSetDocValues getValues(LeafReader reader, String field) throws IOException;
+
+  @Override
+  public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost)
+      throws IOException {
+    return new ConstantScoreWeight(this, boost) {
+      @Override
+      public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+        final SortedSetDocValues values = getValues(context.reader(), field);
+        if (values == null || values.getValueCount() == 0) {
+          return null;
+        }
+        // look up ordinals lazily, only if this query ends up being used
+        return new ScorerSupplier() {
+          @Override
+          public Scorer get(long leadCost) throws IOException {
+            return scorer(values);
+          }
+
+          @Override
+          public long cost() {
+            return values.cost();
+          }
+        };
+      }
+
+      @Override
+      public Scorer scorer(LeafReaderContext context) throws IOException {
+        final ScorerSupplier scorerSupplier = scorerSupplier(context);
+        if (scorerSupplier == null) {
+          return null;
+        }
+        return scorerSupplier.get(Long.MAX_VALUE);
+      }
+
+      private Scorer scorer(SortedSetDocValues values) throws IOException {
+        final LongBitSet ords = new LongBitSet(values.getValueCount());
+        long minOrd = Long.MAX_VALUE;
+        long maxOrd = -1;
+        final TermsEnum termsEnum = values.termsEnum();
+        final TermIterator termIterator = termData.iterator();
+        for (BytesRef term = termIterator.next(); term != null; term = termIterator.next()) {
+          if (termsEnum.seekExact(term)) {
+            final long ord = termsEnum.ord();
+            ords.set(ord);
+            minOrd = Math.min(minOrd, ord);
+            maxOrd = Math.max(maxOrd, ord);
+          }
+        }
+        if (maxOrd == -1) {
+          return new ConstantScoreScorer(this, score(), scoreMode, DocIdSetIterator.empty());
+        }
+
+        final long min = minOrd;
+        final long max = maxOrd;
+        final SortedDocValues singleton = DocValues.unwrapSingleton(values);
+        final TwoPhaseIterator iterator;
+        if (singleton != null) {
+          iterator =
+              new TwoPhaseIterator(singleton) {
+                @Override
+                public boolean matches() throws IOException {
+                  final long ord = singleton.ordValue();
+                  return ord >= min && ord <= max && ords.get(ord);
+                }
+
+                @Override
+                public float matchCost() {
+                  return 3; // 2 comparisons and a bit set lookup
+                }
+              };
+        } else {
+          iterator =
+              new TwoPhaseIterator(values) {
+                @Override
+                public boolean matches() throws IOException {
+                  for (long ord = values.nextOrd();
+                      ord != SortedSetDocValues.NO_MORE_ORDS && ord <= max;
+                      ord = values.nextOrd()) {
+                    if (ord >= min && ords.get(ord)) {
+                      return true;
+                    }
+                  }
+                  return false; // all ords were < min, > max or not in the set
+                }
+
+                @Override
+                public float matchCost() {
+                  return 3; // 2 comparisons and a bit set lookup per ordinal
+                }
+              };
+        }
+        return new ConstantScoreScorer(this, score(), scoreMode, iterator);
+      }
+
+      @Override
+      public boolean isCacheable(LeafReaderContext ctx) {
+        return DocValues.isCacheable(ctx, field);
+      }
+    };
+  }
+}
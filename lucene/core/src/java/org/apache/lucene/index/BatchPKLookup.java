@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Utility class to look up many primary keys (terms that are contained by at most one live
+ * document) at once. Keys must be sorted, which allows each segment's terms dictionary to be walked
+ * in order with a single {@link TermsEnum}: terms dictionaries such as the block tree reuse the
+ * state of the previous seek for the prefix that consecutive keys share, instead of starting from
+ * the root for every key. Keys that are out of the range of terms of a segment are skipped without
+ * seeking, and keys that have been found are not looked up in other segments. Fields that are
+ * indexed with a postings format that has a bloom filter also short-circuit on segments that don't
+ * contain the key through {@link TermsEnum#seekExact(BytesRef)}.
+ *
+ * <p>This class is not thread safe, so it is the caller's job to create and use one instance of
+ * this per thread. Do not use this if a term may appear in more than one live document! It will
+ * only return the first one it finds.
+ *
+ * @lucene.experimental
+ */
+public final class BatchPKLookup {
+
+  private final SegmentState[] segments;
+
+  private static final class SegmentState {
+    final TermsEnum termsEnum;
+    final Bits liveDocs;
+    final int docBase;
+    final BytesRef minTerm;
+    final BytesRef maxTerm;
+    PostingsEnum postingsEnum;
+
+    SegmentState(LeafReaderContext context, Terms terms) throws IOException {
+      this.termsEnum = terms.iterator();
+      this.liveDocs = context.reader().getLiveDocs();
+      this.docBase = context.docBase;
+      this.minTerm = BytesRef.deepCopyOf(terms.getMin());
+      this.maxTerm = BytesRef.deepCopyOf(terms.getMax());
+    }
+  }
+
+  /** Create a new instance that looks up keys of the given field in the given reader. */
+  public BatchPKLookup(IndexReader reader, String idField) throws IOException {
+    List<LeafReaderContext> leaves = new ArrayList<>(reader.leaves());
+    // Larger segments are more likely to have the id, so we sort largest to smallest by numDocs:
+    leaves.sort(Comparator.comparingInt((LeafReaderContext c) -> c.reader().numDocs()).reversed());
+
+    List<SegmentState> segments = new ArrayList<>();
+    for (LeafReaderContext context : leaves) {
+      Terms terms = context.reader().terms(idField);
+      if (terms != null && context.reader().numDocs() > 0) {
+        segments.add(new SegmentState(context, terms));
+      }
+    }
+    this.segments = segments.toArray(new SegmentState[0]);
+  }
+
+  /**
+   * Look up the given keys, which must be sorted in ascending order, and store in {@code docIDs}
+   * the doc ID of the live document that contains each key, or -1 if no live document contains it.
+   *
+   * @return the number of keys that have been found
+   * @throws IllegalArgumentException if keys are not sorted or if {@code docIDs} is too small
+   */
+  public int lookup(BytesRef[] keys, int[] docIDs) throws IOException {
+    if (docIDs.length < keys.length) {
+      throw new IllegalArgumentException(
+          "docIDs has length " + docIDs.length + " but there are " + keys.length + " keys");
+    }
+    for (int i = 1; i < keys.length; ++i) {
+      if (keys[i - 1].compareTo(keys[i]) > 0) {
+        throw new IllegalArgumentException(
+            "keys must be sorted, got " + keys[i - 1] + " before " + keys[i]);
+      }
+    }
+    Arrays.fill(docIDs, 0, keys.length, -1);
+
+    int found = 0;
+    for (SegmentState segment : segments) {
+      if (found == keys.length) {
+        break;
+      }
+      found += lookup(segment, keys, docIDs);
+    }
+    return found;
+  }
+
+  private static int lookup(SegmentState segment, BytesRef[] keys, int[] docIDs)
+      throws IOException {
+    int from = Arrays.binarySearch(keys, segment.minTerm);
+    if (from < 0) {
+      from = -1 - from;
+    } else {
+      // there may be duplicate keys
+      while (from > 0 && keys[from - 1].equals(segment.minTerm)) {
+        from--;
+      }
+    }
+
+    int found = 0;
+    for (int i = from; i < keys.length; ++i) {
+      final BytesRef key = keys[i];
+      if (key.compareTo(segment.maxTerm) > 0) {
+        break;
+      }
+      if (docIDs[i] != -1 || segment.termsEnum.seekExact(key) == false) {
+        continue;
+      }
+      segment.postingsEnum = segment.termsEnum.postings(segment.postingsEnum, PostingsEnum.NONE);
+      for (int doc = segment.postingsEnum.nextDoc();
+          doc != DocIdSetIterator.NO_MORE_DOCS;
+          doc = segment.postingsEnum.nextDoc()) {
+        if (segment.liveDocs == null || segment.liveDocs.get(doc)) {
+          docIDs[i] = segment.docBase + doc;
+          found++;
+          break;
+        }
+      }
+    }
+    return found;
+  }
+}
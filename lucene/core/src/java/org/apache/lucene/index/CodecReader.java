@@ -184,6 +184,17 @@ public abstract class CodecReader extends LeafReader {
     return getDocValuesReader().getSortedSet(fi);
   }
 
+  @Override
+  public final DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null || fi.getDocValuesType() == DocValuesType.NONE) {
+      // Field does not exist or does not index doc values
+      return null;
+    }
+    return getDocValuesReader().getSkipper(fi);
+  }
+
   @Override
   public final NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -221,8 +232,8 @@ public abstract class CodecReader extends LeafReader {
   }
 
   @Override
-  public final TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs)
-      throws IOException {
+  public final TopDocs searchNearestVectors(
+      String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException {
     ensureOpen();
     FieldInfo fi = getFieldInfos().fieldInfo(field);
     if (fi == null || fi.getVectorDimension() == 0) {
@@ -230,7 +241,7 @@ public abstract class CodecReader extends LeafReader {
       return null;
     }
 
-    return getVectorReader().search(field, target, k, acceptDocs);
+    return getVectorReader().search(field, target, k, acceptDocs, visitedLimit);
   }
 
   @Override
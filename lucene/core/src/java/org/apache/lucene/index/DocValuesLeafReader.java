@@ -47,14 +47,19 @@ abstract class DocValuesLeafReader extends LeafReader {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public final DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public final VectorValues getVectorValues(String field) throws IOException {
     throw new UnsupportedOperationException();
   }
 
   @Override
-  public TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs)
-      throws IOException {
+  public TopDocs searchNearestVectors(
+      String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException {
     throw new UnsupportedOperationException();
   }
 
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * Skipper for {@link DocValues}: a sparse index over the doc values of a field that records the
+ * range of doc IDs and the range of values of consecutive blocks of documents. Values are the
+ * numeric values of {@link DocValuesType#NUMERIC} and {@link DocValuesType#SORTED_NUMERIC} fields,
+ * and the ordinals of {@link DocValuesType#SORTED} and {@link DocValuesType#SORTED_SET} fields.
+ *
+ * <p>A skipper is initially unpositioned: {@link #minDocID()} and {@link #maxDocID()} return -1
+ * until {@link #advance(int)} is called.
+ *
+ * @lucene.experimental
+ */
+public abstract class DocValuesSkipper {
+
+  /** Sole constructor. (For invocation by subclass constructors, typically implicit.) */
+  protected DocValuesSkipper() {}
+
+  /**
+   * Move to the first block of documents whose {@link #maxDocID()} is greater than or equal to
+   * {@code target}. If there is no such block, then {@link #minDocID()} and {@link #maxDocID()}
+   * return {@link DocIdSetIterator#NO_MORE_DOCS}. Targets must be passed in non-decreasing order.
+   */
+  public abstract void advance(int target) throws IOException;
+
+  /** Return the first doc ID of the current block that has a value. */
+  public abstract int minDocID();
+
+  /** Return the last doc ID of the current block that has a value. */
+  public abstract int maxDocID();
+
+  /** Return the minimum value of the current block. */
+  public abstract long minValue();
+
+  /** Return the maximum value of the current block. */
+  public abstract long maxValue();
+
+  /**
+   * Return the number of documents that have a value in the current block. All documents between
+   * {@link #minDocID()} and {@link #maxDocID()} have a value if this is equal to {@code
+   * maxDocID() - minDocID() + 1}.
+   */
+  public abstract int docCount();
+}
@@ -56,13 +56,14 @@ public final class FieldInfo {
 
   // if it is a positive value, it means this field indexes vectors
   private final int vectorDimension;
+  private final VectorEncoding vectorEncoding;
   private final VectorSimilarityFunction vectorSimilarityFunction;
 
   // whether this field is used as the soft-deletes field
   private final boolean softDeletesField;
 
   /**
-   * Sole constructor.
+   * Creates a field info whose vectors, if any, have {@link VectorEncoding#FLOAT32} encoding.
    *
    * @lucene.experimental
    */
@@ -82,6 +83,47 @@ public final class FieldInfo {
       int vectorDimension,
       VectorSimilarityFunction vectorSimilarityFunction,
       boolean softDeletesField) {
+    this(
+        name,
+        number,
+        storeTermVector,
+        omitNorms,
+        storePayloads,
+        indexOptions,
+        docValues,
+        dvGen,
+        attributes,
+        pointDimensionCount,
+        pointIndexDimensionCount,
+        pointNumBytes,
+        vectorDimension,
+        VectorEncoding.FLOAT32,
+        vectorSimilarityFunction,
+        softDeletesField);
+  }
+
+  /**
+   * Creates a field info.
+   *
+   * @lucene.experimental
+   */
+  public FieldInfo(
+      String name,
+      int number,
+      boolean storeTermVector,
+      boolean omitNorms,
+      boolean storePayloads,
+      IndexOptions indexOptions,
+      DocValuesType docValues,
+      long dvGen,
+      Map<String, String> attributes,
+      int pointDimensionCount,
+      int pointIndexDimensionCount,
+      int pointNumBytes,
+      int vectorDimension,
+      VectorEncoding vectorEncoding,
+      VectorSimilarityFunction vectorSimilarityFunction,
+      boolean softDeletesField) {
     this.name = Objects.requireNonNull(name);
     this.number = number;
     this.docValuesType =
@@ -105,6 +147,7 @@ public final class FieldInfo {
     this.pointIndexDimensionCount = pointIndexDimensionCount;
     this.pointNumBytes = pointNumBytes;
     this.vectorDimension = vectorDimension;
+    this.vectorEncoding = vectorEncoding;
     this.vectorSimilarityFunction = vectorSimilarityFunction;
     this.softDeletesField = softDeletesField;
     this.checkConsistency();
@@ -194,6 +237,10 @@ public final class FieldInfo {
               + "')");
     }
 
+    if (vectorEncoding == null) {
+      throw new IllegalArgumentException(
+          "Vector encoding must not be null (field: '" + name + "')");
+    }
     if (vectorSimilarityFunction == null) {
       throw new IllegalArgumentException(
           "Vector similarity function must not be null (field: '" + name + "')");
@@ -229,8 +276,10 @@ public final class FieldInfo {
     verifySameVectorOptions(
         fieldName,
         this.vectorDimension,
+        this.vectorEncoding,
         this.vectorSimilarityFunction,
         o.vectorDimension,
+        o.vectorEncoding,
         o.vectorSimilarityFunction);
   }
 
@@ -347,19 +396,25 @@ public final class FieldInfo {
   static void verifySameVectorOptions(
       String fieldName,
       int vd1,
+      VectorEncoding ve1,
       VectorSimilarityFunction vsf1,
       int vd2,
+      VectorEncoding ve2,
       VectorSimilarityFunction vsf2) {
-    if (vd1 != vd2 || vsf1 != vsf2) {
+    if (vd1 != vd2 || ve1 != ve2 || vsf1 != vsf2) {
       throw new IllegalArgumentException(
           "cannot change field \""
               + fieldName
               + "\" from vector dimension="
               + vd1
+              + ", vector encoding="
+              + ve1
               + ", vector similarity function="
               + vsf1
               + " to inconsistent vector dimension="
               + vd2
+              + ", vector encoding="
+              + ve2
               + ", vector similarity function="
               + vsf2);
     }
@@ -470,6 +525,11 @@ public final class FieldInfo {
     return vectorDimension;
   }
 
+  /** Returns {@link VectorEncoding} for the field */
+  public VectorEncoding getVectorEncoding() {
+    return vectorEncoding;
+  }
+
   /** Returns {@link VectorSimilarityFunction} for the field */
   public VectorSimilarityFunction getVectorSimilarityFunction() {
     return vectorSimilarityFunction;
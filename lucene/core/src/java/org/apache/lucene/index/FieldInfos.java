@@ -299,10 +299,15 @@ public class FieldInfos implements Iterable<FieldInfo> {
 
   static final class FieldVectorProperties {
     final int numDimensions;
+    final VectorEncoding vectorEncoding;
     final VectorSimilarityFunction similarityFunction;
 
-    FieldVectorProperties(int numDimensions, VectorSimilarityFunction similarityFunction) {
+    FieldVectorProperties(
+        int numDimensions,
+        VectorEncoding vectorEncoding,
+        VectorSimilarityFunction similarityFunction) {
       this.numDimensions = numDimensions;
+      this.vectorEncoding = vectorEncoding;
       this.similarityFunction = similarityFunction;
     }
   }
@@ -384,7 +389,10 @@ public class FieldInfos implements Iterable<FieldInfo> {
                 fi.getPointNumBytes()));
         vectorProps.put(
             fieldName,
-            new FieldVectorProperties(fi.getVectorDimension(), fi.getVectorSimilarityFunction()));
+            new FieldVectorProperties(
+                fi.getVectorDimension(),
+                fi.getVectorEncoding(),
+                fi.getVectorSimilarityFunction()));
       }
       return fieldNumber.intValue();
     }
@@ -442,8 +450,10 @@ public class FieldInfos implements Iterable<FieldInfo> {
       verifySameVectorOptions(
           fieldName,
           props.numDimensions,
+          props.vectorEncoding,
           props.similarityFunction,
           fi.getVectorDimension(),
+          fi.getVectorEncoding(),
           fi.getVectorSimilarityFunction());
     }
 
@@ -681,6 +691,7 @@ public class FieldInfos implements Iterable<FieldInfo> {
               fi.getPointIndexDimensionCount(),
               fi.getPointNumBytes(),
               fi.getVectorDimension(),
+              fi.getVectorEncoding(),
               fi.getVectorSimilarityFunction(),
               fi.isSoftDeletesField());
       byName.put(fiNew.getName(), fiNew);
@@ -224,11 +224,16 @@ public abstract class LeafReader extends IndexReader {
    * @param k the number of docs to return
    * @param acceptDocs {@link Bits} that represents the allowed documents to match, or {@code null}
    *     if they are all allowed to match.
+   * @param visitedLimit the maximum number of nodes that the search is allowed to visit
    * @return the k nearest neighbor documents, along with their (searchStrategy-specific) scores.
+   *     The total hits relation is {@link org.apache.lucene.search.TotalHits.Relation#EQUAL_TO} if
+   *     the search completed, and {@link
+   *     org.apache.lucene.search.TotalHits.Relation#GREATER_THAN_OR_EQUAL_TO} if it stopped early
+   *     because it reached the visited nodes limit.
    * @lucene.experimental
    */
-  public abstract TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs)
-      throws IOException;
+  public abstract TopDocs searchNearestVectors(
+      String field, float[] target, int k, Bits acceptDocs, int visitedLimit) throws IOException;
 
   /**
    * Get the {@link FieldInfos} describing all fields in this reader.
@@ -256,6 +261,13 @@ public abstract class LeafReader extends IndexReader {
    */
   public abstract PointValues getPointValues(String field) throws IOException;
 
+  /**
+   * Returns a {@link DocValuesSkipper} for the doc values of the given field, or null if the field
+   * has no doc values or if its doc values have no skip index. The returned instance should only be
+   * used by a single thread.
+   */
+  public abstract DocValuesSkipper getDocValuesSkipper(String field) throws IOException;
+
   /**
    * Checks consistency of this reader.
    *
@@ -385,6 +385,13 @@ public class ParallelLeafReader extends LeafReader {
     return reader == null ? null : reader.getPointValues(fieldName);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String fieldName) throws IOException {
+    ensureOpen();
+    LeafReader reader = fieldToReader.get(fieldName);
+    return reader == null ? null : reader.getDocValuesSkipper(fieldName);
+  }
+
   @Override
   public VectorValues getVectorValues(String fieldName) throws IOException {
     ensureOpen();
@@ -393,11 +400,14 @@ public class ParallelLeafReader extends LeafReader {
   }
 
   @Override
-  public TopDocs searchNearestVectors(String fieldName, float[] target, int k, Bits acceptDocs)
+  public TopDocs searchNearestVectors(
+      String fieldName, float[] target, int k, Bits acceptDocs, int visitedLimit)
       throws IOException {
     ensureOpen();
     LeafReader reader = fieldToReader.get(fieldName);
-    return reader == null ? null : reader.searchNearestVectors(fieldName, target, k, acceptDocs);
+    return reader == null
+        ? null
+        : reader.searchNearestVectors(fieldName, target, k, acceptDocs, visitedLimit);
   }
 
   @Override
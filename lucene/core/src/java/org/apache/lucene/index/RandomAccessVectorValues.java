@@ -43,8 +43,9 @@ public interface RandomAccessVectorValues {
 
   /**
    * Return the vector indexed at the given ordinal value as an array of bytes in a BytesRef; these
-   * are the bytes corresponding to the float array. The provided bytes may be shared and
-   * overwritten by subsequent calls to this method and {@link #vectorValue(int)}.
+   * are the bytes corresponding to the float array, or one byte per dimension for vectors with
+   * {@link VectorEncoding#BYTE} encoding. The provided bytes may be shared and overwritten by
+   * subsequent calls to this method and {@link #vectorValue(int)}.
    *
    * @param targetOrd a valid ordinal, &ge; 0 and &lt; {@link #size()}.
    */
@@ -118,6 +118,13 @@ class SegmentDocValuesProducer extends DocValuesProducer {
     return dvProducer.getSortedNumeric(field);
   }
 
+  @Override
+  public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+    DocValuesProducer dvProducer = dvProducersByField.get(field.name);
+    assert dvProducer != null;
+    return dvProducer.getSkipper(field);
+  }
+
   @Override
   public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
     DocValuesProducer dvProducer = dvProducersByField.get(field.name);
@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import org.apache.lucene.search.DocAndFreqBuffer;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.util.BytesRef;
 
@@ -97,6 +98,11 @@ public final class SlowImpactsEnum extends ImpactsEnum {
     return delegate.freq();
   }
 
+  @Override
+  public void nextPostings(int upTo, DocAndFreqBuffer buffer) throws IOException {
+    delegate.nextPostings(upTo, buffer);
+  }
+
   @Override
   public int endOffset() throws IOException {
     return delegate.endOffset();
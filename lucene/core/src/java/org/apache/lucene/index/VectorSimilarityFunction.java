@@ -19,6 +19,9 @@ package org.apache.lucene.index;
 import static org.apache.lucene.util.VectorUtil.dotProduct;
 import static org.apache.lucene.util.VectorUtil.squareDistance;
 
+import java.nio.ByteBuffer;
+import org.apache.lucene.util.BytesRef;
+
 /**
  * Vector similarity function; used in search to return top K most similar vectors to a target
  * vector. This is a label describing the method used during indexing and searching of the vectors
@@ -33,6 +36,16 @@ public enum VectorSimilarityFunction {
       return squareDistance(v1, v2);
     }
 
+    @Override
+    public float compare(float[] v1, ByteBuffer v2) {
+      return squareDistance(v1, v2);
+    }
+
+    @Override
+    public float compare(BytesRef v1, BytesRef v2) {
+      return squareDistance(v1, v2);
+    }
+
     @Override
     public float convertToScore(float similarity) {
       return 1 / (1 + similarity);
@@ -46,6 +59,18 @@ public enum VectorSimilarityFunction {
       return dotProduct(v1, v2);
     }
 
+    @Override
+    public float compare(float[] v1, ByteBuffer v2) {
+      return dotProduct(v1, v2);
+    }
+
+    @Override
+    public float compare(BytesRef v1, BytesRef v2) {
+      // divide by the largest possible magnitude of the dot product, so that values are in [-1, 1]
+      // like dot products of unit float vectors
+      return dotProduct(v1, v2) / (float) (v1.length * (1 << 14));
+    }
+
     @Override
     public float convertToScore(float similarity) {
       return (1 + similarity) / 2;
@@ -76,6 +101,27 @@ public enum VectorSimilarityFunction {
    */
   public abstract float compare(float[] v1, float[] v2);
 
+  /**
+   * Calculates a similarity score between the vector and the vector of little-endian floats of the
+   * buffer, from its position to its limit, without copying them. Up to rounding errors, this is
+   * the value of {@link #compare(float[], float[])} on the decoded floats.
+   *
+   * @param v1 a vector
+   * @param v2 a little-endian buffer holding another vector, of the same dimension
+   * @return the value of the similarity function applied to the two vectors
+   */
+  public abstract float compare(float[] v1, ByteBuffer v2);
+
+  /**
+   * Calculates a similarity score between the two vectors of signed bytes, used by fields with
+   * {@link VectorEncoding#BYTE} encoding. Similarities of dot products are scaled to [-1, 1].
+   *
+   * @param v1 a vector
+   * @param v2 another vector, of the same dimension
+   * @return the value of the similarity function applied to the two vectors
+   */
+  public abstract float compare(BytesRef v1, BytesRef v2);
+
   /**
    * Converts similarity scores used (may be negative, reversed, etc) into document scores, which
    * must be positive, with higher scores representing better matches.
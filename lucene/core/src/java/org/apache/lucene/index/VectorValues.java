@@ -50,7 +50,8 @@ public abstract class VectorValues extends DocIdSetIterator {
   /**
    * Return the vector value for the current document ID. It is illegal to call this method when the
    * iterator is not positioned: before advancing, or after failing to advance. The returned array
-   * may be shared across calls, re-used, and modified as the iterator advances.
+   * may be shared across calls, re-used, and modified as the iterator advances. Vectors with {@link
+   * VectorEncoding#BYTE} encoding are returned widened to floats.
    *
    * @return the vector value
    */
@@ -61,6 +62,7 @@ public abstract class VectorValues extends DocIdSetIterator {
    * corresponding to the float array return by {@link #vectorValue}. It is illegal to call this
    * method when the iterator is not positioned: before advancing, or after failing to advance. The
    * returned storage may be shared across calls, re-used and modified as the iterator advances.
+   * Vectors with {@link VectorEncoding#BYTE} encoding are returned as one byte per dimension.
    *
    * @return the binary value
    */
@@ -36,9 +36,13 @@ import org.apache.lucene.util.RamUsageEstimator;
  */
 class VectorValuesWriter {
 
+  private static final long BYTES_REF_BYTES_USED =
+      RamUsageEstimator.shallowSizeOfInstance(BytesRef.class);
+
   private final FieldInfo fieldInfo;
   private final Counter iwBytesUsed;
   private final List<float[]> vectors = new ArrayList<>();
+  private final List<BytesRef> byteVectors = new ArrayList<>();
   private final DocsWithFieldSet docsWithField;
 
   private int lastDocID = -1;
@@ -63,35 +67,66 @@ class VectorValuesWriter {
    * @throws IllegalArgumentException if a value has already been added to the given document
    */
   public void addValue(int docID, float[] vectorValue) {
+    checkValue(docID, VectorEncoding.FLOAT32, vectorValue.length);
+    docsWithField.add(docID);
+    vectors.add(ArrayUtil.copyOfSubArray(vectorValue, 0, vectorValue.length));
+    updateBytesUsed(vectors.size(), RamUsageEstimator.NUM_BYTES_ARRAY_HEADER);
+    lastDocID = docID;
+  }
+
+  /**
+   * Adds a {@link VectorEncoding#BYTE} encoded value for the given document. Only a single value
+   * may be added.
+   *
+   * @param docID the value is added to this document
+   * @param vectorValue the value to add, one byte per dimension
+   * @throws IllegalArgumentException if a value has already been added to the given document
+   */
+  public void addValue(int docID, BytesRef vectorValue) {
+    checkValue(docID, VectorEncoding.BYTE, vectorValue.length);
+    docsWithField.add(docID);
+    byteVectors.add(BytesRef.deepCopyOf(vectorValue));
+    updateBytesUsed(
+        byteVectors.size(),
+        RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + BYTES_REF_BYTES_USED);
+    lastDocID = docID;
+  }
+
+  private void checkValue(int docID, VectorEncoding encoding, int dimension) {
     if (docID == lastDocID) {
       throw new IllegalArgumentException(
           "VectorValuesField \""
               + fieldInfo.name
               + "\" appears more than once in this document (only one value is allowed per field)");
     }
-    if (vectorValue.length != fieldInfo.getVectorDimension()) {
+    if (encoding != fieldInfo.getVectorEncoding()) {
+      throw new IllegalArgumentException(
+          "Attempt to index a vector with encoding "
+              + encoding
+              + " but \""
+              + fieldInfo.name
+              + "\" has encoding "
+              + fieldInfo.getVectorEncoding());
+    }
+    if (dimension != fieldInfo.getVectorDimension()) {
       throw new IllegalArgumentException(
           "Attempt to index a vector of dimension "
-              + vectorValue.length
+              + dimension
               + " but \""
               + fieldInfo.name
               + "\" has dimension "
               + fieldInfo.getVectorDimension());
     }
     assert docID > lastDocID;
-    docsWithField.add(docID);
-    vectors.add(ArrayUtil.copyOfSubArray(vectorValue, 0, vectorValue.length));
-    updateBytesUsed();
-    lastDocID = docID;
   }
 
-  private void updateBytesUsed() {
+  private void updateBytesUsed(int numVectors, long perVectorOverhead) {
     final long newBytesUsed =
         docsWithField.ramBytesUsed()
-            + vectors.size()
-                * (RamUsageEstimator.NUM_BYTES_OBJECT_REF
-                    + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER)
-            + vectors.size() * vectors.get(0).length * Float.BYTES;
+            + numVectors * (RamUsageEstimator.NUM_BYTES_OBJECT_REF + perVectorOverhead)
+            + (long) numVectors
+                * fieldInfo.getVectorDimension()
+                * fieldInfo.getVectorEncoding().byteSize;
     if (iwBytesUsed != null) {
       iwBytesUsed.addAndGet(newBytesUsed - bytesUsed);
     }
@@ -108,7 +143,12 @@ class VectorValuesWriter {
    */
   public void flush(Sorter.DocMap sortMap, KnnVectorsWriter knnVectorsWriter) throws IOException {
     VectorValues vectorValues =
-        new BufferedVectorValues(docsWithField, vectors, fieldInfo.getVectorDimension());
+        new BufferedVectorValues(
+            docsWithField,
+            vectors,
+            byteVectors,
+            fieldInfo.getVectorEncoding(),
+            fieldInfo.getVectorDimension());
     if (sortMap != null) {
       knnVectorsWriter.writeField(fieldInfo, new SortingVectorValues(vectorValues, sortMap));
     } else {
@@ -220,8 +260,8 @@ class VectorValuesWriter {
         }
 
         @Override
-        public BytesRef binaryValue(int targetOrd) {
-          throw new UnsupportedOperationException();
+        public BytesRef binaryValue(int targetOrd) throws IOException {
+          return delegateRA.binaryValue(ordMap[targetOrd]);
         }
       };
     }
@@ -232,32 +272,53 @@ class VectorValuesWriter {
 
     final DocsWithFieldSet docsWithField;
 
-    // These are always the vectors of a VectorValuesWriter, which are copied when added to it
+    // These are always the vectors of a VectorValuesWriter, which are copied when added to it.
+    // Depending on the encoding, only one of the lists is populated.
     final List<float[]> vectors;
+    final List<BytesRef> byteVectors;
+    final VectorEncoding encoding;
     final int dimension;
 
     final ByteBuffer buffer;
     final BytesRef binaryValue;
     final ByteBuffer raBuffer;
     final BytesRef raBinaryValue;
+    // byte vectors widened to floats
+    final float[] value;
+    final float[] raValue;
 
     DocIdSetIterator docsWithFieldIter;
     int ord = -1;
 
-    BufferedVectorValues(DocsWithFieldSet docsWithField, List<float[]> vectors, int dimension) {
+    BufferedVectorValues(
+        DocsWithFieldSet docsWithField,
+        List<float[]> vectors,
+        List<BytesRef> byteVectors,
+        VectorEncoding encoding,
+        int dimension) {
       this.docsWithField = docsWithField;
       this.vectors = vectors;
+      this.byteVectors = byteVectors;
+      this.encoding = encoding;
       this.dimension = dimension;
-      buffer = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
-      binaryValue = new BytesRef(buffer.array());
-      raBuffer = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
-      raBinaryValue = new BytesRef(raBuffer.array());
+      if (encoding == VectorEncoding.FLOAT32) {
+        buffer = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        binaryValue = new BytesRef(buffer.array());
+        raBuffer = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        raBinaryValue = new BytesRef(raBuffer.array());
+        value = raValue = null;
+      } else {
+        buffer = raBuffer = null;
+        binaryValue = raBinaryValue = null;
+        value = new float[dimension];
+        raValue = new float[dimension];
+      }
       docsWithFieldIter = docsWithField.iterator();
     }
 
     @Override
     public RandomAccessVectorValues randomAccess() {
-      return new BufferedVectorValues(docsWithField, vectors, dimension);
+      return new BufferedVectorValues(docsWithField, vectors, byteVectors, encoding, dimension);
     }
 
     @Override
@@ -267,31 +328,50 @@ class VectorValuesWriter {
 
     @Override
     public int size() {
-      return vectors.size();
+      return encoding == VectorEncoding.BYTE ? byteVectors.size() : vectors.size();
     }
 
     @Override
     public BytesRef binaryValue() {
+      if (encoding == VectorEncoding.BYTE) {
+        return byteVectors.get(ord);
+      }
       buffer.asFloatBuffer().put(vectorValue());
       return binaryValue;
     }
 
     @Override
     public BytesRef binaryValue(int targetOrd) {
+      if (encoding == VectorEncoding.BYTE) {
+        return byteVectors.get(targetOrd);
+      }
       raBuffer.asFloatBuffer().put(vectors.get(targetOrd));
       return raBinaryValue;
     }
 
     @Override
     public float[] vectorValue() {
+      if (encoding == VectorEncoding.BYTE) {
+        return widen(byteVectors.get(ord), value);
+      }
       return vectors.get(ord);
     }
 
     @Override
     public float[] vectorValue(int targetOrd) {
+      if (encoding == VectorEncoding.BYTE) {
+        return widen(byteVectors.get(targetOrd), raValue);
+      }
       return vectors.get(targetOrd);
     }
 
+    private static float[] widen(BytesRef bytes, float[] dest) {
+      for (int i = 0; i < dest.length; i++) {
+        dest[i] = bytes.bytes[bytes.offset + i];
+      }
+      return dest;
+    }
+
     @Override
     public int docID() {
       return docsWithFieldIter.docID();
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.internal.vectorization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Computations on vectors that back {@link org.apache.lucene.util.VectorUtil}. Implementations
+ * don't check that the vectors have the same dimension, callers must do it.
+ *
+ * @lucene.internal
+ */
+public interface VectorUtilSupport {
+
+  /** Returns the dot product of the two float vectors. */
+  float dotProduct(float[] a, float[] b);
+
+  /** Returns the sum of squared differences of the two float vectors. */
+  float squareDistance(float[] a, float[] b);
+
+  /**
+   * Returns the dot product of the float vector and the vector of little-endian floats of the
+   * buffer that starts at the given byte offset, without copying the floats of the buffer.
+   */
+  float dotProduct(float[] a, ByteBuffer b, int bOffset);
+
+  /**
+   * Returns the sum of squared differences of the float vector and the vector of little-endian
+   * floats of the buffer that starts at the given byte offset, without copying the floats of the
+   * buffer.
+   */
+  float squareDistance(float[] a, ByteBuffer b, int bOffset);
+
+  /**
+   * Returns the dot product of the vectors of signed bytes that start at the given offsets and have
+   * the given length.
+   */
+  int dotProduct(byte[] a, int aOffset, byte[] b, int bOffset, int length);
+
+  /**
+   * Returns the sum of squared differences of the vectors of signed bytes that start at the given
+   * offsets and have the given length.
+   */
+  int squareDistance(byte[] a, int aOffset, byte[] b, int bOffset, int length);
+}
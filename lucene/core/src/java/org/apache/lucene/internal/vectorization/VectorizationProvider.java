@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.internal.vectorization;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Provides the implementations of vector computations for the current runtime. The provider is
+ * selected once, when this class is initialized.
+ *
+ * <p>Implementations using the incubating Vector API are compiled against a single Java version,
+ * because the API may change between versions, and are packaged in the multi-release JAR. They are
+ * used if the runtime has this exact version, the {@code jdk.incubator.vector} module is enabled
+ * (eg. with {@code --add-modules jdk.incubator.vector}), and the preferred vector size is at least
+ * 128 bits. Otherwise, scalar implementations are used.
+ *
+ * @lucene.internal
+ */
+public abstract class VectorizationProvider {
+
+  /** The Java version that the implementations using the Vector API are compiled against. */
+  static final int VECTOR_API_VERSION = 17;
+
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+  private static final String PANAMA_PROVIDER =
+      "org.apache.lucene.internal.vectorization.PanamaVectorizationProvider";
+
+  private static final VectorizationProvider INSTANCE = lookup();
+
+  /** Returns the provider for the current runtime. */
+  public static VectorizationProvider getInstance() {
+    return INSTANCE;
+  }
+
+  /** Sole constructor */
+  VectorizationProvider() {}
+
+  /** Returns the implementation of {@link org.apache.lucene.util.VectorUtil} computations. */
+  public abstract VectorUtilSupport getVectorUtilSupport();
+
+  private static VectorizationProvider lookup() {
+    if (Runtime.version().feature() != VECTOR_API_VERSION
+        || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      return new DefaultVectorizationProvider();
+    }
+    try {
+      // the class is only compiled and packaged when building with a recent enough JDK
+      Class<?> clazz = Class.forName(PANAMA_PROVIDER);
+      VectorizationProvider provider =
+          (VectorizationProvider)
+              MethodHandles.lookup()
+                  .findConstructor(clazz, MethodType.methodType(void.class))
+                  .invoke();
+      return provider.isSupported() ? provider : new DefaultVectorizationProvider();
+    } catch (ClassNotFoundException | LinkageError e) {
+      return new DefaultVectorizationProvider();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new AssertionError(t);
+    }
+  }
+
+  /**
+   * Returns whether this provider is worth using on the current hardware. The default
+   * implementation returns true.
+   */
+  boolean isSupported() {
+    return true;
+  }
+}
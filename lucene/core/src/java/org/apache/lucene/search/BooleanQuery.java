@@ -32,6 +32,7 @@ import java.util.Set;
 import java.util.function.Predicate;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.util.IOUtils.IOFunction;
 
 /**
  * A Query that matches documents matching boolean combinations of other queries, e.g. {@link
@@ -240,6 +241,16 @@ public class BooleanQuery extends Query implements Iterable<BooleanClause> {
 
   @Override
   public Query rewrite(IndexReader reader) throws IOException {
+    return doRewrite(q -> q.rewrite(reader));
+  }
+
+  @Override
+  public Query rewriteWithSearcher(IndexSearcher indexSearcher) throws IOException {
+    return doRewrite(q -> q.rewriteWithSearcher(indexSearcher));
+  }
+
+  /** Rewrite this query, using the given function to rewrite sub queries. */
+  private Query doRewrite(IOFunction<Query, Query> rewriteSubQuery) throws IOException {
     if (clauses.size() == 0) {
       return new MatchNoDocsQuery("empty BooleanQuery");
     }
@@ -274,7 +285,7 @@ public class BooleanQuery extends Query implements Iterable<BooleanClause> {
       boolean actuallyRewritten = false;
       for (BooleanClause clause : this) {
         Query query = clause.getQuery();
-        Query rewritten = query.rewrite(reader);
+        Query rewritten = rewriteSubQuery.apply(query);
         if (rewritten != query) {
           // rewrite clause
           actuallyRewritten = true;
@@ -512,7 +523,7 @@ public class BooleanQuery extends Query implements Iterable<BooleanClause> {
       }
     }
 
-    return super.rewrite(reader);
+    return this;
   }
 
   @Override
@@ -43,11 +43,19 @@ final class BooleanScorer extends BulkScorer {
 
   private class BulkScorerAndDoc {
     final BulkScorer scorer;
+    // non-null if this clause is a term clause, whose postings can be collected by blocks
+    final TermScorer termScorer;
     final long cost;
     int next;
 
     BulkScorerAndDoc(BulkScorer scorer) {
       this.scorer = scorer;
+      if (scorer instanceof Weight.DefaultBulkScorer
+          && ((Weight.DefaultBulkScorer) scorer).scorer instanceof TermScorer) {
+        this.termScorer = (TermScorer) ((Weight.DefaultBulkScorer) scorer).scorer;
+      } else {
+        this.termScorer = null;
+      }
       this.cost = scorer.cost();
       this.next = -1;
     }
@@ -57,7 +65,11 @@ final class BooleanScorer extends BulkScorer {
     }
 
     void score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
-      next = scorer.score(collector, acceptDocs, min, max);
+      if (termScorer != null && collector == orCollector) {
+        next = scoreTermClause(termScorer, acceptDocs, min, max);
+      } else {
+        next = scorer.score(collector, acceptDocs, min, max);
+      }
     }
   }
 
@@ -140,6 +152,32 @@ final class BooleanScorer extends BulkScorer {
   }
 
   final OrCollector orCollector = new OrCollector();
+  final DocAndScoreBuffer docAndScoreBuffer = new DocAndScoreBuffer();
+
+  /**
+   * Same as scoring a term clause into {@link #orCollector}, but on batches of postings in order to
+   * save a virtual call per posting.
+   */
+  private int scoreTermClause(TermScorer termScorer, Bits acceptDocs, int min, int max)
+      throws IOException {
+    final DocIdSetIterator iterator = termScorer.iterator();
+    if (iterator.docID() < min) {
+      iterator.advance(min);
+    }
+    final DocAndScoreBuffer buffer = this.docAndScoreBuffer;
+    for (termScorer.nextDocsAndScores(max, acceptDocs, buffer);
+        buffer.size != 0;
+        termScorer.nextDocsAndScores(max, acceptDocs, buffer)) {
+      for (int j = 0; j < buffer.size; ++j) {
+        final int i = buffer.docs[j] & MASK;
+        matching[i >>> 6] |= 1L << i;
+        final Bucket bucket = buckets[i];
+        bucket.freq++;
+        bucket.score += buffer.scores[j];
+      }
+    }
+    return iterator.docID();
+  }
 
   BooleanScorer(
       BooleanWeight weight,
@@ -248,6 +248,41 @@ final class BooleanWeight extends Weight {
     return scorer;
   }
 
+  // Return whether this query is a pure disjunction that MaxScoreBulkScorer can handle
+  private boolean isPureDisjunction() {
+    if (query.getMinimumNumberShouldMatch() > 1) {
+      return false;
+    }
+    for (WeightedBooleanClause wc : weightedClauses) {
+      if (wc.clause.getOccur() != Occur.SHOULD) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Return a MaxScoreBulkScorer for pure disjunctions that have at least 2 matching clauses,
+  // the default bulk scorer if a single clause matches or null if no clause matches
+  // pkg-private for testing
+  BulkScorer maxScoreBulkScorer(LeafReaderContext context) throws IOException {
+    assert isPureDisjunction();
+    List<Scorer> optional = new ArrayList<>();
+    for (WeightedBooleanClause wc : weightedClauses) {
+      Scorer scorer = wc.weight.scorer(context);
+      if (scorer != null) {
+        optional.add(scorer);
+      }
+    }
+    if (optional.isEmpty()) {
+      return null;
+    } else if (optional.size() == 1) {
+      // a single clause is better handled by the default bulk scorer, which is what
+      // super.bulkScorer would return, but reuse the scorer rather than creating it again
+      return new DefaultBulkScorer(optional.get(0));
+    }
+    return new MaxScoreBulkScorer(context.reader().maxDoc(), optional);
+  }
+
   /**
    * Try to build a boolean scorer for this weight. Returns null if {@link BooleanScorer} cannot be
    * used.
@@ -330,8 +365,12 @@ final class BooleanWeight extends Weight {
   @Override
   public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
     if (scoreMode == ScoreMode.TOP_SCORES) {
-      // If only the top docs are requested, use the default bulk scorer
-      // so that we can dynamically prune non-competitive hits.
+      // If only the top docs are requested, use a bulk scorer that dynamically
+      // prunes non-competitive hits: MAXSCORE for pure disjunctions, or the
+      // default bulk scorer on top of WAND/block-max conjunctions otherwise.
+      if (isPureDisjunction()) {
+        return maxScoreBulkScorer(context);
+      }
       return super.bulkScorer(context);
     }
     final BulkScorer bulkScorer = booleanScorer(context);
@@ -19,6 +19,7 @@ package org.apache.lucene.search;
 import java.io.IOException;
 import java.util.Objects;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.IOUtils.IOFunction;
 
 /**
  * A {@link Query} wrapper that allows to give a boost to the wrapped query. Boost values that are
@@ -74,7 +75,17 @@ public final class BoostQuery extends Query {
 
   @Override
   public Query rewrite(IndexReader reader) throws IOException {
-    final Query rewritten = query.rewrite(reader);
+    return doRewrite(q -> q.rewrite(reader));
+  }
+
+  @Override
+  public Query rewriteWithSearcher(IndexSearcher indexSearcher) throws IOException {
+    return doRewrite(q -> q.rewriteWithSearcher(indexSearcher));
+  }
+
+  /** Rewrite this query, using the given function to rewrite sub queries. */
+  private Query doRewrite(IOFunction<Query, Query> rewriteSubQuery) throws IOException {
+    final Query rewritten = rewriteSubQuery.apply(query);
 
     if (boost == 1f) {
       return rewritten;
@@ -94,7 +105,7 @@ public final class BoostQuery extends Query {
       return new BoostQuery(rewritten, boost);
     }
 
-    return super.rewrite(reader);
+    return this;
   }
 
   @Override
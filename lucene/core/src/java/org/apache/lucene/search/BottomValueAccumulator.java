@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Maintains concurrently the most competitive bottom value of the queues of collectors that sort
+ * different slices of an index by the same field. Since each of these queues holds enough hits
+ * that compare better than or equal to its bottom value, hits that compare strictly worse than the
+ * most competitive bottom value can't make it to the merged top hits, so every slice may skip
+ * them. Values are longs that sort like the sort values, such as sortable longs for floating-point
+ * values.
+ *
+ * @see FieldComparator#setSharedBottom(BottomValueAccumulator)
+ * @lucene.internal
+ */
+public final class BottomValueAccumulator {
+
+  private final boolean reverse;
+  private final LongAccumulator acc;
+
+  /**
+   * Sole constructor.
+   *
+   * @param reverse whether the sort is in descending order, in which case greater bottom values
+   *     are more competitive
+   */
+  public BottomValueAccumulator(boolean reverse) {
+    this.reverse = reverse;
+    this.acc =
+        reverse
+            ? new LongAccumulator(Math::max, Long.MIN_VALUE)
+            : new LongAccumulator(Math::min, Long.MAX_VALUE);
+  }
+
+  /** Publish the bottom value of a queue that is full. */
+  public void accumulate(long bottom) {
+    acc.accumulate(bottom);
+  }
+
+  /**
+   * Return the most competitive bottom value that has been published so far, or {@link
+   * Long#MAX_VALUE} (resp. {@link Long#MIN_VALUE} if the sort is reversed) if no value has been
+   * published yet, which doesn't allow skipping any hit.
+   */
+  public long get() {
+    return acc.get();
+  }
+
+  /** Whether a bottom value has been published. */
+  public boolean isSet() {
+    return acc.get() != (reverse ? Long.MIN_VALUE : Long.MAX_VALUE);
+  }
+}
@@ -0,0 +1,371 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.BitDocIdSet;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IntArrayDocIdSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.RoaringDocIdSet;
+
+/**
+ * A {@link Weight} that caches the matches of the wrapped weight per segment. This class does the
+ * work that is common to {@link LRUQueryCache} and {@link ConcurrentQueryCache}, which only differ
+ * in how they look up, store and evict cached {@link DocIdSet}s.
+ */
+abstract class CachingWrapperWeight extends ConstantScoreWeight {
+
+  /**
+   * Returned by {@link #get} when the cache can't be looked up right now, in which case the wrapped
+   * weight is used directly.
+   */
+  static final DocIdSet SKIP_CACHE =
+      new DocIdSet() {
+        @Override
+        public DocIdSetIterator iterator() {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long ramBytesUsed() {
+          return 0L;
+        }
+      };
+
+  final Weight in;
+  private final QueryCachingPolicy policy;
+  private final float skipCacheFactor;
+  // we use an AtomicBoolean because Weight.scorer may be called from multiple
+  // threads when IndexSearcher is created with threads
+  private final AtomicBoolean used;
+
+  CachingWrapperWeight(Weight in, QueryCachingPolicy policy, float skipCacheFactor) {
+    super(in.getQuery(), 1f);
+    this.in = in;
+    this.policy = policy;
+    this.skipCacheFactor = skipCacheFactor;
+    used = new AtomicBoolean(false);
+  }
+
+  /** Check whether this segment is eligible for caching, regardless of the query. */
+  abstract boolean shouldCache(LeafReaderContext context) throws IOException;
+
+  /**
+   * Return the cached {@link DocIdSet} of the given query on the segment of the given cache helper,
+   * {@code null} if it is not cached or {@link #SKIP_CACHE} to not use the cache this time.
+   */
+  abstract DocIdSet get(Query query, IndexReader.CacheHelper cacheHelper);
+
+  /** Cache the given {@link DocIdSet} unless a set is already cached for this query and segment. */
+  abstract void putIfAbsent(Query query, DocIdSet set, IndexReader.CacheHelper cacheHelper);
+
+  /** Build the {@link DocIdSet} to cache from the matches of the given scorer. */
+  abstract DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException;
+
+  @Override
+  public Matches matches(LeafReaderContext context, int doc) throws IOException {
+    return in.matches(context, doc);
+  }
+
+  private DocIdSet cache(LeafReaderContext context) throws IOException {
+    final BulkScorer scorer = in.bulkScorer(context);
+    if (scorer == null) {
+      return DocIdSet.EMPTY;
+    } else {
+      return cacheImpl(scorer, context.reader().maxDoc());
+    }
+  }
+
+  @Override
+  public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+    if (used.compareAndSet(false, true)) {
+      policy.onUse(getQuery());
+    }
+
+    if (in.isCacheable(context) == false) {
+      // this segment is not suitable for caching
+      return in.scorerSupplier(context);
+    }
+
+    // Short-circuit: Check whether this segment is eligible for caching
+    // before we look up the cache
+    if (shouldCache(context) == false) {
+      return in.scorerSupplier(context);
+    }
+
+    final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+    if (cacheHelper == null) {
+      // this reader has no cache helper
+      return in.scorerSupplier(context);
+    }
+
+    DocIdSet docIdSet = get(in.getQuery(), cacheHelper);
+    if (docIdSet == SKIP_CACHE) {
+      return in.scorerSupplier(context);
+    }
+
+    if (docIdSet == null) {
+      if (policy.shouldCache(in.getQuery())) {
+        final ScorerSupplier supplier = in.scorerSupplier(context);
+        if (supplier == null) {
+          putIfAbsent(in.getQuery(), DocIdSet.EMPTY, cacheHelper);
+          return null;
+        }
+
+        final long cost = supplier.cost();
+        return new ScorerSupplier() {
+          @Override
+          public Scorer get(long leadCost) throws IOException {
+            // skip cache operation which would slow query down too much
+            if (cost / skipCacheFactor > leadCost) {
+              return supplier.get(leadCost);
+            }
+
+            Scorer scorer = supplier.get(Long.MAX_VALUE);
+            DocIdSet docIdSet =
+                cacheImpl(new DefaultBulkScorer(scorer), context.reader().maxDoc());
+            putIfAbsent(in.getQuery(), docIdSet, cacheHelper);
+            DocIdSetIterator disi = docIdSet.iterator();
+            if (disi == null) {
+              // docIdSet.iterator() is allowed to return null when empty but we want a non-null
+              // iterator here
+              disi = DocIdSetIterator.empty();
+            }
+
+            return new ConstantScoreScorer(
+                CachingWrapperWeight.this, 0f, ScoreMode.COMPLETE_NO_SCORES, disi);
+          }
+
+          @Override
+          public long cost() {
+            return cost;
+          }
+        };
+      } else {
+        return in.scorerSupplier(context);
+      }
+    }
+
+    assert docIdSet != null;
+    if (docIdSet == DocIdSet.EMPTY) {
+      return null;
+    }
+    final DocIdSetIterator disi = docIdSet.iterator();
+    if (disi == null) {
+      return null;
+    }
+
+    return new ScorerSupplier() {
+      @Override
+      public Scorer get(long leadCost) throws IOException {
+        return new ConstantScoreScorer(
+            CachingWrapperWeight.this, 0f, ScoreMode.COMPLETE_NO_SCORES, disi);
+      }
+
+      @Override
+      public long cost() {
+        return disi.cost();
+      }
+    };
+  }
+
+  @Override
+  public Scorer scorer(LeafReaderContext context) throws IOException {
+    ScorerSupplier scorerSupplier = scorerSupplier(context);
+    if (scorerSupplier == null) {
+      return null;
+    }
+    return scorerSupplier.get(Long.MAX_VALUE);
+  }
+
+  @Override
+  public int count(LeafReaderContext context) throws IOException {
+    return in.count(context);
+  }
+
+  @Override
+  public boolean isCacheable(LeafReaderContext ctx) {
+    return in.isCacheable(ctx);
+  }
+
+  @Override
+  public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+    if (used.compareAndSet(false, true)) {
+      policy.onUse(getQuery());
+    }
+
+    if (in.isCacheable(context) == false) {
+      // this segment is not suitable for caching
+      return in.bulkScorer(context);
+    }
+
+    // Short-circuit: Check whether this segment is eligible for caching
+    // before we look up the cache
+    if (shouldCache(context) == false) {
+      return in.bulkScorer(context);
+    }
+
+    final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+    if (cacheHelper == null) {
+      // this reader has no cacheHelper
+      return in.bulkScorer(context);
+    }
+
+    DocIdSet docIdSet = get(in.getQuery(), cacheHelper);
+    if (docIdSet == SKIP_CACHE) {
+      return in.bulkScorer(context);
+    }
+
+    if (docIdSet == null) {
+      if (policy.shouldCache(in.getQuery())) {
+        docIdSet = cache(context);
+        putIfAbsent(in.getQuery(), docIdSet, cacheHelper);
+      } else {
+        return in.bulkScorer(context);
+      }
+    }
+
+    assert docIdSet != null;
+    if (docIdSet == DocIdSet.EMPTY) {
+      return null;
+    }
+    final DocIdSetIterator disi = docIdSet.iterator();
+    if (disi == null) {
+      return null;
+    }
+
+    return new DefaultBulkScorer(
+        new ConstantScoreScorer(this, 0f, ScoreMode.COMPLETE_NO_SCORES, disi));
+  }
+
+  /**
+   * Add the memory usage of the given cached sets to the given map, keyed by the simple name of
+   * their class.
+   */
+  static void addDocIdSetRamBytesUsed(Collection<DocIdSet> sets, Map<String, Long> ramBytesUsed) {
+    for (DocIdSet set : sets) {
+      if (set != DocIdSet.EMPTY) {
+        ramBytesUsed.merge(set.getClass().getSimpleName(), set.ramBytesUsed(), Long::sum);
+      }
+    }
+  }
+
+  /**
+   * Cache the matches of the given scorer into the most compact of a {@link BitDocIdSet}, a {@link
+   * RoaringDocIdSet} and an {@link IntArrayDocIdSet}.
+   */
+  static DocIdSet cacheIntoCompactDocIdSet(BulkScorer scorer, int maxDoc) throws IOException {
+    if (scorer.cost() * 100 >= maxDoc) {
+      // FixedBitSet is faster to build for dense sets
+      return compact(cacheIntoBitSet(scorer, maxDoc));
+    } else {
+      return compact(cacheIntoRoaringDocIdSet(scorer, maxDoc));
+    }
+  }
+
+  private static DocIdSet compact(BitDocIdSet set) throws IOException {
+    final FixedBitSet bitSet = (FixedBitSet) set.bits();
+    final long cardinality = set.iterator().cost();
+    // upper bound of the memory usage of a RoaringDocIdSet, ignoring the per-block overhead:
+    // blocks either store docs in a short[] or the first and last doc of each run in a short[]
+    final long roaringBytes = Math.min(cardinality, 2 * numRuns(bitSet)) * Short.BYTES;
+    if (roaringBytes * 2 > set.ramBytesUsed()) {
+      return set;
+    }
+    final RoaringDocIdSet roaringSet =
+        new RoaringDocIdSet.Builder(bitSet.length()).add(new BitSetIterator(bitSet, 0)).build();
+    if (roaringSet.ramBytesUsed() * 2 > set.ramBytesUsed()) {
+      return set;
+    }
+    return compact(roaringSet);
+  }
+
+  private static DocIdSet compact(RoaringDocIdSet set) throws IOException {
+    final int cardinality = set.cardinality();
+    // RoaringDocIdSet has a per-block overhead, an int[] is more compact for tiny sets
+    final long intArrayBytes =
+        RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Integer.BYTES * (cardinality + 1));
+    if (intArrayBytes >= set.ramBytesUsed()) {
+      return set;
+    }
+    final int[] docs = new int[cardinality + 1];
+    final DocIdSetIterator iterator = set.iterator();
+    for (int i = 0; i < cardinality; ++i) {
+      docs[i] = iterator.nextDoc();
+    }
+    docs[cardinality] = DocIdSetIterator.NO_MORE_DOCS;
+    return new IntArrayDocIdSet(docs, cardinality);
+  }
+
+  /** Return the number of runs of consecutive set bits. */
+  private static long numRuns(FixedBitSet bitSet) {
+    final long[] bits = bitSet.getBits();
+    long numRuns = 0;
+    long previousWord = 0;
+    for (long word : bits) {
+      // bits that are set while the previous bit is clear start a run
+      numRuns += Long.bitCount(word & ~((word << 1) | (previousWord >>> 63)));
+      previousWord = word;
+    }
+    return numRuns;
+  }
+
+  private static BitDocIdSet cacheIntoBitSet(BulkScorer scorer, int maxDoc) throws IOException {
+    final FixedBitSet bitSet = new FixedBitSet(maxDoc);
+    long[] cost = new long[1];
+    scorer.score(
+        new LeafCollector() {
+
+          @Override
+          public void setScorer(Scorable scorer) throws IOException {}
+
+          @Override
+          public void collect(int doc) throws IOException {
+            cost[0]++;
+            bitSet.set(doc);
+          }
+        },
+        null);
+    return new BitDocIdSet(bitSet, cost[0]);
+  }
+
+  private static RoaringDocIdSet cacheIntoRoaringDocIdSet(BulkScorer scorer, int maxDoc)
+      throws IOException {
+    RoaringDocIdSet.Builder builder = new RoaringDocIdSet.Builder(maxDoc);
+    scorer.score(
+        new LeafCollector() {
+
+          @Override
+          public void setScorer(Scorable scorer) throws IOException {}
+
+          @Override
+          public void collect(int doc) throws IOException {
+            builder.add(doc);
+          }
+        },
+        null);
+    return builder.build();
+  }
+}
@@ -0,0 +1,620 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import static org.apache.lucene.util.RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY;
+import static org.apache.lucene.util.RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+import static org.apache.lucene.util.RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.BitDocIdSet;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IntArrayDocIdSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.RoaringDocIdSet;
+
+/**
+ * A {@link QueryCache} that is designed for highly concurrent search workloads. Queries are
+ * partitioned into shards based on their hash code, and each shard evicts queries independently
+ * using the CLOCK algorithm, an approximation of LRU (least-recently-used), in order to remain
+ * under its share of the maximum size and number of bytes used.
+ *
+ * <p>This class is thread-safe. Unlike {@link LRUQueryCache}, looking up a cached query never takes
+ * a lock: cache hits only mark the query as recently used, so concurrent searches never need to
+ * skip the cache because of contention. Adding entries to the cache and evicting them take the lock
+ * of a single shard.
+ *
+ * <p>Since each shard manages <code>1/numShards</code> of the memory budget, segments are only
+ * cached if 5 entries for them would fit in a single shard, and a query whose cached entries exceed
+ * the budget of a shard is evicted immediately. Fewer shards should be used with small memory
+ * budgets.
+ *
+ * <p>This cache can be used in place of the default query cache like this:
+ *
+ * <pre class="prettyprint">
+ *   final int maxNumberOfCachedQueries = 256;
+ *   final long maxRamBytesUsed = 50 * 1024L * 1024L; // 50MB
+ *   final QueryCache queryCache =
+ *       new ConcurrentQueryCache(maxNumberOfCachedQueries, maxRamBytesUsed);
+ *   indexSearcher.setQueryCache(queryCache);
+ * </pre>
+ *
+ * This cache exposes the same global statistics as {@link LRUQueryCache}: {@link #getHitCount()
+ * hit count}, {@link #getMissCount() miss count}, {@link #getCacheSize() number of cache entries},
+ * {@link #getCacheCount() total number of DocIdSets that have ever been cached} and {@link
+ * #getEvictionCount() number of evicted entries}.
+ *
+ * @see LRUQueryCache
+ * @lucene.experimental
+ */
+public class ConcurrentQueryCache implements QueryCache, Accountable {
+
+  /** Default number of shards. */
+  public static final int DEFAULT_NUM_SHARDS = 16;
+
+  // a cached query, its map entry and its slot in the clock
+  private static final long QUERY_RAM_BYTES_USED =
+      HASHTABLE_RAM_BYTES_PER_ENTRY
+          + QUERY_DEFAULT_RAM_BYTES_USED
+          + RamUsageEstimator.shallowSizeOfInstance(CachedQuery.class)
+          + RamUsageEstimator.shallowSizeOfInstance(ConcurrentHashMap.class)
+          + NUM_BYTES_OBJECT_REF;
+
+  private final long maxRamBytesUsed;
+  private final Predicate<LeafReaderContext> leavesToCache;
+  private final float skipCacheFactor;
+  private final Shard[] shards;
+  // core cache keys of the readers that we registered a closed listener on
+  private final Set<IndexReader.CacheKey> registeredKeys;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder cacheCount = new LongAdder();
+  private final LongAdder cacheSize = new LongAdder();
+
+  /**
+   * Expert: Create a new instance that will cache at most <code>maxSize</code> queries with at most
+   * <code>maxRamBytesUsed</code> bytes of memory, only on leaves that satisfy {@code
+   * leavesToCache}. Queries are partitioned into <code>numShards</code> shards, rounded down to a
+   * power of two so that every shard may cache at least one query.
+   *
+   * <p>Also, clauses whose cost is {@code skipCacheFactor} times more than the cost of the
+   * top-level query will not be cached in order to not slow down queries too much.
+   */
+  public ConcurrentQueryCache(
+      int maxSize,
+      long maxRamBytesUsed,
+      Predicate<LeafReaderContext> leavesToCache,
+      float skipCacheFactor,
+      int numShards) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be at least 1, got " + maxSize);
+    }
+    if (skipCacheFactor >= 1 == false) { // NaN >= 1 evaluates false
+      throw new IllegalArgumentException(
+          "skipCacheFactor must be no less than 1, get " + skipCacheFactor);
+    }
+    if (numShards < 1) {
+      throw new IllegalArgumentException("numShards must be at least 1, got " + numShards);
+    }
+    this.maxRamBytesUsed = maxRamBytesUsed;
+    this.leavesToCache = leavesToCache;
+    this.skipCacheFactor = skipCacheFactor;
+    numShards = Integer.highestOneBit(Math.min(numShards, maxSize));
+    shards = new Shard[numShards];
+    for (int i = 0; i < numShards; ++i) {
+      shards[i] = new Shard(maxSize / numShards, maxRamBytesUsed / numShards);
+    }
+    registeredKeys = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Create a new instance that will cache at most <code>maxSize</code> queries with at most <code>
+   * maxRamBytesUsed</code> bytes of memory, using {@link #DEFAULT_NUM_SHARDS} shards. Like {@link
+   * LRUQueryCache#LRUQueryCache(int, long)}, queries will only be cached on leaves that have more
+   * than 10k documents and have more than 3% of the total number of documents in the index, and
+   * only clauses whose cost is at most 100x the cost of the top-level query will be cached.
+   */
+  public ConcurrentQueryCache(int maxSize, long maxRamBytesUsed) {
+    this(
+        maxSize,
+        maxRamBytesUsed,
+        new LRUQueryCache.MinSegmentSizePredicate(10000, .03f),
+        10,
+        DEFAULT_NUM_SHARDS);
+  }
+
+  private Shard shard(Query query) {
+    final int h = query.hashCode();
+    return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+  }
+
+  // pkg-private for testing
+  DocIdSet get(Query key, IndexReader.CacheKey readerKey) {
+    assert key instanceof BoostQuery == false;
+    assert key instanceof ConstantScoreQuery == false;
+    final DocIdSet cached = shard(key).get(key, readerKey);
+    if (cached == null) {
+      missCount.increment();
+    } else {
+      hitCount.increment();
+    }
+    return cached;
+  }
+
+  private void putIfAbsent(Query query, DocIdSet set, IndexReader.CacheHelper cacheHelper) {
+    assert query instanceof BoostQuery == false;
+    assert query instanceof ConstantScoreQuery == false;
+    final IndexReader.CacheKey key = cacheHelper.getKey();
+    if (registeredKeys.add(key)) {
+      // first entry on this segment, need to register a close listener
+      cacheHelper.addClosedListener(this::clearCoreCacheKey);
+    }
+    shard(query).putIfAbsent(query, set, key);
+  }
+
+  /** Remove all cache entries for the given core cache key. */
+  public void clearCoreCacheKey(Object coreKey) {
+    registeredKeys.remove(coreKey);
+    for (Shard shard : shards) {
+      shard.clearCoreCacheKey(coreKey);
+    }
+  }
+
+  /** Remove all cache entries for the given query. */
+  public void clearQuery(Query query) {
+    shard(query).clearQuery(query);
+  }
+
+  /** Clear the content of this cache. */
+  public void clear() {
+    for (Shard shard : shards) {
+      shard.clear();
+    }
+  }
+
+  // pkg-private for testing
+  int numShards() {
+    return shards.length;
+  }
+
+  // pkg-private for testing
+  void assertConsistent() {
+    long recomputedCacheSize = 0;
+    for (Shard shard : shards) {
+      recomputedCacheSize += shard.assertConsistent();
+    }
+    if (recomputedCacheSize != getCacheSize()) {
+      throw new AssertionError(
+          "cacheSize mismatch : " + getCacheSize() + " != " + recomputedCacheSize);
+    }
+  }
+
+  // pkg-private for testing
+  // return the list of cached queries, in no particular order
+  List<Query> cachedQueries() {
+    List<Query> queries = new ArrayList<>();
+    for (Shard shard : shards) {
+      queries.addAll(shard.queries.keySet());
+    }
+    return queries;
+  }
+
+  @Override
+  public Weight doCache(Weight weight, QueryCachingPolicy policy) {
+    while (weight instanceof CachingWrapperWeight) {
+      weight = ((CachingWrapperWeight) weight).in;
+    }
+
+    return new ConcurrentCachingWrapperWeight(weight, policy);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long ramBytesUsed = 0;
+    for (Shard shard : shards) {
+      ramBytesUsed += shard.ramBytesUsed;
+    }
+    return ramBytesUsed;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    List<Accountable> resources = new ArrayList<>();
+    for (int i = 0; i < shards.length; ++i) {
+      resources.add(Accountables.namedAccountable("shard " + i, shards[i]));
+    }
+    return Collections.unmodifiableList(resources);
+  }
+
+  /**
+   * Default cache implementation: uses the most compact of a {@link BitDocIdSet} over a {@link
+   * FixedBitSet}, a {@link RoaringDocIdSet} and an {@link IntArrayDocIdSet}, like {@link
+   * LRUQueryCache#cacheImpl}.
+   */
+  protected DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
+    return CachingWrapperWeight.cacheIntoCompactDocIdSet(scorer, maxDoc);
+  }
+
+  /**
+   * Return the memory usage of the cached {@link DocIdSet}s, broken down by the simple name of
+   * their class, e.g. {@code BitDocIdSet}, {@code RoaringDocIdSet} or {@code IntArrayDocIdSet}.
+   * This helps figure out how compact cached sets are.
+   */
+  public Map<String, Long> getDocIdSetRamBytesUsed() {
+    Map<String, Long> ramBytesUsed = new TreeMap<>();
+    for (Shard shard : shards) {
+      for (CachedQuery cachedQuery : shard.queries.values()) {
+        CachingWrapperWeight.addDocIdSetRamBytesUsed(cachedQuery.sets.values(), ramBytesUsed);
+      }
+    }
+    return ramBytesUsed;
+  }
+
+  /**
+   * Return the total number of times that a {@link Query} has been looked up in this {@link
+   * QueryCache}. Note that this number is incremented once per segment so running a cached query
+   * only once will increment this counter by the number of segments that are wrapped by the
+   * searcher. Note that by definition, {@link #getTotalCount()} is the sum of {@link
+   * #getHitCount()} and {@link #getMissCount()}.
+   *
+   * @see #getHitCount()
+   * @see #getMissCount()
+   */
+  public final long getTotalCount() {
+    return getHitCount() + getMissCount();
+  }
+
+  /**
+   * Over the {@link #getTotalCount() total} number of times that a query has been looked up, return
+   * how many times a cached {@link DocIdSet} has been found and returned.
+   *
+   * @see #getTotalCount()
+   * @see #getMissCount()
+   */
+  public final long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Over the {@link #getTotalCount() total} number of times that a query has been looked up, return
+   * how many times this query was not contained in the cache.
+   *
+   * @see #getTotalCount()
+   * @see #getHitCount()
+   */
+  public final long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Return the total number of {@link DocIdSet}s which are currently stored in the cache.
+   *
+   * @see #getCacheCount()
+   * @see #getEvictionCount()
+   */
+  public final long getCacheSize() {
+    return cacheSize.sum();
+  }
+
+  /**
+   * Return the total number of cache entries that have been generated and put in the cache.
+   *
+   * @see #getCacheSize()
+   * @see #getEvictionCount()
+   */
+  public final long getCacheCount() {
+    return cacheCount.sum();
+  }
+
+  /**
+   * Return the number of cache entries that have been removed from the cache either in order to
+   * stay under the maximum configured size/ram usage, or because a segment has been closed.
+   *
+   * @see #getCacheCount()
+   * @see #getCacheSize()
+   */
+  public final long getEvictionCount() {
+    return getCacheCount() - getCacheSize();
+  }
+
+  /** A cached query and its {@link DocIdSet}s, keyed by the core cache key of the segment. */
+  private static final class CachedQuery {
+
+    private final Query query;
+    private final Map<IndexReader.CacheKey, DocIdSet> sets;
+    // set on every cache hit, cleared when the clock hand gives the query a second chance
+    private volatile boolean referenced;
+    // guarded by the lock of the shard
+    private long ramBytesUsed;
+
+    CachedQuery(Query query) {
+      this.query = query;
+      this.sets = new ConcurrentHashMap<>();
+      this.ramBytesUsed = QUERY_RAM_BYTES_USED;
+    }
+  }
+
+  /**
+   * A partition of the cache. Lookups only read concurrent data-structures while modifications are
+   * performed under the lock of the shard so that the clock and RAM accounting remain in sync with
+   * the cached queries.
+   */
+  private final class Shard implements Accountable {
+
+    private final int maxSize;
+    private final long maxRamBytesUsed;
+    private final ReentrantLock lock;
+    // maps queries that are contained in the cache to their entry so that this
+    // cache does not store several copies of the same query
+    private final Map<Query, CachedQuery> queries;
+    // cached queries in the order in which the clock hand visits them, guarded by the lock
+    private final Deque<CachedQuery> clock;
+    // only modified under the lock
+    private volatile long ramBytesUsed;
+
+    Shard(int maxSize, long maxRamBytesUsed) {
+      this.maxSize = maxSize;
+      this.maxRamBytesUsed = maxRamBytesUsed;
+      lock = new ReentrantLock();
+      queries = new ConcurrentHashMap<>();
+      clock = new ArrayDeque<>();
+    }
+
+    DocIdSet get(Query query, IndexReader.CacheKey readerKey) {
+      final CachedQuery cachedQuery = queries.get(query);
+      if (cachedQuery == null) {
+        return null;
+      }
+      final DocIdSet cached = cachedQuery.sets.get(readerKey);
+      if (cached != null && cachedQuery.referenced == false) {
+        // only write when necessary to avoid invalidating the cache line on every hit
+        cachedQuery.referenced = true;
+      }
+      return cached;
+    }
+
+    void putIfAbsent(Query query, DocIdSet set, IndexReader.CacheKey readerKey) {
+      lock.lock();
+      try {
+        CachedQuery cachedQuery = queries.get(query);
+        if (cachedQuery == null) {
+          cachedQuery = new CachedQuery(query);
+          queries.put(query, cachedQuery);
+          clock.addLast(cachedQuery);
+          ramBytesUsed += cachedQuery.ramBytesUsed;
+        }
+        if (cachedQuery.sets.putIfAbsent(readerKey, set) == null) {
+          // the set was actually put
+          final long setRamBytesUsed = HASHTABLE_RAM_BYTES_PER_ENTRY + set.ramBytesUsed();
+          cachedQuery.ramBytesUsed += setRamBytesUsed;
+          ramBytesUsed += setRamBytesUsed;
+          cacheSize.increment();
+          cacheCount.increment();
+        }
+        evictIfNecessary(cachedQuery);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private boolean requiresEviction() {
+      assert lock.isHeldByCurrentThread();
+      final int size = clock.size();
+      if (size == 0) {
+        return false;
+      } else {
+        return size > maxSize || ramBytesUsed > maxRamBytesUsed;
+      }
+    }
+
+    private void evictIfNecessary(CachedQuery mostRecentlyUsed) {
+      assert lock.isHeldByCurrentThread();
+      // give every query a second chance at most once, concurrent hits could otherwise
+      // keep the clock hand spinning
+      int secondChances = clock.size();
+      while (requiresEviction()) {
+        final CachedQuery cachedQuery = clock.pollFirst();
+        if (cachedQuery == mostRecentlyUsed && clock.isEmpty() == false) {
+          // don't evict the query that we just cached unless it is the only one
+          clock.addLast(cachedQuery);
+          continue;
+        }
+        if (cachedQuery.referenced && secondChances > 0) {
+          secondChances--;
+          cachedQuery.referenced = false;
+          clock.addLast(cachedQuery);
+          continue;
+        }
+        if (queries.remove(cachedQuery.query) != cachedQuery) {
+          // the hash of the query changed since it has been put into the cache
+          throw new ConcurrentModificationException(
+              "Removal from the cache failed! This "
+                  + "is probably due to a query which has been modified after having been put into "
+                  + " the cache or a badly implemented clone(). Query class: ["
+                  + cachedQuery.query.getClass()
+                  + "], query: ["
+                  + cachedQuery.query
+                  + "]");
+        }
+        onEviction(cachedQuery);
+      }
+    }
+
+    private void onEviction(CachedQuery cachedQuery) {
+      assert lock.isHeldByCurrentThread();
+      ramBytesUsed -= cachedQuery.ramBytesUsed;
+      cacheSize.add(-cachedQuery.sets.size());
+    }
+
+    void clearCoreCacheKey(Object coreKey) {
+      lock.lock();
+      try {
+        for (CachedQuery cachedQuery : clock) {
+          final DocIdSet removed = cachedQuery.sets.remove(coreKey);
+          if (removed != null) {
+            final long setRamBytesUsed = HASHTABLE_RAM_BYTES_PER_ENTRY + removed.ramBytesUsed();
+            cachedQuery.ramBytesUsed -= setRamBytesUsed;
+            ramBytesUsed -= setRamBytesUsed;
+            cacheSize.decrement();
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void clearQuery(Query query) {
+      lock.lock();
+      try {
+        final CachedQuery cachedQuery = queries.remove(query);
+        if (cachedQuery != null) {
+          clock.remove(cachedQuery);
+          onEviction(cachedQuery);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void clear() {
+      lock.lock();
+      try {
+        for (CachedQuery cachedQuery : clock) {
+          cacheSize.add(-cachedQuery.sets.size());
+        }
+        queries.clear();
+        clock.clear();
+        ramBytesUsed = 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    long assertConsistent() {
+      lock.lock();
+      try {
+        if (requiresEviction()) {
+          throw new AssertionError(
+              "requires evictions: size="
+                  + clock.size()
+                  + ", maxSize="
+                  + maxSize
+                  + ", ramBytesUsed="
+                  + ramBytesUsed
+                  + ", maxRamBytesUsed="
+                  + maxRamBytesUsed);
+        }
+        if (clock.size() != queries.size()) {
+          throw new AssertionError(
+              "clock size mismatch : " + clock.size() + " != " + queries.size());
+        }
+        long recomputedRamBytesUsed = 0;
+        long recomputedCacheSize = 0;
+        for (CachedQuery cachedQuery : clock) {
+          if (queries.get(cachedQuery.query) != cachedQuery) {
+            throw new AssertionError("Query is in the clock but not in the cache: " + cachedQuery);
+          }
+          long queryRamBytesUsed = QUERY_RAM_BYTES_USED;
+          for (DocIdSet set : cachedQuery.sets.values()) {
+            queryRamBytesUsed += HASHTABLE_RAM_BYTES_PER_ENTRY + set.ramBytesUsed();
+          }
+          if (queryRamBytesUsed != cachedQuery.ramBytesUsed) {
+            throw new AssertionError(
+                "ramBytesUsed mismatch for "
+                    + cachedQuery.query
+                    + " : "
+                    + cachedQuery.ramBytesUsed
+                    + " != "
+                    + queryRamBytesUsed);
+          }
+          recomputedRamBytesUsed += queryRamBytesUsed;
+          recomputedCacheSize += cachedQuery.sets.size();
+        }
+        if (recomputedRamBytesUsed != ramBytesUsed) {
+          throw new AssertionError(
+              "ramBytesUsed mismatch : " + ramBytesUsed + " != " + recomputedRamBytesUsed);
+        }
+        return recomputedCacheSize;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return ramBytesUsed;
+    }
+  }
+
+  private class ConcurrentCachingWrapperWeight extends CachingWrapperWeight {
+
+    ConcurrentCachingWrapperWeight(Weight in, QueryCachingPolicy policy) {
+      super(in, policy, skipCacheFactor);
+    }
+
+    private boolean cacheEntryHasReasonableWorstCaseSize(int maxDoc) {
+      // The worst-case (dense) is a bit set which needs one bit per document
+      final long worstCaseRamUsage = maxDoc / 8;
+      // Entries of a query all go to the same shard, so make sure that 5 different
+      // filters on this reader fit in a shard to avoid excessive trashing
+      final long totalRamAvailable = maxRamBytesUsed / shards.length;
+      return worstCaseRamUsage * 5 < totalRamAvailable;
+    }
+
+    @Override
+    boolean shouldCache(LeafReaderContext context) throws IOException {
+      return cacheEntryHasReasonableWorstCaseSize(
+              ReaderUtil.getTopLevelContext(context).reader().maxDoc())
+          && leavesToCache.test(context);
+    }
+
+    @Override
+    DocIdSet get(Query query, IndexReader.CacheHelper cacheHelper) {
+      return ConcurrentQueryCache.this.get(query, cacheHelper.getKey());
+    }
+
+    @Override
+    void putIfAbsent(Query query, DocIdSet set, IndexReader.CacheHelper cacheHelper) {
+      ConcurrentQueryCache.this.putIfAbsent(query, set, cacheHelper);
+    }
+
+    @Override
+    DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
+      return ConcurrentQueryCache.this.cacheImpl(scorer, maxDoc);
+    }
+  }
+}
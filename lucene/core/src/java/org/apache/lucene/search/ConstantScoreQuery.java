@@ -21,6 +21,7 @@ import java.util.Objects;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.IOUtils.IOFunction;
 
 /**
  * A query that wraps another query and simply returns a constant score equal to 1 for every
@@ -41,7 +42,17 @@ public final class ConstantScoreQuery extends Query {
 
   @Override
   public Query rewrite(IndexReader reader) throws IOException {
-    Query rewritten = query.rewrite(reader);
+    return doRewrite(q -> q.rewrite(reader));
+  }
+
+  @Override
+  public Query rewriteWithSearcher(IndexSearcher indexSearcher) throws IOException {
+    return doRewrite(q -> q.rewriteWithSearcher(indexSearcher));
+  }
+
+  /** Rewrite this query, using the given function to rewrite sub queries. */
+  private Query doRewrite(IOFunction<Query, Query> rewriteSubQuery) throws IOException {
+    Query rewritten = rewriteSubQuery.apply(query);
 
     if (rewritten != query) {
       return new ConstantScoreQuery(rewritten);
@@ -55,7 +66,7 @@ public final class ConstantScoreQuery extends Query {
       return new ConstantScoreQuery(((BoostQuery) rewritten).getQuery());
     }
 
-    return super.rewrite(reader);
+    return this;
   }
 
   @Override
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Objects;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.IOUtils.IOFunction;
 
 /**
  * A query that generates the union of documents produced by its subqueries, and that scores each
@@ -207,6 +208,16 @@ public final class DisjunctionMaxQuery extends Query implements Iterable<Query>
    */
   @Override
   public Query rewrite(IndexReader reader) throws IOException {
+    return doRewrite(q -> q.rewrite(reader));
+  }
+
+  @Override
+  public Query rewriteWithSearcher(IndexSearcher indexSearcher) throws IOException {
+    return doRewrite(q -> q.rewriteWithSearcher(indexSearcher));
+  }
+
+  /** Rewrite this query, using the given function to rewrite sub queries. */
+  private Query doRewrite(IOFunction<Query, Query> rewriteSubQuery) throws IOException {
     if (disjuncts.isEmpty()) {
       return new MatchNoDocsQuery("empty DisjunctionMaxQuery");
     }
@@ -226,7 +237,7 @@ public final class DisjunctionMaxQuery extends Query implements Iterable<Query>
     boolean actuallyRewritten = false;
     List<Query> rewrittenDisjuncts = new ArrayList<>();
     for (Query sub : disjuncts) {
-      Query rewrittenSub = sub.rewrite(reader);
+      Query rewrittenSub = rewriteSubQuery.apply(sub);
       actuallyRewritten |= rewrittenSub != sub;
       rewrittenDisjuncts.add(rewrittenSub);
     }
@@ -235,7 +246,7 @@ public final class DisjunctionMaxQuery extends Query implements Iterable<Query>
       return new DisjunctionMaxQuery(rewrittenDisjuncts, tieBreakerMultiplier);
     }
 
-    return super.rewrite(reader);
+    return this;
   }
 
   @Override
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import org.apache.lucene.index.DocValuesSkipper;
+
+/**
+ * Wrapper around a {@link TwoPhaseIterator} for a doc-values range query that speeds things up by
+ * taking advantage of a {@link DocValuesSkipper}: intervals of documents whose values are all out
+ * of the range are skipped, and intervals of documents whose values are all in the range are
+ * matched without checking values.
+ *
+ * @lucene.internal
+ */
+public final class DocValuesRangeIterator extends TwoPhaseIterator {
+
+  private enum Match {
+    /** None of the documents in the interval match */
+    NO,
+    /** Document values need to be checked to verify matches */
+    MAYBE,
+    /** All documents in the interval that have a value match */
+    IF_DOC_HAS_VALUE,
+    /** All docs in the interval match */
+    YES
+  }
+
+  private final Approximation approximation;
+  private final TwoPhaseIterator innerTwoPhase;
+
+  /**
+   * Sole constructor.
+   *
+   * @param twoPhase the two-phase iterator that checks whether the values of a document are in the
+   *     range
+   * @param skipper the skip index of the field
+   * @param lowerValue the lower bound of the range, inclusive
+   * @param upperValue the upper bound of the range, inclusive
+   */
+  public DocValuesRangeIterator(
+      TwoPhaseIterator twoPhase, DocValuesSkipper skipper, long lowerValue, long upperValue) {
+    super(new Approximation(twoPhase.approximation(), skipper, lowerValue, upperValue));
+    this.approximation = (Approximation) approximation();
+    this.innerTwoPhase = twoPhase;
+  }
+
+  private static class Approximation extends DocIdSetIterator {
+
+    private final DocIdSetIterator innerApproximation;
+    private final DocValuesSkipper skipper;
+    private final long lowerValue;
+    private final long upperValue;
+
+    private int doc = -1;
+
+    // Track a decision for all doc IDs between the current doc ID and upTo inclusive.
+    private Match match = Match.MAYBE;
+    private int upTo = -1;
+
+    Approximation(
+        DocIdSetIterator innerApproximation,
+        DocValuesSkipper skipper,
+        long lowerValue,
+        long upperValue) {
+      this.innerApproximation = innerApproximation;
+      this.skipper = skipper;
+      this.lowerValue = lowerValue;
+      this.upperValue = upperValue;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(docID() + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      while (true) {
+        if (target > upTo) {
+          skipper.advance(target);
+          if (skipper.minDocID() == NO_MORE_DOCS) {
+            return doc = NO_MORE_DOCS;
+          }
+          // documents before the first doc ID of the interval have no value
+          target = Math.max(target, skipper.minDocID());
+          upTo = skipper.maxDocID();
+          match = match();
+        }
+        switch (match) {
+          case YES:
+            return doc = target;
+          case MAYBE:
+          case IF_DOC_HAS_VALUE:
+            if (target > innerApproximation.docID()) {
+              target = innerApproximation.advance(target);
+            } else {
+              target = innerApproximation.docID();
+            }
+            if (target <= upTo) {
+              return doc = target;
+            }
+            if (target == NO_MORE_DOCS) {
+              return doc = NO_MORE_DOCS;
+            }
+            // the next candidate is in a following interval
+            break;
+          case NO:
+            if (upTo == NO_MORE_DOCS) {
+              return doc = NO_MORE_DOCS;
+            }
+            target = upTo + 1;
+            break;
+          default:
+            throw new AssertionError("Unknown enum constant: " + match);
+        }
+      }
+    }
+
+    @Override
+    public long cost() {
+      return innerApproximation.cost();
+    }
+
+    private Match match() {
+      long minValue = skipper.minValue();
+      long maxValue = skipper.maxValue();
+      if (minValue > upperValue || maxValue < lowerValue) {
+        return Match.NO;
+      } else if (minValue >= lowerValue && maxValue <= upperValue) {
+        if (skipper.docCount() == skipper.maxDocID() - skipper.minDocID() + 1) {
+          return Match.YES;
+        } else {
+          return Match.IF_DOC_HAS_VALUE;
+        }
+      } else {
+        return Match.MAYBE;
+      }
+    }
+  }
+
+  @Override
+  public boolean matches() throws IOException {
+    switch (approximation.match) {
+      case YES:
+      case IF_DOC_HAS_VALUE:
+        return true;
+      case MAYBE:
+        return innerTwoPhase.matches();
+      case NO:
+        throw new IllegalStateException("Unpositioned approximation");
+      default:
+        throw new AssertionError("Unknown enum constant: " + approximation.match);
+    }
+  }
+
+  @Override
+  public float matchCost() {
+    return innerTwoPhase.matchCost();
+  }
+}
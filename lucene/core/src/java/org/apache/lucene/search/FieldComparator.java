@@ -132,6 +132,16 @@ public abstract class FieldComparator<T> {
    */
   public void disableSkipping() {}
 
+  /**
+   * Informs the comparator that other comparators sort other slices of the index concurrently for
+   * the same search, and that they share the bottom values of their queues through the given
+   * accumulator. Comparators that can skip non-competitive documents may publish their bottom
+   * value once their queue is full, and skip documents that compare worse than the bottom value of
+   * any other slice. This function is called by TopFieldCollector on the primary comparator when
+   * searching with multiple slices.
+   */
+  public void setSharedBottom(BottomValueAccumulator sharedBottom) {}
+
   /**
    * Sorts by descending relevance. NOTE: if you are sorting only by descending relevance and then
    * secondarily by ascending docID, performance is faster using {@link TopScoreDocCollector}
@@ -135,6 +135,21 @@ public final class ImpactsDISI extends DocIdSetIterator {
     return in.advance(advanceTarget(target));
   }
 
+  /**
+   * Make sure that the current doc ID of the wrapped iterator belongs to a competitive block of
+   * impacts, advancing it otherwise, and return the last doc ID (inclusive) of this block. The
+   * returned value may be less than the current doc ID if the wrapped iterator moved to a block
+   * that has not been checked yet, in which case this method needs to be called again.
+   */
+  int ensureCompetitive() throws IOException {
+    final int doc = in.docID();
+    final int target = advanceTarget(doc);
+    if (target != doc) {
+      in.advance(target);
+    }
+    return upTo;
+  }
+
   @Override
   public int nextDoc() throws IOException {
     return advance(in.docID() + 1);
@@ -21,6 +21,7 @@ import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.IOUtils.IOFunction;
 
 /**
  * A query that uses either an index structure (points or terms) or doc values in order to run a
@@ -102,8 +103,18 @@ public final class IndexOrDocValuesQuery extends Query {
 
   @Override
   public Query rewrite(IndexReader reader) throws IOException {
-    Query indexRewrite = indexQuery.rewrite(reader);
-    Query dvRewrite = dvQuery.rewrite(reader);
+    return doRewrite(q -> q.rewrite(reader));
+  }
+
+  @Override
+  public Query rewriteWithSearcher(IndexSearcher indexSearcher) throws IOException {
+    return doRewrite(q -> q.rewriteWithSearcher(indexSearcher));
+  }
+
+  /** Rewrite this query, using the given function to rewrite sub queries. */
+  private Query doRewrite(IOFunction<Query, Query> rewriteSubQuery) throws IOException {
+    Query indexRewrite = rewriteSubQuery.apply(indexQuery);
+    Query dvRewrite = rewriteSubQuery.apply(dvQuery);
     if (indexQuery != indexRewrite || dvQuery != dvRewrite) {
       return new IndexOrDocValuesQuery(indexRewrite, dvRewrite);
     }
@@ -25,6 +25,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
@@ -305,7 +306,9 @@ public class IndexSearcher {
   /**
    * Expert: Creates an array of leaf slices each holding a subset of the given leaves. Each {@link
    * LeafSlice} is executed in a single thread. By default, segments with more than
-   * MAX_DOCS_PER_SLICE will get their own thread
+   * MAX_DOCS_PER_SLICE will get their own thread. Override this method and call {@link
+   * #slices(List, int, int, boolean)} with {@code allowSegmentPartitions=true} to also split
+   * segments that have more than MAX_DOCS_PER_SLICE documents across multiple threads.
    */
   protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
     return slices(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
@@ -314,6 +317,25 @@ public class IndexSearcher {
   /** Static method to segregate LeafReaderContexts amongst multiple slices */
   public static LeafSlice[] slices(
       List<LeafReaderContext> leaves, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+    return slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice, false);
+  }
+
+  /**
+   * Static method to segregate LeafReaderContexts amongst multiple slices. If {@code
+   * allowSegmentPartitions} is true, segments that have more than {@code maxDocsPerSlice} documents
+   * are split into {@link LeafReaderContextPartition}s of contiguous doc ID ranges that each get
+   * their own slice, so that a single large segment can be searched by multiple threads.
+   *
+   * @lucene.experimental
+   */
+  public static LeafSlice[] slices(
+      List<LeafReaderContext> leaves,
+      int maxDocsPerSlice,
+      int maxSegmentsPerSlice,
+      boolean allowSegmentPartitions) {
+    if (maxDocsPerSlice <= 0) {
+      throw new IllegalArgumentException("maxDocsPerSlice must be > 0, got " + maxDocsPerSlice);
+    }
     // Make a copy so we can sort:
     List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
 
@@ -322,12 +344,17 @@ public class IndexSearcher {
         sortedLeaves, Collections.reverseOrder(Comparator.comparingInt(l -> l.reader().maxDoc())));
 
     final List<List<LeafReaderContext>> groupedLeaves = new ArrayList<>();
+    final List<LeafSlice> partitionedSlices = new ArrayList<>();
     long docSum = 0;
     List<LeafReaderContext> group = null;
     for (LeafReaderContext ctx : sortedLeaves) {
       if (ctx.reader().maxDoc() > maxDocsPerSlice) {
         assert group == null;
-        groupedLeaves.add(Collections.singletonList(ctx));
+        if (allowSegmentPartitions) {
+          partitionedSlices.addAll(partition(ctx, maxDocsPerSlice));
+        } else {
+          groupedLeaves.add(Collections.singletonList(ctx));
+        }
       } else {
         if (group == null) {
           group = new ArrayList<>();
@@ -346,8 +373,12 @@ public class IndexSearcher {
       }
     }
 
-    LeafSlice[] slices = new LeafSlice[groupedLeaves.size()];
+    LeafSlice[] slices = new LeafSlice[partitionedSlices.size() + groupedLeaves.size()];
     int upto = 0;
+    for (LeafSlice partitionedSlice : partitionedSlices) {
+      slices[upto] = partitionedSlice;
+      ++upto;
+    }
     for (List<LeafReaderContext> currentLeaf : groupedLeaves) {
       slices[upto] = new LeafSlice(currentLeaf);
       ++upto;
@@ -356,6 +387,25 @@ public class IndexSearcher {
     return slices;
   }
 
+  /** Split a leaf into slices of contiguous doc ID ranges that have roughly the same size. */
+  private static List<LeafSlice> partition(LeafReaderContext ctx, int maxDocsPerPartition) {
+    final int maxDoc = ctx.reader().maxDoc();
+    final int numPartitions =
+        (int) ((maxDoc + (long) maxDocsPerPartition - 1) / maxDocsPerPartition);
+    final List<LeafSlice> slices = new ArrayList<>(numPartitions);
+    int minDocId = 0;
+    for (int i = 1; i <= numPartitions; ++i) {
+      final int maxDocId = (int) ((long) maxDoc * i / numPartitions);
+      slices.add(
+          new LeafSlice(
+              new LeafReaderContextPartition[] {
+                LeafReaderContextPartition.createFromAndTo(ctx, minDocId, maxDocId)
+              }));
+      minDocId = maxDocId;
+    }
+    return slices;
+  }
+
   /** Return the {@link IndexReader} this searches. */
   public IndexReader getIndexReader() {
     return reader;
@@ -404,11 +454,15 @@ public class IndexSearcher {
 
   private static class ShortcutHitCountCollector implements Collector {
     private final Weight weight;
+    // leaves whose count has been computed in constant time, shared across slices so that leaves
+    // that are split across multiple slices are only counted once
+    private final Set<LeafReaderContext> countedLeaves;
     private final TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
     private int weightCount;
 
-    ShortcutHitCountCollector(Weight weight) {
+    ShortcutHitCountCollector(Weight weight, Set<LeafReaderContext> countedLeaves) {
       this.weight = weight;
+      this.countedLeaves = countedLeaves;
     }
 
     @Override
@@ -419,7 +473,9 @@ public class IndexSearcher {
         // use a TotalHitCountCollector to calculate the number of hits in the usual way
         return totalHitCountCollector.getLeafCollector(context);
       } else {
-        weightCount += count;
+        if (countedLeaves.add(context)) {
+          weightCount += count;
+        }
         throw new CollectionTerminatedException();
       }
     }
@@ -434,12 +490,13 @@ public class IndexSearcher {
   public int count(Query query) throws IOException {
     query = rewrite(query);
     final Weight weight = createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1);
+    final Set<LeafReaderContext> countedLeaves = ConcurrentHashMap.newKeySet();
 
     final CollectorManager<ShortcutHitCountCollector, Integer> shortcutCollectorManager =
         new CollectorManager<ShortcutHitCountCollector, Integer>() {
           @Override
           public ShortcutHitCountCollector newCollector() throws IOException {
-            return new ShortcutHitCountCollector(weight);
+            return new ShortcutHitCountCollector(weight, countedLeaves);
           }
 
           @Override
@@ -452,7 +509,8 @@ public class IndexSearcher {
             return totalHitCount;
           }
         };
-    return search(weight, shortcutCollectorManager, new ShortcutHitCountCollector(weight));
+    return search(
+        weight, shortcutCollectorManager, new ShortcutHitCountCollector(weight, countedLeaves));
   }
 
   /**
@@ -632,11 +690,21 @@ public class IndexSearcher {
           private final MaxScoreAccumulator minScoreAcc =
               (executor == null || leafSlices.length <= 1) ? null : new MaxScoreAccumulator();
 
+          private final BottomValueAccumulator bottomValueAcc =
+              (executor == null || leafSlices.length <= 1)
+                  ? null
+                  : new BottomValueAccumulator(rewrittenSort.getSort()[0].getReverse());
+
           @Override
           public TopFieldCollector newCollector() throws IOException {
             // TODO: don't pay the price for accurate hit counts by default
             return TopFieldCollector.create(
-                rewrittenSort, cappedNumHits, after, hitsThresholdChecker, minScoreAcc);
+                rewrittenSort,
+                cappedNumHits,
+                after,
+                hitsThresholdChecker,
+                minScoreAcc,
+                bottomValueAcc);
           }
 
           @Override
@@ -692,12 +760,16 @@ public class IndexSearcher {
       }
       final List<FutureTask<C>> listTasks = new ArrayList<>();
       for (int i = 0; i < leafSlices.length; ++i) {
-        final LeafReaderContext[] leaves = leafSlices[i].leaves;
+        final LeafSlice slice = leafSlices[i];
         final C collector = collectors.get(i);
         FutureTask<C> task =
             new FutureTask<>(
                 () -> {
-                  search(Arrays.asList(leaves), weight, collector);
+                  if (slice.hasPartialPartitions()) {
+                    search(slice.partitions, weight, collector);
+                  } else {
+                    search(Arrays.asList(slice.leaves), weight, collector);
+                  }
                   return collector;
                 });
 
@@ -764,6 +836,54 @@ public class IndexSearcher {
     }
   }
 
+  /**
+   * Lower-level search API.
+   *
+   * <p>Same as {@link #search(List, Weight, Collector)} but only collects documents whose ID is
+   * within the doc ID range of each {@link LeafReaderContextPartition}. This is used to search
+   * slices that only hold part of a segment. No two partitions may refer to the same leaf, since
+   * {@link Collector#getLeafCollector} is called once per partition.
+   *
+   * @param partitions the partitions of the searchers leaves to execute the searches on
+   * @param weight to match documents
+   * @param collector to receive hits
+   * @throws TooManyClauses If a query would exceed {@link IndexSearcher#getMaxClauseCount()}
+   *     clauses.
+   * @lucene.experimental
+   */
+  protected void search(LeafReaderContextPartition[] partitions, Weight weight, Collector collector)
+      throws IOException {
+    for (LeafReaderContextPartition partition : partitions) {
+      final LeafReaderContext ctx = partition.ctx;
+      final LeafCollector leafCollector;
+      try {
+        leafCollector = collector.getLeafCollector(ctx);
+      } catch (
+          @SuppressWarnings("unused")
+          CollectionTerminatedException e) {
+        // there is no doc of interest in this reader context
+        // continue with the following partition
+        continue;
+      }
+      BulkScorer scorer = weight.bulkScorer(ctx);
+      if (scorer != null) {
+        try {
+          if (partition.isEntireSegment()) {
+            scorer.score(leafCollector, ctx.reader().getLiveDocs());
+          } else {
+            scorer.score(
+                leafCollector, ctx.reader().getLiveDocs(), partition.minDocId, partition.maxDocId);
+          }
+        } catch (
+            @SuppressWarnings("unused")
+            CollectionTerminatedException e) {
+          // collection was terminated prematurely
+          // continue with the following partition
+        }
+      }
+    }
+  }
+
   /**
    * Expert: called to re-write queries into primitive queries.
    *
@@ -772,9 +892,9 @@ public class IndexSearcher {
    */
   public Query rewrite(Query original) throws IOException {
     Query query = original;
-    for (Query rewrittenQuery = query.rewrite(reader);
+    for (Query rewrittenQuery = query.rewriteWithSearcher(this);
         rewrittenQuery != query;
-        rewrittenQuery = query.rewrite(reader)) {
+        rewrittenQuery = query.rewriteWithSearcher(this)) {
       query = rewrittenQuery;
     }
     query.visit(getNumClausesCheckVisitor());
@@ -900,9 +1020,111 @@ public class IndexSearcher {
      */
     public final LeafReaderContext[] leaves;
 
+    /**
+     * The partitions of the leaves that make up this slice, at most one per leaf.
+     *
+     * @lucene.experimental
+     */
+    public final LeafReaderContextPartition[] partitions;
+
     public LeafSlice(List<LeafReaderContext> leavesList) {
       Collections.sort(leavesList, Comparator.comparingInt(l -> l.docBase));
       this.leaves = leavesList.toArray(new LeafReaderContext[0]);
+      this.partitions = new LeafReaderContextPartition[leaves.length];
+      for (int i = 0; i < leaves.length; ++i) {
+        partitions[i] = LeafReaderContextPartition.createForEntireSegment(leaves[i]);
+      }
+    }
+
+    /**
+     * Create a slice out of partitions of leaves. Partitions must refer to distinct leaves.
+     *
+     * @lucene.experimental
+     */
+    public LeafSlice(LeafReaderContextPartition[] partitions) {
+      this.partitions = partitions.clone();
+      Arrays.sort(this.partitions, Comparator.comparingInt(p -> p.ctx.docBase));
+      this.leaves = new LeafReaderContext[this.partitions.length];
+      for (int i = 0; i < this.partitions.length; ++i) {
+        if (i > 0 && this.partitions[i].ctx == this.partitions[i - 1].ctx) {
+          throw new IllegalArgumentException(
+              "A slice may not hold multiple partitions of the same leaf: " + this.partitions[i]);
+        }
+        leaves[i] = this.partitions[i].ctx;
+      }
+    }
+
+    /** Whether some partitions of this slice only cover part of their leaf. */
+    boolean hasPartialPartitions() {
+      for (LeafReaderContextPartition partition : partitions) {
+        if (partition.isEntireSegment() == false) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A range of doc IDs of a {@link LeafReaderContext}, which allows searching a single segment
+   * with multiple threads. Doc IDs are relative to the leaf, {@code minDocId} is inclusive and
+   * {@code maxDocId} is exclusive.
+   *
+   * @lucene.experimental
+   */
+  public static final class LeafReaderContextPartition {
+
+    /** The leaf of this partition. */
+    public final LeafReaderContext ctx;
+
+    /** The first doc ID of this partition, inclusive. */
+    public final int minDocId;
+
+    /** The last doc ID of this partition, exclusive. */
+    public final int maxDocId;
+
+    private LeafReaderContextPartition(LeafReaderContext ctx, int minDocId, int maxDocId) {
+      if (minDocId < 0 || minDocId > maxDocId) {
+        throw new IllegalArgumentException(
+            "Illegal doc ID range: minDocId=" + minDocId + ", maxDocId=" + maxDocId);
+      }
+      this.ctx = ctx;
+      this.minDocId = minDocId;
+      this.maxDocId = maxDocId;
+    }
+
+    /** Create a partition that covers all documents of the given leaf. */
+    public static LeafReaderContextPartition createForEntireSegment(LeafReaderContext ctx) {
+      return new LeafReaderContextPartition(ctx, 0, ctx.reader().maxDoc());
+    }
+
+    /**
+     * Create a partition that covers documents of the given leaf whose ID is greater than or equal
+     * to {@code minDocId} and less than {@code maxDocId}.
+     */
+    public static LeafReaderContextPartition createFromAndTo(
+        LeafReaderContext ctx, int minDocId, int maxDocId) {
+      if (maxDocId > ctx.reader().maxDoc()) {
+        throw new IllegalArgumentException(
+            "maxDocId=" + maxDocId + " exceeds maxDoc=" + ctx.reader().maxDoc());
+      }
+      return new LeafReaderContextPartition(ctx, minDocId, maxDocId);
+    }
+
+    /** Whether this partition covers all documents of its leaf. */
+    public boolean isEntireSegment() {
+      return minDocId == 0 && maxDocId == ctx.reader().maxDoc();
+    }
+
+    @Override
+    public String toString() {
+      return "LeafReaderContextPartition(ord="
+          + ctx.ord
+          + ", minDocId="
+          + minDocId
+          + ", maxDocId="
+          + maxDocId
+          + ")";
     }
   }
 
@@ -968,6 +1190,14 @@ public class IndexSearcher {
     return executor;
   }
 
+  /**
+   * Returns the {@link SliceExecutor} that runs tasks on this searcher's executor, or <code>null
+   * </code> if no executor was provided
+   */
+  SliceExecutor getSliceExecutor() {
+    return sliceExecutor;
+  }
+
   /**
    * Thrown when an attempt is made to add more than {@link #getMaxClauseCount()} clauses. This
    * typically happens if a PrefixQuery, FuzzyQuery, WildcardQuery, or TermRangeQuery is expanded to
@@ -19,16 +19,40 @@ package org.apache.lucene.search;
 import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import org.apache.lucene.codecs.KnnVectorsReader;
 import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.VectorEncoding;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.apache.lucene.util.VectorUtil;
 
-/** Uses {@link KnnVectorsReader#search} to perform nearest Neighbour search. */
+/**
+ * Uses {@link KnnVectorsReader#search} to perform nearest neighbour search.
+ *
+ * <p>This query also allows for performing a kNN search subject to a filter. In this case, it first
+ * executes the filter for each leaf, then chooses a strategy dynamically:
+ *
+ * <ul>
+ *   <li>If the filter cost is less than k, just execute an exact search
+ *   <li>Otherwise run a kNN search subject to the filter
+ *   <li>If the kNN search visits too many vectors without completing, stop and run an exact search
+ * </ul>
+ */
 public class KnnVectorQuery extends Query {
 
   private static final TopDocs NO_RESULTS =
@@ -37,6 +61,7 @@ public class KnnVectorQuery extends Query {
   private final String field;
   private final float[] target;
   private final int k;
+  private final Query filter;
 
   /**
    * Find the <code>k</code> nearest documents to the target vector according to the vectors in the
@@ -48,20 +73,50 @@ public class KnnVectorQuery extends Query {
    * @throws IllegalArgumentException if <code>k</code> is less than 1
    */
   public KnnVectorQuery(String field, float[] target, int k) {
+    this(field, target, k, null);
+  }
+
+  /**
+   * Find the <code>k</code> nearest documents to the target vector according to the vectors in the
+   * given field. <code>target</code> vector.
+   *
+   * @param field a field that has been indexed as a {@link KnnVectorField}.
+   * @param target the target of the search
+   * @param k the number of documents to find
+   * @param filter a filter applied before the vector search
+   * @throws IllegalArgumentException if <code>k</code> is less than 1
+   */
+  public KnnVectorQuery(String field, float[] target, int k, Query filter) {
     this.field = field;
     this.target = target;
     this.k = k;
     if (k < 1) {
       throw new IllegalArgumentException("k must be at least 1, got: " + k);
     }
+    this.filter = filter;
   }
 
   @Override
   public Query rewrite(IndexReader reader) throws IOException {
-    TopDocs[] perLeafResults = new TopDocs[reader.leaves().size()];
-    for (LeafReaderContext ctx : reader.leaves()) {
-      perLeafResults[ctx.ord] = searchLeaf(ctx, Math.min(k, reader.numDocs()));
+    return rewriteWithSearcher(new IndexSearcher(reader));
+  }
+
+  @Override
+  public Query rewriteWithSearcher(IndexSearcher indexSearcher) throws IOException {
+    IndexReader reader = indexSearcher.getIndexReader();
+
+    Weight filterWeight = null;
+    if (filter != null) {
+      Query rewritten = indexSearcher.rewrite(filter);
+      filterWeight = indexSearcher.createWeight(rewritten, ScoreMode.COMPLETE_NO_SCORES, 1f);
     }
+
+    SliceExecutor sliceExecutor = indexSearcher.getSliceExecutor();
+    TopDocs[] perLeafResults =
+        (sliceExecutor == null || reader.leaves().size() <= 1)
+            ? sequentialSearch(reader.leaves(), filterWeight)
+            : parallelSearch(reader.leaves(), filterWeight, sliceExecutor);
+
     // Merge sort the results
     TopDocs topK = TopDocs.merge(k, perLeafResults);
     if (topK.scoreDocs.length == 0) {
@@ -70,12 +125,53 @@ public class KnnVectorQuery extends Query {
     return createRewrittenQuery(reader, topK);
   }
 
-  private TopDocs searchLeaf(LeafReaderContext ctx, int kPerLeaf) throws IOException {
-    Bits liveDocs = ctx.reader().getLiveDocs();
-    TopDocs results = ctx.reader().searchNearestVectors(field, target, kPerLeaf, liveDocs);
-    if (results == null) {
-      return NO_RESULTS;
+  private TopDocs[] sequentialSearch(List<LeafReaderContext> leaves, Weight filterWeight)
+      throws IOException {
+    TopDocs[] perLeafResults = new TopDocs[leaves.size()];
+    for (LeafReaderContext ctx : leaves) {
+      perLeafResults[ctx.ord] = searchLeaf(ctx, filterWeight);
+    }
+    return perLeafResults;
+  }
+
+  /**
+   * Searches every leaf in its own task so that the cost of the query is roughly that of the most
+   * expensive segment rather than the sum over all segments. Unlike collection, which is
+   * parallelized over {@link IndexSearcher.LeafSlice}s, graph searches are independent of each
+   * other so there is no benefit in grouping small segments together.
+   */
+  private TopDocs[] parallelSearch(
+      List<LeafReaderContext> leaves, Weight filterWeight, SliceExecutor sliceExecutor)
+      throws IOException {
+    List<FutureTask<TopDocs>> tasks = new ArrayList<>(leaves.size());
+    for (LeafReaderContext ctx : leaves) {
+      tasks.add(new FutureTask<>(() -> searchLeaf(ctx, filterWeight)));
     }
+    sliceExecutor.invokeAll(tasks);
+
+    TopDocs[] perLeafResults = new TopDocs[leaves.size()];
+    for (int i = 0; i < tasks.size(); i++) {
+      try {
+        perLeafResults[leaves.get(i).ord] = tasks.get(i).get();
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+      }
+    }
+    return perLeafResults;
+  }
+
+  private TopDocs searchLeaf(LeafReaderContext ctx, Weight filterWeight) throws IOException {
+    TopDocs results = getLeafResults(ctx, filterWeight);
     if (ctx.docBase > 0) {
       for (ScoreDoc scoreDoc : results.scoreDocs) {
         scoreDoc.doc += ctx.docBase;
@@ -84,6 +180,123 @@ public class KnnVectorQuery extends Query {
     return results;
   }
 
+  private TopDocs getLeafResults(LeafReaderContext ctx, Weight filterWeight) throws IOException {
+    Bits liveDocs = ctx.reader().getLiveDocs();
+    int maxDoc = ctx.reader().maxDoc();
+
+    if (filterWeight == null) {
+      return approximateSearch(ctx, liveDocs, Integer.MAX_VALUE);
+    }
+
+    Scorer scorer = filterWeight.scorer(ctx);
+    if (scorer == null) {
+      return NO_RESULTS;
+    }
+
+    BitSet acceptDocs = createBitSet(scorer.iterator(), liveDocs, maxDoc);
+    int cost = acceptDocs.cardinality();
+
+    if (cost <= k) {
+      // If there are <= k possible matches, short-circuit and perform exact search, since HNSW
+      // must always visit at least k documents
+      return exactSearch(ctx, new BitSetIterator(acceptDocs, cost));
+    }
+
+    // Perform the approximate kNN search, giving up once it has visited as many vectors as an exact
+    // search over the filtered documents would need to score
+    TopDocs results = approximateSearch(ctx, acceptDocs, cost);
+    if (results.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+      return results;
+    } else {
+      // We stopped the kNN search because it visited too many nodes, so fall back to exact search
+      return exactSearch(ctx, new BitSetIterator(acceptDocs, cost));
+    }
+  }
+
+  private BitSet createBitSet(DocIdSetIterator iterator, Bits liveDocs, int maxDoc)
+      throws IOException {
+    if (liveDocs == null && iterator instanceof BitSetIterator) {
+      // If we already have a BitSet and no deletions, reuse the BitSet
+      return ((BitSetIterator) iterator).getBitSet();
+    } else {
+      // Create a new BitSet from matching and live docs
+      FilteredDocIdSetIterator filterIterator =
+          new FilteredDocIdSetIterator(iterator) {
+            @Override
+            protected boolean match(int doc) {
+              return liveDocs == null || liveDocs.get(doc);
+            }
+          };
+      return BitSet.of(filterIterator, maxDoc);
+    }
+  }
+
+  private TopDocs approximateSearch(LeafReaderContext context, Bits acceptDocs, int visitedLimit)
+      throws IOException {
+    TopDocs results =
+        context.reader().searchNearestVectors(field, target, k, acceptDocs, visitedLimit);
+    return results != null ? results : NO_RESULTS;
+  }
+
+  // We allow this to be overridden so that tests can check what search strategy is used
+  TopDocs exactSearch(LeafReaderContext context, DocIdSetIterator acceptIterator)
+      throws IOException {
+    FieldInfo fi = context.reader().getFieldInfos().fieldInfo(field);
+    if (fi == null || fi.getVectorDimension() == 0) {
+      // The field does not exist or does not index vectors
+      return NO_RESULTS;
+    }
+    if (fi.getVectorDimension() != target.length) {
+      throw new IllegalArgumentException(
+          "vector dimensions differ: " + target.length + "!=" + fi.getVectorDimension());
+    }
+
+    VectorSimilarityFunction similarityFunction = fi.getVectorSimilarityFunction();
+    VectorValues vectorValues = context.reader().getVectorValues(field);
+    // byte vectors are compared to the target with integer arithmetic
+    BytesRef byteTarget =
+        fi.getVectorEncoding() == VectorEncoding.BYTE ? VectorUtil.toBytesRef(target) : null;
+
+    HitQueue queue = new HitQueue(k, true);
+    ScoreDoc topDoc = queue.top();
+    int doc;
+    while ((doc = acceptIterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+      int vectorDoc = vectorValues.docID();
+      if (vectorDoc < doc) {
+        vectorDoc = vectorValues.advance(doc);
+      }
+      if (vectorDoc != doc) {
+        // the filter matched a document that has no vector for this field
+        continue;
+      }
+      float similarity;
+      if (byteTarget != null) {
+        similarity = similarityFunction.compare(byteTarget, vectorValues.binaryValue());
+      } else {
+        similarity = similarityFunction.compare(vectorValues.vectorValue(), target);
+      }
+      float score = similarityFunction.convertToScore(similarity);
+      if (score > topDoc.score) {
+        topDoc.score = score;
+        topDoc.doc = doc;
+        topDoc = queue.updateTop();
+      }
+    }
+
+    // Remove any remaining sentinel values
+    while (queue.size() > 0 && queue.top().score < 0) {
+      queue.pop();
+    }
+
+    ScoreDoc[] topScoreDocs = new ScoreDoc[queue.size()];
+    for (int i = topScoreDocs.length - 1; i >= 0; i--) {
+      topScoreDocs[i] = queue.pop();
+    }
+
+    TotalHits totalHits = new TotalHits(acceptIterator.cost(), TotalHits.Relation.EQUAL_TO);
+    return new TopDocs(totalHits, topScoreDocs);
+  }
+
   private Query createRewrittenQuery(IndexReader reader, TopDocs topK) {
     int len = topK.scoreDocs.length;
     Arrays.sort(topK.scoreDocs, Comparator.comparingInt(a -> a.doc));
@@ -132,12 +345,13 @@ public class KnnVectorQuery extends Query {
     return sameClassAs(obj)
         && ((KnnVectorQuery) obj).k == k
         && ((KnnVectorQuery) obj).field.equals(field)
-        && Arrays.equals(((KnnVectorQuery) obj).target, target);
+        && Arrays.equals(((KnnVectorQuery) obj).target, target)
+        && Objects.equals(((KnnVectorQuery) obj).filter, filter);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(classHash(), field, k, Arrays.hashCode(target));
+    return Objects.hash(classHash(), field, k, Arrays.hashCode(target), filter);
   }
 
   /** Caches the results of a KnnVector search: a list of docs and their scores */
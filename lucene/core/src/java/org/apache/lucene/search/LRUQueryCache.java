@@ -31,7 +31,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.TreeMap;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import org.apache.lucene.index.IndexReader;
@@ -43,6 +43,7 @@ import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BitDocIdSet;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IntArrayDocIdSet;
 import org.apache.lucene.util.RoaringDocIdSet;
 
 /**
@@ -471,7 +472,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
       weight = ((CachingWrapperWeight) weight).in;
     }
 
-    return new CachingWrapperWeight(weight, policy);
+    return new LRUCachingWrapperWeight(weight, policy);
   }
 
   @Override
@@ -490,54 +491,32 @@ public class LRUQueryCache implements QueryCache, Accountable {
   }
 
   /**
-   * Default cache implementation: uses {@link RoaringDocIdSet} for sets that have a density &lt; 1%
-   * and a {@link BitDocIdSet} over a {@link FixedBitSet} otherwise.
+   * Default cache implementation: uses the most compact of a {@link BitDocIdSet} over a {@link
+   * FixedBitSet}, a {@link RoaringDocIdSet} and an {@link IntArrayDocIdSet}, based on the number of
+   * documents in the set and on how clustered they are. Bit sets are preferred unless another
+   * representation is at least twice as compact since they will enable the random-access
+   * optimization in ConjunctionDISI.
    */
   protected DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
-    if (scorer.cost() * 100 >= maxDoc) {
-      // FixedBitSet is faster for dense sets and will enable the random-access
-      // optimization in ConjunctionDISI
-      return cacheIntoBitSet(scorer, maxDoc);
-    } else {
-      return cacheIntoRoaringDocIdSet(scorer, maxDoc);
-    }
-  }
-
-  private static DocIdSet cacheIntoBitSet(BulkScorer scorer, int maxDoc) throws IOException {
-    final FixedBitSet bitSet = new FixedBitSet(maxDoc);
-    long[] cost = new long[1];
-    scorer.score(
-        new LeafCollector() {
-
-          @Override
-          public void setScorer(Scorable scorer) throws IOException {}
-
-          @Override
-          public void collect(int doc) throws IOException {
-            cost[0]++;
-            bitSet.set(doc);
-          }
-        },
-        null);
-    return new BitDocIdSet(bitSet, cost[0]);
+    return CachingWrapperWeight.cacheIntoCompactDocIdSet(scorer, maxDoc);
   }
 
-  private static DocIdSet cacheIntoRoaringDocIdSet(BulkScorer scorer, int maxDoc)
-      throws IOException {
-    RoaringDocIdSet.Builder builder = new RoaringDocIdSet.Builder(maxDoc);
-    scorer.score(
-        new LeafCollector() {
-
-          @Override
-          public void setScorer(Scorable scorer) throws IOException {}
-
-          @Override
-          public void collect(int doc) throws IOException {
-            builder.add(doc);
-          }
-        },
-        null);
-    return builder.build();
+  /**
+   * Return the memory usage of the cached {@link DocIdSet}s, broken down by the simple name of
+   * their class, e.g. {@code BitDocIdSet}, {@code RoaringDocIdSet} or {@code IntArrayDocIdSet}.
+   * This helps figure out how compact cached sets are.
+   */
+  public Map<String, Long> getDocIdSetRamBytesUsed() {
+    lock.lock();
+    try {
+      Map<String, Long> ramBytesUsed = new TreeMap<>();
+      for (LeafCache leafCache : cache.values()) {
+        CachingWrapperWeight.addDocIdSetRamBytesUsed(leafCache.cache.values(), ramBytesUsed);
+      }
+      return ramBytesUsed;
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -666,24 +645,10 @@ public class LRUQueryCache implements QueryCache, Accountable {
     }
   }
 
-  private class CachingWrapperWeight extends ConstantScoreWeight {
+  private class LRUCachingWrapperWeight extends CachingWrapperWeight {
 
-    private final Weight in;
-    private final QueryCachingPolicy policy;
-    // we use an AtomicBoolean because Weight.scorer may be called from multiple
-    // threads when IndexSearcher is created with threads
-    private final AtomicBoolean used;
-
-    CachingWrapperWeight(Weight in, QueryCachingPolicy policy) {
-      super(in.getQuery(), 1f);
-      this.in = in;
-      this.policy = policy;
-      used = new AtomicBoolean(false);
-    }
-
-    @Override
-    public Matches matches(LeafReaderContext context, int doc) throws IOException {
-      return in.matches(context, doc);
+    LRUCachingWrapperWeight(Weight in, QueryCachingPolicy policy) {
+      super(in, policy, skipCacheFactor);
     }
 
     private boolean cacheEntryHasReasonableWorstCaseSize(int maxDoc) {
@@ -698,196 +663,34 @@ public class LRUQueryCache implements QueryCache, Accountable {
       return worstCaseRamUsage * 5 < totalRamAvailable;
     }
 
-    private DocIdSet cache(LeafReaderContext context) throws IOException {
-      final BulkScorer scorer = in.bulkScorer(context);
-      if (scorer == null) {
-        return DocIdSet.EMPTY;
-      } else {
-        return cacheImpl(scorer, context.reader().maxDoc());
-      }
-    }
-
-    /** Check whether this segment is eligible for caching, regardless of the query. */
-    private boolean shouldCache(LeafReaderContext context) throws IOException {
+    @Override
+    boolean shouldCache(LeafReaderContext context) throws IOException {
       return cacheEntryHasReasonableWorstCaseSize(
               ReaderUtil.getTopLevelContext(context).reader().maxDoc())
           && leavesToCache.test(context);
     }
 
     @Override
-    public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
-      if (used.compareAndSet(false, true)) {
-        policy.onUse(getQuery());
-      }
-
-      if (in.isCacheable(context) == false) {
-        // this segment is not suitable for caching
-        return in.scorerSupplier(context);
-      }
-
-      // Short-circuit: Check whether this segment is eligible for caching
-      // before we take a lock because of #get
-      if (shouldCache(context) == false) {
-        return in.scorerSupplier(context);
-      }
-
-      final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
-      if (cacheHelper == null) {
-        // this reader has no cache helper
-        return in.scorerSupplier(context);
-      }
-
+    DocIdSet get(Query query, IndexReader.CacheHelper cacheHelper) {
       // If the lock is already busy, prefer using the uncached version than waiting
       if (lock.tryLock() == false) {
-        return in.scorerSupplier(context);
+        return SKIP_CACHE;
       }
-
-      DocIdSet docIdSet;
       try {
-        docIdSet = get(in.getQuery(), cacheHelper);
+        return LRUQueryCache.this.get(query, cacheHelper);
       } finally {
         lock.unlock();
       }
-
-      if (docIdSet == null) {
-        if (policy.shouldCache(in.getQuery())) {
-          final ScorerSupplier supplier = in.scorerSupplier(context);
-          if (supplier == null) {
-            putIfAbsent(in.getQuery(), DocIdSet.EMPTY, cacheHelper);
-            return null;
-          }
-
-          final long cost = supplier.cost();
-          return new ScorerSupplier() {
-            @Override
-            public Scorer get(long leadCost) throws IOException {
-              // skip cache operation which would slow query down too much
-              if (cost / skipCacheFactor > leadCost) {
-                return supplier.get(leadCost);
-              }
-
-              Scorer scorer = supplier.get(Long.MAX_VALUE);
-              DocIdSet docIdSet =
-                  cacheImpl(new DefaultBulkScorer(scorer), context.reader().maxDoc());
-              putIfAbsent(in.getQuery(), docIdSet, cacheHelper);
-              DocIdSetIterator disi = docIdSet.iterator();
-              if (disi == null) {
-                // docIdSet.iterator() is allowed to return null when empty but we want a non-null
-                // iterator here
-                disi = DocIdSetIterator.empty();
-              }
-
-              return new ConstantScoreScorer(
-                  CachingWrapperWeight.this, 0f, ScoreMode.COMPLETE_NO_SCORES, disi);
-            }
-
-            @Override
-            public long cost() {
-              return cost;
-            }
-          };
-        } else {
-          return in.scorerSupplier(context);
-        }
-      }
-
-      assert docIdSet != null;
-      if (docIdSet == DocIdSet.EMPTY) {
-        return null;
-      }
-      final DocIdSetIterator disi = docIdSet.iterator();
-      if (disi == null) {
-        return null;
-      }
-
-      return new ScorerSupplier() {
-        @Override
-        public Scorer get(long LeadCost) throws IOException {
-          return new ConstantScoreScorer(
-              CachingWrapperWeight.this, 0f, ScoreMode.COMPLETE_NO_SCORES, disi);
-        }
-
-        @Override
-        public long cost() {
-          return disi.cost();
-        }
-      };
-    }
-
-    @Override
-    public Scorer scorer(LeafReaderContext context) throws IOException {
-      ScorerSupplier scorerSupplier = scorerSupplier(context);
-      if (scorerSupplier == null) {
-        return null;
-      }
-      return scorerSupplier.get(Long.MAX_VALUE);
-    }
-
-    @Override
-    public int count(LeafReaderContext context) throws IOException {
-      return in.count(context);
     }
 
     @Override
-    public boolean isCacheable(LeafReaderContext ctx) {
-      return in.isCacheable(ctx);
+    void putIfAbsent(Query query, DocIdSet set, IndexReader.CacheHelper cacheHelper) {
+      LRUQueryCache.this.putIfAbsent(query, set, cacheHelper);
     }
 
     @Override
-    public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
-      if (used.compareAndSet(false, true)) {
-        policy.onUse(getQuery());
-      }
-
-      if (in.isCacheable(context) == false) {
-        // this segment is not suitable for caching
-        return in.bulkScorer(context);
-      }
-
-      // Short-circuit: Check whether this segment is eligible for caching
-      // before we take a lock because of #get
-      if (shouldCache(context) == false) {
-        return in.bulkScorer(context);
-      }
-
-      final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
-      if (cacheHelper == null) {
-        // this reader has no cacheHelper
-        return in.bulkScorer(context);
-      }
-
-      // If the lock is already busy, prefer using the uncached version than waiting
-      if (lock.tryLock() == false) {
-        return in.bulkScorer(context);
-      }
-
-      DocIdSet docIdSet;
-      try {
-        docIdSet = get(in.getQuery(), cacheHelper);
-      } finally {
-        lock.unlock();
-      }
-
-      if (docIdSet == null) {
-        if (policy.shouldCache(in.getQuery())) {
-          docIdSet = cache(context);
-          putIfAbsent(in.getQuery(), docIdSet, cacheHelper);
-        } else {
-          return in.bulkScorer(context);
-        }
-      }
-
-      assert docIdSet != null;
-      if (docIdSet == DocIdSet.EMPTY) {
-        return null;
-      }
-      final DocIdSetIterator disi = docIdSet.iterator();
-      if (disi == null) {
-        return null;
-      }
-
-      return new DefaultBulkScorer(
-          new ConstantScoreScorer(this, 0f, ScoreMode.COMPLETE_NO_SCORES, disi));
+    DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
+      return LRUQueryCache.this.cacheImpl(scorer, maxDoc);
     }
   }
 }
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.MathUtil;
+
+/**
+ * {@link BulkScorer} for pure disjunctions that implements the MAXSCORE algorithm for dynamic
+ * pruning described in "Query evaluation: strategies and optimizations" by Turtle and Flood. It is
+ * used when only the top hits by score are requested, ie. {@link ScoreMode#TOP_SCORES}.
+ *
+ * <p>Documents are scored by windows whose boundaries are aligned with the blocks of impacts of the
+ * clauses. Within each window, clauses are sorted by their maximum score over the window and
+ * partitioned into non-essential clauses, whose maximum scores sum up to less than the minimum
+ * competitive score, and essential clauses. Only documents that match at least one essential clause
+ * may be competitive, so essential clauses drive iteration: their matches are collected into a
+ * bitset and their scores are accumulated by batches of 2048 docs, like {@link BooleanScorer} does.
+ * Non-essential clauses are then only advanced to the candidates whose sum of scores may still be
+ * competitive. Clauses get re-partitioned whenever the minimum competitive score that is reported
+ * by the collector increases enough to make another clause non-essential.
+ */
+final class MaxScoreBulkScorer extends BulkScorer {
+
+  static final int INNER_WINDOW_SIZE = 1 << 11;
+
+  private static final Comparator<DisiWrapper> MAX_WINDOW_SCORE_COMPARATOR =
+      Comparator.comparingDouble(w -> w.maxWindowScore);
+
+  private final int maxDoc;
+  // All scorers, sorted by increasing max score over the current window.
+  private final DisiWrapper[] allScorers;
+  // Heap of essential scorers, ie. scorers from allScorers[firstEssentialScorer:], by doc ID.
+  private final DisiPriorityQueue essentialQueue;
+  // Index of the first essential scorer, all scorers below this index are non-essential.
+  private int firstEssentialScorer;
+  // maxScoreSums[i] is the sum of the max window scores of allScorers[0:i+1].
+  private final double[] maxScoreSums;
+  private final long cost;
+  private float minCompetitiveScore;
+  // The minimum competitive score from which the next essential scorer becomes non-essential.
+  private float nextMinCompetitiveScore;
+  private final Score scorable = new Score();
+
+  private final long[] windowMatches = new long[FixedBitSet.bits2words(INNER_WINDOW_SIZE)];
+  private final double[] windowScores = new double[INNER_WINDOW_SIZE];
+  private final DocAndScoreBuffer docAndScoreBuffer = new DocAndScoreBuffer();
+
+  MaxScoreBulkScorer(int maxDoc, List<Scorer> scorers) throws IOException {
+    this.maxDoc = maxDoc;
+    allScorers = new DisiWrapper[scorers.size()];
+    long cost = 0;
+    for (int i = 0; i < allScorers.length; ++i) {
+      DisiWrapper w = new DisiWrapper(scorers.get(i));
+      cost += w.cost;
+      allScorers[i] = w;
+    }
+    this.cost = cost;
+    essentialQueue = new DisiPriorityQueue(allScorers.length);
+    maxScoreSums = new double[allScorers.length];
+  }
+
+  @Override
+  public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+    collector.setScorer(scorable);
+
+    int outerWindowMin = min;
+    while (outerWindowMin < max) {
+      // No clause matches docs before the least current doc ID, skip them
+      outerWindowMin = Math.max(outerWindowMin, minDocID());
+      if (outerWindowMin >= max) {
+        break;
+      }
+      int outerWindowMax = Math.min(computeOuterWindowMax(outerWindowMin), max);
+      updateMaxWindowScores(outerWindowMin, outerWindowMax);
+      if (partitionScorers() == false) {
+        // No matches in this window can be competitive
+        outerWindowMin = outerWindowMax;
+        continue;
+      }
+
+      // Advance essential scorers to the beginning of the window
+      DisiWrapper top = essentialQueue.top();
+      while (top.doc < outerWindowMin) {
+        top.doc = top.approximation.advance(outerWindowMin);
+        top = essentialQueue.updateTop();
+      }
+
+      while (top.doc < outerWindowMax) {
+        scoreInnerWindow(collector, acceptDocs, outerWindowMax);
+        top = essentialQueue.top();
+        if (minCompetitiveScore > nextMinCompetitiveScore) {
+          // The minimum competitive score increased enough to make another scorer non-essential,
+          // re-partition scorers over what remains of the window
+          break;
+        }
+      }
+
+      outerWindowMin = Math.min(top.doc, outerWindowMax);
+    }
+
+    return nextCandidate(max);
+  }
+
+  private int minDocID() {
+    int minDoc = DocIdSetIterator.NO_MORE_DOCS;
+    for (DisiWrapper w : allScorers) {
+      minDoc = Math.min(minDoc, w.doc);
+    }
+    return minDoc;
+  }
+
+  private int computeOuterWindowMax(int windowMin) throws IOException {
+    // Only use essential scorers to compute the window's boundary, in order to avoid recomputing
+    // max scores over tiny windows because of clauses that have small blocks of impacts
+    int firstWindowLead = Math.min(firstEssentialScorer, allScorers.length - 1);
+    int windowMax = DocIdSetIterator.NO_MORE_DOCS;
+    for (int i = firstWindowLead; i < allScorers.length; ++i) {
+      DisiWrapper w = allScorers[i];
+      if (w.doc == DocIdSetIterator.NO_MORE_DOCS) {
+        continue;
+      }
+      int upTo = w.scorer.advanceShallow(Math.max(w.doc, windowMin));
+      windowMax = (int) Math.min(windowMax, upTo + 1L); // upTo is inclusive
+    }
+    // Score at least an entire inner window of docs
+    return (int) Math.max(windowMax, Math.min((long) windowMin + INNER_WINDOW_SIZE, maxDoc));
+  }
+
+  private void updateMaxWindowScores(int windowMin, int windowMax) throws IOException {
+    for (DisiWrapper w : allScorers) {
+      if (w.doc < windowMax) {
+        if (w.doc < windowMin) {
+          // Advance shallow in order to get better score upper bounds
+          w.scorer.advanceShallow(windowMin);
+        }
+        w.maxWindowScore = w.scorer.getMaxScore(windowMax - 1);
+      } else {
+        // This scorer has no matches in the window
+        w.maxWindowScore = 0;
+      }
+    }
+  }
+
+  /**
+   * Partition scorers into essential and non-essential scorers, and return {@code false} if no
+   * document in the window may be competitive.
+   */
+  private boolean partitionScorers() {
+    Arrays.sort(allScorers, MAX_WINDOW_SCORE_COMPARATOR);
+    double maxScoreSum = 0;
+    firstEssentialScorer = 0;
+    nextMinCompetitiveScore = Float.POSITIVE_INFINITY;
+    for (int i = 0; i < allScorers.length; ++i) {
+      maxScoreSum += allScorers[i].maxWindowScore;
+      float maxScoreSumFloat = (float) MathUtil.sumUpperBound(maxScoreSum, allScorers.length);
+      if (maxScoreSumFloat < minCompetitiveScore) {
+        maxScoreSums[i] = maxScoreSum;
+        firstEssentialScorer++;
+      } else {
+        nextMinCompetitiveScore = maxScoreSumFloat;
+        break;
+      }
+    }
+
+    essentialQueue.clear();
+    if (firstEssentialScorer == allScorers.length) {
+      return false;
+    }
+    for (int i = firstEssentialScorer; i < allScorers.length; ++i) {
+      essentialQueue.add(allScorers[i]);
+    }
+    return true;
+  }
+
+  private void scoreInnerWindow(LeafCollector collector, Bits acceptDocs, int max)
+      throws IOException {
+    DisiWrapper top = essentialQueue.top();
+    DisiWrapper top2 = essentialQueue.top2();
+    if (top2 == null) {
+      scoreInnerWindowSingleEssentialClause(collector, acceptDocs, max);
+    } else if (top2.doc - INNER_WINDOW_SIZE / 2 >= top.doc) {
+      // The first two essential clauses are far apart, the bitset would be very sparse: iterate
+      // the leading clause alone up to the doc ID of the second one
+      scoreInnerWindowSingleEssentialClause(collector, acceptDocs, Math.min(max, top2.doc));
+    } else {
+      scoreInnerWindowMultipleEssentialClauses(collector, acceptDocs, max);
+    }
+  }
+
+  private void scoreInnerWindowSingleEssentialClause(
+      LeafCollector collector, Bits acceptDocs, int upTo) throws IOException {
+    DisiWrapper top = essentialQueue.top();
+
+    // Only one essential clause matches in this window, iterate it directly and skip the bitset
+    for (int doc = top.doc; doc < upTo; doc = top.approximation.nextDoc()) {
+      if ((acceptDocs == null || acceptDocs.get(doc))
+          && (top.twoPhaseView == null || top.twoPhaseView.matches())) {
+        scoreNonEssentialClauses(collector, doc, top.scorer.score());
+      }
+    }
+    top.doc = top.approximation.docID();
+
+    essentialQueue.updateTop();
+  }
+
+  private void scoreInnerWindowMultipleEssentialClauses(
+      LeafCollector collector, Bits acceptDocs, int max) throws IOException {
+    DisiWrapper top = essentialQueue.top();
+
+    int innerWindowMin = top.doc;
+    int innerWindowMax = (int) Math.min(max, (long) innerWindowMin + INNER_WINDOW_SIZE);
+
+    // Collect matches of essential clauses into a bitset and accumulate their scores
+    do {
+      if (top.scorer instanceof TermScorer) {
+        // Term clauses copy their postings by blocks and score them in a tight loop
+        TermScorer termScorer = (TermScorer) top.scorer;
+        for (termScorer.nextDocsAndScores(innerWindowMax, acceptDocs, docAndScoreBuffer);
+            docAndScoreBuffer.size != 0;
+            termScorer.nextDocsAndScores(innerWindowMax, acceptDocs, docAndScoreBuffer)) {
+          for (int j = 0; j < docAndScoreBuffer.size; ++j) {
+            int i = docAndScoreBuffer.docs[j] - innerWindowMin;
+            windowMatches[i >>> 6] |= 1L << i;
+            windowScores[i] += docAndScoreBuffer.scores[j];
+          }
+        }
+      } else {
+        for (int doc = top.doc; doc < innerWindowMax; doc = top.approximation.nextDoc()) {
+          if ((acceptDocs == null || acceptDocs.get(doc))
+              && (top.twoPhaseView == null || top.twoPhaseView.matches())) {
+            int i = doc - innerWindowMin;
+            windowMatches[i >>> 6] |= 1L << i;
+            windowScores[i] += top.scorer.score();
+          }
+        }
+      }
+      top.doc = top.approximation.docID();
+      top = essentialQueue.updateTop();
+    } while (top.doc < innerWindowMax);
+
+    for (int wordIndex = 0; wordIndex < windowMatches.length; ++wordIndex) {
+      long bits = windowMatches[wordIndex];
+      windowMatches[wordIndex] = 0L;
+      while (bits != 0L) {
+        int ntz = Long.numberOfTrailingZeros(bits);
+        bits ^= 1L << ntz;
+        int index = wordIndex << 6 | ntz;
+        double score = windowScores[index];
+        windowScores[index] = 0d;
+        scoreNonEssentialClauses(collector, innerWindowMin + index, score);
+      }
+    }
+  }
+
+  private void scoreNonEssentialClauses(LeafCollector collector, int doc, double essentialScore)
+      throws IOException {
+    double score = essentialScore;
+    // Go through non-essential clauses by decreasing max score, so that non-competitive hits are
+    // detected as early as possible
+    for (int i = firstEssentialScorer - 1; i >= 0; --i) {
+      float maxPossibleScore =
+          (float) MathUtil.sumUpperBound(score + maxScoreSums[i], allScorers.length);
+      if (maxPossibleScore < minCompetitiveScore) {
+        // Hit is not competitive.
+        return;
+      }
+
+      DisiWrapper w = allScorers[i];
+      if (w.doc < doc) {
+        w.doc = w.approximation.advance(doc);
+      }
+      if (w.doc == doc && (w.twoPhaseView == null || w.twoPhaseView.matches())) {
+        score += w.scorer.score();
+      }
+    }
+
+    scorable.doc = doc;
+    scorable.score = (float) score;
+    collector.collect(doc);
+  }
+
+  private int nextCandidate(int rangeEnd) {
+    if (rangeEnd >= maxDoc) {
+      return DocIdSetIterator.NO_MORE_DOCS;
+    }
+
+    int next = DocIdSetIterator.NO_MORE_DOCS;
+    for (DisiWrapper w : allScorers) {
+      if (w.doc < rangeEnd) {
+        return rangeEnd;
+      } else {
+        next = Math.min(next, w.doc);
+      }
+    }
+    return next;
+  }
+
+  @Override
+  public long cost() {
+    return cost;
+  }
+
+  private class Score extends Scorable {
+
+    int doc = -1;
+    float score;
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public float score() {
+      return score;
+    }
+
+    @Override
+    public void setMinCompetitiveScore(float minScore) {
+      MaxScoreBulkScorer.this.minCompetitiveScore = minScore;
+    }
+  }
+}
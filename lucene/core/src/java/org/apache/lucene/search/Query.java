@@ -78,6 +78,18 @@ public abstract class Query {
     return this;
   }
 
+  /**
+   * Expert: called to re-write queries into primitive queries, with access to the {@link
+   * IndexSearcher} that will execute them. This allows rewrites that do heavy work upfront, like
+   * {@link KnnVectorQuery}, to make use of the searcher's {@link IndexSearcher#getExecutor()
+   * executor}. The default implementation delegates to {@link #rewrite(IndexReader)}. Queries that
+   * wrap other queries should override it so that their sub queries get rewritten with this method
+   * too.
+   */
+  public Query rewriteWithSearcher(IndexSearcher indexSearcher) throws IOException {
+    return rewrite(indexSearcher.getIndexReader());
+  }
+
   /**
    * Recurse through the query tree, visiting any child queries
    *
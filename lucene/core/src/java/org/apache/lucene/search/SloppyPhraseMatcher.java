@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import org.apache.lucene.index.Impact;
 import org.apache.lucene.index.Impacts;
+import org.apache.lucene.index.ImpactsEnum;
 import org.apache.lucene.index.ImpactsSource;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.similarities.Similarity.SimScorer;
@@ -99,41 +100,20 @@ public final class SloppyPhraseMatcher extends PhraseMatcher {
           new PhrasePositions(postings[i].postings, postings[i].position, i, postings[i].terms);
     }
 
-    approximation =
+    final DocIdSetIterator approximation =
         ConjunctionUtils.intersectIterators(
             Arrays.stream(postings).map(p -> p.postings).collect(Collectors.toList()));
-    // What would be a good upper bound of the sloppy frequency? A sum of the
-    // sub frequencies would be correct, but it is usually so much higher than
-    // the actual sloppy frequency that it doesn't help skip irrelevant
-    // documents. As a consequence for now, sloppy phrase queries use dummy
-    // impacts:
     final ImpactsSource impactsSource =
-        new ImpactsSource() {
-          @Override
-          public Impacts getImpacts() throws IOException {
-            return new Impacts() {
-
-              @Override
-              public int numLevels() {
-                return 1;
-              }
-
-              @Override
-              public List<Impact> getImpacts(int level) {
-                return Collections.singletonList(new Impact(Integer.MAX_VALUE, 1L));
-              }
-
-              @Override
-              public int getDocIdUpTo(int level) {
-                return DocIdSetIterator.NO_MORE_DOCS;
-              }
-            };
-          }
+        sumImpacts(Arrays.stream(postings).map(p -> p.impacts).toArray(ImpactsEnum[]::new));
 
-          @Override
-          public void advanceShallow(int target) throws IOException {}
-        };
-    impactsApproximation = new ImpactsDISI(approximation, impactsSource, scorer);
+    if (scoreMode == ScoreMode.TOP_SCORES) {
+      // Use impacts to skip blocks of documents that can't produce competitive scores
+      this.approximation =
+          this.impactsApproximation = new ImpactsDISI(approximation, impactsSource, scorer);
+    } else {
+      this.approximation = approximation;
+      this.impactsApproximation = new ImpactsDISI(approximation, impactsSource, scorer);
+    }
   }
 
   @Override
@@ -678,4 +658,138 @@ public final class SloppyPhraseMatcher extends PhraseMatcher {
     }
     return tg;
   }
+
+  /**
+   * Sum impacts for multiple terms of a sloppy phrase. Every position of every term can be the lead
+   * of at most one match, and every match contributes at most 1 to the sloppy frequency, so the sum
+   * of the frequencies of the terms is an upper bound of the sloppy frequency of the phrase.
+   */
+  static ImpactsSource sumImpacts(ImpactsEnum[] impactsEnums) {
+    // Iteration of block boundaries uses the impacts enum with the lower cost, ie. the rarest term.
+    // This is consistent with ExactPhraseMatcher.
+    int tmpLeadIndex = -1;
+    for (int i = 0; i < impactsEnums.length; ++i) {
+      if (tmpLeadIndex == -1 || impactsEnums[i].cost() < impactsEnums[tmpLeadIndex].cost()) {
+        tmpLeadIndex = i;
+      }
+    }
+    final int leadIndex = tmpLeadIndex;
+
+    return new ImpactsSource() {
+
+      @Override
+      public Impacts getImpacts() throws IOException {
+        final Impacts[] impacts = new Impacts[impactsEnums.length];
+        for (int i = 0; i < impactsEnums.length; ++i) {
+          impacts[i] = impactsEnums[i].getImpacts();
+        }
+        final Impacts lead = impacts[leadIndex];
+        return new Impacts() {
+
+          @Override
+          public int numLevels() {
+            // Delegate to the lead
+            return lead.numLevels();
+          }
+
+          @Override
+          public int getDocIdUpTo(int level) {
+            // Delegate to the lead
+            return lead.getDocIdUpTo(level);
+          }
+
+          /**
+           * Return the minimum level whose impacts are valid up to {@code docIdUpTo}, or {@code -1}
+           * if there is no such level.
+           */
+          private int getLevel(Impacts impacts, int docIdUpTo) {
+            for (int level = 0, numLevels = impacts.numLevels(); level < numLevels; ++level) {
+              if (impacts.getDocIdUpTo(level) >= docIdUpTo) {
+                return level;
+              }
+            }
+            return -1;
+          }
+
+          @Override
+          public List<Impact> getImpacts(int level) {
+            final int docIdUpTo = getDocIdUpTo(level);
+
+            final List<List<Impact>> impactLists = new ArrayList<>(impacts.length);
+            for (Impacts termImpacts : impacts) {
+              int impactsLevel = getLevel(termImpacts, docIdUpTo);
+              if (impactsLevel == -1) {
+                // Unlike for exact phrases, we can't ignore a term whose frequency is unknown
+                return Collections.singletonList(new Impact(Integer.MAX_VALUE, 1L));
+              }
+              List<Impact> impactList = termImpacts.getImpacts(impactsLevel);
+              Impact firstImpact = impactList.get(0);
+              if (firstImpact.freq == Integer.MAX_VALUE && firstImpact.norm == 1L) {
+                // Dummy impacts
+                return impactList;
+              }
+              impactLists.add(impactList);
+            }
+
+            // A document whose norm is N has a freq that is at most the freq of the last impact
+            // whose norm is less than or equal to N, for every term. We walk norms in increasing
+            // order and sum up these freqs. Norms that are below the first norm of a term are
+            // skipped since no document with such a norm contains this term.
+            final int[] upTo = new int[impactLists.size()];
+            List<Impact> summedImpacts = new ArrayList<>();
+            while (true) {
+              boolean hasNextNorm = false;
+              long nextNorm = 0;
+              for (int i = 0; i < upTo.length; ++i) {
+                List<Impact> impactList = impactLists.get(i);
+                if (upTo[i] < impactList.size()) {
+                  long norm = impactList.get(upTo[i]).norm;
+                  if (hasNextNorm == false || Long.compareUnsigned(norm, nextNorm) < 0) {
+                    hasNextNorm = true;
+                    nextNorm = norm;
+                  }
+                }
+              }
+              if (hasNextNorm == false) {
+                break;
+              }
+
+              long freqSum = 0;
+              boolean allTermsMatch = true;
+              for (int i = 0; i < upTo.length; ++i) {
+                List<Impact> impactList = impactLists.get(i);
+                while (upTo[i] < impactList.size()
+                    && Long.compareUnsigned(impactList.get(upTo[i]).norm, nextNorm) <= 0) {
+                  upTo[i]++;
+                }
+                if (upTo[i] == 0) {
+                  allTermsMatch = false;
+                } else {
+                  freqSum += impactList.get(upTo[i] - 1).freq;
+                }
+              }
+
+              if (allTermsMatch) {
+                int freq = (int) Math.min(freqSum, Integer.MAX_VALUE);
+                // Only keep competitive impacts: same freq with a higher norm is less competitive
+                if (summedImpacts.isEmpty()
+                    || summedImpacts.get(summedImpacts.size() - 1).freq < freq) {
+                  summedImpacts.add(new Impact(freq, nextNorm));
+                }
+              }
+            }
+
+            return summedImpacts;
+          }
+        };
+      }
+
+      @Override
+      public void advanceShallow(int target) throws IOException {
+        for (ImpactsEnum impactsEnum : impactsEnums) {
+          impactsEnum.advanceShallow(target);
+        }
+      }
+    };
+  }
 }
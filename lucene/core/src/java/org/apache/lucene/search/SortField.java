@@ -31,6 +31,7 @@ import org.apache.lucene.search.comparators.DoubleComparator;
 import org.apache.lucene.search.comparators.FloatComparator;
 import org.apache.lucene.search.comparators.IntComparator;
 import org.apache.lucene.search.comparators.LongComparator;
+import org.apache.lucene.search.comparators.TermOrdValComparator;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.util.BytesRef;
@@ -536,8 +537,9 @@ public class SortField {
         break;
 
       case STRING:
-        return new FieldComparator.TermOrdValComparator(
-            numHits, field, missingValue == STRING_LAST);
+        fieldComparator =
+            new TermOrdValComparator(numHits, field, missingValue == STRING_LAST, reverse, sortPos);
+        break;
 
       case STRING_VAL:
         fieldComparator =
@@ -635,6 +637,10 @@ public class SortField {
    * was indexed (e.g. sort on IntPoint field should use SortField.Type.INT). Another requirement is
    * that the same data is indexed with points and doc values for the field.
    *
+   * <p>This also applies to sorting on a {@link Type#STRING} field, which can skip non-competitive
+   * hits using the terms of the field when it is also indexed with the same values, see {@link
+   * TermOrdValComparator}.
+   *
    * @param optimizeSortWithPoints providing {@code false} disables the optimization, in cases where
    *     these requirements can't be met.
    * @deprecated should only be used for compatibility with 8.x indices that got created with
@@ -24,6 +24,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortFieldProvider;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.comparators.TermOrdValComparator;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
 
@@ -178,14 +179,20 @@ public class SortedSetSortField extends SortField {
 
   @Override
   public FieldComparator<?> getComparator(int numHits, int sortPos) {
-    return new FieldComparator.TermOrdValComparator(
-        numHits, getField(), missingValue == STRING_LAST) {
-      @Override
-      protected SortedDocValues getSortedDocValues(LeafReaderContext context, String field)
-          throws IOException {
-        return SortedSetSelector.wrap(DocValues.getSortedSet(context.reader(), field), selector);
-      }
-    };
+    final FieldComparator<?> fieldComparator =
+        new TermOrdValComparator(
+            numHits, getField(), missingValue == STRING_LAST, reverse, sortPos) {
+          @Override
+          protected SortedDocValues getSortedDocValues(LeafReaderContext context, String field)
+              throws IOException {
+            return SortedSetSelector.wrap(
+                DocValues.getSortedSet(context.reader(), field), selector);
+          }
+        };
+    if (getOptimizeSortWithPoints() == false) {
+      fieldComparator.disableSkipping();
+    }
+    return fieldComparator;
   }
 
   private SortedDocValues getValues(LeafReader reader) throws IOException {
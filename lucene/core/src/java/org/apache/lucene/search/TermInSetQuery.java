@@ -67,7 +67,11 @@ import org.apache.lucene.util.automaton.Operations;
  *
  * <p>When there are few terms, this query executes like a regular disjunction. However, when there
  * are many terms, instead of merging iterators on the fly, it will populate a bit set with matching
- * docs and return a {@link Scorer} over this bit set.
+ * docs and return a {@link Scorer} over this bit set. If the field is also indexed with {@link
+ * org.apache.lucene.document.SortedSetDocValuesField}s, this query can be wrapped in an {@link
+ * IndexOrDocValuesQuery} alongside {@link
+ * org.apache.lucene.document.SortedSetDocValuesField#newSlowSetQuery} so that candidates of a much
+ * more selective clause are verified by checking their ordinals.
  *
  * <p>NOTE: This query produces scores that are equal to its boost
  */
@@ -340,16 +344,61 @@ public class TermInSetQuery extends Query implements Accountable {
         }
       }
 
+      @Override
+      public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+        final LeafReader reader = context.reader();
+        final Terms terms = reader.terms(field);
+        if (terms == null) {
+          return null;
+        }
+        final Weight weight = this;
+        final long cost = estimateCost(terms);
+        return new ScorerSupplier() {
+          @Override
+          public Scorer get(long leadCost) throws IOException {
+            final WeightOrDocIdSet weightOrBitSet = rewrite(context);
+            final Scorer scorer;
+            if (weightOrBitSet == null) {
+              scorer = null;
+            } else if (weightOrBitSet.weight != null) {
+              scorer = weightOrBitSet.weight.scorer(context);
+            } else {
+              scorer = scorer(weightOrBitSet.set);
+            }
+            if (scorer == null) {
+              return new ConstantScoreScorer(weight, score(), scoreMode, DocIdSetIterator.empty());
+            }
+            return scorer;
+          }
+
+          @Override
+          public long cost() {
+            return cost;
+          }
+        };
+      }
+
+      /**
+       * Estimate the number of documents that match this query without seeking terms, assuming that
+       * query terms have the average document frequency of the field.
+       */
+      private long estimateCost(Terms terms) throws IOException {
+        final long sumDocFreq = terms.getSumDocFreq();
+        final long numTerms = terms.size();
+        if (numTerms <= 0) {
+          return sumDocFreq;
+        }
+        final double avgDocFreq = (double) sumDocFreq / numTerms;
+        return Math.min(sumDocFreq, (long) Math.ceil(avgDocFreq * termData.size()));
+      }
+
       @Override
       public Scorer scorer(LeafReaderContext context) throws IOException {
-        final WeightOrDocIdSet weightOrBitSet = rewrite(context);
-        if (weightOrBitSet == null) {
+        final ScorerSupplier scorerSupplier = scorerSupplier(context);
+        if (scorerSupplier == null) {
           return null;
-        } else if (weightOrBitSet.weight != null) {
-          return weightOrBitSet.weight.scorer(context);
-        } else {
-          return scorer(weightOrBitSet.set);
         }
+        return scorerSupplier.get(Long.MAX_VALUE);
       }
 
       @Override
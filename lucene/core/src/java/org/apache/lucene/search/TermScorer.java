@@ -20,6 +20,7 @@ import java.io.IOException;
 import org.apache.lucene.index.ImpactsEnum;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.SlowImpactsEnum;
+import org.apache.lucene.util.Bits;
 
 /**
  * Expert: A <code>Scorer</code> for documents matching a <code>Term</code>.
@@ -32,6 +33,7 @@ public final class TermScorer extends Scorer {
   private final DocIdSetIterator iterator;
   private final LeafSimScorer docScorer;
   private final ImpactsDISI impactsDisi;
+  private DocAndFreqBuffer docAndFreqBuffer;
 
   /** Construct a {@link TermScorer} that will iterate all documents. */
   public TermScorer(Weight weight, PostingsEnum postingsEnum, LeafSimScorer docScorer) {
@@ -75,6 +77,50 @@ public final class TermScorer extends Scorer {
     return docScorer.score(postingsEnum.docID(), postingsEnum.freq());
   }
 
+  /**
+   * Fill the given buffer with the next matches of this scorer that are live according to {@code
+   * acceptDocs}, and their scores, starting at the current doc ID and ending before {@code upTo}.
+   * Postings are copied by blocks through {@link PostingsEnum#nextPostings}, so that scores can be
+   * computed in a tight loop over primitive arrays. An empty buffer indicates that there are no
+   * more matches before {@code upTo}, otherwise the iterator is positioned on the first doc ID that
+   * is not in the buffer.
+   */
+  void nextDocsAndScores(int upTo, Bits acceptDocs, DocAndScoreBuffer buffer) throws IOException {
+    if (docAndFreqBuffer == null) {
+      docAndFreqBuffer = new DocAndFreqBuffer();
+    }
+    final DocAndFreqBuffer postings = docAndFreqBuffer;
+    while (true) {
+      int end = upTo;
+      if (iterator == impactsDisi) {
+        // don't bypass skipping: only copy postings from the current competitive block
+        end = (int) Math.min(end, impactsDisi.ensureCompetitive() + 1L);
+      }
+      if (postingsEnum.docID() >= upTo) {
+        buffer.size = 0;
+        return;
+      }
+      postingsEnum.nextPostings(end, postings);
+      if (postings.size != 0 && acceptDocs != null) {
+        postings.apply(acceptDocs);
+      }
+      // an empty batch may still be followed by matches if all docs of the batch were deleted or
+      // if the current doc is beyond the current block of impacts
+      if (postings.size != 0) {
+        break;
+      }
+    }
+
+    final int size = postings.size;
+    buffer.growNoCopy(size);
+    for (int i = 0; i < size; ++i) {
+      final int doc = postings.docs[i];
+      buffer.docs[i] = doc;
+      buffer.scores[i] = docScorer.score(doc, postings.freqs[i]);
+    }
+    buffer.size = size;
+  }
+
   @Override
   public float smoothingScore(int docId) throws IOException {
     return docScorer.score(docId, 0);
@@ -420,19 +420,21 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         numHits,
         after,
         HitsThresholdChecker.create(Math.max(totalHitsThreshold, numHits)),
-        null /* bottomValueChecker */);
+        null,
+        null);
   }
 
   /**
-   * Same as above with additional parameters to allow passing in the threshold checker and the max
-   * score accumulator.
+   * Same as above with additional parameters to allow passing in the threshold checker, the max
+   * score accumulator and the bottom value accumulator.
    */
   static TopFieldCollector create(
       Sort sort,
       int numHits,
       FieldDoc after,
       HitsThresholdChecker hitsThresholdChecker,
-      MaxScoreAccumulator minScoreAcc) {
+      MaxScoreAccumulator minScoreAcc,
+      BottomValueAccumulator bottomValueAcc) {
 
     if (sort.getSort().length == 0) {
       throw new IllegalArgumentException("Sort must contain at least one field");
@@ -448,6 +450,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     }
 
     FieldValueHitQueue<Entry> queue = FieldValueHitQueue.create(sort.getSort(), numHits);
+    if (bottomValueAcc != null) {
+      // share the bottom value of the primary sort with collectors of other slices
+      queue.comparators[0].setSharedBottom(bottomValueAcc);
+    }
 
     if (after == null) {
       // inform a comparator that sort is based on this single field
@@ -478,9 +484,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   }
 
   /**
-   * Create a CollectorManager which uses a shared hit counter to maintain number of hits and a
-   * shared {@link MaxScoreAccumulator} to propagate the minimum score accross segments if the
-   * primary sort is by relevancy.
+   * Create a CollectorManager which uses a shared hit counter to maintain number of hits, a shared
+   * {@link MaxScoreAccumulator} to propagate the minimum score accross segments if the primary sort
+   * is by relevancy, and a shared {@link BottomValueAccumulator} to propagate the bottom value of
+   * the primary sort field otherwise.
    */
   public static CollectorManager<TopFieldCollector, TopFieldDocs> createSharedManager(
       Sort sort, int numHits, FieldDoc after, int totalHitsThreshold) {
@@ -489,10 +496,12 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       private final HitsThresholdChecker hitsThresholdChecker =
           HitsThresholdChecker.createShared(Math.max(totalHitsThreshold, numHits));
       private final MaxScoreAccumulator minScoreAcc = new MaxScoreAccumulator();
+      private final BottomValueAccumulator bottomValueAcc =
+          new BottomValueAccumulator(sort.getSort()[0].getReverse());
 
       @Override
       public TopFieldCollector newCollector() throws IOException {
-        return create(sort, numHits, after, hitsThresholdChecker, minScoreAcc);
+        return create(sort, numHits, after, hitsThresholdChecker, minScoreAcc, bottomValueAcc);
       }
 
       @Override
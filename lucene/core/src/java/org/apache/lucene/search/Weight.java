@@ -201,7 +201,7 @@ public abstract class Weight implements SegmentCacheable {
    * @lucene.internal
    */
   protected static class DefaultBulkScorer extends BulkScorer {
-    private final Scorer scorer;
+    final Scorer scorer; // pkg-private for BooleanScorer
     private final DocIdSetIterator iterator;
     private final TwoPhaseIterator twoPhase;
 
@@ -21,6 +21,7 @@ import java.io.IOException;
 import org.apache.lucene.document.DoublePoint;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.LeafFieldComparator;
+import org.apache.lucene.util.NumericUtils;
 
 /**
  * Comparator based on {@link Double#compare} for {@code numHits}. This comparator provides a
@@ -53,6 +54,16 @@ public class DoubleComparator extends NumericComparator<Double> {
     return Double.valueOf(values[slot]);
   }
 
+  @Override
+  protected long toComparableLong(Double value) {
+    return NumericUtils.doubleToSortableLong(value);
+  }
+
+  @Override
+  protected void encodeComparableLong(long value, byte[] packedValue) {
+    DoublePoint.encodeDimension(NumericUtils.sortableLongToDouble(value), packedValue, 0);
+  }
+
   @Override
   public LeafFieldComparator getLeafComparator(LeafReaderContext context) throws IOException {
     return new DoubleLeafComparator(context);
@@ -21,6 +21,7 @@ import java.io.IOException;
 import org.apache.lucene.document.FloatPoint;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.LeafFieldComparator;
+import org.apache.lucene.util.NumericUtils;
 
 /**
  * Comparator based on {@link Float#compare} for {@code numHits}. This comparator provides a
@@ -53,6 +54,16 @@ public class FloatComparator extends NumericComparator<Float> {
     return Float.valueOf(values[slot]);
   }
 
+  @Override
+  protected long toComparableLong(Float value) {
+    return NumericUtils.floatToSortableInt(value);
+  }
+
+  @Override
+  protected void encodeComparableLong(long value, byte[] packedValue) {
+    FloatPoint.encodeDimension(NumericUtils.sortableIntToFloat((int) value), packedValue, 0);
+  }
+
   @Override
   public LeafFieldComparator getLeafComparator(LeafReaderContext context) throws IOException {
     return new FloatLeafComparator(context);
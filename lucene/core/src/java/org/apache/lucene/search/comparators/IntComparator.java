@@ -53,6 +53,16 @@ public class IntComparator extends NumericComparator<Integer> {
     return Integer.valueOf(values[slot]);
   }
 
+  @Override
+  protected long toComparableLong(Integer value) {
+    return value;
+  }
+
+  @Override
+  protected void encodeComparableLong(long value, byte[] packedValue) {
+    IntPoint.encodeDimension((int) value, packedValue, 0);
+  }
+
   @Override
   public LeafFieldComparator getLeafComparator(LeafReaderContext context) throws IOException {
     return new IntLeafComparator(context);
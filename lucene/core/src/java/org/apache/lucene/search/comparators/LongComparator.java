@@ -53,6 +53,16 @@ public class LongComparator extends NumericComparator<Long> {
     return Long.valueOf(values[slot]);
   }
 
+  @Override
+  protected long toComparableLong(Long value) {
+    return value;
+  }
+
+  @Override
+  protected void encodeComparableLong(long value, byte[] packedValue) {
+    LongPoint.encodeDimension(value, packedValue, 0);
+  }
+
   @Override
   public LeafFieldComparator getLeafComparator(LeafReaderContext context) throws IOException {
     return new LongLeafComparator(context);
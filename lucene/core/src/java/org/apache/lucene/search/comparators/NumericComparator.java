@@ -23,6 +23,7 @@ import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BottomValueAccumulator;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.FieldComparator;
 import org.apache.lucene.search.LeafFieldComparator;
@@ -37,6 +38,9 @@ import org.apache.lucene.util.DocIdSetBuilder;
  * functionality – an iterator that can skip over non-competitive documents.
  */
 public abstract class NumericComparator<T extends Number> extends FieldComparator<T> {
+  // how often the competitive iterator checks if another slice published a more competitive bottom
+  private static final int SHARED_BOTTOM_CHECK_INTERVAL = 0x3ff;
+
   protected final T missingValue;
   protected final String field;
   protected final boolean reverse;
@@ -48,6 +52,9 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
   protected boolean hitsThresholdReached;
   protected boolean queueFull;
   private boolean canSkipDocuments;
+  private BottomValueAccumulator sharedBottom;
+  // the bottom of the queue as a comparable long, only set when the bottom is shared
+  private long localBottom;
 
   protected NumericComparator(
       String field, T missingValue, boolean reverse, int sortPos, int bytesCount) {
@@ -75,6 +82,20 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
     canSkipDocuments = false;
   }
 
+  @Override
+  public void setSharedBottom(BottomValueAccumulator sharedBottom) {
+    this.sharedBottom = sharedBottom;
+  }
+
+  /**
+   * Returns a long that sorts like the given value, which is used to share bottom values with the
+   * comparators of other slices.
+   */
+  protected abstract long toComparableLong(T value);
+
+  /** Encodes a value that was returned by {@link #toComparableLong} the way points are encoded. */
+  protected abstract void encodeComparableLong(long value, byte[] packedValue);
+
   /** Leaf comparator for {@link NumericComparator} that provides skipping functionality */
   public abstract class NumericLeafComparator implements LeafFieldComparator {
     protected final NumericDocValues docValues;
@@ -84,11 +105,15 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
     private final int maxDoc;
     private final byte[] minValueAsBytes;
     private final byte[] maxValueAsBytes;
+    // the bottom values of other slices, or null if not searching slices concurrently
+    private final BottomValueAccumulator sharedBottom;
 
     private DocIdSetIterator competitiveIterator;
     private long iteratorCost;
     private int maxDocVisited = -1;
     private int updateCounter = 0;
+    private long lastSharedBottom;
+    private int advanceCounter = 0;
 
     public NumericLeafComparator(LeafReaderContext context) throws IOException {
       this.docValues = getNumericDocValues(context, field);
@@ -122,12 +147,15 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
             reverse ? new byte[bytesCount] : topValueSet ? new byte[bytesCount] : null;
         this.competitiveIterator = DocIdSetIterator.all(maxDoc);
         this.iteratorCost = maxDoc;
+        this.sharedBottom = NumericComparator.this.sharedBottom;
       } else {
         this.enableSkipping = false;
         this.maxDoc = 0;
         this.maxValueAsBytes = null;
         this.minValueAsBytes = null;
+        this.sharedBottom = null;
       }
+      this.lastSharedBottom = reverse ? Long.MIN_VALUE : Long.MAX_VALUE;
     }
 
     /** Retrieves the NumericDocValues for the field in this segment */
@@ -139,6 +167,11 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
     @Override
     public void setBottom(int slot) throws IOException {
       queueFull = true; // if we are setting bottom, it means that we have collected enough hits
+      // also publish the bottom of leaves that can't skip, it remains the bottom on the next leaves
+      if (NumericComparator.this.sharedBottom != null) {
+        localBottom = toComparableLong(value(slot));
+        NumericComparator.this.sharedBottom.accumulate(localBottom);
+      }
       updateCompetitiveIterator(); // update an iterator if we set a new bottom
     }
 
@@ -165,9 +198,26 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
     // update its iterator to include possibly only docs that are "stronger" than the current bottom
     // entry
     private void updateCompetitiveIterator() throws IOException {
-      if (enableSkipping == false || hitsThresholdReached == false || queueFull == false) return;
+      if (enableSkipping == false || hitsThresholdReached == false) return;
+      // use the bottom of another slice if it is more competitive than the local bottom
+      final boolean useSharedBottom;
+      final long sharedBottomValue;
+      if (sharedBottom != null && sharedBottom.isSet()) {
+        sharedBottomValue = sharedBottom.get();
+        lastSharedBottom = sharedBottomValue;
+        useSharedBottom =
+            queueFull == false
+                || (reverse ? sharedBottomValue > localBottom : sharedBottomValue < localBottom);
+      } else {
+        sharedBottomValue = 0;
+        useSharedBottom = false;
+      }
+      if (queueFull == false && useSharedBottom == false) return;
       // if some documents have missing points, check that missing values prohibits optimization
-      if ((pointValues.getDocCount() < maxDoc) && isMissingValueCompetitive()) {
+      if ((pointValues.getDocCount() < maxDoc)
+          && (useSharedBottom
+              ? isMissingValueCompetitive(sharedBottomValue)
+              : isMissingValueCompetitive())) {
         return; // we can't filter out documents, as documents with missing values are competitive
       }
 
@@ -176,17 +226,18 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
           && (updateCounter & 0x1f) != 0x1f) { // Start sampling if we get called too much
         return;
       }
-      if (reverse == false) {
-        encodeBottom(maxValueAsBytes);
-        if (topValueSet) {
-          encodeTop(minValueAsBytes);
-        }
+      final byte[] bottomAsBytes = reverse == false ? maxValueAsBytes : minValueAsBytes;
+      if (useSharedBottom) {
+        encodeComparableLong(sharedBottomValue, bottomAsBytes);
       } else {
-        encodeBottom(minValueAsBytes);
-        if (topValueSet) {
-          encodeTop(maxValueAsBytes);
-        }
+        encodeBottom(bottomAsBytes);
+      }
+      if (topValueSet) {
+        encodeTop(reverse == false ? minValueAsBytes : maxValueAsBytes);
       }
+      // for single sort, docs that are equal to the local bottom are not competitive since they
+      // have greater doc IDs, but they may be competitive against the bottom of another slice
+      final boolean skipEqualValues = singleSort && useSharedBottom == false;
 
       DocIdSetBuilder result = new DocIdSetBuilder(maxDoc);
       PointValues.IntersectVisitor visitor =
@@ -215,13 +266,13 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
                 int cmp = bytesComparator.compare(packedValue, 0, maxValueAsBytes, 0);
                 // if doc's value is too high or for single sort even equal, it is not competitive
                 // and the doc can be skipped
-                if (cmp > 0 || (singleSort && cmp == 0)) return;
+                if (cmp > 0 || (skipEqualValues && cmp == 0)) return;
               }
               if (minValueAsBytes != null) {
                 int cmp = bytesComparator.compare(packedValue, 0, minValueAsBytes, 0);
                 // if doc's value is too low or for single sort even equal, it is not competitive
                 // and the doc can be skipped
-                if (cmp < 0 || (singleSort && cmp == 0)) return;
+                if (cmp < 0 || (skipEqualValues && cmp == 0)) return;
               }
               adder.add(docID); // doc is competitive
             }
@@ -230,12 +281,12 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
             public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
               if (maxValueAsBytes != null) {
                 int cmp = bytesComparator.compare(minPackedValue, 0, maxValueAsBytes, 0);
-                if (cmp > 0 || (singleSort && cmp == 0))
+                if (cmp > 0 || (skipEqualValues && cmp == 0))
                   return PointValues.Relation.CELL_OUTSIDE_QUERY;
               }
               if (minValueAsBytes != null) {
                 int cmp = bytesComparator.compare(maxPackedValue, 0, minValueAsBytes, 0);
-                if (cmp < 0 || (singleSort && cmp == 0))
+                if (cmp < 0 || (skipEqualValues && cmp == 0))
                   return PointValues.Relation.CELL_OUTSIDE_QUERY;
               }
               if ((maxValueAsBytes != null
@@ -283,6 +334,11 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
 
         @Override
         public int advance(int target) throws IOException {
+          if (sharedBottom != null && (++advanceCounter & SHARED_BOTTOM_CHECK_INTERVAL) == 0) {
+            if (sharedBottom.get() != lastSharedBottom) {
+              updateCompetitiveIterator(); // another slice published a new bottom
+            }
+          }
           return docID = competitiveIterator.advance(target);
         }
       };
@@ -290,6 +346,11 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
 
     protected abstract boolean isMissingValueCompetitive();
 
+    private boolean isMissingValueCompetitive(long bottom) {
+      long missing = toComparableLong(missingValue);
+      return reverse ? missing >= bottom : missing <= bottom;
+    }
+
     protected abstract void encodeBottom(byte[] packedValue);
 
     protected abstract void encodeTop(byte[] packedValue);
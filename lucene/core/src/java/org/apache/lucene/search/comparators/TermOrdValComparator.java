@@ -0,0 +1,481 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.search.comparators;
+
+import java.io.IOException;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.LeafFieldComparator;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.DocIdSetBuilder;
+
+/**
+ * Sorts by field's natural Term sort order, using ordinals. This is functionally equivalent to
+ * {@link FieldComparator.TermOrdValComparator}, but it also provides a skipping functionality – an
+ * iterator that can skip over non-competitive documents.
+ *
+ * <p>Skipping requires the field to also be indexed with the same values as its doc values, with
+ * {@link IndexOptions#DOCS} (e.g. a {@link org.apache.lucene.document.StringField}): once the queue
+ * is full, the postings of the terms whose ordinals are better than the bottom of the queue are
+ * used to build an iterator over the competitive documents.
+ */
+public class TermOrdValComparator extends FieldComparator<BytesRef> {
+
+  // max number of terms whose postings may be merged into a competitive iterator
+  private static final int MAX_TERMS = 1024;
+
+  private final String field;
+  private final boolean reverse;
+
+  /* Ords for each slot. */
+  private final int[] ords;
+
+  /* Values for each slot. */
+  private final BytesRef[] values;
+  private final BytesRefBuilder[] tempBRs;
+
+  /* Which reader last copied a value into the slot. When
+  we compare two slots, we just compare-by-ord if the
+  readerGen is the same; else we must compare the
+  values (slower). */
+  private final int[] readerGen;
+
+  /* Gen of current reader we are on. */
+  private int currentReaderGen = -1;
+
+  /* Bottom slot, or -1 if queue isn't full yet */
+  private int bottomSlot = -1;
+
+  /* Set by setTopValue. */
+  private BytesRef topValue;
+
+  /* -1 if missing values are sorted first, 1 if they are sorted last */
+  private final int missingSortCmp;
+
+  /* Which ordinal to use for a missing value. */
+  private final int missingOrd;
+
+  private boolean topValueSet;
+  private boolean singleSort; // singleSort is true, if sort is based on a single sort field.
+  private boolean hitsThresholdReached;
+  private boolean queueFull;
+  private boolean canSkipDocuments;
+
+  /**
+   * Creates this, with control over how missing values are sorted. Pass sortMissingLast=true to
+   * put missing values at the end.
+   */
+  public TermOrdValComparator(
+      int numHits, String field, boolean sortMissingLast, boolean reverse, int sortPos) {
+    this.ords = new int[numHits];
+    this.values = new BytesRef[numHits];
+    this.tempBRs = new BytesRefBuilder[numHits];
+    this.readerGen = new int[numHits];
+    this.field = field;
+    this.reverse = reverse;
+    // skipping functionality is only relevant for primary sort
+    this.canSkipDocuments = (sortPos == 0);
+    if (sortMissingLast) {
+      missingSortCmp = 1;
+      missingOrd = Integer.MAX_VALUE;
+    } else {
+      missingSortCmp = -1;
+      missingOrd = -1;
+    }
+  }
+
+  @Override
+  public int compare(int slot1, int slot2) {
+    if (readerGen[slot1] == readerGen[slot2]) {
+      return ords[slot1] - ords[slot2];
+    }
+
+    final BytesRef val1 = values[slot1];
+    final BytesRef val2 = values[slot2];
+    if (val1 == null) {
+      if (val2 == null) {
+        return 0;
+      }
+      return missingSortCmp;
+    } else if (val2 == null) {
+      return -missingSortCmp;
+    }
+    return val1.compareTo(val2);
+  }
+
+  /** Retrieves the SortedDocValues for the field in this segment */
+  protected SortedDocValues getSortedDocValues(LeafReaderContext context, String field)
+      throws IOException {
+    return DocValues.getSorted(context.reader(), field);
+  }
+
+  @Override
+  public LeafFieldComparator getLeafComparator(LeafReaderContext context) throws IOException {
+    currentReaderGen++;
+    return new TermOrdValLeafComparator(context);
+  }
+
+  @Override
+  public void setTopValue(BytesRef value) {
+    // null is fine: it means the last doc of the prior
+    // search was missing this value
+    topValueSet = true;
+    topValue = value;
+  }
+
+  @Override
+  public BytesRef value(int slot) {
+    return values[slot];
+  }
+
+  @Override
+  public int compareValues(BytesRef val1, BytesRef val2) {
+    if (val1 == null) {
+      if (val2 == null) {
+        return 0;
+      }
+      return missingSortCmp;
+    } else if (val2 == null) {
+      return -missingSortCmp;
+    }
+    return val1.compareTo(val2);
+  }
+
+  @Override
+  public void setSingleSort() {
+    singleSort = true;
+  }
+
+  @Override
+  public void disableSkipping() {
+    canSkipDocuments = false;
+  }
+
+  /** Leaf comparator for {@link TermOrdValComparator} that provides skipping functionality */
+  private class TermOrdValLeafComparator implements LeafFieldComparator {
+
+    /* Current reader's doc ord/values. */
+    private final SortedDocValues termsIndex;
+
+    /* Bottom ord (same as ords[bottomSlot] once bottomSlot
+    is set).  Cached for faster compares. */
+    private int bottomOrd;
+
+    /* True if current bottom slot matches the current
+    reader. */
+    private boolean bottomSameReader;
+
+    private final int topOrd;
+    private final boolean topSameReader;
+
+    // the terms of the field, only set if skipping functionality is enabled on this segment
+    private final Terms terms;
+    private final int maxDoc;
+    private final boolean dense; // whether all documents of the segment have a value
+
+    private DocIdSetIterator competitiveIterator;
+    private long iteratorCost;
+    private int maxDocVisited = -1;
+    private int updateCounter = 0;
+
+    TermOrdValLeafComparator(LeafReaderContext context) throws IOException {
+      this.termsIndex = getSortedDocValues(context, field);
+
+      if (topValue != null) {
+        // Recompute topOrd/SameReader
+        int ord = termsIndex.lookupTerm(topValue);
+        if (ord >= 0) {
+          topSameReader = true;
+          topOrd = ord;
+        } else {
+          topSameReader = false;
+          topOrd = -ord - 2;
+        }
+      } else {
+        topOrd = missingOrd;
+        topSameReader = true;
+      }
+
+      if (bottomSlot != -1) {
+        // Recompute bottomOrd/SameReader
+        setBottomOrd(bottomSlot);
+      }
+
+      Terms terms = null;
+      if (canSkipDocuments) {
+        FieldInfo info = context.reader().getFieldInfos().fieldInfo(field);
+        // postings are only used as a proxy to doc values if they index the same terms, which
+        // can't be the case if they record frequencies (e.g. text fields)
+        if (info != null && info.getIndexOptions() == IndexOptions.DOCS) {
+          terms = context.reader().terms(field);
+        }
+      }
+      this.terms = terms;
+      if (terms != null) {
+        this.maxDoc = context.reader().maxDoc();
+        this.dense = terms.getDocCount() == maxDoc;
+        this.competitiveIterator = DocIdSetIterator.all(maxDoc);
+        this.iteratorCost = maxDoc;
+      } else {
+        this.maxDoc = 0;
+        this.dense = false;
+      }
+    }
+
+    private int getOrdForDoc(int doc) throws IOException {
+      if (termsIndex.advanceExact(doc)) {
+        return termsIndex.ordValue();
+      } else {
+        return -1;
+      }
+    }
+
+    private void setBottomOrd(int slot) throws IOException {
+      bottomSlot = slot;
+
+      final BytesRef bottomValue = values[bottomSlot];
+      if (currentReaderGen == readerGen[bottomSlot]) {
+        bottomOrd = ords[bottomSlot];
+        bottomSameReader = true;
+      } else {
+        if (bottomValue == null) {
+          // missingOrd is null for all segments
+          assert ords[bottomSlot] == missingOrd;
+          bottomOrd = missingOrd;
+          bottomSameReader = true;
+          readerGen[bottomSlot] = currentReaderGen;
+        } else {
+          final int ord = termsIndex.lookupTerm(bottomValue);
+          if (ord < 0) {
+            bottomOrd = -ord - 2;
+            bottomSameReader = false;
+          } else {
+            bottomOrd = ord;
+            // exact value match
+            bottomSameReader = true;
+            readerGen[bottomSlot] = currentReaderGen;
+            ords[bottomSlot] = bottomOrd;
+          }
+        }
+      }
+    }
+
+    @Override
+    public void setBottom(final int slot) throws IOException {
+      queueFull = true; // if we are setting bottom, it means that we have collected enough hits
+      setBottomOrd(slot);
+      updateCompetitiveIterator(); // update an iterator if we set a new bottom
+    }
+
+    @Override
+    public int compareBottom(int doc) throws IOException {
+      assert bottomSlot != -1;
+      int docOrd = getOrdForDoc(doc);
+      if (docOrd == -1) {
+        docOrd = missingOrd;
+      }
+      if (bottomSameReader) {
+        // ord is precisely comparable, even in the equal case
+        return bottomOrd - docOrd;
+      } else if (bottomOrd >= docOrd) {
+        // the equals case always means bottom is > doc
+        // (because we set bottomOrd to the lower bound in
+        // setBottom):
+        return 1;
+      } else {
+        return -1;
+      }
+    }
+
+    @Override
+    public int compareTop(int doc) throws IOException {
+      int ord = getOrdForDoc(doc);
+      if (ord == -1) {
+        ord = missingOrd;
+      }
+
+      if (topSameReader) {
+        // ord is precisely comparable, even in the equal
+        // case
+        return topOrd - ord;
+      } else if (ord <= topOrd) {
+        // the equals case always means doc is < value
+        // (because we set lastOrd to the lower bound)
+        return 1;
+      } else {
+        return -1;
+      }
+    }
+
+    @Override
+    public void copy(int slot, int doc) throws IOException {
+      int ord = getOrdForDoc(doc);
+      if (ord == -1) {
+        ord = missingOrd;
+        values[slot] = null;
+      } else {
+        assert ord >= 0;
+        if (tempBRs[slot] == null) {
+          tempBRs[slot] = new BytesRefBuilder();
+        }
+        tempBRs[slot].copyBytes(termsIndex.lookupOrd(ord));
+        values[slot] = tempBRs[slot].get();
+      }
+      ords[slot] = ord;
+      readerGen[slot] = currentReaderGen;
+      maxDocVisited = doc;
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) throws IOException {
+      if (scorer instanceof Scorer) {
+        iteratorCost =
+            ((Scorer) scorer).iterator().cost(); // starting iterator cost is the scorer's cost
+        updateCompetitiveIterator(); // update an iterator when we have a new segment
+      }
+    }
+
+    @Override
+    public void setHitsThresholdReached() throws IOException {
+      hitsThresholdReached = true;
+      updateCompetitiveIterator();
+    }
+
+    // update its iterator to include possibly only docs that are "stronger" than the current bottom
+    // entry
+    private void updateCompetitiveIterator() throws IOException {
+      if (terms == null || hitsThresholdReached == false || queueFull == false) return;
+
+      // competitive docs have an ord in [minOrd, maxOrd], missing values included; longs avoid
+      // overflows when the bottom or top is a missing value sorted last
+      long minOrd = Long.MIN_VALUE;
+      long maxOrd = Long.MAX_VALUE;
+      if (reverse == false) {
+        // if bottomOrd is not exact, it is the greatest ord that is less than the bottom value
+        maxOrd = bottomSameReader && singleSort ? bottomOrd - 1L : bottomOrd;
+        if (topValueSet) {
+          // if topOrd is not exact, it is the greatest ord that is less than the top value
+          minOrd = topSameReader ? topOrd : topOrd + 1L;
+        }
+      } else {
+        minOrd = bottomSameReader && singleSort == false ? bottomOrd : bottomOrd + 1L;
+        if (topValueSet) {
+          maxOrd = topOrd;
+        }
+      }
+      if (dense == false && missingOrd >= minOrd && missingOrd <= maxOrd) {
+        return; // we can't filter out documents, as documents with missing values are competitive
+      }
+
+      updateCounter++;
+      if (updateCounter > 256
+          && (updateCounter & 0x1f) != 0x1f) { // Start sampling if we get called too much
+        return;
+      }
+
+      minOrd = Math.max(minOrd, 0);
+      maxOrd = Math.min(maxOrd, termsIndex.getValueCount() - 1L);
+      if (minOrd > maxOrd) {
+        // no document can be competitive anymore
+        competitiveIterator = DocIdSetIterator.empty();
+        iteratorCost = 0;
+        return;
+      }
+      if (maxOrd - minOrd >= MAX_TERMS) {
+        // too many terms to merge their postings
+        return;
+      }
+
+      final BytesRef maxTerm = BytesRef.deepCopyOf(termsIndex.lookupOrd((int) maxOrd));
+      final BytesRef minTerm = BytesRef.deepCopyOf(termsIndex.lookupOrd((int) minOrd));
+      final long threshold = iteratorCost >>> 3;
+      TermsEnum termsEnum = terms.iterator();
+      long estimatedNumberOfMatches = 0;
+      if (termsEnum.seekCeil(minTerm) != TermsEnum.SeekStatus.END) {
+        for (BytesRef term = termsEnum.term();
+            term != null && term.compareTo(maxTerm) <= 0;
+            term = termsEnum.next()) {
+          estimatedNumberOfMatches += termsEnum.docFreq();
+          if (estimatedNumberOfMatches >= threshold) {
+            // the new range is not selective enough to be worth materializing, it doesn't reduce
+            // number of docs at least 8x
+            return;
+          }
+        }
+      }
+
+      DocIdSetBuilder result = new DocIdSetBuilder(maxDoc);
+      if (termsEnum.seekCeil(minTerm) != TermsEnum.SeekStatus.END) {
+        PostingsEnum postings = null;
+        for (BytesRef term = termsEnum.term();
+            term != null && term.compareTo(maxTerm) <= 0;
+            term = termsEnum.next()) {
+          postings = termsEnum.postings(postings, PostingsEnum.NONE);
+          DocIdSetBuilder.BulkAdder adder = result.grow(termsEnum.docFreq());
+          // skip docs that were already visited or skipped
+          for (int doc = postings.advance(maxDocVisited + 1);
+              doc != DocIdSetIterator.NO_MORE_DOCS;
+              doc = postings.nextDoc()) {
+            adder.add(doc);
+          }
+        }
+      }
+      competitiveIterator = result.build().iterator();
+      iteratorCost = competitiveIterator.cost();
+    }
+
+    @Override
+    public DocIdSetIterator competitiveIterator() {
+      if (terms == null) return null;
+      return new DocIdSetIterator() {
+        private int docID = competitiveIterator.docID();
+
+        @Override
+        public int nextDoc() throws IOException {
+          return advance(docID + 1);
+        }
+
+        @Override
+        public int docID() {
+          return docID;
+        }
+
+        @Override
+        public long cost() {
+          return competitiveIterator.cost();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+          return docID = competitiveIterator.advance(target);
+        }
+      };
+    }
+  }
+}
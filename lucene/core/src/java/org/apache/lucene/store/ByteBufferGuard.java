@@ -81,7 +81,7 @@ final class ByteBufferGuard {
     }
   }
 
-  private void ensureValid() {
+  void ensureValid() {
     if (invalidated) {
       // this triggers an AlreadyClosedException in ByteBufferIndexInput:
       throw new NullPointerException();
@@ -33,7 +33,8 @@ import java.nio.LongBuffer;
  * <p>For efficiency, this class requires that the buffers are a power-of-two (<code>chunkSizePower
  * </code>).
  */
-public abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessInput {
+public abstract class ByteBufferIndexInput extends IndexInput
+    implements RandomAccessInput, MemoryMappedIndexInput {
   private static final FloatBuffer EMPTY_FLOATBUFFER = FloatBuffer.allocate(0);
   private static final LongBuffer EMPTY_LONGBUFFER = LongBuffer.allocate(0);
 
@@ -47,6 +48,8 @@ public abstract class ByteBufferIndexInput extends IndexInput implements RandomA
   protected ByteBuffer curBuf; // redundant for speed: buffers[curBufIndex]
   private LongBuffer[] curLongBufferViews;
   private FloatBuffer[] curFloatBufferViews;
+  private ByteBuffer view; // duplicate of buffers[viewBufIndex], returned by viewOrNull
+  private int viewBufIndex = -1;
 
   protected boolean isClone = false;
 
@@ -380,6 +383,44 @@ public abstract class ByteBufferIndexInput extends IndexInput implements RandomA
     }
   }
 
+  @Override
+  public ByteBuffer viewOrNull(long pos, int len) throws IOException {
+    checkViewBounds(pos, len);
+    return buildView(pos, len);
+  }
+
+  final void checkViewBounds(long pos, int len) throws IOException {
+    if (pos < 0 || len < 0) {
+      throw new IllegalArgumentException(
+          "Invalid view: pos=" + pos + ", len=" + len + " of input: " + this);
+    }
+    if (pos + len > length) {
+      throw new EOFException("read past EOF: " + this);
+    }
+  }
+
+  final ByteBuffer buildView(long pos, int len) throws IOException {
+    final int bi = (int) (pos >> chunkSizePower);
+    final int start = (int) (pos & chunkSizeMask);
+    if (start + (long) len > 1L << chunkSizePower) {
+      return null;
+    }
+    try {
+      if (bi != viewBufIndex) {
+        view = buffers[bi].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        viewBufIndex = bi;
+      }
+      guard.ensureValid();
+      // set the limit first, so that the position is always within bounds
+      view.limit(start + len).position(start);
+      return view;
+    } catch (
+        @SuppressWarnings("unused")
+        NullPointerException npe) {
+      throw new AlreadyClosedException("Already closed: " + this);
+    }
+  }
+
   @Override
   public final long length() {
     return length;
@@ -503,6 +544,8 @@ public abstract class ByteBufferIndexInput extends IndexInput implements RandomA
     curBuf = null;
     curBufIndex = 0;
     curLongBufferViews = null;
+    view = null;
+    viewBufIndex = -1;
   }
 
   /** Optimization of ByteBufferIndexInput for when there is only one buffer */
@@ -671,6 +714,12 @@ public abstract class ByteBufferIndexInput extends IndexInput implements RandomA
       return super.readLong(pos + offset);
     }
 
+    @Override
+    public ByteBuffer viewOrNull(long pos, int len) throws IOException {
+      checkViewBounds(pos, len);
+      return buildView(pos + offset, len);
+    }
+
     @Override
     protected ByteBufferIndexInput buildSlice(String sliceDescription, long ofs, long length) {
       return super.buildSlice(sliceDescription, this.offset + ofs, length);
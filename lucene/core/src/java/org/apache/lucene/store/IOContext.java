@@ -43,12 +43,22 @@ public class IOContext {
 
   public final boolean readOnce;
 
+  /**
+   * A hint that the file will be read in random order, so that reading ahead of the accessed bytes
+   * is wasteful. Directories may use it to disable read-ahead, see eg. {@link
+   * MMapDirectory#adviseMapping}.
+   */
+  public final boolean randomAccess;
+
   public static final IOContext DEFAULT = new IOContext(Context.DEFAULT);
 
   public static final IOContext READONCE = new IOContext(true);
 
   public static final IOContext READ = new IOContext(false);
 
+  /** A context to read files that are accessed in random order, like terms indexes or vectors. */
+  public static final IOContext RANDOM = new IOContext(READ, false, true);
+
   public IOContext() {
     this(false);
   }
@@ -58,6 +68,7 @@ public class IOContext {
     this.context = Context.FLUSH;
     this.mergeInfo = null;
     this.readOnce = false;
+    this.randomAccess = false;
     this.flushInfo = flushInfo;
   }
 
@@ -69,6 +80,7 @@ public class IOContext {
     this.context = Context.READ;
     this.mergeInfo = null;
     this.readOnce = readOnce;
+    this.randomAccess = false;
     this.flushInfo = null;
   }
 
@@ -82,6 +94,7 @@ public class IOContext {
     assert context != Context.FLUSH : "Use IOContext(FlushInfo) to create a FLUSH IOContext";
     this.context = context;
     this.readOnce = false;
+    this.randomAccess = false;
     this.mergeInfo = mergeInfo;
     this.flushInfo = null;
   }
@@ -95,10 +108,24 @@ public class IOContext {
    * @param readOnce The new {@link IOContext} object will use this value for readOnce.
    */
   public IOContext(IOContext ctxt, boolean readOnce) {
+    this(ctxt, readOnce, ctxt.randomAccess);
+  }
+
+  /**
+   * This constructor is used to initialize a {@link IOContext} instance with new values for the
+   * readOnce and randomAccess variables.
+   *
+   * @param ctxt {@link IOContext} object whose information is used to create the new instance
+   *     except the readOnce and randomAccess variables.
+   * @param readOnce The new {@link IOContext} object will use this value for readOnce.
+   * @param randomAccess The new {@link IOContext} object will use this value for randomAccess.
+   */
+  public IOContext(IOContext ctxt, boolean readOnce, boolean randomAccess) {
     this.context = ctxt.context;
     this.mergeInfo = ctxt.mergeInfo;
     this.flushInfo = ctxt.flushInfo;
     this.readOnce = readOnce;
+    this.randomAccess = randomAccess;
   }
 
   @Override
@@ -109,6 +136,7 @@ public class IOContext {
     result = prime * result + ((flushInfo == null) ? 0 : flushInfo.hashCode());
     result = prime * result + ((mergeInfo == null) ? 0 : mergeInfo.hashCode());
     result = prime * result + (readOnce ? 1231 : 1237);
+    result = prime * result + (randomAccess ? 1231 : 1237);
     return result;
   }
 
@@ -126,6 +154,7 @@ public class IOContext {
       if (other.mergeInfo != null) return false;
     } else if (!mergeInfo.equals(other.mergeInfo)) return false;
     if (readOnce != other.readOnce) return false;
+    if (randomAccess != other.randomAccess) return false;
     return true;
   }
 
@@ -139,6 +168,8 @@ public class IOContext {
         + flushInfo
         + ", readOnce="
         + readOnce
+        + ", randomAccess="
+        + randomAccess
         + "]";
   }
 }
@@ -28,6 +28,8 @@ import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedChannelException; // javadoc @link
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.security.AccessController;
@@ -37,6 +39,8 @@ import java.util.Objects;
 import java.util.concurrent.Future;
 import org.apache.lucene.store.ByteBufferGuard.BufferCleaner;
 import org.apache.lucene.util.Constants;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.IOUtils.IOConsumer;
 import org.apache.lucene.util.SuppressForbidden;
 
 /**
@@ -69,6 +73,13 @@ import org.apache.lucene.util.SuppressForbidden;
  * the workaround will be automatically enabled (with no guarantees; if you discover any problems,
  * you can disable it).
  *
+ * <p>On Java 17, if the incubating {@code jdk.incubator.foreign} module is enabled (eg. with {@code
+ * --add-modules jdk.incubator.foreign}), files of the default file system are instead mapped as a
+ * single {@code MemorySegment} each, whatever their size: the chunk size is ignored, and reads
+ * never have to switch between chunks. Such mappings are unmapped safely when the {@link
+ * IndexInput} is closed, even if another thread still accesses it, so the workaround above is not
+ * needed. See {@link #MEMORY_SEGMENTS_SUPPORTED} and {@link #setUseMemorySegments}.
+ *
  * <p><b>NOTE:</b> Accessing this class either directly or indirectly from a thread while it's
  * interrupted can close the underlying channel immediately if at the same time the thread is
  * blocked on IO. The channel will remain closed and subsequent access to {@link MMapDirectory} will
@@ -81,6 +92,7 @@ import org.apache.lucene.util.SuppressForbidden;
  */
 public class MMapDirectory extends FSDirectory {
   private boolean useUnmapHack = UNMAP_SUPPORTED;
+  private boolean useMemorySegments = MEMORY_SEGMENTS_SUPPORTED;
   private boolean preload;
 
   /**
@@ -197,6 +209,37 @@ public class MMapDirectory extends FSDirectory {
     return useUnmapHack;
   }
 
+  /**
+   * This method enables mapping files as a single {@code MemorySegment} each, using the incubating
+   * foreign memory API of Java 17, instead of mapping them as {@link ByteBuffer} chunks. This is
+   * enabled by default if {@link #MEMORY_SEGMENTS_SUPPORTED} is <code>true</code>. Files that are
+   * not on the {@link FileSystems#getDefault() default file system} are always mapped as chunks.
+   *
+   * @throws IllegalArgumentException if {@link #MEMORY_SEGMENTS_SUPPORTED} is <code>false</code>
+   */
+  public void setUseMemorySegments(boolean useMemorySegments) {
+    if (useMemorySegments && !MEMORY_SEGMENTS_SUPPORTED) {
+      throw new IllegalArgumentException(
+          "Memory segments are only supported on Java "
+              + FOREIGN_API_VERSION
+              + " with the "
+              + FOREIGN_MODULE
+              + " module enabled, unless the "
+              + ENABLE_MEMORY_SEGMENTS_SYSPROP
+              + " system property is false");
+    }
+    this.useMemorySegments = useMemorySegments;
+  }
+
+  /**
+   * Returns <code>true</code>, if files are mapped as memory segments.
+   *
+   * @see #setUseMemorySegments
+   */
+  public boolean getUseMemorySegments() {
+    return useMemorySegments;
+  }
+
   /**
    * Set to {@code true} to ask mapped pages to be loaded into physical memory on init. The behavior
    * is best-effort and operating system dependent.
@@ -217,7 +260,7 @@ public class MMapDirectory extends FSDirectory {
   }
 
   /**
-   * Returns the current mmap chunk size.
+   * Returns the current mmap chunk size. It is not used when files are mapped as memory segments.
    *
    * @see #MMapDirectory(Path, LockFactory, int)
    */
@@ -231,15 +274,80 @@ public class MMapDirectory extends FSDirectory {
     ensureOpen();
     ensureCanRead(name);
     Path path = directory.resolve(name);
+    // the foreign memory API can only map files of the default file system
+    if (useMemorySegments && path.getFileSystem() == FileSystems.getDefault()) {
+      final String resourceDescription = "MemorySegmentIndexInput(path=\"" + path + "\")";
+      try {
+        return MEMORY_SEGMENT_PROVIDER.openInput(
+            path,
+            resourceDescription,
+            preload,
+            region -> {
+              try {
+                adviseMapping(region, context);
+              } catch (IOException e) {
+                throw new AdviceFailedException(e);
+              }
+            });
+      } catch (AdviceFailedException e) {
+        // the file was mapped successfully, only report mapping failures as such
+        throw e.getCause();
+      } catch (IOException ioe) {
+        throw convertMapFailedIOException(ioe, resourceDescription, Files.size(path));
+      }
+    }
     try (FileChannel c = FileChannel.open(path, StandardOpenOption.READ)) {
       final String resourceDescription = "MMapIndexInput(path=\"" + path.toString() + "\")";
       final boolean useUnmap = getUseUnmap();
-      return ByteBufferIndexInput.newInstance(
-          resourceDescription,
-          map(resourceDescription, c, 0, c.size()),
-          c.size(),
-          chunkSizePower,
-          new ByteBufferGuard(resourceDescription, useUnmap ? CLEANER : null));
+      final ByteBuffer[] buffers = map(resourceDescription, c, 0, c.size());
+      final IndexInput in =
+          ByteBufferIndexInput.newInstance(
+              resourceDescription,
+              buffers,
+              c.size(),
+              chunkSizePower,
+              new ByteBufferGuard(resourceDescription, useUnmap ? CLEANER : null));
+      boolean success = false;
+      try {
+        for (ByteBuffer buffer : buffers) {
+          adviseMapping(buffer.duplicate(), context);
+        }
+        success = true;
+        return in;
+      } finally {
+        if (success == false) {
+          IOUtils.closeWhileHandlingException(in);
+        }
+      }
+    }
+  }
+
+  /**
+   * Called when a file is opened, once per mapped region of the file, so that subclasses may tell
+   * the operating system how the mapped pages will be accessed, eg. with {@code madvise}. The
+   * default implementation does nothing.
+   *
+   * <p>Regions cover the whole file in order, and are at most {@link #getMaxChunkSize()} bytes long
+   * unless files are mapped as memory segments. Their start address may not be aligned with a page
+   * boundary.
+   *
+   * @param region a direct buffer over the mapped region, which must not be used after this method
+   *     returns
+   * @param context the context that the file is opened with, see eg. {@link
+   *     IOContext#randomAccess}
+   * @throws IOException if the operating system rejects the advice
+   */
+  protected void adviseMapping(ByteBuffer region, IOContext context) throws IOException {}
+
+  /** Carries exceptions of {@link #adviseMapping} through the memory segment provider. */
+  private static final class AdviceFailedException extends RuntimeException {
+    AdviceFailedException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
     }
   }
 
@@ -279,7 +387,7 @@ public class MMapDirectory extends FSDirectory {
   }
 
   private IOException convertMapFailedIOException(
-      IOException ioe, String resourceDescription, int bufSize) {
+      IOException ioe, String resourceDescription, long bufSize) {
     final String originalMessage;
     final Throwable originalCause;
     if (ioe.getCause() instanceof OutOfMemoryError) {
@@ -332,6 +440,82 @@ public class MMapDirectory extends FSDirectory {
   /** Reference to a BufferCleaner that does unmapping; {@code null} if not supported. */
   private static final BufferCleaner CLEANER;
 
+  /**
+   * The name of the system property that disables mapping files as memory segments, when set to
+   * {@code false}, even if {@link #MEMORY_SEGMENTS_SUPPORTED memory segments are supported}.
+   */
+  public static final String ENABLE_MEMORY_SEGMENTS_SYSPROP =
+      "org.apache.lucene.store.MMapDirectory.enableMemorySegments";
+
+  /** The Java version that the memory segment implementation is compiled against. */
+  static final int FOREIGN_API_VERSION = 17;
+
+  private static final String FOREIGN_MODULE = "jdk.incubator.foreign";
+
+  private static final String MEMORY_SEGMENT_PROVIDER_CLASS =
+      "org.apache.lucene.store.MemorySegmentIndexInputProvider";
+
+  /**
+   * <code>true</code>, if this platform supports mapping files as memory segments. This requires
+   * Java 17 with the {@code jdk.incubator.foreign} module enabled, and that the {@link
+   * #ENABLE_MEMORY_SEGMENTS_SYSPROP} system property is not {@code false}.
+   */
+  public static final boolean MEMORY_SEGMENTS_SUPPORTED;
+
+  /** Opens inputs backed by memory segments; {@code null} if not supported. */
+  private static final MemorySegmentProvider MEMORY_SEGMENT_PROVIDER;
+
+  /**
+   * Maps files as memory segments. The implementation uses the incubating foreign memory API, so it
+   * is compiled against a single Java version and packaged in the multi-release JAR.
+   */
+  interface MemorySegmentProvider {
+    /**
+     * Maps the file at the given path and returns an input over its bytes, after passing buffers
+     * over consecutive regions of the mapping to the given advisor.
+     */
+    IndexInput openInput(
+        Path path, String resourceDescription, boolean preload, IOConsumer<ByteBuffer> advisor)
+        throws IOException;
+  }
+
+  static {
+    MEMORY_SEGMENT_PROVIDER = lookupMemorySegmentProvider();
+    MEMORY_SEGMENTS_SUPPORTED = MEMORY_SEGMENT_PROVIDER != null;
+  }
+
+  private static MemorySegmentProvider lookupMemorySegmentProvider() {
+    if (Runtime.version().feature() != FOREIGN_API_VERSION
+        || ModuleLayer.boot().findModule(FOREIGN_MODULE).isEmpty()) {
+      return null;
+    }
+    try {
+      final String enabled =
+          AccessController.doPrivileged(
+              (PrivilegedAction<String>)
+                  () -> System.getProperty(ENABLE_MEMORY_SEGMENTS_SYSPROP, "true"));
+      if (Boolean.parseBoolean(enabled) == false) {
+        return null;
+      }
+    } catch (
+        @SuppressWarnings("unused")
+        SecurityException se) {
+      // use the default
+    }
+    try {
+      // the class is only compiled and packaged when building with a recent enough JDK
+      final Class<?> clazz = Class.forName(MEMORY_SEGMENT_PROVIDER_CLASS);
+      return (MemorySegmentProvider)
+          lookup().findConstructor(clazz, methodType(void.class)).invoke();
+    } catch (ClassNotFoundException | LinkageError e) {
+      return null;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new AssertionError(t);
+    }
+  }
+
   static {
     final Object hack =
         AccessController.doPrivileged((PrivilegedAction<Object>) MMapDirectory::unmapHackImpl);
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link IndexInput} whose bytes are memory-mapped, and may be accessed in place.
+ *
+ * @lucene.internal
+ */
+public interface MemoryMappedIndexInput {
+
+  /**
+   * Returns a little-endian view of {@code len} bytes of this input, starting at the absolute
+   * position {@code pos}, or {@code null} if these bytes cannot be viewed without copying them (eg.
+   * because they span several mappings). The position of the returned buffer is the first byte, and
+   * its limit follows the last byte. The buffer may be reused by the next call to this method, and
+   * must not be used after this input is closed.
+   *
+   * @throws java.io.EOFException if the bytes are not within the bounds of this input
+   */
+  ByteBuffer viewOrNull(long pos, int len) throws IOException;
+}
@@ -21,7 +21,13 @@ import java.util.Arrays;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
 
-final class IntArrayDocIdSet extends DocIdSet {
+/**
+ * {@link DocIdSet} implementation that stores doc IDs in a sorted int[]. This is the most compact
+ * representation for very sparse sets.
+ *
+ * @lucene.internal
+ */
+public final class IntArrayDocIdSet extends DocIdSet {
 
   private static final long BASE_RAM_BYTES_USED =
       RamUsageEstimator.shallowSizeOfInstance(IntArrayDocIdSet.class);
@@ -29,7 +35,11 @@ final class IntArrayDocIdSet extends DocIdSet {
   private final int[] docs;
   private final int length;
 
-  IntArrayDocIdSet(int[] docs, int length) {
+  /**
+   * Build a set over the first {@code length} entries of {@code docs}, which must be sorted doc
+   * IDs and followed by {@link DocIdSetIterator#NO_MORE_DOCS}.
+   */
+  public IntArrayDocIdSet(int[] docs, int length) {
     if (docs[length] != DocIdSetIterator.NO_MORE_DOCS) {
       throw new IllegalArgumentException();
     }
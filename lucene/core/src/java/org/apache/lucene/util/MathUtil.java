@@ -164,4 +164,24 @@ public final class MathUtil {
     double u = Math.scalb(1.0, -52);
     return (numValues - 1) * u;
   }
+
+  /**
+   * Return an upper bound of the value that the sum of {@code numValues} positive doubles may take,
+   * regardless of the order in which they are summed up. The error of sums depends on the order in
+   * which values are summed, so this helps compare sums that are not computed in the same order.
+   *
+   * @see #sumRelativeErrorBound(int)
+   */
+  public static double sumUpperBound(double sum, int numValues) {
+    if (numValues <= 2) {
+      // When there are only two clauses, the sum is always the same regardless
+      // of the order.
+      return sum;
+    }
+
+    // If the max relative error is b, then it means that two sums are always within 2*b of each
+    // other.
+    double b = sumRelativeErrorBound(numValues);
+    return (1.0 + 2 * b) * sum;
+  }
 }
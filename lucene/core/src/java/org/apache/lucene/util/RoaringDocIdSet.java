@@ -26,7 +26,9 @@ import org.apache.lucene.search.DocIdSetIterator;
  * <p>The space is divided into blocks of 2^16 bits and each block is encoded independently. In each
  * block, if less than 2^12 bits are set, then documents are simply stored in a short[]. If more
  * than 2^16-2^12 bits are set, then the inverse of the set is encoded in a simple short[].
- * Otherwise a {@link FixedBitSet} is used.
+ * Otherwise a {@link FixedBitSet} is used. However, if documents of the block form few runs of
+ * consecutive doc IDs, which is typical of clustered sets, then the first and last doc IDs of each
+ * run are stored in a short[] if this is more compact than the above encodings.
  *
  * @lucene.internal
  */
@@ -49,6 +51,8 @@ public class RoaringDocIdSet extends DocIdSet {
     private int lastDocId;
     private int currentBlock;
     private int currentBlockCardinality;
+    // number of runs of consecutive doc IDs in the current block
+    private int currentBlockRuns;
 
     // We start by filling the buffer and when it's full we copy the content of
     // the buffer to the FixedBitSet and put further documents in that bitset
@@ -66,7 +70,9 @@ public class RoaringDocIdSet extends DocIdSet {
 
     private void flush() {
       assert currentBlockCardinality <= BLOCK_SIZE;
-      if (currentBlockCardinality <= MAX_ARRAY_LENGTH) {
+      if (currentBlockCardinality > 0 && useRunEncoding()) {
+        sets[currentBlock] = new ShortRunDocIdSet(runs(), currentBlockCardinality);
+      } else if (currentBlockCardinality <= MAX_ARRAY_LENGTH) {
         // Use sparse encoding
         assert denseBuffer == null;
         if (currentBlockCardinality > 0) {
@@ -100,6 +106,53 @@ public class RoaringDocIdSet extends DocIdSet {
       cardinality += currentBlockCardinality;
       denseBuffer = null;
       currentBlockCardinality = 0;
+      currentBlockRuns = 0;
+    }
+
+    /** Whether runs are more compact than the other encodings of the current block. */
+    private boolean useRunEncoding() {
+      // each run takes two shorts
+      final long runBytes = 2L * Short.BYTES * currentBlockRuns;
+      final long otherBytes;
+      if (currentBlockCardinality <= MAX_ARRAY_LENGTH) {
+        otherBytes = (long) Short.BYTES * currentBlockCardinality;
+      } else if (denseBuffer.length() == BLOCK_SIZE
+          && BLOCK_SIZE - currentBlockCardinality < MAX_ARRAY_LENGTH) {
+        otherBytes = (long) Short.BYTES * (BLOCK_SIZE - currentBlockCardinality);
+      } else {
+        otherBytes = (long) Long.BYTES * FixedBitSet.bits2words(denseBuffer.length());
+      }
+      return runBytes < otherBytes;
+    }
+
+    /** Return the first and last doc IDs of the runs of the current block. */
+    private short[] runs() {
+      final short[] runs = new short[2 * currentBlockRuns];
+      int run = -1;
+      int previousDoc = -2;
+      if (denseBuffer == null) {
+        for (int i = 0; i < currentBlockCardinality; ++i) {
+          final int doc = buffer[i] & 0xFFFF;
+          if (doc != previousDoc + 1) {
+            runs[++run * 2] = (short) doc;
+          }
+          runs[run * 2 + 1] = (short) doc;
+          previousDoc = doc;
+        }
+      } else {
+        final int length = denseBuffer.length();
+        int doc = denseBuffer.nextSetBit(0);
+        while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+          if (doc != previousDoc + 1) {
+            runs[++run * 2] = (short) doc;
+          }
+          runs[run * 2 + 1] = (short) doc;
+          previousDoc = doc;
+          doc = doc + 1 < length ? denseBuffer.nextSetBit(doc + 1) : DocIdSetIterator.NO_MORE_DOCS;
+        }
+      }
+      assert run + 1 == currentBlockRuns;
+      return runs;
     }
 
     /** Add a new doc-id to this builder. NOTE: doc ids must be added in order. */
@@ -115,6 +168,9 @@ public class RoaringDocIdSet extends DocIdSet {
         currentBlock = block;
       }
 
+      if (currentBlockCardinality == 0 || docId != lastDocId + 1) {
+        currentBlockRuns += 1;
+      }
       if (currentBlockCardinality < MAX_ARRAY_LENGTH) {
         buffer[currentBlockCardinality] = (short) docId;
       } else {
@@ -221,6 +277,98 @@ public class RoaringDocIdSet extends DocIdSet {
     }
   }
 
+  /**
+   * {@link DocIdSet} implementation that can store runs of documents up to 2^16-1 in a short[]:
+   * the first and last documents of each run are stored next to each other.
+   */
+  private static class ShortRunDocIdSet extends DocIdSet {
+
+    private static final long BASE_RAM_BYTES_USED =
+        RamUsageEstimator.shallowSizeOfInstance(ShortRunDocIdSet.class);
+
+    private final short[] runs;
+    private final int cardinality;
+
+    private ShortRunDocIdSet(short[] runs, int cardinality) {
+      assert runs.length > 0 && runs.length % 2 == 0;
+      this.runs = runs;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(runs);
+    }
+
+    @Override
+    public DocIdSetIterator iterator() throws IOException {
+      return new DocIdSetIterator() {
+
+        int run = -1; // this is the index of the current run
+        int runEnd = -1; // last document of the current run
+        int doc = -1;
+
+        private int first(int run) {
+          return runs[run << 1] & 0xFFFF;
+        }
+
+        private int last(int run) {
+          return runs[(run << 1) + 1] & 0xFFFF;
+        }
+
+        private int numRuns() {
+          return runs.length >>> 1;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+          if (doc < runEnd) {
+            return ++doc;
+          }
+          if (++run >= numRuns()) {
+            return doc = NO_MORE_DOCS;
+          }
+          runEnd = last(run);
+          return doc = first(run);
+        }
+
+        @Override
+        public int docID() {
+          return doc;
+        }
+
+        @Override
+        public long cost() {
+          return cardinality;
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+          if (target <= runEnd) {
+            return doc = target;
+          }
+          // binary search for the first run whose last document is >= target
+          int lo = run + 1;
+          int hi = numRuns() - 1;
+          while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (last(mid) < target) {
+              lo = mid + 1;
+            } else {
+              hi = mid - 1;
+            }
+          }
+          run = lo;
+          if (run == numRuns()) {
+            return doc = NO_MORE_DOCS;
+          }
+          runEnd = last(run);
+          return doc = Math.max(target, first(run));
+        }
+      };
+    }
+  }
+
   private final DocIdSet[] docIdSets;
   private final int cardinality;
   private final long ramBytesUsed;
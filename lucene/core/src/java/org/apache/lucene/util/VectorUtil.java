@@ -17,9 +17,20 @@
 
 package org.apache.lucene.util;
 
-/** Utilities for computations with numeric arrays */
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.apache.lucene.internal.vectorization.VectorUtilSupport;
+import org.apache.lucene.internal.vectorization.VectorizationProvider;
+
+/**
+ * Utilities for computations with numeric arrays. Similarity computations use SIMD instructions
+ * when the runtime supports them, see {@link VectorizationProvider}.
+ */
 public final class VectorUtil {
 
+  private static final VectorUtilSupport IMPL =
+      VectorizationProvider.getInstance().getVectorUtilSupport();
+
   private VectorUtil() {}
 
   /**
@@ -30,68 +41,7 @@ public final class VectorUtil {
     if (a.length != b.length) {
       throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
     }
-    float res = 0f;
-    /*
-     * If length of vector is larger than 8, we use unrolled dot product to accelerate the
-     * calculation.
-     */
-    int i;
-    for (i = 0; i < a.length % 8; i++) {
-      res += b[i] * a[i];
-    }
-    if (a.length < 8) {
-      return res;
-    }
-    for (; i + 31 < a.length; i += 32) {
-      res +=
-          b[i + 0] * a[i + 0]
-              + b[i + 1] * a[i + 1]
-              + b[i + 2] * a[i + 2]
-              + b[i + 3] * a[i + 3]
-              + b[i + 4] * a[i + 4]
-              + b[i + 5] * a[i + 5]
-              + b[i + 6] * a[i + 6]
-              + b[i + 7] * a[i + 7];
-      res +=
-          b[i + 8] * a[i + 8]
-              + b[i + 9] * a[i + 9]
-              + b[i + 10] * a[i + 10]
-              + b[i + 11] * a[i + 11]
-              + b[i + 12] * a[i + 12]
-              + b[i + 13] * a[i + 13]
-              + b[i + 14] * a[i + 14]
-              + b[i + 15] * a[i + 15];
-      res +=
-          b[i + 16] * a[i + 16]
-              + b[i + 17] * a[i + 17]
-              + b[i + 18] * a[i + 18]
-              + b[i + 19] * a[i + 19]
-              + b[i + 20] * a[i + 20]
-              + b[i + 21] * a[i + 21]
-              + b[i + 22] * a[i + 22]
-              + b[i + 23] * a[i + 23];
-      res +=
-          b[i + 24] * a[i + 24]
-              + b[i + 25] * a[i + 25]
-              + b[i + 26] * a[i + 26]
-              + b[i + 27] * a[i + 27]
-              + b[i + 28] * a[i + 28]
-              + b[i + 29] * a[i + 29]
-              + b[i + 30] * a[i + 30]
-              + b[i + 31] * a[i + 31];
-    }
-    for (; i + 7 < a.length; i += 8) {
-      res +=
-          b[i + 0] * a[i + 0]
-              + b[i + 1] * a[i + 1]
-              + b[i + 2] * a[i + 2]
-              + b[i + 3] * a[i + 3]
-              + b[i + 4] * a[i + 4]
-              + b[i + 5] * a[i + 5]
-              + b[i + 6] * a[i + 6]
-              + b[i + 7] * a[i + 7];
-    }
-    return res;
+    return IMPL.dotProduct(a, b);
   }
 
   /**
@@ -103,13 +53,84 @@ public final class VectorUtil {
       throw new IllegalArgumentException(
           "vector dimensions differ: " + v1.length + "!=" + v2.length);
     }
-    float squareSum = 0.0f;
-    int dim = v1.length;
-    for (int i = 0; i < dim; i++) {
-      float diff = v1[i] - v2[i];
-      squareSum += diff * diff;
+    return IMPL.squareDistance(v1, v2);
+  }
+
+  /**
+   * Returns the vector dot product of the vector and the little-endian floats of the buffer, from
+   * its position to its limit, without copying them. This allows computing similarities directly
+   * against memory-mapped vectors. IllegalArgumentException is thrown if the vectors' dimensions
+   * differ or if the buffer is not little-endian.
+   */
+  public static float dotProduct(float[] a, ByteBuffer b) {
+    checkBuffer(a, b);
+    return IMPL.dotProduct(a, b, b.position());
+  }
+
+  /**
+   * Returns the sum of squared differences of the vector and the little-endian floats of the
+   * buffer, from its position to its limit, without copying them. IllegalArgumentException is
+   * thrown if the vectors' dimensions differ or if the buffer is not little-endian.
+   */
+  public static float squareDistance(float[] a, ByteBuffer b) {
+    checkBuffer(a, b);
+    return IMPL.squareDistance(a, b, b.position());
+  }
+
+  private static void checkBuffer(float[] a, ByteBuffer b) {
+    if ((long) a.length * Float.BYTES != b.remaining()) {
+      throw new IllegalArgumentException(
+          "vector dimensions differ: " + a.length + "!=" + b.remaining() / Float.BYTES);
+    }
+    if (b.order() != ByteOrder.LITTLE_ENDIAN) {
+      throw new IllegalArgumentException("buffer must be little-endian");
+    }
+  }
+
+  /**
+   * Returns the dot product of the two vectors of signed bytes, computed as an int so that it
+   * can't overflow for less than 2<sup>17</sup> dimensions. IllegalArgumentException is thrown if
+   * the vectors' dimensions differ.
+   */
+  public static int dotProduct(byte[] a, byte[] b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
     }
-    return squareSum;
+    return IMPL.dotProduct(a, 0, b, 0, a.length);
+  }
+
+  /**
+   * Returns the sum of squared differences of the two vectors of signed bytes, computed as an int
+   * so that it can't overflow for less than 2<sup>15</sup> dimensions. IllegalArgumentException is
+   * thrown if the vectors' dimensions differ.
+   */
+  public static int squareDistance(byte[] a, byte[] b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
+    }
+    return IMPL.squareDistance(a, 0, b, 0, a.length);
+  }
+
+  /**
+   * Returns the dot product of the two vectors of signed bytes held by the given {@link BytesRef}s.
+   * IllegalArgumentException is thrown if the vectors' dimensions differ.
+   */
+  public static int dotProduct(BytesRef a, BytesRef b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
+    }
+    return IMPL.dotProduct(a.bytes, a.offset, b.bytes, b.offset, a.length);
+  }
+
+  /**
+   * Returns the sum of squared differences of the two vectors of signed bytes held by the given
+   * {@link BytesRef}s. IllegalArgumentException is thrown if the vectors' dimensions differ.
+   */
+  public static int squareDistance(BytesRef a, BytesRef b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
+    }
+    return IMPL.squareDistance(a.bytes, a.offset, b.bytes, b.offset, a.length);
   }
 
   /**
@@ -162,4 +183,24 @@ public final class VectorUtil {
       u[i] += v[i];
     }
   }
+
+  /**
+   * Converts a vector of floats to a vector of bytes, as used to search fields with {@link
+   * org.apache.lucene.index.VectorEncoding#BYTE} encoding. The floats are truncated to bytes.
+   *
+   * @param vector the vector to convert
+   * @return a new {@link BytesRef} holding one byte per dimension
+   * @throws IllegalArgumentException if a value of the vector is out of the range of bytes
+   */
+  public static BytesRef toBytesRef(float[] vector) {
+    BytesRef b = new BytesRef(new byte[vector.length]);
+    for (int i = 0; i < vector.length; i++) {
+      if (vector[i] < Byte.MIN_VALUE || vector[i] > Byte.MAX_VALUE) {
+        throw new IllegalArgumentException(
+            "Vector value at " + i + " is out of range [-128, 127]: " + vector[i]);
+      }
+      b.bytes[i] = (byte) vector[i];
+    }
+    return b;
+  }
 }
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BitUtil;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Canonical Huffman coding of bytes.
+ *
+ * <p>Code lengths are limited to {@link #MAX_CODE_LENGTH} bits so that decoding only needs a single
+ * table lookup per byte. Codes are computed from a histogram of the bytes to encode, and are
+ * serialized as 256 code lengths of 4 bits each. Encoded bits are written least-significant bit
+ * first, like in the DEFLATE format.
+ *
+ * <p>An instance of this class holds the codes that were last computed or read, and is not thread
+ * safe.
+ *
+ * @lucene.internal
+ */
+public final class Huffman {
+
+  /** Maximum length of a code, in bits. */
+  public static final int MAX_CODE_LENGTH = 11;
+
+  private static final int NUM_SYMBOLS = 256;
+  private static final int LENGTH_BITS = 4;
+  private static final int LENGTH_MASK = (1 << LENGTH_BITS) - 1;
+  // Number of codes that can be decoded after every refill of the bit buffer
+  private static final int CODES_PER_REFILL = 56 / MAX_CODE_LENGTH;
+
+  private final byte[] lengths = new byte[NUM_SYMBOLS];
+  private final int[] codes = new int[NUM_SYMBOLS];
+  // symbol << LENGTH_BITS | length, indexed by the next MAX_CODE_LENGTH bits of the input
+  private final short[] decodingTable = new short[1 << MAX_CODE_LENGTH];
+  private final long[] sorted = new long[NUM_SYMBOLS];
+  private final long[] weights = new long[2 * NUM_SYMBOLS - 1];
+  private final int[] parents = new int[2 * NUM_SYMBOLS - 1];
+  private final int[] counts = new int[MAX_CODE_LENGTH + 1];
+  private byte[] buffer = BytesRef.EMPTY_BYTES;
+
+  /** Sole constructor. */
+  public Huffman() {}
+
+  /** Count occurrences of every byte of the given slice into {@code histogram}. */
+  public static void updateHistogram(int[] histogram, byte[] bytes, int off, int len) {
+    for (int i = off, end = off + len; i < end; ++i) {
+      histogram[bytes[i] & 0xFF]++;
+    }
+  }
+
+  /**
+   * Compute codes for the given histogram of 256 byte values. These codes are then used by {@link
+   * #writeCodes} and {@link #encode}.
+   */
+  public void computeCodes(int[] histogram) {
+    if (histogram.length != NUM_SYMBOLS) {
+      throw new IllegalArgumentException("Histograms must have " + NUM_SYMBOLS + " entries");
+    }
+    long[] freqs = new long[NUM_SYMBOLS];
+    for (int i = 0; i < NUM_SYMBOLS; ++i) {
+      freqs[i] = histogram[i];
+    }
+    while (computeLengths(freqs) > MAX_CODE_LENGTH) {
+      // Flatten the distribution until codes are short enough
+      for (int i = 0; i < NUM_SYMBOLS; ++i) {
+        if (freqs[i] != 0) {
+          freqs[i] = (freqs[i] >>> 1) | 1;
+        }
+      }
+    }
+    computeCodes();
+  }
+
+  /**
+   * Return the number of bytes that {@link #writeCodes} and {@link #encode} would write for the
+   * bytes that the given histogram was computed from, with the codes that have last been computed.
+   */
+  public long encodedLength(int[] histogram) {
+    long numBits = 0;
+    for (int i = 0; i < NUM_SYMBOLS; ++i) {
+      numBits += (long) histogram[i] * lengths[i];
+    }
+    return NUM_SYMBOLS / 2 + (numBits + Byte.SIZE - 1) / Byte.SIZE;
+  }
+
+  /** Write the codes that have last been computed, which can be read with {@link #readCodes}. */
+  public void writeCodes(DataOutput out) throws IOException {
+    for (int i = 0; i < NUM_SYMBOLS; i += 2) {
+      out.writeByte((byte) (lengths[i] | (lengths[i + 1] << LENGTH_BITS)));
+    }
+  }
+
+  /**
+   * Read codes that have been written with {@link #writeCodes}. These codes are then used by {@link
+   * #decode}.
+   */
+  public void readCodes(DataInput in) throws IOException {
+    for (int i = 0; i < NUM_SYMBOLS; i += 2) {
+      final int b = in.readByte() & 0xFF;
+      lengths[i] = (byte) (b & LENGTH_MASK);
+      lengths[i + 1] = (byte) (b >>> LENGTH_BITS);
+    }
+    long kraftSum = 0;
+    for (int i = 0; i < NUM_SYMBOLS; ++i) {
+      if (lengths[i] > MAX_CODE_LENGTH) {
+        throw new CorruptIndexException("Illegal code length: " + lengths[i], in);
+      }
+      if (lengths[i] != 0) {
+        kraftSum += 1L << (MAX_CODE_LENGTH - lengths[i]);
+      }
+    }
+    if (kraftSum > 1L << MAX_CODE_LENGTH) {
+      throw new CorruptIndexException("Code lengths do not describe a prefix code", in);
+    }
+    computeCodes();
+    // Bit sequences that no code starts with only exist when there is a single symbol, or on
+    // corrupt data: make them decode to something to guarantee progress
+    Arrays.fill(decodingTable, (short) 1);
+    for (int symbol = 0; symbol < NUM_SYMBOLS; ++symbol) {
+      final int length = lengths[symbol];
+      if (length != 0) {
+        final short entry = (short) ((symbol << LENGTH_BITS) | length);
+        for (int i = codes[symbol]; i < decodingTable.length; i += 1 << length) {
+          decodingTable[i] = entry;
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute Huffman code lengths of the given frequencies into {@link #lengths} and return the
+   * maximum length.
+   */
+  private int computeLengths(long[] freqs) {
+    Arrays.fill(lengths, (byte) 0);
+    int numSymbols = 0;
+    for (int i = 0; i < NUM_SYMBOLS; ++i) {
+      if (freqs[i] != 0) {
+        sorted[numSymbols++] = (freqs[i] << 8) | i;
+      }
+    }
+    if (numSymbols == 0) {
+      return 0;
+    } else if (numSymbols == 1) {
+      lengths[(int) (sorted[0] & 0xFF)] = 1;
+      return 1;
+    }
+    Arrays.sort(sorted, 0, numSymbols);
+
+    // Leaves are sorted by weight, and so are internal nodes since they are created in order of
+    // increasing weights, so the two lightest nodes are always at the head of either queue
+    for (int i = 0; i < numSymbols; ++i) {
+      weights[i] = sorted[i] >>> 8;
+    }
+    final int numNodes = 2 * numSymbols - 1;
+    int leaf = 0;
+    int internal = numSymbols;
+    for (int node = numSymbols; node < numNodes; ++node) {
+      long weight = 0;
+      for (int i = 0; i < 2; ++i) {
+        final int child;
+        if (leaf < numSymbols && (internal == node || weights[leaf] <= weights[internal])) {
+          child = leaf++;
+        } else {
+          child = internal++;
+        }
+        weight += weights[child];
+        parents[child] = node;
+      }
+      weights[node] = weight;
+    }
+
+    // Compute depths from the root, reusing weights
+    int maxLength = 0;
+    weights[numNodes - 1] = 0;
+    for (int node = numNodes - 2; node >= 0; --node) {
+      weights[node] = weights[parents[node]] + 1;
+      if (node < numSymbols) {
+        final int length = (int) weights[node];
+        maxLength = Math.max(maxLength, length);
+        if (length <= MAX_CODE_LENGTH) {
+          lengths[(int) (sorted[node] & 0xFF)] = (byte) length;
+        }
+      }
+    }
+    return maxLength;
+  }
+
+  /** Compute canonical codes from {@link #lengths}, with their bits reversed. */
+  private void computeCodes() {
+    Arrays.fill(counts, 0);
+    for (int i = 0; i < NUM_SYMBOLS; ++i) {
+      counts[lengths[i]]++;
+    }
+    counts[0] = 0;
+    int code = 0;
+    final int[] nextCodes = new int[MAX_CODE_LENGTH + 1];
+    for (int length = 1; length <= MAX_CODE_LENGTH; ++length) {
+      code = (code + counts[length - 1]) << 1;
+      nextCodes[length] = code;
+    }
+    for (int symbol = 0; symbol < NUM_SYMBOLS; ++symbol) {
+      final int length = lengths[symbol];
+      if (length != 0) {
+        codes[symbol] = Integer.reverse(nextCodes[length]++) >>> (Integer.SIZE - length);
+      }
+    }
+  }
+
+  /**
+   * Encode the given bytes with the codes that have last been computed by {@link #computeCodes}.
+   * All bytes must have a non-zero count in the histogram that was used to compute codes.
+   */
+  public void encode(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+    long bits = 0;
+    int bitCount = 0;
+    for (int i = off, end = off + len; i < end; ++i) {
+      final int symbol = bytes[i] & 0xFF;
+      assert lengths[symbol] != 0 : "No code for " + symbol;
+      bits |= (long) codes[symbol] << bitCount;
+      bitCount += lengths[symbol];
+      if (bitCount >= Integer.SIZE) {
+        out.writeInt((int) bits);
+        bits >>>= Integer.SIZE;
+        bitCount -= Integer.SIZE;
+      }
+    }
+    for (; bitCount > 0; bitCount -= Byte.SIZE) {
+      out.writeByte((byte) bits);
+      bits >>>= Byte.SIZE;
+    }
+  }
+
+  /**
+   * Decode {@code len} bytes from {@code encodedLength} bytes of {@code in} with the codes that
+   * have last been read by {@link #readCodes}.
+   */
+  public void decode(DataInput in, int encodedLength, byte[] dest, int dOff, int len)
+      throws IOException {
+    // Pad the buffer so that the last bytes can be read with a long, even after the bit buffer
+    // has been refilled past the end of the encoded bytes
+    final int bufferLength = encodedLength + 2 * Long.BYTES;
+    if (buffer.length < bufferLength) {
+      buffer = new byte[ArrayUtil.oversize(bufferLength, Byte.BYTES)];
+    }
+    in.readBytes(buffer, 0, encodedLength);
+    final byte[] buffer = this.buffer;
+    final short[] decodingTable = this.decodingTable;
+    final int mask = decodingTable.length - 1;
+    long bits = 0;
+    int bitCount = 0;
+    int pos = 0;
+    int i = dOff;
+    final int end = dOff + len;
+    while (i < end) {
+      if (pos > encodedLength + Long.BYTES) {
+        throw new CorruptIndexException("Encoded data is too short", in);
+      }
+      // Load as many whole bytes as the bit buffer can hold, which is at least 56 bits
+      bits |= (long) BitUtil.VH_LE_LONG.get(buffer, pos) << bitCount;
+      pos += (63 - bitCount) >>> 3;
+      bitCount |= 56;
+      for (final int limit = Math.min(i + CODES_PER_REFILL, end); i < limit; ++i) {
+        final int entry = decodingTable[(int) bits & mask];
+        final int length = entry & LENGTH_MASK;
+        dest[i] = (byte) (entry >>> LENGTH_BITS);
+        bits >>>= length;
+        bitCount -= length;
+      }
+    }
+  }
+}
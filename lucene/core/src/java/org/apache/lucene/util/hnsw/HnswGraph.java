@@ -86,8 +86,10 @@ public final class HnswGraph extends KnnGraphValues {
    *     hierarchical graph.
    * @param acceptOrds {@link Bits} that represents the allowed document ordinals to match, or
    *     {@code null} if they are all allowed to match.
+   * @param visitedLimit the maximum number of nodes that the search is allowed to visit
    * @param random a source of randomness, used for generating entry points to the graph
-   * @return a priority queue holding the closest neighbors found
+   * @return a priority queue holding the closest neighbors found. If the search was stopped early
+   *     because it reached the visited nodes limit, it is {@link NeighborQueue#incomplete()}.
    */
   public static NeighborQueue search(
       float[] query,
@@ -97,24 +99,71 @@ public final class HnswGraph extends KnnGraphValues {
       VectorSimilarityFunction similarityFunction,
       KnnGraphValues graphValues,
       Bits acceptOrds,
+      int visitedLimit,
+      SplittableRandom random)
+      throws IOException {
+    return search(
+        node -> similarityFunction.compare(query, vectors.vectorValue(node)),
+        topK,
+        numSeed,
+        similarityFunction.reversed,
+        graphValues,
+        acceptOrds,
+        visitedLimit,
+        random);
+  }
+
+  /**
+   * Searches for the nearest neighbors of a query, whose similarity to the nodes of the graph is
+   * computed by a {@link RandomVectorScorer}.
+   *
+   * @param scorer computes the similarity of the query to nodes of the graph
+   * @param topK the number of nodes to be returned
+   * @param numSeed the size of the queue maintained while searching, and controls the number of
+   *     random entry points to sample
+   * @param reversed whether lower scores represent more similar vectors, see {@link
+   *     VectorSimilarityFunction#reversed}
+   * @param graphValues the graph values. May represent the entire graph, or a level in a
+   *     hierarchical graph.
+   * @param acceptOrds {@link Bits} that represents the allowed document ordinals to match, or
+   *     {@code null} if they are all allowed to match.
+   * @param visitedLimit the maximum number of nodes that the search is allowed to visit
+   * @param random a source of randomness, used for generating entry points to the graph
+   * @return a priority queue holding the closest neighbors found. If the search was stopped early
+   *     because it reached the visited nodes limit, it is {@link NeighborQueue#incomplete()}.
+   */
+  public static NeighborQueue search(
+      RandomVectorScorer scorer,
+      int topK,
+      int numSeed,
+      boolean reversed,
+      KnnGraphValues graphValues,
+      Bits acceptOrds,
+      int visitedLimit,
       SplittableRandom random)
       throws IOException {
     int size = graphValues.size();
 
     // MIN heap, holding the top results
-    NeighborQueue results = new NeighborQueue(numSeed, similarityFunction.reversed);
+    NeighborQueue results = new NeighborQueue(numSeed, reversed);
     // MAX heap, from which to pull the candidate nodes
-    NeighborQueue candidates = new NeighborQueue(numSeed, !similarityFunction.reversed);
+    NeighborQueue candidates = new NeighborQueue(numSeed, !reversed);
 
     // set of ordinals that have been visited by search on this layer, used to avoid backtracking
     SparseFixedBitSet visited = new SparseFixedBitSet(size);
+    int numVisited = 0;
     // get initial candidates at random
     int boundedNumSeed = Math.min(numSeed, 2 * size);
     for (int i = 0; i < boundedNumSeed; i++) {
       int entryPoint = random.nextInt(size);
       if (visited.getAndSet(entryPoint) == false) {
+        if (numVisited >= visitedLimit) {
+          results.markIncomplete();
+          break;
+        }
+        numVisited++;
         // explore the topK starting points of some random numSeed probes
-        float score = similarityFunction.compare(query, vectors.vectorValue(entryPoint));
+        float score = scorer.score(entryPoint);
         candidates.add(entryPoint, score);
         if (acceptOrds == null || acceptOrds.get(entryPoint)) {
           results.add(entryPoint, score);
@@ -125,9 +174,9 @@ public final class HnswGraph extends KnnGraphValues {
     // Set the bound to the worst current result and below reject any newly-generated candidates
     // failing
     // to exceed this bound
-    BoundsChecker bound = BoundsChecker.create(similarityFunction.reversed);
+    BoundsChecker bound = BoundsChecker.create(reversed);
     bound.set(results.topScore());
-    while (candidates.size() > 0) {
+    while (candidates.size() > 0 && results.incomplete() == false) {
       // get the best candidate (closest or best scoring)
       float topCandidateScore = candidates.topScore();
       if (results.size() >= topK) {
@@ -143,8 +192,13 @@ public final class HnswGraph extends KnnGraphValues {
         if (visited.getAndSet(friendOrd)) {
           continue;
         }
+        if (numVisited >= visitedLimit) {
+          results.markIncomplete();
+          break;
+        }
+        numVisited++;
 
-        float score = similarityFunction.compare(query, vectors.vectorValue(friendOrd));
+        float score = scorer.score(friendOrd);
         if (results.size() < numSeed || bound.check(score) == false) {
           candidates.add(friendOrd, score);
           if (acceptOrds == null || acceptOrds.get(friendOrd)) {
@@ -157,7 +211,7 @@ public final class HnswGraph extends KnnGraphValues {
     while (results.size() > topK) {
       results.pop();
     }
-    results.setVisitedCount(visited.approximateCardinality());
+    results.setVisitedCount(numVisited);
     return results;
   }
 
@@ -17,18 +17,35 @@
 
 package org.apache.lucene.util.hnsw;
 
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.index.KnnGraphValues;
 import org.apache.lucene.index.RandomAccessVectorValues;
 import org.apache.lucene.index.RandomAccessVectorValuesProducer;
 import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.InfoStream;
+import org.apache.lucene.util.ThreadInterruptedException;
 
 /**
  * Builder for HNSW graph. See {@link HnswGraph} for a gloss on the algorithm and the meaning of the
  * hyperparameters.
+ *
+ * <p>Graphs are built by a single thread with {@link #build(RandomAccessVectorValues)}, or by
+ * multiple workers inserting nodes into a shared graph with {@link
+ * #build(RandomAccessVectorValuesProducer, ExecutorService, int)}. Concurrent builds lock each
+ * node's {@link NeighborArray} while reading or updating it, and are not repeatable even for a
+ * fixed seed since the graph depends on the order in which workers insert nodes.
  */
 public final class HnswGraphBuilder {
 
@@ -41,19 +58,17 @@ public final class HnswGraphBuilder {
 
   private final int maxConn;
   private final int beamWidth;
-  private final NeighborArray scratch;
 
   private final VectorSimilarityFunction similarityFunction;
+  private final RandomAccessVectorValuesProducer vectors;
   private final RandomAccessVectorValues vectorValues;
   private final SplittableRandom random;
-  private final BoundsChecker bound;
   final HnswGraph hnsw;
 
   private InfoStream infoStream = InfoStream.getDefault();
 
-  // we need two sources of vectors in order to perform diversity check comparisons without
-  // colliding
-  private RandomAccessVectorValues buildVectors;
+  // inserts nodes when the graph is built by a single thread
+  private final GraphInserter inserter;
 
   /**
    * Reads all the vectors from a VectorValues, builds a graph connecting them by their dense
@@ -73,8 +88,11 @@ public final class HnswGraphBuilder {
       int maxConn,
       int beamWidth,
       long seed) {
+    this.vectors = vectors;
     vectorValues = vectors.randomAccess();
-    buildVectors = vectors.randomAccess();
+    // we need two sources of vectors in order to perform diversity check comparisons without
+    // colliding
+    RandomAccessVectorValues buildVectors = vectors.randomAccess();
     this.similarityFunction = Objects.requireNonNull(similarityFunction);
     if (maxConn <= 0) {
       throw new IllegalArgumentException("maxConn must be positive");
@@ -85,9 +103,8 @@ public final class HnswGraphBuilder {
     this.maxConn = maxConn;
     this.beamWidth = beamWidth;
     this.hnsw = new HnswGraph(maxConn);
-    bound = BoundsChecker.create(similarityFunction.reversed);
     random = new SplittableRandom(seed);
-    scratch = new NeighborArray(Math.max(beamWidth, maxConn + 1));
+    inserter = new GraphInserter(vectorValues, buildVectors, random, hnsw);
   }
 
   /**
@@ -107,8 +124,9 @@ public final class HnswGraphBuilder {
       infoStream.message(HNSW_COMPONENT, "build graph from " + vectors.size() + " vectors");
     }
     long start = System.nanoTime(), t = start;
-    // start at node 1! node 0 is added implicitly, in the constructor
-    for (int node = 1; node < vectors.size(); node++) {
+    // start after the nodes that are already in the graph: node 0 is added implicitly, in the
+    // constructor, and more nodes may have been copied from an initializer graph
+    for (int node = hnsw.size(); node < vectors.size(); node++) {
       addGraphNode(vectors.vectorValue(node));
       if (node % 10000 == 0) {
         if (infoStream.isEnabled(HNSW_COMPONENT)) {
@@ -128,142 +146,416 @@ public final class HnswGraphBuilder {
     return hnsw;
   }
 
+  /**
+   * Builds the graph with several workers that insert nodes concurrently into a shared graph. Each
+   * worker searches the nodes inserted before its own node, and links the new node to its
+   * neighbors while holding the lock of one {@link NeighborArray} at a time. Falls back to a single
+   * threaded build when {@code numWorkers} is 1 or less or no executor is provided.
+   *
+   * @param vectors the vectors for which to build a nearest neighbors graph. Each worker takes its
+   *     own independent accessors over these vectors.
+   * @param executor the executor that runs the workers
+   * @param numWorkers the number of workers inserting nodes concurrently
+   */
+  public HnswGraph build(
+      RandomAccessVectorValuesProducer vectors, ExecutorService executor, int numWorkers)
+      throws IOException {
+    if (executor == null || numWorkers <= 1) {
+      return build(vectors.randomAccess());
+    }
+    int size = vectorValues.size();
+    int firstNode = hnsw.size();
+    if (infoStream.isEnabled(HNSW_COMPONENT)) {
+      infoStream.message(
+          HNSW_COMPONENT,
+          "build graph from " + size + " vectors with " + numWorkers + " concurrent workers");
+    }
+    // allocate all nodes upfront so that workers never structurally modify the graph
+    for (int node = firstNode; node < size; node++) {
+      hnsw.addNode();
+    }
+
+    long start = System.nanoTime();
+    // start after the nodes that are already in the graph
+    AtomicInteger nextNode = new AtomicInteger(firstNode);
+    List<Future<?>> futures = new ArrayList<>(numWorkers);
+    for (int i = 0; i < numWorkers; i++) {
+      // accessors are created by this thread since creating them may not be thread-safe
+      RandomAccessVectorValues values = vectors.randomAccess();
+      ConcurrentGraphView graphView = new ConcurrentGraphView();
+      GraphInserter workerInserter =
+          new GraphInserter(
+              vectors.randomAccess(), vectors.randomAccess(), random.split(), graphView);
+      futures.add(
+          executor.submit(
+              () -> {
+                try {
+                  for (int node = nextNode.getAndIncrement();
+                      node < size;
+                      node = nextNode.getAndIncrement()) {
+                    graphView.setSize(node);
+                    workerInserter.addGraphNode(node, values.vectorValue(node), true);
+                    if (node % 10000 == 0 && infoStream.isEnabled(HNSW_COMPONENT)) {
+                      infoStream.message(
+                          HNSW_COMPONENT,
+                          String.format(
+                              Locale.ROOT,
+                              "built %d in %d ms",
+                              node,
+                              ((System.nanoTime() - start) / 1_000_000)));
+                    }
+                  }
+                } catch (Throwable t) {
+                  // make the other workers stop early
+                  nextNode.set(size);
+                  throw t;
+                }
+                return null;
+              }));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+      }
+    }
+    return hnsw;
+  }
+
+  /**
+   * Initializes the graph with the nodes and connections of an existing graph, so that building
+   * only needs to insert the vectors that are not part of it. The first {@code
+   * initializerGraph.size()} ordinals of the vectors provided to this builder must be the vectors
+   * of the nodes of the initializer graph, in the same order. Scores are recomputed for every
+   * connection, and nodes having more than maxConn neighbors are pruned with the diversity
+   * heuristic.
+   *
+   * @param initializerGraph the graph to copy, which may be read from an index
+   */
+  public void initializeFromGraph(KnnGraphValues initializerGraph) throws IOException {
+    if (hnsw.size() != 1) {
+      throw new IllegalStateException("This builder has already added nodes to its graph");
+    }
+    int size = initializerGraph.size();
+    if (size > vectorValues.size()) {
+      throw new IllegalArgumentException(
+          "initializer graph has more nodes ("
+              + size
+              + ") than there are vectors ("
+              + vectorValues.size()
+              + ")");
+    }
+    for (int node = 1; node < size; node++) {
+      hnsw.addNode();
+    }
+    for (int node = 0; node < size; node++) {
+      inserter.copyNeighbors(node, initializerGraph);
+    }
+    if (infoStream.isEnabled(HNSW_COMPONENT)) {
+      infoStream.message(HNSW_COMPONENT, "initialized graph with " + size + " nodes");
+    }
+  }
+
   public void setInfoStream(InfoStream infoStream) {
     this.infoStream = infoStream;
   }
 
   /** Inserts a doc with vector value to the graph */
   void addGraphNode(float[] value) throws IOException {
-    // We pass 'null' for acceptOrds because there are no deletions while building the graph
-    NeighborQueue candidates =
-        HnswGraph.search(
-            value, beamWidth, beamWidth, vectorValues, similarityFunction, hnsw, null, random);
+    // the node is added to the graph after searching, so that it doesn't find itself
+    inserter.addGraphNode(-1, value, false);
+  }
+
+  /**
+   * Holds the state that is needed to insert nodes into the graph: vector accessors, a source of
+   * randomness and scratch space. There is one instance per thread building the graph.
+   */
+  private final class GraphInserter {
 
-    int node = hnsw.addNode();
+    private final RandomAccessVectorValues vectorValues;
+    // we need two sources of vectors in order to perform diversity check comparisons without
+    // colliding
+    private final RandomAccessVectorValues buildVectors;
+    private final SplittableRandom random;
+    private final KnnGraphValues graphValues;
+    private final BoundsChecker bound;
+    private final NeighborArray scratch;
 
-    /* connect neighbors to the new node, using a diversity heuristic that chooses successive
-     * nearest neighbors that are closer to the new node than they are to the previously-selected
-     * neighbors
+    GraphInserter(
+        RandomAccessVectorValues vectorValues,
+        RandomAccessVectorValues buildVectors,
+        SplittableRandom random,
+        KnnGraphValues graphValues) {
+      this.vectorValues = vectorValues;
+      this.buildVectors = buildVectors;
+      this.random = random;
+      this.graphValues = graphValues;
+      bound = BoundsChecker.create(similarityFunction.reversed);
+      scratch = new NeighborArray(Math.max(beamWidth, maxConn + 1));
+    }
+
+    /**
+     * Inserts a node in the graph.
+     *
+     * @param node the node to insert, if it was allocated already, or -1 to append a new node
+     * @param value the vector value of the node
+     * @param concurrent whether other threads may update the graph at the same time
      */
-    addDiverseNeighbors(node, candidates);
-  }
+    void addGraphNode(int node, float[] value, boolean concurrent) throws IOException {
+      // We pass 'null' for acceptOrds because there are no deletions while building the graph
+      NeighborQueue candidates =
+          HnswGraph.search(
+              value,
+              beamWidth,
+              beamWidth,
+              vectorValues,
+              similarityFunction,
+              graphValues,
+              null,
+              Integer.MAX_VALUE,
+              random);
 
-  /* TODO: we are not maintaining nodes in strict score order; the forward links
-   * are added in sorted order, but the reverse implicit ones are not. Diversity heuristic should
-   * work better if we keep the neighbor arrays sorted. Possibly we should switch back to a heap?
-   * But first we should just see if sorting makes a significant difference.
-   */
-  private void addDiverseNeighbors(int node, NeighborQueue candidates) throws IOException {
-    /* For each of the beamWidth nearest candidates (going from best to worst), select it only if it
-     * is closer to target than it is to any of the already-selected neighbors (ie selected in this method,
-     * since the node is new and has no prior neighbors).
+      if (node == -1) {
+        node = hnsw.addNode();
+      }
+
+      /* connect neighbors to the new node, using a diversity heuristic that chooses successive
+       * nearest neighbors that are closer to the new node than they are to the previously-selected
+       * neighbors
+       */
+      if (concurrent) {
+        addDiverseNeighborsConcurrently(node, candidates);
+      } else {
+        addDiverseNeighbors(node, candidates);
+      }
+    }
+
+    /** Copies the neighbors of a node from another graph, computing their scores. */
+    void copyNeighbors(int node, KnnGraphValues graph) throws IOException {
+      // copy the node's vector since diversity updates may reuse the accessor's buffer
+      float[] value = vectorValues.vectorValue(node);
+      value = ArrayUtil.copyOfSubArray(value, 0, value.length);
+      NeighborArray neighbors = hnsw.getNeighbors(node);
+      graph.seek(node);
+      int nbr;
+      while ((nbr = graph.nextNeighbor()) != NO_MORE_DOCS) {
+        neighbors.add(nbr, similarityFunction.compare(value, buildVectors.vectorValue(nbr)));
+        if (neighbors.size() > maxConn) {
+          diversityUpdate(neighbors);
+        }
+      }
+    }
+
+    /* TODO: we are not maintaining nodes in strict score order; the forward links
+     * are added in sorted order, but the reverse implicit ones are not. Diversity heuristic should
+     * work better if we keep the neighbor arrays sorted. Possibly we should switch back to a heap?
+     * But first we should just see if sorting makes a significant difference.
      */
-    NeighborArray neighbors = hnsw.getNeighbors(node);
-    assert neighbors.size() == 0; // new node
-    popToScratch(candidates);
-    selectDiverse(neighbors, scratch);
-
-    // Link the selected nodes to the new node, and the new node to the selected nodes (again
-    // applying diversity heuristic)
-    int size = neighbors.size();
-    for (int i = 0; i < size; i++) {
-      int nbr = neighbors.node[i];
-      NeighborArray nbrNbr = hnsw.getNeighbors(nbr);
-      nbrNbr.add(node, neighbors.score[i]);
-      if (nbrNbr.size() > maxConn) {
-        diversityUpdate(nbrNbr);
+    private void addDiverseNeighbors(int node, NeighborQueue candidates) throws IOException {
+      /* For each of the beamWidth nearest candidates (going from best to worst), select it only if it
+       * is closer to target than it is to any of the already-selected neighbors (ie selected in this method,
+       * since the node is new and has no prior neighbors).
+       */
+      NeighborArray neighbors = hnsw.getNeighbors(node);
+      assert neighbors.size() == 0; // new node
+      popToScratch(candidates);
+      selectDiverse(neighbors, scratch);
+
+      // Link the selected nodes to the new node, and the new node to the selected nodes (again
+      // applying diversity heuristic)
+      int size = neighbors.size();
+      for (int i = 0; i < size; i++) {
+        int nbr = neighbors.node[i];
+        NeighborArray nbrNbr = hnsw.getNeighbors(nbr);
+        nbrNbr.add(node, neighbors.score[i]);
+        if (nbrNbr.size() > maxConn) {
+          diversityUpdate(nbrNbr);
+        }
       }
     }
-  }
 
-  private void selectDiverse(NeighborArray neighbors, NeighborArray candidates) throws IOException {
-    // Select the best maxConn neighbors of the new node, applying the diversity heuristic
-    for (int i = candidates.size() - 1; neighbors.size() < maxConn && i >= 0; i--) {
-      // compare each neighbor (in distance order) against the closer neighbors selected so far,
-      // only adding it if it is closer to the target than to any of the other selected neighbors
-      int cNode = candidates.node[i];
-      float cScore = candidates.score[i];
-      assert cNode < hnsw.size();
-      if (diversityCheck(vectorValues.vectorValue(cNode), cScore, neighbors, buildVectors)) {
-        neighbors.add(cNode, cScore);
+    /*
+     * Same as addDiverseNeighbors, except that the neighbors are selected without holding any lock,
+     * and every NeighborArray is locked while being updated. Workers inserting later nodes may have
+     * already linked them to this node, so its neighbors are added one at a time with the same
+     * diversity update that is used for reverse links.
+     */
+    private void addDiverseNeighborsConcurrently(int node, NeighborQueue candidates)
+        throws IOException {
+      popToScratch(candidates);
+      NeighborArray selected = new NeighborArray(maxConn + 1);
+      selectDiverse(selected, scratch);
+
+      NeighborArray neighbors = hnsw.getNeighbors(node);
+      synchronized (neighbors) {
+        for (int i = 0; i < selected.size(); i++) {
+          neighbors.add(selected.node[i], selected.score[i]);
+          if (neighbors.size() > maxConn) {
+            diversityUpdate(neighbors);
+          }
+        }
+      }
+
+      for (int i = 0; i < selected.size(); i++) {
+        NeighborArray nbrNbr = hnsw.getNeighbors(selected.node[i]);
+        synchronized (nbrNbr) {
+          nbrNbr.add(node, selected.score[i]);
+          if (nbrNbr.size() > maxConn) {
+            diversityUpdate(nbrNbr);
+          }
+        }
+      }
+    }
+
+    private void selectDiverse(NeighborArray neighbors, NeighborArray candidates)
+        throws IOException {
+      // Select the best maxConn neighbors of the new node, applying the diversity heuristic
+      for (int i = candidates.size() - 1; neighbors.size() < maxConn && i >= 0; i--) {
+        // compare each neighbor (in distance order) against the closer neighbors selected so far,
+        // only adding it if it is closer to the target than to any of the other selected neighbors
+        int cNode = candidates.node[i];
+        float cScore = candidates.score[i];
+        assert cNode < hnsw.size();
+        if (diversityCheck(vectorValues.vectorValue(cNode), cScore, neighbors, buildVectors)) {
+          neighbors.add(cNode, cScore);
+        }
       }
     }
-  }
 
-  private void popToScratch(NeighborQueue candidates) {
-    scratch.clear();
-    int candidateCount = candidates.size();
-    // extract all the Neighbors from the queue into an array; these will now be
-    // sorted from worst to best
-    for (int i = 0; i < candidateCount; i++) {
-      float score = candidates.topScore();
-      scratch.add(candidates.pop(), score);
+    private void popToScratch(NeighborQueue candidates) {
+      scratch.clear();
+      int candidateCount = candidates.size();
+      // extract all the Neighbors from the queue into an array; these will now be
+      // sorted from worst to best
+      for (int i = 0; i < candidateCount; i++) {
+        float score = candidates.topScore();
+        scratch.add(candidates.pop(), score);
+      }
+    }
+
+    /**
+     * @param candidate the vector of a new candidate neighbor of a node n
+     * @param score the score of the new candidate and node n, to be compared with scores of the
+     *     candidate and n's neighbors
+     * @param neighbors the neighbors selected so far
+     * @param vectorValues source of values used for making comparisons between candidate and
+     *     existing neighbors
+     * @return whether the candidate is diverse given the existing neighbors
+     */
+    private boolean diversityCheck(
+        float[] candidate,
+        float score,
+        NeighborArray neighbors,
+        RandomAccessVectorValues vectorValues)
+        throws IOException {
+      bound.set(score);
+      for (int i = 0; i < neighbors.size(); i++) {
+        float diversityCheck =
+            similarityFunction.compare(candidate, vectorValues.vectorValue(neighbors.node[i]));
+        if (bound.check(diversityCheck) == false) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void diversityUpdate(NeighborArray neighbors) throws IOException {
+      assert neighbors.size() == maxConn + 1;
+      int replacePoint = findNonDiverse(neighbors);
+      if (replacePoint == -1) {
+        // none found; check score against worst existing neighbor
+        bound.set(neighbors.score[0]);
+        if (bound.check(neighbors.score[maxConn])) {
+          // drop the new neighbor; it is not competitive and there were no diversity failures
+          neighbors.removeLast();
+          return;
+        } else {
+          replacePoint = 0;
+        }
+      }
+      neighbors.node[replacePoint] = neighbors.node[maxConn];
+      neighbors.score[replacePoint] = neighbors.score[maxConn];
+      neighbors.removeLast();
+    }
+
+    // scan neighbors looking for diversity violations
+    private int findNonDiverse(NeighborArray neighbors) throws IOException {
+      for (int i = neighbors.size() - 1; i >= 0; i--) {
+        // check each neighbor against its better-scoring neighbors. If it fails diversity check
+        // with them, drop it
+        int nbrNode = neighbors.node[i];
+        bound.set(neighbors.score[i]);
+        float[] nbrVector = vectorValues.vectorValue(nbrNode);
+        for (int j = maxConn; j > i; j--) {
+          float diversityCheck =
+              similarityFunction.compare(nbrVector, buildVectors.vectorValue(neighbors.node[j]));
+          if (bound.check(diversityCheck) == false) {
+            // node j is too similar to node i given its score relative to the base node
+            // replace it with the new node, which is at [maxConn]
+            return i;
+          }
+        }
+      }
+      return -1;
     }
   }
 
   /**
-   * @param candidate the vector of a new candidate neighbor of a node n
-   * @param score the score of the new candidate and node n, to be compared with scores of the
-   *     candidate and n's neighbors
-   * @param neighbors the neighbors selected so far
-   * @param vectorValues source of values used for making comparisons between candidate and existing
-   *     neighbors
-   * @return whether the candidate is diverse given the existing neighbors
+   * A view over the graph for a worker of a concurrent build. It only exposes the nodes whose
+   * ordinal is less than the node being inserted, and copies the neighbors of the current node
+   * while holding its lock, so that searches never observe a {@link NeighborArray} that is being
+   * updated.
    */
-  private boolean diversityCheck(
-      float[] candidate,
-      float score,
-      NeighborArray neighbors,
-      RandomAccessVectorValues vectorValues)
-      throws IOException {
-    bound.set(score);
-    for (int i = 0; i < neighbors.size(); i++) {
-      float diversityCheck =
-          similarityFunction.compare(candidate, vectorValues.vectorValue(neighbors.node[i]));
-      if (bound.check(diversityCheck) == false) {
-        return false;
-      }
+  private final class ConcurrentGraphView extends KnnGraphValues {
+
+    private int size;
+    private int[] neighbors = new int[maxConn + 1];
+    private int neighborCount;
+    private int upto;
+
+    void setSize(int size) {
+      this.size = size;
     }
-    return true;
-  }
 
-  private void diversityUpdate(NeighborArray neighbors) throws IOException {
-    assert neighbors.size() == maxConn + 1;
-    int replacePoint = findNonDiverse(neighbors);
-    if (replacePoint == -1) {
-      // none found; check score against worst existing neighbor
-      bound.set(neighbors.score[0]);
-      if (bound.check(neighbors.score[maxConn])) {
-        // drop the new neighbor; it is not competitive and there were no diversity failures
-        neighbors.removeLast();
-        return;
-      } else {
-        replacePoint = 0;
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void seek(int targetNode) {
+      NeighborArray array = hnsw.getNeighbors(targetNode);
+      synchronized (array) {
+        neighborCount = array.size();
+        if (neighbors.length < neighborCount) {
+          neighbors = ArrayUtil.grow(neighbors, neighborCount);
+        }
+        System.arraycopy(array.node, 0, neighbors, 0, neighborCount);
       }
+      upto = -1;
     }
-    neighbors.node[replacePoint] = neighbors.node[maxConn];
-    neighbors.score[replacePoint] = neighbors.score[maxConn];
-    neighbors.removeLast();
-  }
 
-  // scan neighbors looking for diversity violations
-  private int findNonDiverse(NeighborArray neighbors) throws IOException {
-    for (int i = neighbors.size() - 1; i >= 0; i--) {
-      // check each neighbor against its better-scoring neighbors. If it fails diversity check with
-      // them, drop it
-      int nbrNode = neighbors.node[i];
-      bound.set(neighbors.score[i]);
-      float[] nbrVector = vectorValues.vectorValue(nbrNode);
-      for (int j = maxConn; j > i; j--) {
-        float diversityCheck =
-            similarityFunction.compare(nbrVector, buildVectors.vectorValue(neighbors.node[j]));
-        if (bound.check(diversityCheck) == false) {
-          // node j is too similar to node i given its score relative to the base node
-          // replace it with the new node, which is at [maxConn]
-          return i;
+    @Override
+    public int nextNeighbor() {
+      while (++upto < neighborCount) {
+        int node = neighbors[upto];
+        // skip links to nodes that were inserted after the one being inserted by this worker
+        if (node < size) {
+          return node;
         }
       }
+      return NO_MORE_DOCS;
     }
-    return -1;
   }
 }
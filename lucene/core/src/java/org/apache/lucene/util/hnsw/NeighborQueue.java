@@ -33,6 +33,8 @@ public class NeighborQueue {
 
   // Used to track the number of neighbors visited during a single graph traversal
   private int visitedCount;
+  // Whether the search stopped early because it reached the visited nodes limit
+  private boolean incomplete;
 
   NeighborQueue(int initialSize, boolean reversed) {
     if (reversed) {
@@ -106,6 +108,18 @@ public class NeighborQueue {
     this.visitedCount = visitedCount;
   }
 
+  /**
+   * Returns true if the graph traversal that produced this queue was stopped early because it
+   * reached its limit on the number of visited nodes.
+   */
+  public boolean incomplete() {
+    return incomplete;
+  }
+
+  void markIncomplete() {
+    this.incomplete = true;
+  }
+
   @Override
   public String toString() {
     return "Neighbors[" + heap.size() + "]";
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.util.hnsw;
+
+import java.io.IOException;
+
+/**
+ * Computes the similarity of a query to the vectors of the nodes of a graph. This allows searching
+ * a graph with vectors that are encoded differently from the query, eg quantized vectors.
+ *
+ * @lucene.experimental
+ */
+@FunctionalInterface
+public interface RandomVectorScorer {
+
+  /**
+   * Returns the similarity of the query to the vector of the given node. Similarities are ordered
+   * like the scores of the {@link org.apache.lucene.index.VectorSimilarityFunction} of the graph.
+   *
+   * @param node a node of the graph
+   * @return the similarity of the query to the node
+   */
+  float score(int node) throws IOException;
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.internal.vectorization;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementations of vector computations that use the incubating Vector API. Loops accumulate into
+ * several vectors to hide the latency of additions, and the remaining tail of the arrays is
+ * processed with scalar code.
+ */
+final class PanamaVectorUtilSupport implements VectorUtilSupport {
+
+  private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+  private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /**
+   * Bytes are widened to ints, so byte vectors have as many lanes as int vectors. This requires
+   * int vectors of at least 256 bits, since there are no byte vectors of less than 64 bits.
+   */
+  private static final boolean HAS_BYTE_SPECIES = INT_SPECIES.vectorBitSize() >= 256;
+
+  private static final VectorSpecies<Byte> BYTE_SPECIES =
+      HAS_BYTE_SPECIES
+          ? VectorSpecies.of(
+              byte.class, VectorShape.forBitSize(INT_SPECIES.vectorBitSize() / Integer.BYTES))
+          : null;
+
+  private final DefaultVectorUtilSupport scalar = new DefaultVectorUtilSupport();
+
+  PanamaVectorUtilSupport() {}
+
+  @Override
+  public float dotProduct(float[] a, float[] b) {
+    int i = 0;
+    float res = 0;
+    if (a.length >= 2 * FLOAT_SPECIES.length()) {
+      FloatVector acc1 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc2 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc3 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc4 = FloatVector.zero(FLOAT_SPECIES);
+      int unrolledBound = a.length - a.length % (4 * FLOAT_SPECIES.length());
+      for (; i < unrolledBound; i += 4 * FLOAT_SPECIES.length()) {
+        acc1 = acc1.add(mul(a, b, i));
+        acc2 = acc2.add(mul(a, b, i + FLOAT_SPECIES.length()));
+        acc3 = acc3.add(mul(a, b, i + 2 * FLOAT_SPECIES.length()));
+        acc4 = acc4.add(mul(a, b, i + 3 * FLOAT_SPECIES.length()));
+      }
+      for (int bound = FLOAT_SPECIES.loopBound(a.length); i < bound; i += FLOAT_SPECIES.length()) {
+        acc1 = acc1.add(mul(a, b, i));
+      }
+      res = acc1.add(acc2).add(acc3.add(acc4)).reduceLanes(VectorOperators.ADD);
+    }
+    for (; i < a.length; i++) {
+      res += b[i] * a[i];
+    }
+    return res;
+  }
+
+  private static FloatVector mul(float[] a, float[] b, int offset) {
+    FloatVector va = FloatVector.fromArray(FLOAT_SPECIES, a, offset);
+    FloatVector vb = FloatVector.fromArray(FLOAT_SPECIES, b, offset);
+    return va.mul(vb);
+  }
+
+  @Override
+  public float squareDistance(float[] a, float[] b) {
+    int i = 0;
+    float res = 0;
+    if (a.length >= 2 * FLOAT_SPECIES.length()) {
+      FloatVector acc1 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc2 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc3 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc4 = FloatVector.zero(FLOAT_SPECIES);
+      int unrolledBound = a.length - a.length % (4 * FLOAT_SPECIES.length());
+      for (; i < unrolledBound; i += 4 * FLOAT_SPECIES.length()) {
+        acc1 = acc1.add(squareDiff(a, b, i));
+        acc2 = acc2.add(squareDiff(a, b, i + FLOAT_SPECIES.length()));
+        acc3 = acc3.add(squareDiff(a, b, i + 2 * FLOAT_SPECIES.length()));
+        acc4 = acc4.add(squareDiff(a, b, i + 3 * FLOAT_SPECIES.length()));
+      }
+      for (int bound = FLOAT_SPECIES.loopBound(a.length); i < bound; i += FLOAT_SPECIES.length()) {
+        acc1 = acc1.add(squareDiff(a, b, i));
+      }
+      res = acc1.add(acc2).add(acc3.add(acc4)).reduceLanes(VectorOperators.ADD);
+    }
+    for (; i < a.length; i++) {
+      float diff = a[i] - b[i];
+      res += diff * diff;
+    }
+    return res;
+  }
+
+  private static FloatVector squareDiff(float[] a, float[] b, int offset) {
+    FloatVector diff =
+        FloatVector.fromArray(FLOAT_SPECIES, a, offset)
+            .sub(FloatVector.fromArray(FLOAT_SPECIES, b, offset));
+    return diff.mul(diff);
+  }
+
+  @Override
+  public float dotProduct(float[] a, ByteBuffer b, int bOffset) {
+    int i = 0;
+    float res = 0;
+    if (a.length >= 2 * FLOAT_SPECIES.length()) {
+      FloatVector acc1 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc2 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc3 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc4 = FloatVector.zero(FLOAT_SPECIES);
+      int unrolledBound = a.length - a.length % (4 * FLOAT_SPECIES.length());
+      for (; i < unrolledBound; i += 4 * FLOAT_SPECIES.length()) {
+        acc1 = acc1.add(mul(a, b, bOffset, i));
+        acc2 = acc2.add(mul(a, b, bOffset, i + FLOAT_SPECIES.length()));
+        acc3 = acc3.add(mul(a, b, bOffset, i + 2 * FLOAT_SPECIES.length()));
+        acc4 = acc4.add(mul(a, b, bOffset, i + 3 * FLOAT_SPECIES.length()));
+      }
+      for (int bound = FLOAT_SPECIES.loopBound(a.length); i < bound; i += FLOAT_SPECIES.length()) {
+        acc1 = acc1.add(mul(a, b, bOffset, i));
+      }
+      res = acc1.add(acc2).add(acc3.add(acc4)).reduceLanes(VectorOperators.ADD);
+    }
+    for (; i < a.length; i++) {
+      res += b.getFloat(bOffset + i * Float.BYTES) * a[i];
+    }
+    return res;
+  }
+
+  private static FloatVector mul(float[] a, ByteBuffer b, int bOffset, int offset) {
+    FloatVector va = FloatVector.fromArray(FLOAT_SPECIES, a, offset);
+    FloatVector vb = fromByteBuffer(b, bOffset, offset);
+    return va.mul(vb);
+  }
+
+  @Override
+  public float squareDistance(float[] a, ByteBuffer b, int bOffset) {
+    int i = 0;
+    float res = 0;
+    if (a.length >= 2 * FLOAT_SPECIES.length()) {
+      FloatVector acc1 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc2 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc3 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc4 = FloatVector.zero(FLOAT_SPECIES);
+      int unrolledBound = a.length - a.length % (4 * FLOAT_SPECIES.length());
+      for (; i < unrolledBound; i += 4 * FLOAT_SPECIES.length()) {
+        acc1 = acc1.add(squareDiff(a, b, bOffset, i));
+        acc2 = acc2.add(squareDiff(a, b, bOffset, i + FLOAT_SPECIES.length()));
+        acc3 = acc3.add(squareDiff(a, b, bOffset, i + 2 * FLOAT_SPECIES.length()));
+        acc4 = acc4.add(squareDiff(a, b, bOffset, i + 3 * FLOAT_SPECIES.length()));
+      }
+      for (int bound = FLOAT_SPECIES.loopBound(a.length); i < bound; i += FLOAT_SPECIES.length()) {
+        acc1 = acc1.add(squareDiff(a, b, bOffset, i));
+      }
+      res = acc1.add(acc2).add(acc3.add(acc4)).reduceLanes(VectorOperators.ADD);
+    }
+    for (; i < a.length; i++) {
+      float diff = a[i] - b.getFloat(bOffset + i * Float.BYTES);
+      res += diff * diff;
+    }
+    return res;
+  }
+
+  private static FloatVector squareDiff(float[] a, ByteBuffer b, int bOffset, int offset) {
+    FloatVector diff =
+        FloatVector.fromArray(FLOAT_SPECIES, a, offset).sub(fromByteBuffer(b, bOffset, offset));
+    return diff.mul(diff);
+  }
+
+  /** Loads the floats of the buffer that start at the given float offset from bOffset. */
+  private static FloatVector fromByteBuffer(ByteBuffer b, int bOffset, int offset) {
+    return FloatVector.fromByteBuffer(
+        FLOAT_SPECIES, b, bOffset + offset * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Override
+  public int dotProduct(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+    if (HAS_BYTE_SPECIES == false) {
+      return scalar.dotProduct(a, aOffset, b, bOffset, length);
+    }
+    int i = 0;
+    int res = 0;
+    if (length >= BYTE_SPECIES.length()) {
+      IntVector acc = IntVector.zero(INT_SPECIES);
+      for (int bound = BYTE_SPECIES.loopBound(length); i < bound; i += BYTE_SPECIES.length()) {
+        // products of bytes fit in shorts, but their sums may not
+        IntVector va = widen(a, aOffset + i);
+        IntVector vb = widen(b, bOffset + i);
+        acc = acc.add(va.mul(vb));
+      }
+      res = acc.reduceLanes(VectorOperators.ADD);
+    }
+    for (; i < length; i++) {
+      res += a[aOffset + i] * b[bOffset + i];
+    }
+    return res;
+  }
+
+  @Override
+  public int squareDistance(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+    if (HAS_BYTE_SPECIES == false) {
+      return scalar.squareDistance(a, aOffset, b, bOffset, length);
+    }
+    int i = 0;
+    int res = 0;
+    if (length >= BYTE_SPECIES.length()) {
+      IntVector acc = IntVector.zero(INT_SPECIES);
+      for (int bound = BYTE_SPECIES.loopBound(length); i < bound; i += BYTE_SPECIES.length()) {
+        IntVector diff = widen(a, aOffset + i).sub(widen(b, bOffset + i));
+        acc = acc.add(diff.mul(diff));
+      }
+      res = acc.reduceLanes(VectorOperators.ADD);
+    }
+    for (; i < length; i++) {
+      int diff = a[aOffset + i] - b[bOffset + i];
+      res += diff * diff;
+    }
+    return res;
+  }
+
+  private static IntVector widen(byte[] a, int offset) {
+    return (IntVector)
+        ByteVector.fromArray(BYTE_SPECIES, a, offset)
+            .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+  }
+}
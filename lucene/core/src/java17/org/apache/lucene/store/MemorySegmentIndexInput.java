@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import jdk.incubator.foreign.MemoryAccess;
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+
+/**
+ * IndexInput implementation that uses a single {@link MemorySegment} to represent a file, whatever
+ * its size.
+ *
+ * <p>Unlike {@link ByteBufferIndexInput}, reads never have to switch between chunks. The segment
+ * belongs to a shared {@link ResourceScope}, which is closed, and the file unmapped, when the
+ * original input is closed. Accessing the segment afterwards, including from clones and slices
+ * used by other threads, fails with an {@link IllegalStateException}, which is rethrown as an
+ * {@link AlreadyClosedException}.
+ */
+final class MemorySegmentIndexInput extends IndexInput
+    implements RandomAccessInput, MemoryMappedIndexInput {
+  private static final ByteOrder LE = ByteOrder.LITTLE_ENDIAN;
+  // bulk copies to primitive arrays use the native byte order
+  private static final boolean NATIVE_LE = ByteOrder.nativeOrder() == LE;
+  private static final int MAX_CLOSE_ATTEMPTS = 1000;
+
+  private final long length;
+  // null for clones and slices, which must not unmap the file
+  private final ResourceScope scope;
+
+  private MemorySegment segment; // null once closed
+  private long curPosition;
+
+  MemorySegmentIndexInput(String resourceDescription, MemorySegment segment, ResourceScope scope) {
+    super(resourceDescription);
+    this.segment = segment;
+    this.length = segment.byteSize();
+    this.scope = scope;
+  }
+
+  private RuntimeException handleAccessError(RuntimeException e) {
+    if (e instanceof NullPointerException || e instanceof IllegalStateException) {
+      return new AlreadyClosedException("Already closed: " + this, e);
+    }
+    return e;
+  }
+
+  private void ensureOpen() {
+    if (segment == null) {
+      throw new AlreadyClosedException("Already closed: " + this);
+    }
+  }
+
+  @Override
+  public byte readByte() throws IOException {
+    try {
+      final byte v = MemoryAccess.getByteAtOffset(segment, curPosition);
+      curPosition++;
+      return v;
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("read past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public void readBytes(byte[] b, int offset, int len) throws IOException {
+    copyTo(MemorySegment.ofArray(b), offset, len, Byte.BYTES);
+  }
+
+  @Override
+  public void readLongs(long[] dst, int offset, int length) throws IOException {
+    if (NATIVE_LE) {
+      copyTo(MemorySegment.ofArray(dst), offset, length, Long.BYTES);
+    } else {
+      super.readLongs(dst, offset, length);
+    }
+  }
+
+  @Override
+  public void readFloats(float[] floats, int offset, int len) throws IOException {
+    if (NATIVE_LE) {
+      copyTo(MemorySegment.ofArray(floats), offset, len, Float.BYTES);
+    } else {
+      super.readFloats(floats, offset, len);
+    }
+  }
+
+  /** Copies {@code len} values of {@code bytes} bytes each to the given array segment. */
+  private void copyTo(MemorySegment array, int offset, int len, int bytes) throws IOException {
+    final long byteLen = (long) len * bytes;
+    final MemorySegment dst = array.asSlice((long) offset * bytes, byteLen);
+    try {
+      dst.copyFrom(segment.asSlice(curPosition, byteLen));
+      curPosition += byteLen;
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("read past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public short readShort() throws IOException {
+    try {
+      final short v = MemoryAccess.getShortAtOffset(segment, curPosition, LE);
+      curPosition += Short.BYTES;
+      return v;
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("read past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    try {
+      final int v = MemoryAccess.getIntAtOffset(segment, curPosition, LE);
+      curPosition += Integer.BYTES;
+      return v;
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("read past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    try {
+      final long v = MemoryAccess.getLongAtOffset(segment, curPosition, LE);
+      curPosition += Long.BYTES;
+      return v;
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("read past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public long getFilePointer() {
+    ensureOpen();
+    return curPosition;
+  }
+
+  @Override
+  public void seek(long pos) throws IOException {
+    ensureOpen();
+    if (pos < 0) {
+      throw new IllegalArgumentException("Seeking to negative position: " + this);
+    } else if (pos > length) {
+      throw new EOFException("seek past EOF: " + this);
+    }
+    curPosition = pos;
+  }
+
+  @Override
+  public byte readByte(long pos) throws IOException {
+    try {
+      return MemoryAccess.getByteAtOffset(segment, pos);
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("seek past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public short readShort(long pos) throws IOException {
+    try {
+      return MemoryAccess.getShortAtOffset(segment, pos, LE);
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("seek past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public int readInt(long pos) throws IOException {
+    try {
+      return MemoryAccess.getIntAtOffset(segment, pos, LE);
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("seek past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public long readLong(long pos) throws IOException {
+    try {
+      return MemoryAccess.getLongAtOffset(segment, pos, LE);
+    } catch (
+        @SuppressWarnings("unused")
+        IndexOutOfBoundsException e) {
+      throw new EOFException("seek past EOF: " + this);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public ByteBuffer viewOrNull(long pos, int len) throws IOException {
+    if (pos < 0 || len < 0) {
+      throw new IllegalArgumentException(
+          "Invalid view: pos=" + pos + ", len=" + len + " of input: " + this);
+    }
+    if (pos + len > length) {
+      throw new EOFException("read past EOF: " + this);
+    }
+    try {
+      // the buffer checks that the scope is still alive on every access
+      return segment.asSlice(pos, len).asByteBuffer().order(LE);
+    } catch (NullPointerException | IllegalStateException e) {
+      throw handleAccessError(e);
+    }
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public MemorySegmentIndexInput clone() {
+    final MemorySegmentIndexInput clone = buildSlice(null, 0L, length);
+    clone.curPosition = getFilePointer();
+    return clone;
+  }
+
+  /**
+   * Creates a slice of this index input, with the given description, offset, and length. The slice
+   * is seeked to the beginning.
+   */
+  @Override
+  public MemorySegmentIndexInput slice(String sliceDescription, long offset, long length) {
+    if (offset < 0 || length < 0 || offset + length > this.length) {
+      throw new IllegalArgumentException(
+          "slice() "
+              + sliceDescription
+              + " out of bounds: offset="
+              + offset
+              + ",length="
+              + length
+              + ",fileLength="
+              + this.length
+              + ": "
+              + this);
+    }
+    return buildSlice(sliceDescription, offset, length);
+  }
+
+  private MemorySegmentIndexInput buildSlice(String sliceDescription, long offset, long length) {
+    ensureOpen();
+    return new MemorySegmentIndexInput(
+        getFullSliceDescription(sliceDescription), segment.asSlice(offset, length), null);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (segment == null) {
+      return;
+    }
+    segment = null;
+    if (scope != null) {
+      // unmaps the file; clones and slices fail on their next access
+      closeScope();
+    }
+  }
+
+  private void closeScope() {
+    // closing fails if another thread is accessing the segment at the same time, eg. copying bytes
+    // from it: retry until this access is over, or give up after a while
+    for (int attempt = 0; ; attempt++) {
+      try {
+        scope.close();
+        return;
+      } catch (IllegalStateException e) {
+        if (scope.isAlive() == false) {
+          return;
+        } else if (attempt >= MAX_CLOSE_ATTEMPTS) {
+          throw e;
+        }
+        Thread.yield();
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+import org.apache.lucene.util.IOUtils.IOConsumer;
+
+/** Maps files as a single {@link MemorySegment} each, using the incubating foreign memory API. */
+final class MemorySegmentIndexInputProvider implements MMapDirectory.MemorySegmentProvider {
+
+  MemorySegmentIndexInputProvider() {}
+
+  // the largest region passed to the advisor, which a ByteBuffer can address
+  private static final long MAX_ADVISED_REGION = 1L << 30;
+
+  @Override
+  public IndexInput openInput(
+      Path path, String resourceDescription, boolean preload, IOConsumer<ByteBuffer> advisor)
+      throws IOException {
+    // a shared scope may be closed while other threads access its segments: they fail with an
+    // exception instead of crashing the JVM
+    final ResourceScope scope = ResourceScope.newSharedScope();
+    boolean success = false;
+    try {
+      final MemorySegment segment =
+          MemorySegment.mapFile(path, 0L, Files.size(path), MapMode.READ_ONLY, scope);
+      if (preload) {
+        segment.load();
+      }
+      for (long offset = 0; offset < segment.byteSize(); offset += MAX_ADVISED_REGION) {
+        final long regionSize = Math.min(MAX_ADVISED_REGION, segment.byteSize() - offset);
+        advisor.accept(segment.asSlice(offset, regionSize).asByteBuffer());
+      }
+      final IndexInput in = new MemorySegmentIndexInput(resourceDescription, segment, scope);
+      success = true;
+      return in;
+    } finally {
+      if (success == false) {
+        scope.close();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "MemorySegmentIndexInputProvider";
+  }
+}
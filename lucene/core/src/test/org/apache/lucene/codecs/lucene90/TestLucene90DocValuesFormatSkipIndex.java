@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+import java.io.IOException;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+
+/** Tests Lucene90DocValuesFormat with skip indexes */
+public class TestLucene90DocValuesFormatSkipIndex extends TestLucene90DocValuesFormat {
+  private final Codec codec = TestUtil.alwaysDocValuesFormat(new Lucene90DocValuesFormat(true));
+
+  @Override
+  protected Codec getCodec() {
+    return codec;
+  }
+
+  public void testSkipIndex() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setCodec(codec));
+    int numDocs = atLeast(10000);
+    int density = random().nextInt(4);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if (random().nextInt(4) >= density) {
+        long value = random().nextBoolean() ? i : TestUtil.nextLong(random(), -1000, 100000);
+        BytesRef bytes = new BytesRef(Long.toString(value));
+        doc.add(new NumericDocValuesField("numeric", value));
+        doc.add(new SortedNumericDocValuesField("sorted_numeric", value));
+        doc.add(new SortedNumericDocValuesField("sorted_numeric", value / 2));
+        doc.add(new SortedDocValuesField("sorted", bytes));
+        doc.add(new SortedSetDocValuesField("sorted_set", bytes));
+        doc.add(new SortedSetDocValuesField("sorted_set", new BytesRef(Long.toString(value / 2))));
+      }
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+    LeafReader leafReader = getOnlyLeafReader(reader);
+
+    assertSkipIndex(
+        DocValues.getSortedNumeric(leafReader, "numeric"),
+        leafReader.getDocValuesSkipper("numeric"));
+    assertSkipIndex(
+        DocValues.getSortedNumeric(leafReader, "sorted_numeric"),
+        leafReader.getDocValuesSkipper("sorted_numeric"));
+    assertSkipIndex(
+        ords(DocValues.getSortedSet(leafReader, "sorted")),
+        leafReader.getDocValuesSkipper("sorted"));
+    assertSkipIndex(
+        ords(DocValues.getSortedSet(leafReader, "sorted_set")),
+        leafReader.getDocValuesSkipper("sorted_set"));
+    assertNull(leafReader.getDocValuesSkipper("missing"));
+
+    // random targets
+    DocValuesSkipper skipper = leafReader.getDocValuesSkipper("numeric");
+    int previousMaxDocID = -1;
+    for (int target = random().nextInt(100);
+        target < DocIdSetIterator.NO_MORE_DOCS;
+        target += random().nextInt(5000)) {
+      skipper.advance(target);
+      if (skipper.minDocID() == DocIdSetIterator.NO_MORE_DOCS) {
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, skipper.maxDocID());
+        SortedNumericDocValues values = DocValues.getSortedNumeric(leafReader, "numeric");
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, values.advance(target));
+        break;
+      }
+      assertTrue(skipper.maxDocID() >= target);
+      assertTrue(skipper.maxDocID() >= previousMaxDocID);
+      previousMaxDocID = skipper.maxDocID();
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testNoSkipIndex() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w =
+        new IndexWriter(dir, new IndexWriterConfig().setCodec(TestUtil.getDefaultCodec()));
+    Document doc = new Document();
+    doc.add(new NumericDocValuesField("numeric", 42));
+    w.addDocument(doc);
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+    assertNull(getOnlyLeafReader(reader).getDocValuesSkipper("numeric"));
+    reader.close();
+    dir.close();
+  }
+
+  private static SortedNumericDocValues ords(SortedSetDocValues values) {
+    return new SortedNumericDocValues() {
+      long[] ords = new long[2];
+      int count, upto;
+
+      @Override
+      public long nextValue() {
+        return ords[upto++];
+      }
+
+      @Override
+      public int docValueCount() {
+        return count;
+      }
+
+      @Override
+      public boolean advanceExact(int target) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int docID() {
+        return values.docID();
+      }
+
+      @Override
+      public int nextDoc() throws IOException {
+        int doc = values.nextDoc();
+        if (doc != NO_MORE_DOCS) {
+          count = 0;
+          upto = 0;
+          for (long ord = values.nextOrd();
+              ord != SortedSetDocValues.NO_MORE_ORDS;
+              ord = values.nextOrd()) {
+            ords[count++] = ord;
+          }
+        }
+        return doc;
+      }
+
+      @Override
+      public int advance(int target) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long cost() {
+        return values.cost();
+      }
+    };
+  }
+
+  private static void assertSkipIndex(SortedNumericDocValues values, DocValuesSkipper skipper)
+      throws IOException {
+    assertNotNull(skipper);
+    assertEquals(-1, skipper.minDocID());
+    assertEquals(-1, skipper.maxDocID());
+    int doc = values.nextDoc();
+    for (skipper.advance(0);
+        skipper.minDocID() != DocIdSetIterator.NO_MORE_DOCS;
+        skipper.advance(skipper.maxDocID() + 1)) {
+      // intervals cover all documents that have a value
+      assertEquals(doc, skipper.minDocID());
+      long minValue = Long.MAX_VALUE;
+      long maxValue = Long.MIN_VALUE;
+      int docCount = 0;
+      for (; doc <= skipper.maxDocID(); doc = values.nextDoc()) {
+        for (int i = 0; i < values.docValueCount(); ++i) {
+          long value = values.nextValue();
+          minValue = Math.min(minValue, value);
+          maxValue = Math.max(maxValue, value);
+        }
+        docCount++;
+      }
+      assertEquals(minValue, skipper.minValue());
+      assertEquals(maxValue, skipper.maxValue());
+      assertEquals(docCount, skipper.docCount());
+      assertTrue(docCount <= Lucene90DocValuesFormat.SKIP_INDEX_INTERVAL_SIZE);
+    }
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, doc);
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, skipper.maxDocID());
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+import java.io.IOException;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.lucene90.blocktree.Lucene90BlockTreeTermsWriter;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.TestUtil;
+
+/** Tests Lucene90PostingsFormat with dense blocks encoded as bit sets */
+public class TestLucene90PostingsFormatDenseBlocks extends TestLucene90PostingsFormat {
+  private final Codec codec =
+      TestUtil.alwaysPostingsFormat(
+          new Lucene90PostingsFormat(
+              Lucene90BlockTreeTermsWriter.DEFAULT_MIN_BLOCK_SIZE,
+              Lucene90BlockTreeTermsWriter.DEFAULT_MAX_BLOCK_SIZE,
+              true));
+
+  @Override
+  protected Codec getCodec() {
+    return codec;
+  }
+
+  public void testDenseBlocks() throws IOException {
+    int numDocs = atLeast(10000);
+    FixedBitSet dense = new FixedBitSet(numDocs);
+    FixedBitSet sparse = new FixedBitSet(numDocs);
+    for (int i = 0; i < numDocs; ++i) {
+      if (random().nextInt(5) < 2) {
+        dense.set(i);
+      }
+      if (random().nextInt(50) == 0) {
+        sparse.set(i);
+      }
+    }
+
+    Directory dir = newDirectory();
+    long denseDocFileLength = indexAndCheck(dir, codec, numDocs, dense, sparse);
+    Directory defaultDir = newDirectory();
+    long defaultDocFileLength =
+        indexAndCheck(defaultDir, TestUtil.getDefaultCodec(), numDocs, dense, sparse);
+    // blocks of the dense term are smaller as bit sets
+    assertTrue(
+        denseDocFileLength + " >= " + defaultDocFileLength,
+        denseDocFileLength < defaultDocFileLength);
+    dir.close();
+    defaultDir.close();
+  }
+
+  private long indexAndCheck(
+      Directory dir, Codec codec, int numDocs, FixedBitSet dense, FixedBitSet sparse)
+      throws IOException {
+    IndexWriter w =
+        new IndexWriter(dir, new IndexWriterConfig().setCodec(codec).setUseCompoundFile(false));
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("f", "all", Field.Store.NO));
+      if (dense.get(i)) {
+        doc.add(new StringField("f", "dense", Field.Store.NO));
+      }
+      if (sparse.get(i)) {
+        doc.add(new StringField("f", "sparse", Field.Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+    LeafReader leafReader = getOnlyLeafReader(reader);
+
+    FixedBitSet all = new FixedBitSet(numDocs);
+    all.set(0, numDocs);
+    for (FixedBitSet expected : new FixedBitSet[] {all, dense, sparse}) {
+      String term = expected == all ? "all" : expected == dense ? "dense" : "sparse";
+      PostingsEnum postings = leafReader.postings(new Term("f", term), PostingsEnum.NONE);
+      for (int doc = 0; doc < numDocs; ++doc) {
+        if (expected.get(doc)) {
+          assertEquals(doc, postings.nextDoc());
+        }
+      }
+      assertEquals(DocIdSetIterator.NO_MORE_DOCS, postings.nextDoc());
+
+      assertAdvance(expected, leafReader.postings(new Term("f", term), PostingsEnum.NONE));
+      TermsEnum termsEnum = leafReader.terms("f").iterator();
+      assertTrue(termsEnum.seekExact(new BytesRef(term)));
+      assertAdvance(expected, termsEnum.impacts(PostingsEnum.NONE));
+    }
+
+    long docFileLength = 0;
+    for (String file : dir.listAll()) {
+      if (file.endsWith("." + Lucene90PostingsFormat.DOC_EXTENSION)) {
+        docFileLength += dir.fileLength(file);
+      }
+    }
+    reader.close();
+    return docFileLength;
+  }
+
+  private static void assertAdvance(FixedBitSet expected, PostingsEnum postings)
+      throws IOException {
+    for (int target = random().nextInt(10);
+        target < expected.length();
+        target = postings.docID() + 1 + random().nextInt(300)) {
+      int expectedDoc = expected.nextSetBit(target);
+      assertEquals(expectedDoc, postings.advance(target));
+      if (expectedDoc == DocIdSetIterator.NO_MORE_DOCS) {
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.lucene90.compressing.Lucene90CompressingStoredFieldsFormat;
+import org.apache.lucene.codecs.lucene90.compressing.StoredFieldsBlockCache;
+import org.apache.lucene.index.BaseStoredFieldsFormatTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestLucene90StoredFieldsFormatBlockCache extends BaseStoredFieldsFormatTestCase {
+
+  private StoredFieldsBlockCache blockCache;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    // sometimes small enough to trigger evictions
+    blockCache = new StoredFieldsBlockCache(TestUtil.nextLong(random(), 1, 1 << 22));
+    Lucene90CompressingStoredFieldsFormat.setDefaultBlockCache(blockCache);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    Lucene90CompressingStoredFieldsFormat.setDefaultBlockCache(null);
+    // all readers have been closed
+    assertEquals(0, blockCache.getCacheSize());
+    assertEquals(0, blockCache.ramBytesUsed());
+    super.tearDown();
+  }
+
+  @Override
+  protected Codec getCodec() {
+    return TestUtil.getDefaultCodec();
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90.compressing;
+
+import com.carrotsearch.randomizedtesting.generators.RandomPicks;
+import java.io.IOException;
+import java.util.Random;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.lucene90.Lucene90Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestStoredFieldsBlockCache extends LuceneTestCase {
+
+  private static StoredFieldsBlockCache.Block block(int docBase, int length) {
+    return new StoredFieldsBlockCache.Block(
+        docBase, 1, new long[] {0, length}, new long[] {1}, new byte[length]);
+  }
+
+  public void testHitsAndMisses() {
+    StoredFieldsBlockCache cache = new StoredFieldsBlockCache(1 << 20);
+    Object segment1 = new Object();
+    Object segment2 = new Object();
+    assertNull(cache.get(segment1, 0));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    StoredFieldsBlockCache.Block block = block(0, 100);
+    cache.put(segment1, 0, block);
+    assertSame(block, cache.get(segment1, 0));
+    assertNull(cache.get(segment1, 42));
+    assertNull(cache.get(segment2, 0));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+    assertEquals(4, cache.getTotalCount());
+    assertEquals(1, cache.getCacheSize());
+    assertEquals(1, cache.getCacheCount());
+    assertTrue(cache.ramBytesUsed() > 100);
+
+    // putting the same block again, e.g. from another thread, does not leak memory
+    long ramBytesUsed = cache.ramBytesUsed();
+    cache.put(segment1, 0, block(0, 100));
+    assertEquals(ramBytesUsed, cache.ramBytesUsed());
+    assertEquals(1, cache.getCacheSize());
+
+    cache.put(segment2, 0, block(0, 100));
+    assertEquals(2, cache.getCacheSize());
+    cache.clearSegment(segment1);
+    assertEquals(1, cache.getCacheSize());
+    assertNull(cache.get(segment1, 0));
+    assertNotNull(cache.get(segment2, 0));
+    assertEquals(ramBytesUsed, cache.ramBytesUsed());
+
+    cache.clear();
+    assertEquals(0, cache.getCacheSize());
+    assertEquals(0, cache.ramBytesUsed());
+  }
+
+  public void testEvictions() {
+    StoredFieldsBlockCache cache = new StoredFieldsBlockCache(10_000);
+    Object segment = new Object();
+    for (int i = 0; i < 100; ++i) {
+      cache.put(segment, i, block(i, 1000));
+      assertTrue(cache.ramBytesUsed() <= 10_000);
+      if (i % 2 == 0) {
+        // keep block 0 recently used
+        assertNotNull(cache.get(segment, 0));
+      }
+    }
+    assertTrue(cache.getCacheSize() > 0);
+    assertTrue(cache.getCacheSize() < 10);
+    assertEquals(100, cache.getCacheCount());
+    assertEquals(100 - cache.getCacheSize(), cache.getEvictionCount());
+    // least-recently used blocks got evicted first
+    assertNotNull(cache.get(segment, 0));
+    assertNotNull(cache.get(segment, 99));
+    assertNull(cache.get(segment, 1));
+
+    // blocks that are larger than the cache are not cached
+    cache.put(segment, 1000, block(1000, 20_000));
+    assertNull(cache.get(segment, 1000));
+    assertTrue(cache.getCacheSize() > 0);
+
+    // evicted blocks are no longer tracked by their segment
+    Object segment2 = new Object();
+    for (int i = 0; i < 5; ++i) {
+      cache.put(segment2, i, block(i, 1000));
+    }
+    long segment2Size = cache.getCacheSize();
+    cache.clearSegment(segment);
+    assertTrue(cache.getCacheSize() > 0);
+    assertTrue(cache.getCacheSize() <= segment2Size);
+    assertNotNull(cache.get(segment2, 4));
+    cache.clearSegment(segment2);
+    assertEquals(0, cache.getCacheSize());
+    assertEquals(0, cache.ramBytesUsed());
+  }
+
+  public void testSharedAcrossReaders() throws IOException {
+    StoredFieldsBlockCache cache = new StoredFieldsBlockCache(1 << 24);
+    Lucene90CompressingStoredFieldsFormat.setDefaultBlockCache(cache);
+    try (Directory dir = newDirectory()) {
+      Codec codec =
+          new Lucene90Codec(RandomPicks.randomFrom(random(), Lucene90Codec.Mode.values()));
+      IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setCodec(codec));
+      int numDocs = atLeast(1000);
+      for (int i = 0; i < numDocs; ++i) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+        doc.add(new StoredField("body", TestUtil.randomSimpleString(random(), 10, 200)));
+        w.addDocument(doc);
+      }
+      w.forceMerge(1);
+      w.close();
+
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        LeafReader leafReader = getOnlyLeafReader(reader);
+        for (int i = 0; i < numDocs; i += 1 + random().nextInt(100)) {
+          assertEquals(Integer.toString(i), leafReader.document(i).get("id"));
+        }
+        long misses = cache.getMissCount();
+        assertTrue(misses > 0);
+        assertEquals(misses, cache.getCacheCount());
+        assertEquals(0, cache.getHitCount());
+
+        // other threads get their own clone of the stored fields reader, which shares the cached
+        // blocks of the segment
+        Random random = new Random(random().nextLong());
+        Thread thread =
+            new Thread(
+                () -> {
+                  try {
+                    for (int i = 0; i < numDocs; i += 1 + random.nextInt(100)) {
+                      assertEquals(Integer.toString(i), leafReader.document(i).get("id"));
+                    }
+                  } catch (IOException e) {
+                    throw new AssertionError(e);
+                  }
+                });
+        thread.start();
+        thread.join();
+        assertTrue(cache.getHitCount() > 0);
+        assertTrue(cache.getCacheSize() > 0);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+      // closing the reader evicts its blocks
+      assertEquals(0, cache.getCacheSize());
+      assertEquals(0, cache.ramBytesUsed());
+    } finally {
+      Lucene90CompressingStoredFieldsFormat.setDefaultBlockCache(null);
+    }
+  }
+}
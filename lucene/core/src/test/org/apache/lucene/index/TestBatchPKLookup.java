@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestBatchPKLookup extends LuceneTestCase {
+
+  public void testRandom() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", id(i), Store.NO));
+      w.addDocument(doc);
+      if (random().nextInt(100) == 0) {
+        w.commit();
+      }
+    }
+    // delete some ids, and update others so that they have a deleted and a live version
+    for (int i = 0; i < numDocs / 10; ++i) {
+      BytesRef id = id(random().nextInt(numDocs));
+      if (random().nextBoolean()) {
+        w.deleteDocuments(new Term("id", id));
+      } else {
+        Document doc = new Document();
+        doc.add(new StringField("id", id, Store.NO));
+        w.updateDocument(new Term("id", id), doc);
+      }
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+    BatchPKLookup lookup = new BatchPKLookup(reader, "id");
+
+    for (int iter = 0; iter < 10; ++iter) {
+      BytesRef[] keys = new BytesRef[TestUtil.nextInt(random(), 1, 200)];
+      for (int i = 0; i < keys.length; ++i) {
+        // some keys don't exist
+        keys[i] = id(random().nextInt(numDocs + numDocs / 10));
+      }
+      Arrays.sort(keys);
+      int[] docIDs = new int[keys.length];
+      int found = lookup.lookup(keys, docIDs);
+
+      int expectedFound = 0;
+      for (int i = 0; i < keys.length; ++i) {
+        TopDocs topDocs = searcher.search(new TermQuery(new Term("id", keys[i])), 2);
+        assertTrue(topDocs.totalHits.value <= 1);
+        if (topDocs.totalHits.value == 0) {
+          assertEquals(-1, docIDs[i]);
+        } else {
+          assertEquals(topDocs.scoreDocs[0].doc, docIDs[i]);
+          expectedFound++;
+        }
+      }
+      assertEquals(expectedFound, found);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testIllegalArguments() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    Document doc = new Document();
+    doc.add(new StringField("id", id(0), Store.NO));
+    w.addDocument(doc);
+    IndexReader reader = w.getReader();
+    w.close();
+    BatchPKLookup lookup = new BatchPKLookup(reader, "id");
+
+    IllegalArgumentException e =
+        expectThrows(
+            IllegalArgumentException.class,
+            () -> lookup.lookup(new BytesRef[] {id(1), id(0)}, new int[2]));
+    assertTrue(e.getMessage().contains("must be sorted"));
+    e =
+        expectThrows(
+            IllegalArgumentException.class,
+            () -> lookup.lookup(new BytesRef[] {id(0), id(1)}, new int[1]));
+    assertTrue(e.getMessage().contains("docIDs has length"));
+
+    int[] docIDs = new int[2];
+    assertEquals(1, lookup.lookup(new BytesRef[] {id(0), id(1)}, docIDs));
+    assertArrayEquals(new int[] {0, -1}, docIDs);
+
+    reader.close();
+    dir.close();
+  }
+
+  private static BytesRef id(int i) {
+    return new BytesRef(String.format(Locale.ROOT, "%07d", i));
+  }
+}
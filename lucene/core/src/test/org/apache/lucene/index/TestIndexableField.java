@@ -112,6 +112,11 @@ public class TestIndexableField extends LuceneTestCase {
             return 0;
           }
 
+          @Override
+          public VectorEncoding vectorEncoding() {
+            return VectorEncoding.FLOAT32;
+          }
+
           @Override
           public VectorSimilarityFunction vectorSimilarityFunction() {
             return VectorSimilarityFunction.EUCLIDEAN;
@@ -145,7 +145,7 @@ public class TestKnnGraph extends LuceneTestCase {
 
   /**
    * Verify that we get the *same* graph by indexing one segment as we do by indexing two segments
-   * and merging.
+   * and merging, when the merge can't reuse the graph of a segment since they all have deletions.
    */
   public void testMergeProducesSameGraph() throws Exception {
     long seed = random().nextLong();
@@ -153,11 +153,68 @@ public class TestKnnGraph extends LuceneTestCase {
     int dimension = atLeast(10);
     float[][] values = randomVectors(numDoc, dimension);
     int mergePoint = random().nextInt(numDoc);
-    int[][] mergedGraph = getIndexedGraph(values, mergePoint, seed);
-    int[][] singleSegmentGraph = getIndexedGraph(values, -1, seed);
+    int[][] mergedGraph = getIndexedGraph(values, dimension, mergePoint, seed);
+    int[][] singleSegmentGraph = getIndexedGraph(values, dimension, -1, seed);
     assertGraphEquals(singleSegmentGraph, mergedGraph);
   }
 
+  /**
+   * Verify that merging reuses the graph of the largest segment that has no deletions. The merged
+   * segment is written with a larger maxConn, so that nodes of a reused graph keep their neighbors
+   * while a rebuilt graph would connect them to more nodes.
+   */
+  public void testMergeReusesLargestGraph() throws Exception {
+    int numDoc = atLeast(100);
+    int dimension = atLeast(10);
+    float[][] values = randomVectors(numDoc, dimension);
+    int mergePoint = numDoc - numDoc / 10;
+    try (Directory dir = newDirectory()) {
+      IndexWriterConfig iwc = newIndexWriterConfig();
+      iwc.setMergePolicy(new LogDocMergePolicy()); // for predictable segment ordering when merging
+      iwc.setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+      iwc.setRAMBufferSizeMB(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+      iwc.setCodec(codec);
+      try (IndexWriter iw = new IndexWriter(dir, iwc)) {
+        maxConn = 4;
+        for (int i = 0; i < values.length; i++) {
+          add(iw, i, values[i]);
+          if (i == mergePoint) {
+            iw.flush();
+          }
+        }
+        iw.flush();
+        int[][] largestGraph;
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+          assertEquals(2, reader.leaves().size());
+          largestGraph = getGraph(reader.leaves().get(0).reader());
+        }
+
+        // large enough that nodes of the merged graph don't get pruned, even if all new vectors
+        // link to the same node
+        maxConn = 4 + numDoc - mergePoint;
+        iw.forceMerge(1);
+        assertConsistentGraph(iw, values);
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+          int[][] mergedGraph = getGraph(getOnlyLeafReader(reader));
+          for (int node = 0; node < largestGraph.length; node++) {
+            // vectors of the small segment come last, they may only have added links to the node
+            int[] neighbors =
+                Arrays.stream(mergedGraph[node]).filter(n -> n < largestGraph.length).toArray();
+            assertArrayEquals("difference at ord=" + node, largestGraph[node], neighbors);
+          }
+        }
+      }
+    }
+  }
+
+  private int[][] getGraph(LeafReader reader) throws IOException {
+    PerFieldKnnVectorsFormat.FieldsReader perFieldReader =
+        (PerFieldKnnVectorsFormat.FieldsReader) ((CodecReader) reader).getVectorReader();
+    Lucene90HnswVectorsReader vectorReader =
+        (Lucene90HnswVectorsReader) perFieldReader.getFieldReader(KNN_GRAPH_FIELD);
+    return copyGraph(vectorReader.getGraphValues(KNN_GRAPH_FIELD));
+  }
+
   private void assertGraphEquals(int[][] expected, int[][] actual) {
     assertEquals("graph sizes differ", expected.length, actual.length);
     for (int i = 0; i < expected.length; i++) {
@@ -165,7 +222,8 @@ public class TestKnnGraph extends LuceneTestCase {
     }
   }
 
-  private int[][] getIndexedGraph(float[][] values, int mergePoint, long seed) throws IOException {
+  private int[][] getIndexedGraph(float[][] values, int dimension, int mergePoint, long seed)
+      throws IOException {
     HnswGraphBuilder.randSeed = seed;
     int[][] graph;
     try (Directory dir = newDirectory()) {
@@ -173,22 +231,27 @@ public class TestKnnGraph extends LuceneTestCase {
       iwc.setMergePolicy(new LogDocMergePolicy()); // for predictable segment ordering when merging
       iwc.setCodec(codec); // don't use SimpleTextCodec
       try (IndexWriter iw = new IndexWriter(dir, iwc)) {
+        float[] deletedVector = new float[dimension];
+        Arrays.fill(deletedVector, 1);
+        VectorUtil.l2normalize(deletedVector);
         for (int i = 0; i < values.length; i++) {
           add(iw, i, values[i]);
           if (i == mergePoint) {
+            // add a document to each segment that is deleted below, so that the merge
+            // rebuilds the graph rather than reusing the graph of a segment
+            add(iw, -1, deletedVector);
             // flush proactively to create a segment
             iw.flush();
           }
         }
+        if (mergePoint >= 0) {
+          add(iw, -1, deletedVector);
+          iw.deleteDocuments(new Term("id", "-1"));
+        }
         iw.forceMerge(1);
       }
       try (IndexReader reader = DirectoryReader.open(dir)) {
-        PerFieldKnnVectorsFormat.FieldsReader perFieldReader =
-            (PerFieldKnnVectorsFormat.FieldsReader)
-                ((CodecReader) getOnlyLeafReader(reader)).getVectorReader();
-        Lucene90HnswVectorsReader vectorReader =
-            (Lucene90HnswVectorsReader) perFieldReader.getFieldReader(KNN_GRAPH_FIELD);
-        graph = copyGraph(vectorReader.getGraphValues(KNN_GRAPH_FIELD));
+        graph = getGraph(getOnlyLeafReader(reader));
       }
     }
     return graph;
@@ -293,7 +356,9 @@ public class TestKnnGraph extends LuceneTestCase {
     TopDocs[] results = new TopDocs[reader.leaves().size()];
     for (LeafReaderContext ctx : reader.leaves()) {
       Bits liveDocs = ctx.reader().getLiveDocs();
-      results[ctx.ord] = ctx.reader().searchNearestVectors(KNN_GRAPH_FIELD, vector, k, liveDocs);
+      results[ctx.ord] =
+          ctx.reader()
+              .searchNearestVectors(KNN_GRAPH_FIELD, vector, k, liveDocs, Integer.MAX_VALUE);
       if (ctx.docBase > 0) {
         for (ScoreDoc doc : results[ctx.ord].scoreDocs) {
           doc.doc += ctx.docBase;
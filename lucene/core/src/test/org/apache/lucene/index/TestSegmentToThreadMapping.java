@@ -105,13 +105,19 @@ public class TestSegmentToThreadMapping extends LuceneTestCase {
         return null;
       }
 
+      @Override
+      public DocValuesSkipper getDocValuesSkipper(String field) {
+        return null;
+      }
+
       @Override
       public VectorValues getVectorValues(String field) {
         return null;
       }
 
       @Override
-      public TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs) {
+      public TopDocs searchNearestVectors(
+          String field, float[] target, int k, Bits acceptDocs, int visitedLimit) {
         return null;
       }
 
@@ -220,6 +226,47 @@ public class TestSegmentToThreadMapping extends LuceneTestCase {
     assertTrue(thirdSliceleaves.length == 1);
   }
 
+  public void testPartitionedSlices() {
+    LeafReader largeSegmentReader = dummyIndexReader(600_001);
+    LeafReader firstMediumSegmentReader = dummyIndexReader(170_000);
+    LeafReader secondMediumSegmentReader = dummyIndexReader(50_000);
+    List<LeafReaderContext> leafReaderContexts = new ArrayList<>();
+
+    leafReaderContexts.add(new LeafReaderContext(largeSegmentReader));
+    leafReaderContexts.add(new LeafReaderContext(firstMediumSegmentReader));
+    leafReaderContexts.add(new LeafReaderContext(secondMediumSegmentReader));
+
+    IndexSearcher.LeafSlice[] resultSlices =
+        IndexSearcher.slices(leafReaderContexts, 250_000, 5, true);
+
+    assertEquals(4, resultSlices.length);
+
+    // the large segment is split into 3 partitions of contiguous doc IDs
+    int expectedMinDocId = 0;
+    for (int i = 0; i < 3; i++) {
+      assertEquals(1, resultSlices[i].partitions.length);
+      IndexSearcher.LeafReaderContextPartition partition = resultSlices[i].partitions[0];
+      assertSame(largeSegmentReader, partition.ctx.reader());
+      assertSame(partition.ctx, resultSlices[i].leaves[0]);
+      assertFalse(partition.isEntireSegment());
+      assertEquals(expectedMinDocId, partition.minDocId);
+      assertTrue(partition.maxDocId - partition.minDocId <= 250_000);
+      expectedMinDocId = partition.maxDocId;
+    }
+    assertEquals(600_001, expectedMinDocId);
+
+    // small segments are still grouped together
+    assertEquals(2, resultSlices[3].partitions.length);
+    for (IndexSearcher.LeafReaderContextPartition partition : resultSlices[3].partitions) {
+      assertTrue(partition.isEntireSegment());
+    }
+
+    // without partitions, the large segment gets its own slice
+    resultSlices = IndexSearcher.slices(leafReaderContexts, 250_000, 5, false);
+    assertEquals(2, resultSlices.length);
+    assertTrue(resultSlices[0].partitions[0].isEntireSegment());
+  }
+
   public void testIntraSliceDocIDOrder() throws Exception {
     Directory dir = newDirectory();
     RandomIndexWriter w = new RandomIndexWriter(random(), dir);
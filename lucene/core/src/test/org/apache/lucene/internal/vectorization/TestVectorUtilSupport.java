@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.internal.vectorization;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.apache.lucene.util.LuceneTestCase;
+
+/**
+ * Checks that the implementations of the current provider compute the same values as the scalar
+ * implementations, for all dimensions up to a few times the vector size.
+ */
+public class TestVectorUtilSupport extends LuceneTestCase {
+
+  private final VectorUtilSupport scalar = new DefaultVectorUtilSupport();
+  private final VectorUtilSupport impl =
+      VectorizationProvider.getInstance().getVectorUtilSupport();
+
+  public void testFloatDotProduct() {
+    for (int dim = 1; dim < 200; dim++) {
+      float[] a = randomFloatVector(dim);
+      float[] b = randomFloatVector(dim);
+      assertEquals(scalar.dotProduct(a, b), impl.dotProduct(a, b), delta(dim));
+    }
+  }
+
+  public void testFloatSquareDistance() {
+    for (int dim = 1; dim < 200; dim++) {
+      float[] a = randomFloatVector(dim);
+      float[] b = randomFloatVector(dim);
+      assertEquals(scalar.squareDistance(a, b), impl.squareDistance(a, b), delta(dim));
+    }
+  }
+
+  public void testByteDotProduct() {
+    for (int dim = 1; dim < 200; dim++) {
+      byte[] a = randomByteVector(dim);
+      byte[] b = randomByteVector(dim);
+      assertEquals(scalar.dotProduct(a, 0, b, 0, dim), impl.dotProduct(a, 0, b, 0, dim));
+    }
+  }
+
+  public void testByteSquareDistance() {
+    for (int dim = 1; dim < 200; dim++) {
+      byte[] a = randomByteVector(dim);
+      byte[] b = randomByteVector(dim);
+      assertEquals(scalar.squareDistance(a, 0, b, 0, dim), impl.squareDistance(a, 0, b, 0, dim));
+    }
+  }
+
+  public void testExtremeByteValues() {
+    int dim = atLeast(100);
+    byte[] a = new byte[dim];
+    byte[] b = new byte[dim];
+    Arrays.fill(a, Byte.MIN_VALUE);
+    Arrays.fill(b, Byte.MAX_VALUE);
+    assertEquals(dim * Byte.MIN_VALUE * Byte.MIN_VALUE, impl.dotProduct(a, 0, a, 0, dim));
+    assertEquals(dim * Byte.MIN_VALUE * Byte.MAX_VALUE, impl.dotProduct(a, 0, b, 0, dim));
+    assertEquals(dim * 255 * 255, impl.squareDistance(a, 0, b, 0, dim));
+  }
+
+  public void testByteOffsets() {
+    for (int dim = 1; dim < 200; dim++) {
+      int aOffset = random().nextInt(10);
+      int bOffset = random().nextInt(10);
+      byte[] a = randomByteVector(aOffset + dim + random().nextInt(10));
+      byte[] b = randomByteVector(bOffset + dim + random().nextInt(10));
+      byte[] aSlice = Arrays.copyOfRange(a, aOffset, aOffset + dim);
+      byte[] bSlice = Arrays.copyOfRange(b, bOffset, bOffset + dim);
+      assertEquals(
+          scalar.dotProduct(aSlice, 0, bSlice, 0, dim),
+          impl.dotProduct(a, aOffset, b, bOffset, dim));
+      assertEquals(
+          scalar.squareDistance(aSlice, 0, bSlice, 0, dim),
+          impl.squareDistance(a, aOffset, b, bOffset, dim));
+    }
+  }
+
+  public void testFloatByteBuffer() {
+    for (int dim = 1; dim < 200; dim++) {
+      float[] a = randomFloatVector(dim);
+      float[] b = randomFloatVector(dim);
+      int bOffset = random().nextInt(10);
+      int size = bOffset + dim * Float.BYTES;
+      ByteBuffer buffer =
+          random().nextBoolean() ? ByteBuffer.allocate(size) : ByteBuffer.allocateDirect(size);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      for (int i = 0; i < dim; i++) {
+        buffer.putFloat(bOffset + i * Float.BYTES, b[i]);
+      }
+      assertEquals(scalar.dotProduct(a, b), scalar.dotProduct(a, buffer, bOffset), delta(dim));
+      assertEquals(scalar.dotProduct(a, b), impl.dotProduct(a, buffer, bOffset), delta(dim));
+      assertEquals(
+          scalar.squareDistance(a, b), scalar.squareDistance(a, buffer, bOffset), delta(dim));
+      assertEquals(
+          scalar.squareDistance(a, b), impl.squareDistance(a, buffer, bOffset), delta(dim));
+    }
+  }
+
+  private static float delta(int dim) {
+    // implementations may sum values in a different order
+    return 1e-5f * dim;
+  }
+
+  private static float[] randomFloatVector(int dim) {
+    float[] v = new float[dim];
+    for (int i = 0; i < dim; i++) {
+      v[i] = random().nextFloat() * 2 - 1;
+    }
+    return v;
+  }
+
+  private static byte[] randomByteVector(int dim) {
+    byte[] v = new byte[dim];
+    random().nextBytes(v);
+    return v;
+  }
+}
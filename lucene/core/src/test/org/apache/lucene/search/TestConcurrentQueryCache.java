@@ -0,0 +1,485 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import com.carrotsearch.randomizedtesting.generators.RandomPicks;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestConcurrentQueryCache extends LuceneTestCase {
+
+  private static final QueryCachingPolicy ALWAYS_CACHE =
+      new QueryCachingPolicy() {
+
+        @Override
+        public void onUse(Query query) {}
+
+        @Override
+        public boolean shouldCache(Query query) throws IOException {
+          return true;
+        }
+      };
+
+  private static final QueryCachingPolicy NEVER_CACHE =
+      new QueryCachingPolicy() {
+
+        @Override
+        public void onUse(Query query) {}
+
+        @Override
+        public boolean shouldCache(Query query) throws IOException {
+          return false;
+        }
+      };
+
+  private static final List<String> COLORS = Arrays.asList("blue", "red", "green", "yellow");
+
+  public void testNumShards() {
+    assertEquals(16, new ConcurrentQueryCache(256, 1 << 20).numShards());
+    assertEquals(4, new ConcurrentQueryCache(5, 1 << 20).numShards());
+    assertEquals(1, new ConcurrentQueryCache(1, 1 << 20).numShards());
+    assertEquals(8, new ConcurrentQueryCache(100, 1 << 20, context -> true, 1, 12).numShards());
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> new ConcurrentQueryCache(100, 1 << 20, context -> true, 1, 0));
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> new ConcurrentQueryCache(0, 1 << 20, context -> true, 1, 1));
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> new ConcurrentQueryCache(100, 1 << 20, context -> true, 0.5f, 1));
+  }
+
+  public void testConcurrency() throws Throwable {
+    final ConcurrentQueryCache queryCache =
+        new ConcurrentQueryCache(
+            1 + random().nextInt(20),
+            1 + random().nextInt(10000),
+            context -> random().nextBoolean(),
+            Float.POSITIVE_INFINITY,
+            1 + random().nextInt(8));
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final SearcherFactory searcherFactory =
+        new SearcherFactory() {
+          @Override
+          public IndexSearcher newSearcher(IndexReader reader, IndexReader previous)
+              throws IOException {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+            searcher.setQueryCache(queryCache);
+            return searcher;
+          }
+        };
+    final boolean applyDeletes = random().nextBoolean();
+    final SearcherManager mgr = new SearcherManager(w.w, applyDeletes, false, searcherFactory);
+    final AtomicBoolean indexing = new AtomicBoolean(true);
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    final int numDocs = atLeast(1000);
+    Thread[] threads = new Thread[4];
+    threads[0] =
+        new Thread() {
+          @Override
+          public void run() {
+            Document doc = new Document();
+            StringField f = new StringField("color", "", Store.NO);
+            doc.add(f);
+            for (int i = 0; indexing.get() && i < numDocs; ++i) {
+              f.setStringValue(RandomPicks.randomFrom(random(), COLORS));
+              try {
+                w.addDocument(doc);
+                if ((i & 63) == 0) {
+                  mgr.maybeRefresh();
+                  if (rarely()) {
+                    queryCache.clear();
+                  }
+                  if (rarely()) {
+                    queryCache.clearQuery(
+                        new TermQuery(new Term("color", RandomPicks.randomFrom(random(), COLORS))));
+                  }
+                  if (rarely()) {
+                    w.deleteDocuments(
+                        new Term("color", RandomPicks.randomFrom(random(), COLORS)));
+                  }
+                }
+              } catch (Throwable t) {
+                error.compareAndSet(null, t);
+                break;
+              }
+            }
+            indexing.set(false);
+          }
+        };
+    for (int i = 1; i < threads.length; ++i) {
+      threads[i] =
+          new Thread() {
+            @Override
+            public void run() {
+              while (indexing.get()) {
+                try {
+                  final IndexSearcher searcher = mgr.acquire();
+                  try {
+                    final String value =
+                        RandomPicks.randomFrom(
+                            random(), new String[] {"blue", "red", "yellow", "green", "pink"});
+                    final Query q = new TermQuery(new Term("color", value));
+                    TotalHitCountCollector collector = new TotalHitCountCollector();
+                    searcher.search(q, collector); // will use the cache
+                    final int totalHits1 = collector.getTotalHits();
+                    TotalHitCountCollector collector2 = new TotalHitCountCollector();
+                    searcher.search(
+                        q,
+                        new FilterCollector(collector2) {
+                          @Override
+                          public ScoreMode scoreMode() {
+                            return ScoreMode.COMPLETE; // will not use the cache because of scores
+                          }
+                        });
+                    final long totalHits2 = collector2.getTotalHits();
+                    assertEquals(totalHits2, totalHits1);
+                  } finally {
+                    mgr.release(searcher);
+                  }
+                } catch (Throwable t) {
+                  error.compareAndSet(null, t);
+                }
+              }
+            }
+          };
+    }
+
+    for (Thread thread : threads) {
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    try {
+      if (error.get() != null) {
+        throw error.get();
+      }
+      queryCache.assertConsistent();
+    } finally {
+      mgr.close();
+      w.close();
+      dir.close();
+      queryCache.assertConsistent();
+    }
+    assertEquals(0, queryCache.getCacheSize());
+  }
+
+  public void testClockEviction() throws Exception {
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+
+    Document doc = new Document();
+    StringField f = new StringField("color", "blue", Store.NO);
+    doc.add(f);
+    w.addDocument(doc);
+    f.setStringValue("red");
+    w.addDocument(doc);
+    f.setStringValue("green");
+    w.addDocument(doc);
+    final DirectoryReader reader = w.getReader();
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    final ConcurrentQueryCache queryCache =
+        new ConcurrentQueryCache(2, 100000, context -> true, Float.POSITIVE_INFINITY, 1);
+
+    final Query blue = new TermQuery(new Term("color", "blue"));
+    final Query red = new TermQuery(new Term("color", "red"));
+    final Query green = new TermQuery(new Term("color", "green"));
+
+    assertEquals(Collections.emptyList(), queryCache.cachedQueries());
+
+    searcher.setQueryCache(queryCache);
+    // the filter is not cached on any segment: no changes
+    searcher.setQueryCachingPolicy(NEVER_CACHE);
+    searcher.search(new ConstantScoreQuery(green), 1);
+    assertEquals(Collections.emptyList(), queryCache.cachedQueries());
+
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+    searcher.search(new ConstantScoreQuery(red), 1);
+    assertEquals(Collections.singletonList(red), queryCache.cachedQueries());
+
+    searcher.search(new ConstantScoreQuery(green), 1);
+    assertEquals(new HashSet<>(Arrays.asList(red, green)), cachedQueries(queryCache));
+
+    // red is referenced: it gets a second chance and green is evicted
+    searcher.search(new ConstantScoreQuery(red), 1);
+    searcher.search(new ConstantScoreQuery(blue), 1);
+    assertEquals(new HashSet<>(Arrays.asList(red, blue)), cachedQueries(queryCache));
+
+    // neither red nor blue have been used since blue was cached, blue is next in the clock
+    searcher.search(new ConstantScoreQuery(green), 1);
+    assertEquals(new HashSet<>(Arrays.asList(red, green)), cachedQueries(queryCache));
+
+    // both queries are referenced, the least recently used one is evicted after a full turn of
+    // the clock
+    searcher.search(new ConstantScoreQuery(red), 1);
+    searcher.search(new ConstantScoreQuery(green), 1);
+    searcher.search(new ConstantScoreQuery(blue), 1);
+    assertEquals(new HashSet<>(Arrays.asList(green, blue)), cachedQueries(queryCache));
+
+    searcher.setQueryCachingPolicy(NEVER_CACHE);
+    searcher.search(new ConstantScoreQuery(red), 1);
+    assertEquals(new HashSet<>(Arrays.asList(green, blue)), cachedQueries(queryCache));
+
+    queryCache.assertConsistent();
+    reader.close();
+    w.close();
+    dir.close();
+  }
+
+  private static HashSet<Query> cachedQueries(ConcurrentQueryCache queryCache) {
+    return new HashSet<>(queryCache.cachedQueries());
+  }
+
+  public void testClearQuery() throws IOException {
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    Document doc = new Document();
+    StringField f = new StringField("color", "", Store.NO);
+    doc.add(f);
+    final int numDocs = atLeast(10);
+    for (int i = 0; i < numDocs; ++i) {
+      f.setStringValue(random().nextBoolean() ? "red" : "blue");
+      w.addDocument(doc);
+    }
+    final DirectoryReader reader = w.getReader();
+    final IndexSearcher searcher = newSearcher(reader);
+
+    final Query query1 = new TermQuery(new Term("color", "blue"));
+    // different instance yet equal
+    final Query query2 = new TermQuery(new Term("color", "blue"));
+
+    final ConcurrentQueryCache queryCache =
+        new ConcurrentQueryCache(
+            Integer.MAX_VALUE, Long.MAX_VALUE, context -> true, 1, 1 + random().nextInt(8));
+    searcher.setQueryCache(queryCache);
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+
+    searcher.search(new BoostQuery(new ConstantScoreQuery(query1), random().nextFloat()), 1);
+    assertEquals(1, queryCache.cachedQueries().size());
+
+    queryCache.clearQuery(query2);
+
+    assertTrue(queryCache.cachedQueries().isEmpty());
+    assertEquals(0, queryCache.getCacheSize());
+    assertEquals(0, queryCache.ramBytesUsed());
+    queryCache.assertConsistent();
+
+    reader.close();
+    w.close();
+    dir.close();
+  }
+
+  public void testStats() throws IOException {
+    final ConcurrentQueryCache queryCache =
+        new ConcurrentQueryCache(1, 10000000, context -> true, 1, 1);
+
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+
+    Document doc = new Document();
+    StringField f = new StringField("color", "", Store.NO);
+    doc.add(f);
+    for (int i = 0; i < 10; ++i) {
+      f.setStringValue(RandomPicks.randomFrom(random(), COLORS));
+      w.addDocument(doc);
+      if (random().nextBoolean()) {
+        w.getReader().close();
+      }
+    }
+
+    final DirectoryReader reader = w.getReader();
+    final int segmentCount = reader.leaves().size();
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    final Query query = new TermQuery(new Term("color", "red"));
+    final Query query2 = new TermQuery(new Term("color", "blue"));
+
+    searcher.setQueryCache(queryCache);
+    // first pass, lookups without caching that all miss
+    searcher.setQueryCachingPolicy(NEVER_CACHE);
+    for (int i = 0; i < 10; ++i) {
+      searcher.search(new ConstantScoreQuery(query), 1);
+    }
+    assertEquals(10 * segmentCount, queryCache.getTotalCount());
+    assertEquals(0, queryCache.getHitCount());
+    assertEquals(10 * segmentCount, queryCache.getMissCount());
+    assertEquals(0, queryCache.getCacheCount());
+    assertEquals(0, queryCache.getEvictionCount());
+    assertEquals(0, queryCache.getCacheSize());
+
+    // second pass, lookups + caching, only the first one is a miss
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+    for (int i = 0; i < 10; ++i) {
+      searcher.search(new ConstantScoreQuery(query), 1);
+    }
+    assertEquals(20 * segmentCount, queryCache.getTotalCount());
+    assertEquals(9 * segmentCount, queryCache.getHitCount());
+    assertEquals(11 * segmentCount, queryCache.getMissCount());
+    assertEquals(1 * segmentCount, queryCache.getCacheCount());
+    assertEquals(0, queryCache.getEvictionCount());
+    assertEquals(1 * segmentCount, queryCache.getCacheSize());
+
+    // third pass lookups without caching, we only have hits
+    searcher.setQueryCachingPolicy(NEVER_CACHE);
+    for (int i = 0; i < 10; ++i) {
+      searcher.search(new ConstantScoreQuery(query), 1);
+    }
+    assertEquals(30 * segmentCount, queryCache.getTotalCount());
+    assertEquals(19 * segmentCount, queryCache.getHitCount());
+    assertEquals(11 * segmentCount, queryCache.getMissCount());
+    assertEquals(1 * segmentCount, queryCache.getCacheCount());
+    assertEquals(0, queryCache.getEvictionCount());
+    assertEquals(1 * segmentCount, queryCache.getCacheSize());
+
+    // fourth pass with a different filter which will trigger evictions since the size is 1
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+    for (int i = 0; i < 10; ++i) {
+      searcher.search(new ConstantScoreQuery(query2), 1);
+    }
+    assertEquals(40 * segmentCount, queryCache.getTotalCount());
+    assertEquals(28 * segmentCount, queryCache.getHitCount());
+    assertEquals(12 * segmentCount, queryCache.getMissCount());
+    assertEquals(2 * segmentCount, queryCache.getCacheCount());
+    assertEquals(1 * segmentCount, queryCache.getEvictionCount());
+    assertEquals(1 * segmentCount, queryCache.getCacheSize());
+    queryCache.assertConsistent();
+
+    // now close, causing evictions due to the closing of segment cores
+    reader.close();
+    w.close();
+    assertEquals(40 * segmentCount, queryCache.getTotalCount());
+    assertEquals(28 * segmentCount, queryCache.getHitCount());
+    assertEquals(12 * segmentCount, queryCache.getMissCount());
+    assertEquals(2 * segmentCount, queryCache.getCacheCount());
+    assertEquals(2 * segmentCount, queryCache.getEvictionCount());
+    assertEquals(0, queryCache.getCacheSize());
+    queryCache.assertConsistent();
+
+    dir.close();
+  }
+
+  public void testRefuseToCacheTooLargeEntries() throws IOException {
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    for (int i = 0; i < 100; ++i) {
+      w.addDocument(new Document());
+    }
+    IndexReader reader = w.getReader();
+
+    // 64 bytes per shard
+    final ConcurrentQueryCache queryCache =
+        new ConcurrentQueryCache(16, 1024, context -> true, Float.POSITIVE_INFINITY, 16);
+    final IndexSearcher searcher = newSearcher(reader);
+    searcher.setQueryCache(queryCache);
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+
+    searcher.count(new MatchAllDocsQuery());
+    assertEquals(0, queryCache.getCacheCount());
+    assertEquals(0, queryCache.getEvictionCount());
+
+    reader.close();
+    w.close();
+    dir.close();
+  }
+
+  public void testRandom() throws IOException {
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    Document doc = new Document();
+    StringField f = new StringField("color", "", Store.NO);
+    doc.add(f);
+    w.addDocument(doc);
+    IndexReader reader = w.getReader();
+
+    final int maxSize = TestUtil.nextInt(random(), 1, 1000);
+    final long maxRamBytesUsed = TestUtil.nextLong(random(), 1, 500000);
+    final int iters = atLeast(2000);
+
+    final ConcurrentQueryCache queryCache =
+        new ConcurrentQueryCache(
+            maxSize,
+            maxRamBytesUsed,
+            context -> random().nextBoolean(),
+            Float.POSITIVE_INFINITY,
+            1 + random().nextInt(32));
+    IndexSearcher uncachedSearcher = null;
+    IndexSearcher cachedSearcher = null;
+
+    for (int i = 0; i < iters; ++i) {
+      if (i == 0 || random().nextInt(100) == 1) {
+        reader.close();
+        f.setStringValue(RandomPicks.randomFrom(random(), COLORS));
+        w.addDocument(doc);
+        if (random().nextBoolean()) {
+          w.deleteDocuments(randomQuery());
+        }
+        reader = w.getReader();
+        uncachedSearcher = newSearcher(reader);
+        uncachedSearcher.setQueryCache(null);
+        cachedSearcher = newSearcher(reader);
+        cachedSearcher.setQueryCache(queryCache);
+        cachedSearcher.setQueryCachingPolicy(ALWAYS_CACHE);
+      }
+      final Query q = randomQuery();
+      assertEquals(uncachedSearcher.count(q), cachedSearcher.count(q));
+      if (rarely()) {
+        queryCache.assertConsistent();
+      }
+    }
+    queryCache.assertConsistent();
+    w.close();
+    reader.close();
+    dir.close();
+    queryCache.assertConsistent();
+    assertEquals(0, queryCache.getCacheSize());
+  }
+
+  private static Query randomQuery() {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    int numClauses = TestUtil.nextInt(random(), 1, 3);
+    for (int i = 0; i < numClauses; ++i) {
+      Occur occur = RandomPicks.randomFrom(random(), Occur.values());
+      Term term = new Term("color", RandomPicks.randomFrom(random(), COLORS));
+      builder.add(new TermQuery(term), occur);
+    }
+    if (random().nextBoolean()) {
+      builder.add(new MatchAllDocsQuery(), Occur.SHOULD);
+    }
+    return builder.build();
+  }
+}
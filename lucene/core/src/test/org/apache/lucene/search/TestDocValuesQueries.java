@@ -18,13 +18,17 @@ package org.apache.lucene.search;
 
 import java.io.IOException;
 import java.util.Arrays;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
@@ -34,29 +38,68 @@ import org.apache.lucene.util.TestUtil;
 public class TestDocValuesQueries extends LuceneTestCase {
 
   public void testDuelPointRangeSortedNumericRangeQuery() throws IOException {
-    doTestDuelPointRangeNumericRangeQuery(true, 1);
+    doTestDuelPointRangeNumericRangeQuery(true, 1, false);
   }
 
   public void testDuelPointRangeMultivaluedSortedNumericRangeQuery() throws IOException {
-    doTestDuelPointRangeNumericRangeQuery(true, 3);
+    doTestDuelPointRangeNumericRangeQuery(true, 3, false);
   }
 
   public void testDuelPointRangeNumericRangeQuery() throws IOException {
-    doTestDuelPointRangeNumericRangeQuery(false, 1);
+    doTestDuelPointRangeNumericRangeQuery(false, 1, false);
   }
 
-  private void doTestDuelPointRangeNumericRangeQuery(boolean sortedNumeric, int maxValuesPerDoc)
+  public void testDuelPointRangeSortedNumericRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeNumericRangeQuery(true, 1, true);
+  }
+
+  public void testDuelPointRangeMultivaluedSortedNumericRangeQueryWithSkipIndex()
       throws IOException {
-    final int iters = atLeast(10);
+    doTestDuelPointRangeNumericRangeQuery(true, 3, true);
+  }
+
+  public void testDuelPointRangeNumericRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeNumericRangeQuery(false, 1, true);
+  }
+
+  private static RandomIndexWriter newWriter(Directory dir, boolean skipIndex) throws IOException {
+    if (skipIndex) {
+      Codec codec = TestUtil.alwaysDocValuesFormat(new Lucene90DocValuesFormat(true));
+      return new RandomIndexWriter(random(), dir, newIndexWriterConfig().setCodec(codec));
+    }
+    return new RandomIndexWriter(random(), dir);
+  }
+
+  private static void assertHasSkipper(IndexReader reader, String field) throws IOException {
+    for (LeafReaderContext context : reader.leaves()) {
+      final FieldInfo fieldInfo = context.reader().getFieldInfos().fieldInfo(field);
+      if (fieldInfo != null) {
+        assertNotNull(context.reader().getDocValuesSkipper(field));
+      }
+    }
+  }
+
+  // with a skip index, values mostly grow with doc IDs so that some intervals of documents can be
+  // skipped or fully matched
+  private static long nextValue(int doc, boolean skipIndex) {
+    if (skipIndex && random().nextInt(10) != 0) {
+      return Math.min(10000, doc + TestUtil.nextLong(random(), -100, 100));
+    }
+    return TestUtil.nextLong(random(), -100, 10000);
+  }
+
+  private void doTestDuelPointRangeNumericRangeQuery(
+      boolean sortedNumeric, int maxValuesPerDoc, boolean skipIndex) throws IOException {
+    final int iters = skipIndex ? atLeast(3) : atLeast(10);
     for (int iter = 0; iter < iters; ++iter) {
       Directory dir = newDirectory();
-      RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
-      final int numDocs = atLeast(100);
+      RandomIndexWriter iw = newWriter(dir, skipIndex);
+      final int numDocs = skipIndex ? atLeast(10000) : atLeast(100);
       for (int i = 0; i < numDocs; ++i) {
         Document doc = new Document();
         final int numValues = TestUtil.nextInt(random(), 0, maxValuesPerDoc);
         for (int j = 0; j < numValues; ++j) {
-          final long value = TestUtil.nextLong(random(), -100, 10000);
+          final long value = nextValue(i, skipIndex);
           if (sortedNumeric) {
             doc.add(new SortedNumericDocValuesField("dv", value));
           } else {
@@ -70,7 +113,14 @@ public class TestDocValuesQueries extends LuceneTestCase {
         iw.deleteDocuments(LongPoint.newRangeQuery("idx", 0L, 10L));
       }
       final IndexReader reader = iw.getReader();
-      final IndexSearcher searcher = newSearcher(reader, false);
+      final IndexSearcher searcher;
+      if (skipIndex) {
+        // readers may get wrapped, they must still expose the skip index
+        searcher = newSearcher(reader);
+        assertHasSkipper(searcher.getIndexReader(), "dv");
+      } else {
+        searcher = newSearcher(reader, false);
+      }
       iw.close();
 
       for (int i = 0; i < 100; ++i) {
@@ -93,18 +143,18 @@ public class TestDocValuesQueries extends LuceneTestCase {
     }
   }
 
-  private void doTestDuelPointRangeSortedRangeQuery(boolean sortedSet, int maxValuesPerDoc)
-      throws IOException {
-    final int iters = atLeast(10);
+  private void doTestDuelPointRangeSortedRangeQuery(
+      boolean sortedSet, int maxValuesPerDoc, boolean skipIndex) throws IOException {
+    final int iters = skipIndex ? atLeast(3) : atLeast(10);
     for (int iter = 0; iter < iters; ++iter) {
       Directory dir = newDirectory();
-      RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
-      final int numDocs = atLeast(100);
+      RandomIndexWriter iw = newWriter(dir, skipIndex);
+      final int numDocs = skipIndex ? atLeast(10000) : atLeast(100);
       for (int i = 0; i < numDocs; ++i) {
         Document doc = new Document();
         final int numValues = TestUtil.nextInt(random(), 0, maxValuesPerDoc);
         for (int j = 0; j < numValues; ++j) {
-          final long value = TestUtil.nextLong(random(), -100, 10000);
+          final long value = nextValue(i, skipIndex);
           byte[] encoded = new byte[Long.BYTES];
           LongPoint.encodeDimension(value, encoded, 0);
           if (sortedSet) {
@@ -120,7 +170,14 @@ public class TestDocValuesQueries extends LuceneTestCase {
         iw.deleteDocuments(LongPoint.newRangeQuery("idx", 0L, 10L));
       }
       final IndexReader reader = iw.getReader();
-      final IndexSearcher searcher = newSearcher(reader, false);
+      final IndexSearcher searcher;
+      if (skipIndex) {
+        // readers may get wrapped, they must still expose the skip index
+        searcher = newSearcher(reader);
+        assertHasSkipper(searcher.getIndexReader(), "dv");
+      } else {
+        searcher = newSearcher(reader, false);
+      }
       iw.close();
 
       for (int i = 0; i < 100; ++i) {
@@ -170,15 +227,27 @@ public class TestDocValuesQueries extends LuceneTestCase {
   }
 
   public void testDuelPointRangeSortedSetRangeQuery() throws IOException {
-    doTestDuelPointRangeSortedRangeQuery(true, 1);
+    doTestDuelPointRangeSortedRangeQuery(true, 1, false);
   }
 
   public void testDuelPointRangeMultivaluedSortedSetRangeQuery() throws IOException {
-    doTestDuelPointRangeSortedRangeQuery(true, 3);
+    doTestDuelPointRangeSortedRangeQuery(true, 3, false);
   }
 
   public void testDuelPointRangeSortedRangeQuery() throws IOException {
-    doTestDuelPointRangeSortedRangeQuery(false, 1);
+    doTestDuelPointRangeSortedRangeQuery(false, 1, false);
+  }
+
+  public void testDuelPointRangeSortedSetRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeSortedRangeQuery(true, 1, true);
+  }
+
+  public void testDuelPointRangeMultivaluedSortedSetRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeSortedRangeQuery(true, 3, true);
+  }
+
+  public void testDuelPointRangeSortedRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeSortedRangeQuery(false, 1, true);
   }
 
   private void assertSameMatches(IndexSearcher searcher, Query q1, Query q2, boolean scores)
@@ -221,6 +290,19 @@ public class TestDocValuesQueries extends LuceneTestCase {
         q2,
         SortedSetDocValuesField.newSlowRangeQuery(
             "quux", newBytesRef("bar"), newBytesRef("baz"), true, true));
+
+    Query q3 =
+        SortedSetDocValuesField.newSlowSetQuery("foo", newBytesRef("bar"), newBytesRef("baz"));
+    QueryUtils.checkEqual(
+        q3,
+        SortedSetDocValuesField.newSlowSetQuery(
+            "foo", newBytesRef("baz"), newBytesRef("bar"), newBytesRef("baz")));
+    QueryUtils.checkUnequal(
+        q3, SortedSetDocValuesField.newSlowSetQuery("foo", newBytesRef("bar"), newBytesRef("qux")));
+    QueryUtils.checkUnequal(q3, SortedSetDocValuesField.newSlowSetQuery("foo", newBytesRef("bar")));
+    QueryUtils.checkUnequal(
+        q3,
+        SortedSetDocValuesField.newSlowSetQuery("quux", newBytesRef("bar"), newBytesRef("baz")));
   }
 
   public void testToString() {
@@ -247,6 +329,11 @@ public class TestDocValuesQueries extends LuceneTestCase {
     assertEquals("foo:{* TO [62 61 7a]]", q2.toString());
     assertEquals("{* TO [62 61 7a]]", q2.toString("foo"));
     assertEquals("foo:{* TO [62 61 7a]]", q2.toString("bar"));
+
+    Query q3 =
+        SortedSetDocValuesField.newSlowSetQuery("foo", newBytesRef("baz"), newBytesRef("bar"));
+    assertEquals("foo:[[62 61 72] [62 61 7a]]", q3.toString());
+    assertEquals("[[62 61 72] [62 61 7a]]", q3.toString("foo"));
   }
 
   public void testMissingField() throws IOException {
@@ -271,7 +358,9 @@ public class TestDocValuesQueries extends LuceneTestCase {
                 newBytesRef("abc"),
                 newBytesRef("bcd"),
                 random().nextBoolean(),
-                random().nextBoolean()))) {
+                random().nextBoolean()),
+            SortedDocValuesField.newSlowSetQuery("foo", newBytesRef("abc")),
+            SortedSetDocValuesField.newSlowSetQuery("foo", newBytesRef("abc")))) {
       Weight w = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE, 1);
       assertNull(w.scorer(searcher.getIndexReader().leaves().get(0)));
     }
@@ -36,8 +36,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiReader;
@@ -184,6 +186,77 @@ public class TestIndexSearcher extends LuceneTestCase {
     dir.close();
   }
 
+  public void testIntraSegmentConcurrency() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      for (int j = random().nextInt(4); j >= 0; --j) {
+        doc.add(new TextField("body", random().nextBoolean() ? "foo" : "bar", Store.NO));
+      }
+      doc.add(new NumericDocValuesField("sort", random().nextInt(100)));
+      if (rarely()) {
+        doc.add(new StringField("delete", "yes", Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    w.deleteDocuments(new Term("delete", "yes"));
+    w.forceMerge(1);
+    IndexReader reader = w.getReader();
+    w.close();
+
+    final int maxDocsPerSlice = TestUtil.nextInt(random(), 1, reader.maxDoc());
+    ExecutorService service =
+        new ThreadPoolExecutor(
+            4,
+            4,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new NamedThreadFactory("TestIndexSearcher"));
+    IndexSearcher searcher = new IndexSearcher(reader);
+    IndexSearcher partitionedSearcher =
+        new AssertingIndexSearcher(random(), reader, service) {
+          @Override
+          protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+            return slices(leaves, maxDocsPerSlice, 5, true);
+          }
+        };
+    // the only segment is split across slices
+    assertEquals(
+        (reader.maxDoc() + maxDocsPerSlice - 1) / maxDocsPerSlice,
+        partitionedSearcher.getSlices().length);
+
+    Sort sort = new Sort(new SortField("sort", SortField.Type.INT));
+    for (Query query :
+        Arrays.asList(
+            new MatchAllDocsQuery(),
+            new TermQuery(new Term("body", "foo")),
+            new ConstantScoreQuery(new TermQuery(new Term("body", "bar"))),
+            new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("body", "foo")), Occur.SHOULD)
+                .add(new TermQuery(new Term("body", "bar")), Occur.SHOULD)
+                .build())) {
+      assertEquals(searcher.count(query), partitionedSearcher.count(query));
+      TopDocs expected = searcher.search(query, reader.maxDoc());
+      TopDocs actual = partitionedSearcher.search(query, reader.maxDoc());
+      assertEquals(expected.totalHits, actual.totalHits);
+      CheckHits.checkEqual(query, expected.scoreDocs, actual.scoreDocs);
+
+      int numHits = TestUtil.nextInt(random(), 1, 20);
+      expected = searcher.search(query, numHits, sort);
+      actual = partitionedSearcher.search(query, numHits, sort);
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; ++i) {
+        assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+      }
+    }
+
+    TestUtil.shutdownExecutorService(service);
+    IOUtils.close(reader, dir);
+  }
+
   public void testGetQueryCache() throws IOException {
     IndexSearcher searcher = new IndexSearcher(new MultiReader());
     assertEquals(IndexSearcher.getDefaultQueryCache(), searcher.getQueryCache());
@@ -23,20 +23,34 @@ import static org.apache.lucene.util.TestVectorUtil.randomVector;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.VectorUtil;
 
 /** TestKnnVectorQuery tests KnnVectorQuery. */
@@ -355,6 +369,91 @@ public class TestKnnVectorQuery extends LuceneTestCase {
     }
   }
 
+  /** Tests that searching segments concurrently returns the same hits as a sequential search */
+  public void testParallelSearch() throws IOException {
+    int dimension = atLeast(5);
+    try (Directory d = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(d, new IndexWriterConfig())) {
+        int numSegments = atLeast(4);
+        for (int i = 0; i < numSegments; i++) {
+          int numDocs = atLeast(10);
+          for (int j = 0; j < numDocs; j++) {
+            Document doc = new Document();
+            doc.add(new KnnVectorField("field", randomVector(dimension)));
+            w.addDocument(doc);
+          }
+          w.flush();
+        }
+      }
+      ExecutorService service =
+          new ThreadPoolExecutor(
+              4,
+              4,
+              0L,
+              TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<Runnable>(),
+              new NamedThreadFactory("TestKnnVectorQuery"));
+      AtomicInteger numTasks = new AtomicInteger();
+      Executor countingExecutor =
+          task -> {
+            numTasks.incrementAndGet();
+            service.execute(task);
+          };
+      try (IndexReader reader = DirectoryReader.open(d)) {
+        int numLeaves = reader.leaves().size();
+        assertTrue(numLeaves > 1);
+        IndexSearcher sequential = new IndexSearcher(reader);
+        IndexSearcher parallel = new IndexSearcher(reader, countingExecutor);
+        for (int i = 0; i < 10; i++) {
+          KnnVectorQuery knnQuery =
+              new KnnVectorQuery("field", randomVector(dimension), random().nextInt(20) + 1);
+          // wrappers rewrite their sub queries with the searcher too
+          Query query;
+          switch (random().nextInt(6)) {
+            case 0:
+              query = knnQuery;
+              break;
+            case 1:
+              query =
+                  new BooleanQuery.Builder()
+                      .add(knnQuery, BooleanClause.Occur.MUST)
+                      .add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+                      .build();
+              break;
+            case 2:
+              query = new BoostQuery(knnQuery, 2f);
+              break;
+            case 3:
+              query = new ConstantScoreQuery(knnQuery);
+              break;
+            case 4:
+              query = new DisjunctionMaxQuery(List.of(knnQuery, new MatchAllDocsQuery()), 0.5f);
+              break;
+            case 5:
+              query = new IndexOrDocValuesQuery(knnQuery, new MatchAllDocsQuery());
+              break;
+            default:
+              throw new AssertionError();
+          }
+          int numTasksBefore = numTasks.get();
+          Query rewritten = parallel.rewrite(query);
+          // one task per leaf, the last one runs in the calling thread
+          assertEquals(numLeaves - 1, numTasks.get() - numTasksBefore);
+          assertEquals(sequential.rewrite(query), rewritten);
+          TopDocs expected = sequential.search(query, 10);
+          TopDocs actual = parallel.search(query, 10);
+          assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+          for (int j = 0; j < expected.scoreDocs.length; j++) {
+            assertEquals(expected.scoreDocs[j].doc, actual.scoreDocs[j].doc);
+            assertEquals(expected.scoreDocs[j].score, actual.scoreDocs[j].score, 0f);
+          }
+        }
+      } finally {
+        TestUtil.shutdownExecutorService(service);
+      }
+    }
+  }
+
   /** Tests with random vectors, number of documents, etc. Uses RandomIndexWriter. */
   public void testRandom() throws IOException {
     int numDocs = atLeast(100);
@@ -462,13 +561,116 @@ public class TestKnnVectorQuery extends LuceneTestCase {
     }
   }
 
+  /** Tests with random vectors and a random filter. Uses RandomIndexWriter. */
+  public void testRandomWithFilter() throws IOException {
+    int numDocs = 200;
+    int dimension = atLeast(5);
+    int numIters = atLeast(10);
+    try (Directory d = newDirectory()) {
+      RandomIndexWriter w = new RandomIndexWriter(random(), d);
+      for (int i = 0; i < numDocs; i++) {
+        Document doc = new Document();
+        doc.add(new KnnVectorField("field", randomVector(dimension)));
+        doc.add(new NumericDocValuesField("tag", i));
+        doc.add(new IntPoint("tag", i));
+        w.addDocument(doc);
+      }
+      // Force merge because smaller segments have few filtered docs and often fall back to exact
+      // search, making testing harder
+      w.forceMerge(1);
+      w.close();
+
+      try (IndexReader reader = DirectoryReader.open(d)) {
+        IndexSearcher searcher = newSearcher(reader);
+        for (int i = 0; i < numIters; i++) {
+          int lower = random().nextInt(50);
+
+          // Check that when filter is restrictive, we use exact search
+          Query filter = IntPoint.newRangeQuery("tag", lower, lower + 6);
+          TopDocs results =
+              searcher.search(
+                  new KnnVectorQuery("field", randomVector(dimension), 5, filter), numDocs);
+          assertEquals(5, results.totalHits.value);
+          assertEquals(results.totalHits.value, results.scoreDocs.length);
+
+          // Check that when filter is permissive, we use approximate search
+          filter = IntPoint.newRangeQuery("tag", lower, numDocs);
+          KnnVectorQuery query =
+              new ThrowingKnnVectorQuery("field", randomVector(dimension), 10, filter);
+          results = searcher.search(query, numDocs);
+          assertEquals(10, results.totalHits.value);
+          for (ScoreDoc scoreDoc : results.scoreDocs) {
+            int tag = (int) getTag(reader, scoreDoc.doc);
+            assertTrue(lower <= tag && tag <= numDocs);
+          }
+        }
+      }
+    }
+  }
+
+  /** Tests that the filtered search returns the exact nearest neighbors among the accepted docs */
+  public void testFilterMatchesExactSearch() throws IOException {
+    try (Directory indexStore =
+            getIndexStore(
+                "field",
+                new float[] {0, 1},
+                new float[] {1, 2},
+                new float[] {0, 0},
+                new float[] {5, 5},
+                new float[] {3, 3});
+        IndexReader reader = DirectoryReader.open(indexStore)) {
+      IndexSearcher searcher = newSearcher(reader);
+      Query filter =
+          new BooleanQuery.Builder()
+              .add(new TermQuery(new Term("id", "id1")), BooleanClause.Occur.SHOULD)
+              .add(new TermQuery(new Term("id", "id3")), BooleanClause.Occur.SHOULD)
+              .add(new TermQuery(new Term("id", "id4")), BooleanClause.Occur.SHOULD)
+              .build();
+      KnnVectorQuery kvq = new KnnVectorQuery("field", new float[] {0, 0}, 2, filter);
+      TopDocs topDocs = searcher.search(kvq, 3);
+      assertEquals(2, topDocs.scoreDocs.length);
+      assertIdMatches(reader, "id1", topDocs.scoreDocs[0]);
+      assertIdMatches(reader, "id4", topDocs.scoreDocs[1]);
+
+      // a filter that matches no documents produces no results
+      KnnVectorQuery noMatch =
+          new KnnVectorQuery(
+              "field", new float[] {0, 0}, 2, new TermQuery(new Term("id", "missing")));
+      assertMatches(searcher, noMatch, 0);
+    }
+  }
+
+  public void testFilterEquals() {
+    Query filter = new TermQuery(new Term("id", "id1"));
+    KnnVectorQuery q1 = new KnnVectorQuery("f1", new float[] {0, 1}, 10, filter);
+    assertEquals(q1, new KnnVectorQuery("f1", new float[] {0, 1}, 10, filter));
+    assertEquals(q1.hashCode(), new KnnVectorQuery("f1", new float[] {0, 1}, 10, filter).hashCode());
+    assertNotEquals(q1, new KnnVectorQuery("f1", new float[] {0, 1}, 10));
+    assertNotEquals(
+        q1,
+        new KnnVectorQuery("f1", new float[] {0, 1}, 10, new TermQuery(new Term("id", "id2"))));
+  }
+
+  private void assertIdMatches(IndexReader reader, String expectedId, ScoreDoc scoreDoc)
+      throws IOException {
+    String actualId = reader.document(scoreDoc.doc).get("id");
+    assertEquals(expectedId, actualId);
+  }
+
+  private static long getTag(IndexReader reader, int doc) throws IOException {
+    LeafReaderContext leaf = reader.leaves().get(ReaderUtil.subIndex(doc, reader.leaves()));
+    NumericDocValues tags = leaf.reader().getNumericDocValues("tag");
+    assertEquals(doc - leaf.docBase, tags.advance(doc - leaf.docBase));
+    return tags.longValue();
+  }
+
   private Directory getIndexStore(String field, float[]... contents) throws IOException {
     Directory indexStore = newDirectory();
     RandomIndexWriter writer = new RandomIndexWriter(random(), indexStore);
     for (int i = 0; i < contents.length; ++i) {
       Document doc = new Document();
       doc.add(new KnnVectorField(field, contents[i]));
-      doc.add(new StringField("id", "id" + i, Field.Store.NO));
+      doc.add(new StringField("id", "id" + i, Field.Store.YES));
       writer.addDocument(doc);
     }
     writer.close();
@@ -480,4 +682,16 @@ public class TestKnnVectorQuery extends LuceneTestCase {
     ScoreDoc[] result = searcher.search(q, 1000).scoreDocs;
     assertEquals(expectedMatches, result.length);
   }
+
+  private static class ThrowingKnnVectorQuery extends KnnVectorQuery {
+
+    public ThrowingKnnVectorQuery(String field, float[] target, int k, Query filter) {
+      super(field, target, k, filter);
+    }
+
+    @Override
+    TopDocs exactSearch(LeafReaderContext context, DocIdSetIterator acceptIterator) {
+      throw new UnsupportedOperationException("exact search is not supported");
+    }
+  }
 }
@@ -61,10 +61,16 @@ import org.apache.lucene.index.SerialMergeScheduler;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BitDocIdSet;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.Constants;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.IntArrayDocIdSet;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.RamUsageTester;
+import org.apache.lucene.util.RoaringDocIdSet;
 import org.apache.lucene.util.TestUtil;
 
 public class TestLRUQueryCache extends LuceneTestCase {
@@ -1935,4 +1941,118 @@ public class TestLRUQueryCache extends LuceneTestCase {
     reader.close();
     dir.close();
   }
+
+  private static BulkScorer bulkScorer(FixedBitSet bitSet) {
+    return new BulkScorer() {
+      @Override
+      public int score(LeafCollector collector, Bits acceptDocs, int min, int max)
+          throws IOException {
+        for (int doc = min; doc < max && doc < bitSet.length(); ++doc) {
+          if (bitSet.get(doc)) {
+            collector.collect(doc);
+          }
+        }
+        return max;
+      }
+
+      @Override
+      public long cost() {
+        return bitSet.cardinality();
+      }
+    };
+  }
+
+  private static void assertCompactDocIdSet(
+      FixedBitSet bitSet, Class<? extends DocIdSet> expectedClass) throws IOException {
+    DocIdSet set =
+        CachingWrapperWeight.cacheIntoCompactDocIdSet(bulkScorer(bitSet), bitSet.length());
+    assertEquals(expectedClass, set.getClass());
+    DocIdSetIterator expected = new BitSetIterator(bitSet, bitSet.cardinality());
+    DocIdSetIterator actual = set.iterator();
+    for (int doc = expected.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; ) {
+      assertEquals(doc, actual.nextDoc());
+      doc = expected.nextDoc();
+    }
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, actual.nextDoc());
+  }
+
+  public void testCompactDocIdSet() throws IOException {
+    final int maxDoc = TestUtil.nextInt(random(), 1 << 18, 1 << 20);
+
+    // random dense set
+    FixedBitSet bitSet = new FixedBitSet(maxDoc);
+    for (int i = 0; i < maxDoc; ++i) {
+      if (random().nextBoolean()) {
+        bitSet.set(i);
+      }
+    }
+    assertCompactDocIdSet(bitSet, BitDocIdSet.class);
+
+    // dense but clustered set
+    bitSet = new FixedBitSet(maxDoc);
+    int numRuns = TestUtil.nextInt(random(), 1, 10);
+    for (int i = 0; i < numRuns; ++i) {
+      int start = random().nextInt(maxDoc);
+      bitSet.set(start, Math.min(maxDoc, start + maxDoc / 20));
+    }
+    assertCompactDocIdSet(bitSet, RoaringDocIdSet.class);
+
+    // random sparse set
+    bitSet = new FixedBitSet(maxDoc);
+    for (int i = 0; i < maxDoc; ++i) {
+      if (random().nextInt(200) == 0) {
+        bitSet.set(i);
+      }
+    }
+    assertCompactDocIdSet(bitSet, RoaringDocIdSet.class);
+
+    // tiny set
+    bitSet = new FixedBitSet(maxDoc);
+    int numDocs = TestUtil.nextInt(random(), 1, 5);
+    for (int i = 0; i < numDocs; ++i) {
+      bitSet.set(random().nextInt(maxDoc));
+    }
+    assertCompactDocIdSet(bitSet, IntArrayDocIdSet.class);
+  }
+
+  public void testDocIdSetRamBytesUsed() throws IOException {
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    Document doc = new Document();
+    StringField f = new StringField("color", "", Store.NO);
+    doc.add(f);
+    final int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; ++i) {
+      f.setStringValue(random().nextInt(10) == 0 ? "red" : "blue");
+      w.addDocument(doc);
+    }
+    final DirectoryReader reader = w.getReader();
+    final IndexSearcher searcher = newSearcher(reader);
+    final LRUQueryCache queryCache =
+        new LRUQueryCache(1000, 10000000, context -> true, Float.POSITIVE_INFINITY);
+    searcher.setQueryCache(queryCache);
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+    assertEquals(Collections.emptyMap(), queryCache.getDocIdSetRamBytesUsed());
+
+    searcher.search(new ConstantScoreQuery(new TermQuery(new Term("color", "red"))), 1);
+    searcher.search(new ConstantScoreQuery(new TermQuery(new Term("color", "blue"))), 1);
+    searcher.search(new ConstantScoreQuery(new TermQuery(new Term("color", "green"))), 1);
+
+    Map<String, Long> ramBytesUsed = queryCache.getDocIdSetRamBytesUsed();
+    assertFalse(ramBytesUsed.isEmpty());
+    assertTrue(
+        ramBytesUsed.keySet().toString(),
+        Arrays.asList("BitDocIdSet", "RoaringDocIdSet", "IntArrayDocIdSet")
+            .containsAll(ramBytesUsed.keySet()));
+    long sumRamBytesUsed = ramBytesUsed.values().stream().mapToLong(Long::longValue).sum();
+    assertTrue(sumRamBytesUsed > 0);
+    assertTrue(sumRamBytesUsed < queryCache.ramBytesUsed());
+
+    queryCache.clear();
+    assertEquals(Collections.emptyMap(), queryCache.getDocIdSetRamBytesUsed());
+
+    reader.close();
+    w.close();
+    dir.close();
+  }
 }
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestMaxScoreBulkScorer extends LuceneTestCase {
+
+  private Directory dir;
+  private IndexReader reader;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    dir = newDirectory();
+    IndexWriter w =
+        new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(newLogMergePolicy()));
+    for (String[] values :
+        Arrays.asList(
+            new String[] {"A", "B"}, // 0
+            new String[] {"A"}, // 1
+            new String[] {}, // 2
+            new String[] {"A", "B", "C"}, // 3
+            new String[] {"B"}, // 4
+            new String[] {"B", "C"} // 5
+            )) {
+      Document doc = new Document();
+      for (String value : values) {
+        doc.add(new StringField("foo", value, Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    w.close();
+    reader = DirectoryReader.open(dir);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    reader.close();
+    dir.close();
+    super.tearDown();
+  }
+
+  private static Query basicQuery() {
+    return new BooleanQuery.Builder()
+        .add(
+            new BoostQuery(new ConstantScoreQuery(new TermQuery(new Term("foo", "A"))), 2),
+            Occur.SHOULD)
+        .add(new ConstantScoreQuery(new TermQuery(new Term("foo", "B"))), Occur.SHOULD)
+        .add(
+            new BoostQuery(new ConstantScoreQuery(new TermQuery(new Term("foo", "C"))), 3),
+            Occur.SHOULD)
+        .build();
+  }
+
+  private static BulkScorer bulkScorer(IndexSearcher searcher, Query query) throws IOException {
+    Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.TOP_SCORES, 1);
+    return weight.bulkScorer(searcher.getIndexReader().leaves().get(0));
+  }
+
+  public void testPureDisjunctionUsesMaxScore() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    assertTrue(bulkScorer(searcher, basicQuery()) instanceof MaxScoreBulkScorer);
+
+    Query query =
+        new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("foo", "A")), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "B")), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "C")), Occur.MUST_NOT)
+            .build();
+    assertFalse(bulkScorer(searcher, query) instanceof MaxScoreBulkScorer);
+
+    query =
+        new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("foo", "A")), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "B")), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "C")), Occur.SHOULD)
+            .setMinimumNumberShouldMatch(2)
+            .build();
+    assertFalse(bulkScorer(searcher, query) instanceof MaxScoreBulkScorer);
+
+    // only one clause has matches in the segment
+    query =
+        new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("foo", "A")), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "D")), Occur.SHOULD)
+            .build();
+    assertFalse(bulkScorer(searcher, query) instanceof MaxScoreBulkScorer);
+  }
+
+  private static class ScorerCountingQuery extends Query {
+
+    private final Query in;
+    private final AtomicInteger scorerCount;
+
+    ScorerCountingQuery(Query in, AtomicInteger scorerCount) {
+      this.in = in;
+      this.scorerCount = scorerCount;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost)
+        throws IOException {
+      return new FilterWeight(this, in.createWeight(searcher, scoreMode, boost)) {
+        @Override
+        public Scorer scorer(LeafReaderContext context) throws IOException {
+          scorerCount.incrementAndGet();
+          return in.scorer(context);
+        }
+      };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+      in.visit(visitor);
+    }
+
+    @Override
+    public String toString(String field) {
+      return "ScorerCountingQuery(" + in.toString(field) + ")";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return sameClassAs(other) && in.equals(((ScorerCountingQuery) other).in);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * classHash() + in.hashCode();
+    }
+  }
+
+  public void testCreatesScorersOnce() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+    for (String[] terms : new String[][] {{"A", "B", "C"}, {"A", "D"}, {"D", "E"}}) {
+      AtomicInteger scorerCount = new AtomicInteger();
+      BooleanQuery.Builder builder = new BooleanQuery.Builder();
+      for (String term : terms) {
+        builder.add(
+            new ScorerCountingQuery(new TermQuery(new Term("foo", term)), scorerCount),
+            Occur.SHOULD);
+      }
+      bulkScorer(searcher, builder.build());
+      assertEquals(terms.length, scorerCount.get());
+    }
+  }
+
+  public void testBasics() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    BulkScorer scorer = bulkScorer(searcher, basicQuery());
+
+    List<Integer> docs = new ArrayList<>();
+    List<Float> scores = new ArrayList<>();
+    scorer.score(
+        new LeafCollector() {
+          private Scorable scorer;
+
+          @Override
+          public void setScorer(Scorable scorer) throws IOException {
+            this.scorer = scorer;
+          }
+
+          @Override
+          public void collect(int doc) throws IOException {
+            assertEquals(doc, scorer.docID());
+            docs.add(doc);
+            scores.add(scorer.score());
+          }
+        },
+        null);
+
+    assertEquals(Arrays.asList(0, 1, 3, 4, 5), docs);
+    assertEquals(Arrays.asList(2f + 1, 2f, 2f + 1 + 3, 1f, 1f + 3), scores);
+  }
+
+  public void testBasicsWithMinCompetitiveScore() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    BulkScorer scorer = bulkScorer(searcher, basicQuery());
+
+    List<Integer> docs = new ArrayList<>();
+    List<Float> scores = new ArrayList<>();
+    scorer.score(
+        new LeafCollector() {
+          private Scorable scorer;
+
+          @Override
+          public void setScorer(Scorable scorer) throws IOException {
+            this.scorer = scorer;
+            // Only clause C is essential
+            scorer.setMinCompetitiveScore(4);
+          }
+
+          @Override
+          public void collect(int doc) throws IOException {
+            docs.add(doc);
+            scores.add(scorer.score());
+          }
+        },
+        null);
+
+    assertEquals(Arrays.asList(3, 5), docs);
+    assertEquals(Arrays.asList(2f + 1 + 3, 1f + 3), scores);
+  }
+
+  private Query maybeWrap(Query query) {
+    if (random().nextBoolean()) {
+      query = new BlockScoreQueryWrapper(query, TestUtil.nextInt(random(), 2, 8));
+      query = new AssertingQuery(random(), query);
+    }
+    return query;
+  }
+
+  public void testRandom() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      int numValues = random().nextInt(1 << random().nextInt(5));
+      int start = random().nextInt(10);
+      for (int j = 0; j < numValues; ++j) {
+        int freq = TestUtil.nextInt(random(), 1, 1 << random().nextInt(3));
+        for (int k = 0; k < freq; ++k) {
+          doc.add(new StringField("foo", Integer.toString(start + j), Store.NO));
+        }
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 100; ++iter) {
+      int start = random().nextInt(10);
+      int numClauses = TestUtil.nextInt(random(), 2, 1 << TestUtil.nextInt(random(), 1, 4));
+      BooleanQuery.Builder builder = new BooleanQuery.Builder();
+      for (int i = 0; i < numClauses; ++i) {
+        Query query = new TermQuery(new Term("foo", Integer.toString(start + i)));
+        if (random().nextBoolean()) {
+          query = new BoostQuery(query, TestUtil.nextInt(random(), 1, 10));
+        }
+        builder.add(maybeWrap(query), Occur.SHOULD);
+      }
+      Query query = builder.build();
+
+      CheckHits.checkTopScores(random(), query, searcher);
+
+      int numHits = TestUtil.nextInt(random(), 1, 100);
+      TopScoreDocCollector complete = TopScoreDocCollector.create(numHits, Integer.MAX_VALUE);
+      TopScoreDocCollector topScores = TopScoreDocCollector.create(numHits, numHits);
+      searcher.search(query, complete);
+      searcher.search(query, topScores);
+      CheckHits.checkEqual(query, complete.topDocs().scoreDocs, topScores.topDocs().scoreDocs);
+    }
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandomWithDeletesAndRanges() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      int numValues = random().nextInt(1 << random().nextInt(5));
+      int start = random().nextInt(10);
+      for (int j = 0; j < numValues; ++j) {
+        doc.add(new StringField("foo", Integer.toString(start + j), Store.NO));
+      }
+      doc.add(new StringField("id", Integer.toString(i), Store.NO));
+      w.addDocument(doc);
+    }
+    for (int i = 0; i < numDocs / 10; ++i) {
+      w.deleteDocuments(new Term("id", Integer.toString(random().nextInt(numDocs))));
+    }
+    w.forceMerge(1);
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    LeafReaderContext context = reader.leaves().get(0);
+
+    for (int iter = 0; iter < 20; ++iter) {
+      int start = random().nextInt(10);
+      int numClauses = TestUtil.nextInt(random(), 2, 1 << TestUtil.nextInt(random(), 1, 4));
+      BooleanQuery.Builder builder = new BooleanQuery.Builder();
+      for (int i = 0; i < numClauses; ++i) {
+        builder.add(new TermQuery(new Term("foo", Integer.toString(start + i))), Occur.SHOULD);
+      }
+      Query query = searcher.rewrite(builder.build());
+      int numHits = TestUtil.nextInt(random(), 1, 100);
+
+      TopScoreDocCollector expected = TopScoreDocCollector.create(numHits, Integer.MAX_VALUE);
+      searcher.search(query, expected);
+
+      // Score the segment in random ranges, like IndexSearcher may do with timeouts
+      TopScoreDocCollector actual = TopScoreDocCollector.create(numHits, numHits);
+      BulkScorer scorer =
+          searcher.createWeight(query, ScoreMode.TOP_SCORES, 1).bulkScorer(context);
+      if (scorer != null) {
+        LeafCollector leafCollector = actual.getLeafCollector(context);
+        int min = 0;
+        while (min < DocIdSetIterator.NO_MORE_DOCS) {
+          int max = min + TestUtil.nextInt(random(), 1, 1 << random().nextInt(13));
+          if (max >= context.reader().maxDoc()) {
+            max = DocIdSetIterator.NO_MORE_DOCS;
+          }
+          int next = scorer.score(leafCollector, context.reader().getLiveDocs(), min, max);
+          assertTrue(next >= max);
+          min = next;
+        }
+      }
+      CheckHits.checkEqual(query, expected.topDocs().scoreDocs, actual.topDocs().scoreDocs);
+    }
+    reader.close();
+    dir.close();
+  }
+}
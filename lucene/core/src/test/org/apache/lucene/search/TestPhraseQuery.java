@@ -907,6 +907,92 @@ public class TestPhraseQuery extends LuceneTestCase {
         mergedImpacts.getImpacts());
   }
 
+  public void testSumImpacts() throws IOException {
+    DummyImpactsEnum impacts1 = new DummyImpactsEnum(1000);
+    DummyImpactsEnum impacts2 = new DummyImpactsEnum(2000);
+    ImpactsSource summedImpacts =
+        SloppyPhraseMatcher.sumImpacts(new ImpactsEnum[] {impacts1, impacts2});
+
+    impacts1.reset(
+        new Impact[][] {
+          new Impact[] {new Impact(3, 10), new Impact(5, 12), new Impact(8, 13)},
+          new Impact[] {new Impact(3, 10), new Impact(5, 11), new Impact(8, 13), new Impact(12, 14)}
+        },
+        new int[] {110, 945});
+
+    // Empty impacts: the freq of the second term is unknown
+    impacts2.reset(new Impact[0][], new int[0]);
+    assertEquals(
+        new Impact[][] {
+          new Impact[] {new Impact(Integer.MAX_VALUE, 1)},
+          new Impact[] {new Impact(Integer.MAX_VALUE, 1)}
+        },
+        new int[] {110, 945},
+        summedImpacts.getImpacts());
+
+    // Dummy impacts
+    impacts2.reset(
+        new Impact[][] {new Impact[] {new Impact(Integer.MAX_VALUE, 1)}}, new int[] {5000});
+    assertEquals(
+        new Impact[][] {
+          new Impact[] {new Impact(Integer.MAX_VALUE, 1)},
+          new Impact[] {new Impact(Integer.MAX_VALUE, 1)}
+        },
+        new int[] {110, 945},
+        summedImpacts.getImpacts());
+
+    // First level of impacts2 doesn't cover the first level of impacts1
+    impacts2.reset(
+        new Impact[][] {
+          new Impact[] {new Impact(2, 10), new Impact(6, 13)},
+          new Impact[] {new Impact(3, 9), new Impact(5, 11), new Impact(7, 13)}
+        },
+        new int[] {90, 1000});
+    assertEquals(
+        new Impact[][] {
+          new Impact[] {
+            new Impact(6, 10), new Impact(8, 11), new Impact(10, 12), new Impact(15, 13)
+          },
+          new Impact[] {
+            new Impact(6, 10), new Impact(10, 11), new Impact(15, 13), new Impact(19, 14)
+          }
+        },
+        new int[] {110, 945},
+        summedImpacts.getImpacts());
+
+    // Norms below the first norm of a term can't match
+    impacts2.reset(
+        new Impact[][] {
+          new Impact[] {new Impact(4, 12), new Impact(9, 15)},
+          new Impact[] {new Impact(4, 12), new Impact(9, 15)}
+        },
+        new int[] {113, 950});
+    assertEquals(
+        new Impact[][] {
+          new Impact[] {new Impact(9, 12), new Impact(12, 13), new Impact(17, 15)},
+          new Impact[] {
+            new Impact(9, 12), new Impact(12, 13), new Impact(16, 14), new Impact(21, 15)
+          }
+        },
+        new int[] {110, 945},
+        summedImpacts.getImpacts());
+
+    // Make sure negative norms are treated as unsigned
+    impacts1.reset(
+        new Impact[][] {new Impact[] {new Impact(3, 10), new Impact(5, -10), new Impact(8, -5)}},
+        new int[] {110});
+    impacts2.reset(
+        new Impact[][] {new Impact[] {new Impact(2, 10), new Impact(12, -4)}}, new int[] {150});
+    assertEquals(
+        new Impact[][] {
+          new Impact[] {
+            new Impact(5, 10), new Impact(7, -10), new Impact(10, -5), new Impact(20, -4)
+          }
+        },
+        new int[] {110},
+        summedImpacts.getImpacts());
+  }
+
   private static void assertEquals(Impact[][] impacts, int[] docIdUpTo, Impacts actual) {
     assertEquals(impacts.length, actual.numLevels());
     for (int i = 0; i < impacts.length; ++i) {
@@ -1025,7 +1111,9 @@ public class TestPhraseQuery extends LuceneTestCase {
 
     for (String firstTerm : new String[] {"a", "b", "c"}) {
       for (String secondTerm : new String[] {"a", "b", "c"}) {
-        Query query = new PhraseQuery("foo", newBytesRef(firstTerm), newBytesRef(secondTerm));
+        int slop = random().nextBoolean() ? 0 : TestUtil.nextInt(random(), 1, 3);
+        Query query =
+            new PhraseQuery(slop, "foo", newBytesRef(firstTerm), newBytesRef(secondTerm));
 
         TopScoreDocCollector collector1 =
             TopScoreDocCollector.create(10, null, Integer.MAX_VALUE); // COMPLETE
@@ -1034,6 +1122,8 @@ public class TestPhraseQuery extends LuceneTestCase {
         searcher.search(query, collector1);
         searcher.search(query, collector2);
         CheckHits.checkEqual(query, collector1.topDocs().scoreDocs, collector2.topDocs().scoreDocs);
+        // also checks that max scores are upper bounds of the actual scores
+        CheckHits.checkTopScores(random(), query, searcher);
 
         Query filteredQuery =
             new BooleanQuery.Builder()
@@ -21,8 +21,12 @@ import static org.apache.lucene.search.SortField.FIELD_SCORE;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FloatDocValuesField;
@@ -31,17 +35,25 @@ import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.IntRange;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
 
 public class TestSortOptimization extends LuceneTestCase {
 
@@ -334,6 +346,161 @@ public class TestSortOptimization extends LuceneTestCase {
     dir.close();
   }
 
+  public void testSharedBottomAcrossSlices() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer =
+        new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    final boolean reverse = random().nextBoolean();
+    final int numDocs = atLeast(10000);
+    final List<Long> values = new ArrayList<>();
+    for (int seg = 0; seg < 2; ++seg) {
+      for (int i = 0; i < numDocs; ++i) {
+        // the first segment has the best values first while the second segment has the best values
+        // last, so that it can't skip many documents on its own
+        final int value = (seg == 0) == reverse ? numDocs / 2 - i : i - numDocs / 2;
+        values.add((long) value);
+        final Document doc = new Document();
+        doc.add(new NumericDocValuesField("long", value));
+        doc.add(new LongPoint("long", value));
+        doc.add(new FloatDocValuesField("float", value));
+        doc.add(new FloatPoint("float", value));
+        writer.addDocument(doc);
+      }
+      writer.flush();
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    assertEquals(2, reader.leaves().size());
+    Collections.sort(values);
+    if (reverse) {
+      Collections.reverse(values);
+    }
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    for (SortField sortField :
+        new SortField[] {
+          new SortField("long", SortField.Type.LONG, reverse),
+          new SortField("float", SortField.Type.FLOAT, reverse)
+        }) {
+      final Sort sort = new Sort(sortField);
+      final long[] hitsOnSecondSlice = new long[2];
+      for (boolean shared : new boolean[] {false, true}) {
+        // simulate two slices that are searched one after the other
+        final CollectorManager<TopFieldCollector, TopFieldDocs> manager;
+        if (shared) {
+          manager = TopFieldCollector.createSharedManager(sort, numHits, null, totalHitsThreshold);
+        } else {
+          manager =
+              new CollectorManager<>() {
+                @Override
+                public TopFieldCollector newCollector() {
+                  return TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+                }
+
+                @Override
+                public TopFieldDocs reduce(Collection<TopFieldCollector> collectors) {
+                  final TopFieldDocs[] topDocs = new TopFieldDocs[collectors.size()];
+                  int i = 0;
+                  for (TopFieldCollector collector : collectors) {
+                    topDocs[i++] = collector.topDocs();
+                  }
+                  return TopDocs.merge(sort, 0, numHits, topDocs);
+                }
+              };
+        }
+        final List<TopFieldCollector> collectors = new ArrayList<>();
+        for (LeafReaderContext context : reader.leaves()) {
+          TopFieldCollector collector = manager.newCollector();
+          Weight weight =
+              searcher.createWeight(
+                  searcher.rewrite(new MatchAllDocsQuery()), collector.scoreMode(), 1);
+          searcher.search(Collections.singletonList(context), weight, collector);
+          collectors.add(collector);
+        }
+        hitsOnSecondSlice[shared ? 1 : 0] = collectors.get(1).getTotalHits();
+        TopFieldDocs topDocs = manager.reduce(collectors);
+        assertEquals(numHits, topDocs.scoreDocs.length);
+        for (int i = 0; i < numHits; i++) {
+          FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+          assertEquals(values.get(i).longValue(), ((Number) fieldDoc.fields[0]).longValue());
+        }
+      }
+      // the bottom value of the first slice allows skipping most documents of the second slice
+      assertTrue(
+          "shared=" + hitsOnSecondSlice[1] + " local=" + hitsOnSecondSlice[0],
+          hitsOnSecondSlice[1] < hitsOnSecondSlice[0]);
+      assertTrue(hitsOnSecondSlice[1] <= numHits + 1);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testSharedBottomAcrossLeavesOfSlice() throws IOException {
+    final boolean reverse = random().nextBoolean();
+    final int numDocs = atLeast(10000);
+    // one index per segment, since the segment in the middle doesn't index points
+    final Directory[] dirs = new Directory[3];
+    final IndexReader[] readers = new IndexReader[3];
+    for (int seg = 0; seg < 3; ++seg) {
+      dirs[seg] = newDirectory();
+      final IndexWriter writer = new IndexWriter(dirs[seg], new IndexWriterConfig());
+      for (int i = 0; i < numDocs; ++i) {
+        final int value;
+        if (seg == 0) {
+          // searched by another slice, which publishes a weak bottom
+          value = -2 * numDocs + i;
+        } else if (seg == 1) {
+          // the best values, but without points so that this segment can't skip
+          value = -10 * numDocs + i;
+        } else {
+          // worse than the bottom of the previous segment, but better than the bottom of the other
+          // slice
+          value = -3 * numDocs - i;
+        }
+        final Document doc = new Document();
+        doc.add(new NumericDocValuesField("long", reverse ? -value : value));
+        if (seg != 1) {
+          doc.add(new LongPoint("long", reverse ? -value : value));
+        }
+        writer.addDocument(doc);
+      }
+      writer.forceMerge(1);
+      readers[seg] = DirectoryReader.open(writer);
+      writer.close();
+    }
+    final IndexReader reader = new MultiReader(readers);
+    assertEquals(3, reader.leaves().size());
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+    final int numHits = 3;
+    final Sort sort = new Sort(new SortField("long", SortField.Type.LONG, reverse));
+    final CollectorManager<TopFieldCollector, TopFieldDocs> manager =
+        TopFieldCollector.createSharedManager(sort, numHits, null, numHits);
+    final Weight weight =
+        searcher.createWeight(searcher.rewrite(new MatchAllDocsQuery()), ScoreMode.TOP_DOCS, 1);
+
+    final TopFieldCollector first = manager.newCollector();
+    searcher.search(reader.leaves().subList(0, 1), weight, first);
+    // the bottom that the second slice got on its first leaf must still be used on the second one
+    final TopFieldCollector second = manager.newCollector();
+    searcher.search(reader.leaves().subList(1, 3), weight, second);
+    assertTrue("hits=" + second.getTotalHits(), second.getTotalHits() <= numDocs + 1);
+
+    TopFieldDocs topDocs = manager.reduce(List.of(first, second));
+    for (int i = 0; i < numHits; i++) {
+      FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+      final long expected = reverse ? 10 * numDocs - i : -10 * numDocs + i;
+      assertEquals(expected, ((Number) fieldDoc.fields[0]).longValue());
+    }
+
+    reader.close();
+    IOUtils.close(dirs);
+  }
+
   /**
    * Test that a search with sort on [_doc, other fields] across multiple indices doesn't miss any
    * documents.
@@ -762,6 +929,259 @@ public class TestSortOptimization extends LuceneTestCase {
     dir.close();
   }
 
+  public void testStringSortOptimization() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      if ((i % 500) != 0) { // miss values on every 500th document
+        BytesRef value = new BytesRef(String.format(Locale.ROOT, "%06d", i));
+        doc.add(new SortedDocValuesField("my_field", value));
+        doc.add(new StringField("my_field", value, Field.Store.NO));
+      }
+      writer.addDocument(doc);
+      if (i == 7000) writer.flush(); // two segments
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = newSearcher(reader, random().nextBoolean(), random().nextBoolean());
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    { // simple ascending sort, missing values sort last
+      final SortField sortField = new SortField("my_field", SortField.Type.STRING);
+      sortField.setMissingValue(SortField.STRING_LAST);
+      final TopFieldCollector collector =
+          TopFieldCollector.create(new Sort(sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(numHits, topDocs.scoreDocs.length);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(String.format(Locale.ROOT, "%06d", i + 1), toString(fieldDoc.fields[0]));
+      }
+      assertNonCompetitiveHitsAreSkipped(topDocs.totalHits.value, numDocs);
+    }
+
+    { // reverse sort, missing values sort first in natural order, so last in reverse order
+      final SortField sortField = new SortField("my_field", SortField.Type.STRING, true);
+      final TopFieldCollector collector =
+          TopFieldCollector.create(new Sort(sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(numHits, topDocs.scoreDocs.length);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        int expected = numDocs - 1 - i - ((numDocs - 1 - i) % 500 == 0 ? 1 : 0);
+        assertEquals(String.format(Locale.ROOT, "%06d", expected), toString(fieldDoc.fields[0]));
+      }
+      assertNonCompetitiveHitsAreSkipped(topDocs.totalHits.value, numDocs);
+    }
+
+    { // paging sort with after
+      final SortField sortField = new SortField("my_field", SortField.Type.STRING);
+      sortField.setMissingValue(SortField.STRING_LAST);
+      FieldDoc after = new FieldDoc(42, Float.NaN, new Object[] {new BytesRef("000042")});
+      final TopFieldCollector collector =
+          TopFieldCollector.create(new Sort(sortField), numHits, after, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(numHits, topDocs.scoreDocs.length);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(String.format(Locale.ROOT, "%06d", 43 + i), toString(fieldDoc.fields[0]));
+      }
+      assertNonCompetitiveHitsAreSkipped(topDocs.totalHits.value, numDocs);
+    }
+
+    { // test that documents are not skipped while missing values are competitive
+      final SortField sortField = new SortField("my_field", SortField.Type.STRING);
+      sortField.setMissingValue(SortField.STRING_FIRST);
+      final TopFieldCollector collector =
+          TopFieldCollector.create(new Sort(sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(numHits, topDocs.scoreDocs.length);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertNull(fieldDoc.fields[0]);
+      }
+      // only once the queue is full of missing values, no other document is competitive
+      assertTrue(topDocs.totalHits.value > 500 * (numHits - 1));
+      assertNonCompetitiveHitsAreSkipped(topDocs.totalHits.value, numDocs);
+    }
+
+    { // test that if the string field is a secondary sort, no optimization is run
+      final SortField sortField = new SortField("my_field", SortField.Type.STRING);
+      sortField.setMissingValue(SortField.STRING_LAST);
+      final TopFieldCollector collector =
+          TopFieldCollector.create(
+              new Sort(FIELD_SCORE, sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(numHits, topDocs.scoreDocs.length);
+      assertEquals(numDocs, topDocs.totalHits.value);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  /**
+   * test that a string field that is not indexed, or indexed with frequencies, is still sorted
+   * correctly although no optimization will be run
+   */
+  public void testStringSortOptimizationOnFieldNotIndexedAsKeyword() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      BytesRef value = new BytesRef(String.format(Locale.ROOT, "%06d", i));
+      doc.add(new SortedDocValuesField("my_field", value));
+      // analyzed differently than the doc value
+      doc.add(new TextField("my_field", "value " + (numDocs - i), Field.Store.NO));
+      doc.add(new SortedDocValuesField("not_indexed", value));
+      writer.addDocument(doc);
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = newSearcher(reader);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    for (String field : new String[] {"my_field", "not_indexed"}) {
+      final SortField sortField = new SortField(field, SortField.Type.STRING);
+      final TopFieldCollector collector =
+          TopFieldCollector.create(new Sort(sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(numHits, topDocs.scoreDocs.length);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(String.format(Locale.ROOT, "%06d", i), toString(fieldDoc.fields[0]));
+      }
+      assertEquals(numDocs, topDocs.totalHits.value);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testSortedSetSortOptimization() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      // the min value increases with the doc ID, and the max value decreases with it
+      for (int value : new int[] {i, 3 * numDocs - i}) {
+        BytesRef bytes = new BytesRef(String.format(Locale.ROOT, "%07d", value));
+        doc.add(new SortedSetDocValuesField("my_field", bytes));
+        doc.add(new StringField("my_field", bytes, Field.Store.NO));
+      }
+      writer.addDocument(doc);
+      if (i == 7000) writer.flush(); // two segments
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = newSearcher(reader, random().nextBoolean(), random().nextBoolean());
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    for (boolean reverse : new boolean[] {false, true}) {
+      final SortField sortField =
+          new SortedSetSortField(
+              "my_field",
+              reverse,
+              reverse ? SortedSetSelector.Type.MAX : SortedSetSelector.Type.MIN);
+      final TopFieldCollector collector =
+          TopFieldCollector.create(new Sort(sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(numHits, topDocs.scoreDocs.length);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        int expected = reverse ? 3 * numDocs - i : i;
+        assertEquals(String.format(Locale.ROOT, "%07d", expected), toString(fieldDoc.fields[0]));
+      }
+      assertNonCompetitiveHitsAreSkipped(topDocs.totalHits.value, numDocs);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandomString() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    List<String> values = new ArrayList<>();
+    int numDocs = 10000 + random().nextInt(10000);
+    int numValues = TestUtil.nextInt(random(), 1, numDocs);
+    int pendingDocs = 0;
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      if (random().nextInt(20) != 0) {
+        String value = Integer.toString(random().nextInt(numValues), Character.MAX_RADIX);
+        values.add(value);
+        doc.add(new SortedDocValuesField("value", new BytesRef(value)));
+        doc.add(new StringField("value", value, Field.Store.NO));
+      } else {
+        values.add(null);
+      }
+      writer.addDocument(doc);
+      pendingDocs++;
+      if (pendingDocs > 500 && random().nextInt(100) <= 5) {
+        pendingDocs = 0;
+        writer.flush();
+      }
+    }
+    writer.flush();
+    IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = newSearcher(reader, random().nextBoolean(), random().nextBoolean());
+
+    boolean reverse = random().nextBoolean();
+    boolean missingLast = random().nextBoolean();
+    SortField sortField = new SortField("value", SortField.Type.STRING, reverse);
+    sortField.setMissingValue(missingLast ? SortField.STRING_LAST : SortField.STRING_FIRST);
+    Comparator<String> comparator =
+        missingLast
+            ? Comparator.nullsLast(Comparator.<String>naturalOrder())
+            : Comparator.nullsFirst(Comparator.<String>naturalOrder());
+    if (reverse) {
+      comparator = comparator.reversed();
+    }
+    values.sort(comparator);
+    Query query = new MatchAllDocsQuery();
+    if (random().nextBoolean()) {
+      query = new DocValuesFieldExistsQuery("value");
+      values.removeIf(Objects::isNull);
+    }
+
+    int visitedHits = 0;
+    ScoreDoc after = null;
+    while (visitedHits < values.size()) {
+      int batch = 1 + random().nextInt(100);
+      TopDocs topDocs = searcher.searchAfter(after, query, batch, new Sort(sortField));
+      int expectedHits = Math.min(values.size() - visitedHits, batch);
+      assertEquals(expectedHits, topDocs.scoreDocs.length);
+      after = topDocs.scoreDocs[expectedHits - 1];
+      for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(values.get(visitedHits), toString(fieldDoc.fields[0]));
+        visitedHits++;
+      }
+    }
+    reader.close();
+    dir.close();
+  }
+
+  private static String toString(Object value) {
+    return value == null ? null : ((BytesRef) value).utf8ToString();
+  }
+
   private void assertNonCompetitiveHitsAreSkipped(long collectedHits, long numDocs) {
     if (collectedHits >= numDocs) {
       fail(
@@ -27,12 +27,15 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
@@ -292,6 +295,109 @@ public class TestTermInSetQuery extends LuceneTestCase {
     assertEquals("field:([ff fe])", query.toString());
   }
 
+  public void testIgnoresDocValues() throws IOException {
+    // postings and doc values of the same field disagree: a TermInSetQuery must only use postings,
+    // even when it is intersected with a selective clause
+    Directory dir = newDirectory();
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", newBytesRef(Integer.toString(i)), Store.NO));
+      doc.add(new SortedDocValuesField("id", newBytesRef(Integer.toString(i + 1))));
+      if (i % 100 == 0) {
+        doc.add(new StringField("lead", "yes", Store.NO));
+      }
+      iw.addDocument(doc);
+    }
+    iw.forceMerge(1);
+    final IndexReader reader = iw.getReader();
+    iw.close();
+    final IndexSearcher searcher = newSearcher(reader);
+
+    final List<BytesRef> queryTerms = new ArrayList<>();
+    for (int i = 0; i < numDocs; i += 2) {
+      queryTerms.add(newBytesRef(Integer.toString(i)));
+    }
+    final Query lead = new TermQuery(new Term("lead", "yes"));
+    final Query query =
+        new BooleanQuery.Builder()
+            .add(lead, Occur.FILTER)
+            .add(new TermInSetQuery("id", queryTerms), Occur.FILTER)
+            .build();
+    // only even docs that have the lead term
+    assertEquals((numDocs + 99) / 100, searcher.count(query));
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testIndexOrDocValues() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
+    final boolean multiValued = random().nextBoolean();
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      BytesRef id = newBytesRef(Integer.toString(i));
+      doc.add(new StringField("id", id, Store.NO));
+      if (multiValued) {
+        doc.add(new SortedSetDocValuesField("id", id));
+        BytesRef otherId = newBytesRef(Integer.toString(numDocs + i));
+        doc.add(new StringField("id", otherId, Store.NO));
+        doc.add(new SortedSetDocValuesField("id", otherId));
+      } else {
+        doc.add(new SortedDocValuesField("id", id));
+      }
+      if (i % 100 == 0) {
+        doc.add(new StringField("lead", "yes", Store.NO));
+      }
+      iw.addDocument(doc);
+    }
+    iw.forceMerge(1);
+    final IndexReader reader = iw.getReader();
+    iw.close();
+    final IndexSearcher searcher = newSearcher(reader);
+    searcher.setQueryCache(null); // check how the query is executed, not how it is cached
+
+    final List<BytesRef> queryTerms = new ArrayList<>();
+    final int numQueryTerms = TestUtil.nextInt(random(), 100, 500);
+    for (int i = 0; i < numQueryTerms; ++i) {
+      queryTerms.add(newBytesRef(Integer.toString(random().nextInt(2 * numDocs))));
+    }
+    final Query query =
+        new IndexOrDocValuesQuery(
+            new TermInSetQuery("id", queryTerms),
+            SortedSetDocValuesField.newSlowSetQuery("id", queryTerms.toArray(new BytesRef[0])));
+
+    // the doc values are only used when the lead clause is selective
+    final Weight weight =
+        searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1);
+    final LeafReaderContext context = getOnlyLeafReader(reader).getContext();
+    final ScorerSupplier scorerSupplier = weight.scorerSupplier(context);
+    assertTrue(scorerSupplier.cost() >= numQueryTerms / 2);
+    // a lead cost that is 16x less than the cost is always selective enough to use doc values
+    assertNotNull(scorerSupplier.get(scorerSupplier.cost() / 16).twoPhaseIterator());
+    assertNull(weight.scorerSupplier(context).get(Long.MAX_VALUE).twoPhaseIterator());
+
+    final BooleanQuery.Builder disjunction = new BooleanQuery.Builder();
+    for (BytesRef term : queryTerms) {
+      disjunction.add(new TermQuery(new Term("id", term)), Occur.SHOULD);
+    }
+    final Query lead = new TermQuery(new Term("lead", "yes"));
+    final Query q1 =
+        new BooleanQuery.Builder()
+            .add(lead, Occur.FILTER)
+            .add(disjunction.build(), Occur.FILTER)
+            .build();
+    final Query q2 =
+        new BooleanQuery.Builder().add(lead, Occur.FILTER).add(query, Occur.FILTER).build();
+    assertSameMatches(searcher, q1, q2, false);
+
+    reader.close();
+    dir.close();
+  }
+
   public void testIsConsideredCostlyByQueryCache() throws IOException {
     TermInSetQuery query = new TermInSetQuery("foo", newBytesRef("bar"), newBytesRef("baz"));
     UsageTrackingQueryCachingPolicy policy = new UsageTrackingQueryCachingPolicy();
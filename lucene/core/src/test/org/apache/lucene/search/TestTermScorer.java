@@ -23,6 +23,7 @@ import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterLeafReader;
@@ -36,6 +37,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.similarities.ClassicSimilarity;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.TestUtil;
 
@@ -265,4 +267,86 @@ public class TestTermScorer extends LuceneTestCase {
     reader.close();
     dir.close();
   }
+
+  public void testNextDocsAndScores() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      int numValues = random().nextInt(1 << random().nextInt(5));
+      int start = random().nextInt(10);
+      for (int j = 0; j < numValues; ++j) {
+        int freq = TestUtil.nextInt(random(), 1, 1 << random().nextInt(3));
+        for (int k = 0; k < freq; ++k) {
+          doc.add(new TextField("foo", Integer.toString(start + j), Store.NO));
+        }
+      }
+      doc.add(new StringField("id", Integer.toString(i), Store.NO));
+      w.addDocument(doc);
+    }
+    for (int i = 0; i < numDocs / 10; ++i) {
+      w.deleteDocuments(new Term("id", Integer.toString(random().nextInt(numDocs))));
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    // newSearcher would wrap term scorers
+    IndexSearcher searcher = new IndexSearcher(reader);
+
+    for (int iter = 0; iter < 15; ++iter) {
+      Query query = new TermQuery(new Term("foo", Integer.toString(iter)));
+      ScoreMode scoreMode = random().nextBoolean() ? ScoreMode.COMPLETE : ScoreMode.TOP_SCORES;
+      Weight weight = searcher.createWeight(query, scoreMode, 1);
+      for (LeafReaderContext context : reader.leaves()) {
+        Scorer expected = weight.scorer(context);
+        if (expected == null) {
+          continue;
+        }
+        TermScorer actual = (TermScorer) weight.scorer(context);
+        float minCompetitiveScore = 0;
+        if (scoreMode == ScoreMode.TOP_SCORES && random().nextBoolean()) {
+          // docs from blocks of impacts that are not competitive may be skipped
+          expected.advanceShallow(0);
+          float maxScore = expected.getMaxScore(DocIdSetIterator.NO_MORE_DOCS);
+          minCompetitiveScore = random().nextFloat() * maxScore;
+          actual.setMinCompetitiveScore(minCompetitiveScore);
+        }
+        Bits liveDocs = context.reader().getLiveDocs();
+        DocAndScoreBuffer buffer = new DocAndScoreBuffer();
+
+        expected.iterator().nextDoc();
+        actual.iterator().nextDoc();
+        while (actual.docID() != DocIdSetIterator.NO_MORE_DOCS) {
+          int upTo = actual.docID() + random().nextInt(500);
+          if (random().nextBoolean()) {
+            upTo = DocIdSetIterator.NO_MORE_DOCS;
+          }
+          actual.nextDocsAndScores(upTo, liveDocs, buffer);
+          for (int i = 0; i < buffer.size; ++i) {
+            assertSkippedDocs(expected, liveDocs, buffer.docs[i], minCompetitiveScore);
+            assertEquals(expected.docID(), buffer.docs[i]);
+            assertEquals(expected.score(), buffer.scores[i], 0f);
+            expected.iterator().nextDoc();
+          }
+          if (buffer.size == 0) {
+            assertSkippedDocs(expected, liveDocs, upTo, minCompetitiveScore);
+          }
+        }
+        assertSkippedDocs(expected, liveDocs, DocIdSetIterator.NO_MORE_DOCS, minCompetitiveScore);
+      }
+    }
+    reader.close();
+    dir.close();
+  }
+
+  /** Advance {@code scorer} to {@code target}, checking that the docs it skips are not hits. */
+  private static void assertSkippedDocs(
+      Scorer scorer, Bits liveDocs, int target, float minCompetitiveScore) throws IOException {
+    while (scorer.docID() < target) {
+      if (liveDocs == null || liveDocs.get(scorer.docID())) {
+        assertTrue(scorer.score() < minCompetitiveScore);
+      }
+      scorer.iterator().nextDoc();
+    }
+  }
 }
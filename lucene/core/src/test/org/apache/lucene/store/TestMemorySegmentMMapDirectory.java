@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.util.LuceneTestCase.SuppressFileSystems;
+
+/** Tests MMapDirectory with files mapped as memory segments */
+// memory segments can only map files of the default file system
+@SuppressFileSystems("*")
+public class TestMemorySegmentMMapDirectory extends BaseDirectoryTestCase {
+
+  @Override
+  protected Directory getDirectory(Path path) throws IOException {
+    MMapDirectory m = new MMapDirectory(path);
+    m.setPreload(random().nextBoolean());
+    m.setUseMemorySegments(true);
+    return m;
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    assumeTrue("memory segments are not supported", MMapDirectory.MEMORY_SEGMENTS_SUPPORTED);
+  }
+
+  public void testInputImplementation() throws Exception {
+    try (MMapDirectory dir = new MMapDirectory(createTempDir("testInputImplementation"))) {
+      assertTrue(dir.getUseMemorySegments());
+      try (IndexOutput out = dir.createOutput("test", newIOContext(random()))) {
+        out.writeLong(42L);
+      }
+      try (IndexInput in = dir.openInput("test", newIOContext(random()))) {
+        assertFalse(in instanceof ByteBufferIndexInput);
+        assertTrue(in instanceof MemoryMappedIndexInput);
+        assertEquals(42L, in.readLong());
+        assertEquals(42L, ((MemoryMappedIndexInput) in).viewOrNull(0, Long.BYTES).getLong());
+      }
+      dir.setUseMemorySegments(false);
+      try (IndexInput in = dir.openInput("test", newIOContext(random()))) {
+        assertTrue(in instanceof ByteBufferIndexInput);
+        assertEquals(42L, in.readLong());
+      }
+    }
+  }
+
+  public void testAdviseMapping() throws Exception {
+    final AtomicLong advisedBytes = new AtomicLong();
+    try (MMapDirectory dir =
+        new MMapDirectory(createTempDir("testAdviseMapping")) {
+          @Override
+          protected void adviseMapping(ByteBuffer region, IOContext context) {
+            assertTrue(region.isDirect());
+            assertTrue(context.randomAccess);
+            advisedBytes.addAndGet(region.capacity());
+          }
+        }) {
+      try (IndexOutput out = dir.createOutput("test", IOContext.DEFAULT)) {
+        out.writeBytes(new byte[12345], 12345);
+      }
+      dir.openInput("test", IOContext.RANDOM).close();
+      assertEquals(12345, advisedBytes.get());
+    }
+  }
+
+  public void testAdviseMappingFailure() throws Exception {
+    final IOException failure = new IOException("advice rejected");
+    try (MMapDirectory dir =
+        new MMapDirectory(createTempDir("testAdviseMappingFailure")) {
+          @Override
+          protected void adviseMapping(ByteBuffer region, IOContext context) throws IOException {
+            throw failure;
+          }
+        }) {
+      try (IndexOutput out = dir.createOutput("test", IOContext.DEFAULT)) {
+        out.writeBytes(new byte[1234], 1234);
+      }
+      // advice failures are not reported as mapping failures
+      IOException e =
+          expectThrows(IOException.class, () -> dir.openInput("test", IOContext.RANDOM));
+      assertSame(failure, e);
+    }
+  }
+
+  public void testCloseWhileReading() throws Exception {
+    // unlike the unmap hack, closing memory segments is safe while other threads read them
+    try (Directory dir = getDirectory(createTempDir("testCloseWhileReading"))) {
+      try (IndexOutput out = dir.createOutput("test", IOContext.DEFAULT)) {
+        for (int i = 0; i < 1024 * 1024; i++) {
+          out.writeInt(i);
+        }
+      }
+      for (int iter = 0; iter < 10; iter++) {
+        IndexInput in = dir.openInput("test", IOContext.DEFAULT);
+        IndexInput clone = in.clone();
+        final byte[] accum = new byte[4 * 1024 * 1024];
+        final CountDownLatch started = new CountDownLatch(1);
+        Thread t =
+            new Thread(
+                () -> {
+                  started.countDown();
+                  try {
+                    while (true) {
+                      clone.seek(0);
+                      clone.readBytes(accum, 0, accum.length);
+                    }
+                  } catch (@SuppressWarnings("unused") AlreadyClosedException expected) {
+                    // OK
+                  } catch (IOException e) {
+                    throw new AssertionError(e);
+                  }
+                });
+        t.start();
+        started.await();
+        in.close();
+        t.join();
+        expectThrows(AlreadyClosedException.class, clone::readByte);
+      }
+    }
+  }
+}
@@ -17,9 +17,13 @@
 package org.apache.lucene.store;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import org.apache.lucene.util.TestUtil;
 import org.junit.Ignore;
 
 /** Tests MMapDirectory */
@@ -40,6 +44,54 @@ public class TestMmapDirectory extends BaseDirectoryTestCase {
     assumeTrue(MMapDirectory.UNMAP_NOT_SUPPORTED_REASON, MMapDirectory.UNMAP_SUPPORTED);
   }
 
+  public void testAdviseMapping() throws Exception {
+    final List<Integer> regionSizes = new ArrayList<>();
+    final List<IOContext> contexts = new ArrayList<>();
+    Path path = createTempDir("testAdviseMapping");
+    try (MMapDirectory dir =
+        new MMapDirectory(path, 1 << TestUtil.nextInt(random(), 4, 10)) {
+          @Override
+          protected void adviseMapping(ByteBuffer region, IOContext context) {
+            assertTrue(region.isDirect());
+            regionSizes.add(region.capacity());
+            contexts.add(context);
+          }
+        }) {
+      int length = random().nextInt(10000);
+      try (IndexOutput out = dir.createOutput("test", IOContext.DEFAULT)) {
+        for (int i = 0; i < length; i++) {
+          out.writeByte((byte) i);
+        }
+      }
+      dir.openInput("test", IOContext.RANDOM).close();
+      assertEquals(length, regionSizes.stream().mapToInt(Integer::intValue).sum());
+      for (IOContext context : contexts) {
+        assertTrue(context.randomAccess);
+      }
+    }
+  }
+
+  public void testAdviseMappingFailure() throws Exception {
+    final IOException failure = new IOException("advice rejected");
+    try (MMapDirectory dir =
+        new MMapDirectory(
+            createTempDir("testAdviseMappingFailure"), 1 << TestUtil.nextInt(random(), 4, 10)) {
+          @Override
+          protected void adviseMapping(ByteBuffer region, IOContext context) throws IOException {
+            throw failure;
+          }
+        }) {
+      dir.setUseMemorySegments(false);
+      try (IndexOutput out = dir.createOutput("test", IOContext.DEFAULT)) {
+        out.writeBytes(new byte[1234], 1234);
+      }
+      // advice failures are not reported as mapping failures
+      IOException e =
+          expectThrows(IOException.class, () -> dir.openInput("test", IOContext.RANDOM));
+      assertSame(failure, e);
+    }
+  }
+
   @Ignore(
       "This test is for JVM testing purposes. There are no guarantees that it may not fail with SIGSEGV!")
   public void testAceWithThreads() throws Exception {
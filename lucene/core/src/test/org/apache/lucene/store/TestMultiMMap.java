@@ -16,7 +16,10 @@
  */
 package org.apache.lucene.store;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Path;
 import org.apache.lucene.util.BytesRef;
 
@@ -30,7 +33,10 @@ public class TestMultiMMap extends BaseChunkedDirectoryTestCase {
 
   @Override
   protected Directory getDirectory(Path path, int maxChunkSize) throws IOException {
-    return new MMapDirectory(path, maxChunkSize);
+    MMapDirectory dir = new MMapDirectory(path, maxChunkSize);
+    // memory segments ignore the chunk size
+    dir.setUseMemorySegments(false);
+    return dir;
   }
 
   @Override
@@ -116,6 +122,46 @@ public class TestMultiMMap extends BaseChunkedDirectoryTestCase {
     mmapDir.close();
   }
 
+  public void testViewOrNull() throws Exception {
+    for (int i = 2; i < 12; i++) {
+      final int chunkSize = 1 << i;
+      Directory mmapDir = getDirectory(createTempDir("testViewOrNull"), chunkSize);
+      IndexOutput io = mmapDir.createOutput("bytes", newIOContext(random()));
+      int size = random().nextInt(chunkSize * 2) + 3;
+      byte[] bytes = new byte[size];
+      random().nextBytes(bytes);
+      io.writeBytes(bytes, bytes.length);
+      io.close();
+      ByteBufferIndexInput ii =
+          (ByteBufferIndexInput) mmapDir.openInput("bytes", newIOContext(random()));
+      // check a slice, whose offset shifts the chunk boundaries
+      int offset = random().nextInt(3);
+      ByteBufferIndexInput slice = ii.slice("slice", offset, size - offset);
+      for (int iter = 0; iter < 10; iter++) {
+        int pos = random().nextInt(size - offset);
+        int len = random().nextInt(size - offset - pos + 1);
+        ByteBuffer view = slice.viewOrNull(pos, len);
+        long start = offset + pos;
+        if (start / chunkSize != (start + len - 1) / chunkSize && len > 0) {
+          // the range spans two chunks
+          assertNull(view);
+        } else {
+          assertNotNull(view);
+          assertEquals(ByteOrder.LITTLE_ENDIAN, view.order());
+          assertEquals(len, view.remaining());
+          byte[] actual = new byte[len];
+          view.get(actual);
+          assertEquals(new BytesRef(bytes, offset + pos, len), new BytesRef(actual));
+        }
+      }
+      expectThrows(EOFException.class, () -> slice.viewOrNull(size - offset, 1));
+      expectThrows(IllegalArgumentException.class, () -> slice.viewOrNull(-1, 1));
+      ii.close();
+      expectThrows(AlreadyClosedException.class, () -> slice.viewOrNull(0, 1));
+      mmapDir.close();
+    }
+  }
+
   // test has asserts specific to mmap impl...
   public void testImplementations() throws Exception {
     for (int i = 2; i < 12; i++) {
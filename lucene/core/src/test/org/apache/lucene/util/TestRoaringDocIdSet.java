@@ -35,4 +35,20 @@ public class TestRoaringDocIdSet extends BaseDocIdSetTestCase<RoaringDocIdSet> {
     super.assertEquals(numBits, ds1, ds2);
     assertEquals(ds1.cardinality(), ds2.cardinality());
   }
+
+  public void testClusteredSets() throws IOException {
+    final int numBits = TestUtil.nextInt(random(), 1 << 16, 1 << 20);
+    final BitSet set = new BitSet(numBits);
+    final int numRuns = TestUtil.nextInt(random(), 1, 100);
+    for (int i = 0; i < numRuns; ++i) {
+      final int start = random().nextInt(numBits);
+      set.set(start, Math.min(numBits, start + random().nextInt(numBits / 10)));
+    }
+    final RoaringDocIdSet copy = copyOf(set, numBits);
+    assertEquals(numBits, set, copy);
+    // every run takes at most 4 bytes, plus the per-block overhead
+    final long maxRamBytesUsed = 4 * numRuns + 64 * (1 + (numBits >>> 16));
+    assertTrue(
+        copy.ramBytesUsed() + " > " + maxRamBytesUsed, copy.ramBytesUsed() <= maxRamBytesUsed);
+  }
 }
@@ -16,7 +16,10 @@
  */
 package org.apache.lucene.util;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Random;
+import org.apache.lucene.index.VectorSimilarityFunction;
 
 public class TestVectorUtil extends LuceneTestCase {
 
@@ -71,6 +74,90 @@ public class TestVectorUtil extends LuceneTestCase {
     assertEquals(4 * l2(v), VectorUtil.squareDistance(u, v), DELTA);
   }
 
+  public void testBasicByteDotProduct() {
+    assertEquals(-235, VectorUtil.dotProduct(new byte[] {1, 2, -3}, new byte[] {-10, 0, 75}));
+    assertEquals(
+        127 * 127 + 128 * 127,
+        VectorUtil.dotProduct(new byte[] {127, -128}, new byte[] {127, -127}));
+  }
+
+  public void testRandomByteDotProduct() {
+    byte[] u = randomByteVector(), v = randomByteVector(u.length);
+    int expected = 0;
+    for (int i = 0; i < u.length; i++) {
+      expected += u[i] * v[i];
+    }
+    assertEquals(expected, VectorUtil.dotProduct(u, v));
+    assertEquals(VectorUtil.dotProduct(v, u), VectorUtil.dotProduct(u, v));
+  }
+
+  public void testBasicByteSquareDistance() {
+    assertEquals(12, VectorUtil.squareDistance(new byte[] {1, 2, 3}, new byte[] {-1, 0, 5}));
+    assertEquals(255 * 255, VectorUtil.squareDistance(new byte[] {127, 0}, new byte[] {-128, 0}));
+  }
+
+  public void testRandomByteSquareDistance() {
+    // the square distance of a vector with itself is 0, and is symmetric
+    byte[] u = randomByteVector(), v = randomByteVector(u.length);
+    assertEquals(0, VectorUtil.squareDistance(u, u));
+    assertEquals(VectorUtil.squareDistance(v, u), VectorUtil.squareDistance(u, v));
+  }
+
+  public void testByteVectorsThrowForDimensionMismatch() {
+    byte[] v = {1, 0, 0}, u = {0, 1};
+    expectThrows(IllegalArgumentException.class, () -> VectorUtil.dotProduct(u, v));
+    expectThrows(IllegalArgumentException.class, () -> VectorUtil.squareDistance(u, v));
+  }
+
+  public void testByteSimilarityFunctions() {
+    BytesRef u = new BytesRef(new byte[] {1, 2, -3}), v = new BytesRef(new byte[] {-10, 0, 75});
+    BytesRef w = new BytesRef(new byte[] {-1, 0, 5});
+    assertEquals(72f, VectorSimilarityFunction.EUCLIDEAN.compare(u, w), 0);
+    assertEquals(
+        -235f / (3 * (1 << 14)), VectorSimilarityFunction.DOT_PRODUCT.compare(u, v), DELTA);
+    // the scores of the most and least similar vectors are within [0, 1]
+    BytesRef min = new BytesRef(new byte[] {-128, -128}), max = new BytesRef(new byte[] {127, 127});
+    VectorSimilarityFunction dotProduct = VectorSimilarityFunction.DOT_PRODUCT;
+    assertEquals(1f, dotProduct.convertToScore(dotProduct.compare(min, min)), DELTA);
+    assertEquals(0f, dotProduct.convertToScore(dotProduct.compare(min, max)), 0.01);
+    assertTrue(dotProduct.convertToScore(dotProduct.compare(min, max)) >= 0);
+  }
+
+  public void testToBytesRef() {
+    assertEquals(
+        new BytesRef(new byte[] {-128, 0, 3, 127}),
+        VectorUtil.toBytesRef(new float[] {-128, 0.5f, 3.9f, 127}));
+    expectThrows(IllegalArgumentException.class, () -> VectorUtil.toBytesRef(new float[] {128}));
+    expectThrows(
+        IllegalArgumentException.class, () -> VectorUtil.toBytesRef(new float[] {0, -129}));
+  }
+
+  public void testByteBufferSimilarities() {
+    float[] u = randomVector(), v = randomVector(u.length);
+    ByteBuffer buffer = toByteBuffer(v, random().nextBoolean());
+    assertEquals(VectorUtil.dotProduct(u, v), VectorUtil.dotProduct(u, buffer), DELTA);
+    assertEquals(VectorUtil.squareDistance(u, v), VectorUtil.squareDistance(u, buffer), DELTA);
+    // the position of the buffer is not changed
+    assertEquals(0, buffer.position());
+    assertEquals(
+        VectorSimilarityFunction.EUCLIDEAN.compare(u, v),
+        VectorSimilarityFunction.EUCLIDEAN.compare(u, buffer),
+        DELTA);
+  }
+
+  public void testByteBufferThrowsForDimensionMismatch() {
+    float[] u = {0, 1};
+    ByteBuffer v = toByteBuffer(new float[] {1, 0, 0}, false);
+    expectThrows(IllegalArgumentException.class, () -> VectorUtil.dotProduct(u, v));
+    expectThrows(IllegalArgumentException.class, () -> VectorUtil.squareDistance(u, v));
+  }
+
+  public void testByteBufferThrowsForBigEndian() {
+    float[] u = {0, 1};
+    ByteBuffer v = toByteBuffer(u, false).order(ByteOrder.BIG_ENDIAN);
+    expectThrows(IllegalArgumentException.class, () -> VectorUtil.dotProduct(u, v));
+  }
+
   public void testNormalize() {
     float[] v = randomVector();
     v[random().nextInt(v.length)] = 1; // ensure vector is not all zeroes
@@ -99,10 +186,27 @@ public class TestVectorUtil extends LuceneTestCase {
     return u;
   }
 
+  private static ByteBuffer toByteBuffer(float[] v, boolean direct) {
+    int size = v.length * Float.BYTES;
+    ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    buffer.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(v);
+    return buffer;
+  }
+
   private static float[] randomVector() {
     return randomVector(random().nextInt(100) + 1);
   }
 
+  private static byte[] randomByteVector() {
+    return randomByteVector(random().nextInt(100) + 1);
+  }
+
+  private static byte[] randomByteVector(int dim) {
+    byte[] v = new byte[dim];
+    random().nextBytes(v);
+    return v;
+  }
+
   public static float[] randomVector(int dim) {
     float[] v = new float[dim];
     Random random = random();
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestHuffman extends LuceneTestCase {
+
+  private static byte[] encodeAndDecode(byte[] bytes, int off, int len) throws IOException {
+    int[] histogram = new int[256];
+    Huffman.updateHistogram(histogram, bytes, off, len);
+    ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+    Huffman encoder = new Huffman();
+    encoder.computeCodes(histogram);
+    encoder.writeCodes(out);
+    long codesLength = out.size();
+    encoder.encode(bytes, off, len, out);
+    int encodedLength = Math.toIntExact(out.size() - codesLength);
+    assertEquals(encoder.encodedLength(histogram), out.size());
+    out.writeInt(random().nextInt()); // garbage after the encoded bytes
+
+    ByteArrayDataInput in = new ByteArrayDataInput(out.toArrayCopy());
+    Huffman decoder = new Huffman();
+    decoder.readCodes(in);
+    byte[] restored = new byte[len + 2];
+    decoder.decode(in, encodedLength, restored, 1, len);
+    assertEquals(codesLength + encodedLength, in.getPosition());
+    assertArrayEquals(
+        Arrays.copyOfRange(bytes, off, off + len), Arrays.copyOfRange(restored, 1, len + 1));
+    return restored;
+  }
+
+  public void testEmpty() throws IOException {
+    encodeAndDecode(new byte[0], 0, 0);
+  }
+
+  public void testSingleSymbol() throws IOException {
+    byte[] bytes = new byte[TestUtil.nextInt(random(), 1, 1000)];
+    Arrays.fill(bytes, (byte) random().nextInt());
+    encodeAndDecode(bytes, 0, bytes.length);
+  }
+
+  public void testRandom() throws IOException {
+    for (int iter = 0; iter < 100; ++iter) {
+      int numSymbols = TestUtil.nextInt(random(), 1, 256);
+      byte[] bytes = new byte[TestUtil.nextInt(random(), 1, 10000)];
+      for (int i = 0; i < bytes.length; ++i) {
+        bytes[i] = (byte) random().nextInt(numSymbols);
+      }
+      int off = random().nextInt(bytes.length);
+      encodeAndDecode(bytes, off, random().nextInt(bytes.length - off + 1));
+    }
+  }
+
+  public void testSkewed() throws IOException {
+    // Fibonacci-like frequencies produce codes that are longer than the maximum code length
+    int[] freqs = new int[30];
+    freqs[0] = freqs[1] = 1;
+    for (int i = 2; i < freqs.length; ++i) {
+      freqs[i] = freqs[i - 1] + freqs[i - 2];
+    }
+    int length = 0;
+    for (int freq : freqs) {
+      length += freq;
+    }
+    byte[] bytes = new byte[length];
+    for (int i = 0, upto = 0; i < freqs.length; ++i) {
+      Arrays.fill(bytes, upto, upto + freqs[i], (byte) i);
+      upto += freqs[i];
+    }
+    encodeAndDecode(bytes, 0, bytes.length);
+  }
+
+  public void testCompression() throws IOException {
+    byte[] bytes = new byte[10000];
+    for (int i = 0; i < bytes.length; ++i) {
+      bytes[i] = (byte) ('a' + Math.min(random().nextInt(26), random().nextInt(26)));
+    }
+    int[] histogram = new int[256];
+    Huffman.updateHistogram(histogram, bytes, 0, bytes.length);
+    ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+    Huffman huffman = new Huffman();
+    huffman.computeCodes(histogram);
+    huffman.writeCodes(out);
+    huffman.encode(bytes, 0, bytes.length, out);
+    // 26 symbols need less than 5 bits on average
+    assertTrue(out.size() + " >= " + bytes.length, out.size() < bytes.length * 5 / 8);
+  }
+
+  public void testCorruptCodes() {
+    byte[] codes = new byte[128];
+    // two codes of length 1 and one of length 2 don't make a prefix code
+    codes[0] = 1 | (1 << 4);
+    codes[1] = 2;
+    expectThrows(
+        CorruptIndexException.class, () -> new Huffman().readCodes(new ByteArrayDataInput(codes)));
+
+    codes[0] = 12;
+    expectThrows(
+        CorruptIndexException.class, () -> new Huffman().readCodes(new ByteArrayDataInput(codes)));
+  }
+}
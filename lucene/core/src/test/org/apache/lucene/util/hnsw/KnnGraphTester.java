@@ -426,7 +426,9 @@ public class KnnGraphTester {
     TopDocs[] results = new TopDocs[reader.leaves().size()];
     for (LeafReaderContext ctx : reader.leaves()) {
       Bits liveDocs = ctx.reader().getLiveDocs();
-      results[ctx.ord] = ctx.reader().searchNearestVectors(field, vector, k + fanout, liveDocs);
+      results[ctx.ord] =
+          ctx.reader()
+              .searchNearestVectors(field, vector, k + fanout, liveDocs, Integer.MAX_VALUE);
       int docBase = ctx.docBase;
       for (ScoreDoc scoreDoc : results[ctx.ord].scoreDocs) {
         scoreDoc.doc += docBase;
@@ -25,6 +25,8 @@ import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
 import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.lucene.codecs.KnnVectorsFormat;
 import org.apache.lucene.codecs.lucene90.Lucene90Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90HnswVectorsFormat;
@@ -50,6 +52,8 @@ import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.VectorUtil;
 
 /** Tests HNSW KNN graphs */
@@ -142,6 +146,7 @@ public class TestHnswGraph extends LuceneTestCase {
             VectorSimilarityFunction.DOT_PRODUCT,
             hnsw,
             null,
+            Integer.MAX_VALUE,
             new SplittableRandom(random().nextLong()));
 
     int[] nodes = nn.nodes();
@@ -183,6 +188,7 @@ public class TestHnswGraph extends LuceneTestCase {
             VectorSimilarityFunction.DOT_PRODUCT,
             hnsw,
             acceptOrds,
+            Integer.MAX_VALUE,
             new SplittableRandom(random().nextLong()));
     int[] nodes = nn.nodes();
     assertTrue("Number of found results is not equal to [10].", nodes.length == 10);
@@ -196,6 +202,32 @@ public class TestHnswGraph extends LuceneTestCase {
     assertTrue("sum(result docs)=" + sum, sum < 75);
   }
 
+  public void testVisitedLimit() throws IOException {
+    int nDoc = 500;
+    CircularVectorValues vectors = new CircularVectorValues(nDoc);
+    HnswGraphBuilder builder =
+        new HnswGraphBuilder(
+            vectors, VectorSimilarityFunction.DOT_PRODUCT, 16, 100, random().nextInt());
+    HnswGraph hnsw = builder.build(vectors);
+
+    int topK = 50;
+    int visitedLimit = topK + random().nextInt(5);
+    NeighborQueue nn =
+        HnswGraph.search(
+            new float[] {1, 0},
+            topK,
+            topK,
+            vectors.randomAccess(),
+            VectorSimilarityFunction.DOT_PRODUCT,
+            hnsw,
+            createRandomAcceptOrds(0, vectors.size),
+            visitedLimit,
+            new SplittableRandom(random().nextLong()));
+    assertTrue(nn.incomplete());
+    // The visited count shouldn't exceed the limit
+    assertTrue(nn.visitedCount() <= visitedLimit);
+  }
+
   public void testBoundsCheckerMax() {
     BoundsChecker max = BoundsChecker.create(false);
     float f = random().nextFloat() - 0.5f;
@@ -333,6 +365,7 @@ public class TestHnswGraph extends LuceneTestCase {
               similarityFunction,
               hnsw,
               acceptOrds,
+              Integer.MAX_VALUE,
               new SplittableRandom(random().nextLong()));
       NeighborQueue expected = new NeighborQueue(topK, similarityFunction.reversed);
       for (int j = 0; j < size; j++) {
@@ -351,6 +384,107 @@ public class TestHnswGraph extends LuceneTestCase {
     assertTrue("overlap=" + overlap, overlap > 0.9);
   }
 
+  public void testConcurrentBuild() throws Exception {
+    int dim = atLeast(10);
+    int topK = 5;
+    RandomVectorValues vectors = new RandomVectorValues(atLeast(1000), dim, random());
+    int size = vectors.size();
+    VectorSimilarityFunction similarityFunction =
+        VectorSimilarityFunction.values()[
+            random().nextInt(VectorSimilarityFunction.values().length - 1) + 1];
+    int numWorkers = TestUtil.nextInt(random(), 2, 8);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(numWorkers, new NamedThreadFactory("TestHnswGraph"));
+    HnswGraph hnsw;
+    try {
+      HnswGraphBuilder builder =
+          new HnswGraphBuilder(vectors, similarityFunction, 10, 30, random().nextLong());
+      hnsw = builder.build(vectors, executor, numWorkers);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+
+    assertEquals(size, hnsw.size());
+    for (int node = 0; node < size; node++) {
+      NeighborArray neighbors = hnsw.getNeighbors(node);
+      assertTrue(neighbors.size() <= 10);
+      Set<Integer> distinct = new HashSet<>();
+      for (int i = 0; i < neighbors.size(); i++) {
+        int nbr = neighbors.node[i];
+        assertTrue(nbr >= 0 && nbr < size);
+        assertNotEquals(node, nbr);
+        assertTrue("duplicate neighbor " + nbr + " of node " + node, distinct.add(nbr));
+      }
+    }
+
+    int totalMatches = 0;
+    for (int i = 0; i < 100; i++) {
+      float[] query = randomVector(random(), dim);
+      NeighborQueue actual =
+          HnswGraph.search(
+              query,
+              topK,
+              100,
+              vectors,
+              similarityFunction,
+              hnsw,
+              null,
+              Integer.MAX_VALUE,
+              new SplittableRandom(random().nextLong()));
+      NeighborQueue expected = new NeighborQueue(topK, similarityFunction.reversed);
+      for (int j = 0; j < size; j++) {
+        expected.add(j, similarityFunction.compare(query, vectors.vectorValue(j)));
+        if (expected.size() > topK) {
+          expected.pop();
+        }
+      }
+      assertEquals(topK, actual.size());
+      totalMatches += computeOverlap(actual.nodes(), expected.nodes());
+    }
+    double overlap = totalMatches / (double) (100 * topK);
+    assertTrue("overlap=" + overlap, overlap > 0.9);
+  }
+
+  public void testInitializeFromGraph() throws IOException {
+    int size = atLeast(200);
+    int dim = atLeast(10);
+    float[][] values = new float[size][];
+    for (int i = 0; i < size; i++) {
+      values[i] = randomVector(random(), dim);
+    }
+    VectorSimilarityFunction similarityFunction =
+        VectorSimilarityFunction.values()[
+            random().nextInt(VectorSimilarityFunction.values().length - 1) + 1];
+    int initializerSize = TestUtil.nextInt(random(), 1, size);
+    MockVectorValues initializerVectors =
+        new MockVectorValues(ArrayUtil.copyOfSubArray(values, 0, initializerSize));
+    HnswGraph initializerGraph =
+        new HnswGraphBuilder(initializerVectors, similarityFunction, 10, 30, random().nextLong())
+            .build(initializerVectors.randomAccess());
+
+    MockVectorValues vectors = new MockVectorValues(values);
+    HnswGraphBuilder builder =
+        new HnswGraphBuilder(vectors, similarityFunction, 10, 30, random().nextLong());
+    builder.initializeFromGraph(initializerGraph);
+    assertGraphEqual(initializerGraph, builder.hnsw, initializerSize);
+    expectThrows(
+        IllegalStateException.class, () -> builder.initializeFromGraph(initializerGraph));
+
+    HnswGraph hnsw = builder.build(vectors.randomAccess());
+    assertEquals(size, hnsw.size());
+    for (int node = 0; node < size; node++) {
+      NeighborArray neighbors = hnsw.getNeighbors(node);
+      assertTrue(neighbors.size() <= 10);
+      for (int i = 0; i < neighbors.size(); i++) {
+        assertTrue(neighbors.node[i] < size);
+      }
+    }
+    // every inserted node is connected to the graph
+    for (int node = initializerSize; node < size; node++) {
+      assertTrue(hnsw.getNeighbors(node).size() > 0);
+    }
+  }
+
   private int computeOverlap(int[] a, int[] b) {
     Arrays.sort(a);
     Arrays.sort(b);
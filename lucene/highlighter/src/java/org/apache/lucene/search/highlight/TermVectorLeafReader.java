@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
 import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
@@ -155,13 +156,19 @@ public class TermVectorLeafReader extends LeafReader {
     return null;
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) {
+    return null;
+  }
+
   @Override
   public VectorValues getVectorValues(String fieldName) {
     return null;
   }
 
   @Override
-  public TopDocs searchNearestVectors(String field, float[] target, int k, Bits acceptDocs) {
+  public TopDocs searchNearestVectors(
+      String field, float[] target, int k, Bits acceptDocs, int visitedLimit) {
     return null;
   }
 
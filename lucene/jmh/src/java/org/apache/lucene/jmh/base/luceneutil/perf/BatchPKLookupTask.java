@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.jmh.base.luceneutil.perf;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import org.apache.lucene.index.BatchPKLookup;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.util.BytesRef;
+
+/** Same as {@link PKLookupTask} but resolves all ids at once with {@link BatchPKLookup}. */
+final class BatchPKLookupTask extends Task {
+
+  private final BytesRef[] ids;
+  private final int[] answers;
+  private final int ord;
+
+  @Override
+  public String getCategory() {
+    return "BatchPKLookup";
+  }
+
+  private BatchPKLookupTask(BatchPKLookupTask other) {
+    ids = other.ids;
+    ord = other.ord;
+    answers = new int[ids.length];
+    Arrays.fill(answers, -1);
+  }
+
+  public BatchPKLookupTask(int maxDoc, Random random, int count, Set<BytesRef> seen, int ord) {
+    this.ord = ord;
+    ids = new BytesRef[count];
+    answers = new int[count];
+    Arrays.fill(answers, -1);
+    int idx = 0;
+    while (idx < count) {
+      final BytesRef id = new BytesRef(LineFileDocs.intToID(random.nextInt(maxDoc)));
+      if (!seen.contains(id)) {
+        seen.add(id);
+        ids[idx++] = id;
+      }
+    }
+    // the batch API requires sorted ids
+    Arrays.sort(ids);
+  }
+
+  @Override
+  public Task clone() {
+    return new BatchPKLookupTask(this);
+  }
+
+  @Override
+  public void go(IndexState state) throws IOException {
+    final IndexSearcher searcher = state.mgr.acquire();
+    try {
+      new BatchPKLookup(searcher.getIndexReader(), "id").lookup(ids, answers);
+    } finally {
+      state.mgr.release(searcher);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "BatchPK" + ord + "[" + ids.length + "]";
+  }
+
+  @Override
+  public long checksum() {
+    // same as PKLookupTask: we run a different PK lookup each time
+    return 0;
+  }
+
+  @Override
+  public void printResults(PrintStream out, IndexState state) throws IOException {
+    for (int idx = 0; idx < ids.length; idx++) {
+      if (answers[idx] == -1 && !state.hasDeletions) {
+        throw new RuntimeException(
+            "BatchPKLookup: id=" + ids[idx].utf8ToString() + " failed to find a matching document");
+      }
+    }
+  }
+}
@@ -97,7 +97,8 @@ public class KnnQuery extends Query {
           this,
           context
               .reader()
-              .searchNearestVectors(field, vector, topK, context.reader().getLiveDocs()));
+              .searchNearestVectors(
+                  field, vector, topK, context.reader().getLiveDocs(), Integer.MAX_VALUE));
     }
 
     @Override
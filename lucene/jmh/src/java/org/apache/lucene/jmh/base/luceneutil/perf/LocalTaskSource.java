@@ -86,6 +86,7 @@ public class LocalTaskSource implements TaskSource {
           final Set<Integer> pkSeenIntIDs = new HashSet<>();
           tasks.add(new PKLookupTask(maxDoc, staticRandom, 4000, pkSeenIDs, idx));
           tasks.add(new PointsPKLookupTask(maxDoc, staticRandom, 4000, pkSeenIntIDs, idx));
+          tasks.add(new BatchPKLookupTask(maxDoc, staticRandom, 4000, new HashSet<>(), idx));
         }
       }
 
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.jmh.benchmarks.codecs;
+
+import static org.apache.lucene.jmh.base.BaseBenchState.log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.codecs.lucene90.LZ4HuffmanWithPresetDictCompressionMode;
+import org.apache.lucene.codecs.lucene90.Lucene90StoredFieldsFormat;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.jmh.base.BaseBenchState;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LineFileDocs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the compression and decompression speed of the compression modes of {@link
+ * Lucene90StoredFieldsFormat} and of {@link LZ4HuffmanWithPresetDictCompressionMode} on blocks of
+ * documents from {@link LineFileDocs}. The compression ratio of every mode is logged during setup.
+ * {@code decompressDocument} decompresses the bytes of a single document like fetching a hit does,
+ * while {@code decompressBlock} decompresses entire blocks like merges do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1)
+public class StoredFieldsCompression {
+
+  /** Instantiates a new StoredFieldsCompression benchmark. */
+  public StoredFieldsCompression() {
+    // happy linter
+  }
+
+  /** The type Bench state. */
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** The stored fields mode, or LZ4_HUFFMAN for LZ4 entropy-coded with Huffman codes. */
+    @Param({"BEST_SPEED", "BEST_COMPRESSION", "LZ4_HUFFMAN"})
+    String mode;
+
+    /** The length of blocks, like the block length of the stored fields format. */
+    @Param("491520")
+    int blockLength;
+
+    /** The number of blocks. */
+    @Param("32")
+    int numBlocks;
+
+    /** The number of bytes that are decompressed per document. */
+    @Param("2048")
+    int documentLength;
+
+    private CompressionMode compressionMode;
+    private byte[][] blocks;
+    private byte[][] compressedBlocks;
+
+    /** Instantiates a new Bench state. */
+    public BenchState() {
+      // happy linter
+    }
+
+    /**
+     * Reads blocks of documents and compresses them.
+     *
+     * @param baseBenchState the base bench state
+     * @throws Exception the exception
+     */
+    @Setup(Level.Trial)
+    public void setup(BaseBenchState baseBenchState) throws Exception {
+      switch (mode) {
+        case "BEST_SPEED":
+          compressionMode = Lucene90StoredFieldsFormat.BEST_SPEED_MODE;
+          break;
+        case "BEST_COMPRESSION":
+          compressionMode = Lucene90StoredFieldsFormat.BEST_COMPRESSION_MODE;
+          break;
+        case "LZ4_HUFFMAN":
+          compressionMode = new LZ4HuffmanWithPresetDictCompressionMode();
+          break;
+        default:
+          throw new AssertionError();
+      }
+
+      blocks = new byte[numBlocks][];
+      try (LineFileDocs docs = new LineFileDocs(new Random(baseBenchState.getRandomSeed()))) {
+        for (int i = 0; i < numBlocks; i++) {
+          ByteBuffersDataOutput block = new ByteBuffersDataOutput();
+          while (block.size() < blockLength) {
+            Document doc = docs.nextDoc();
+            // the values of the stored fields of the document
+            for (String field : new String[] {"docid", "title", "date", "body"}) {
+              String value = doc.get(field);
+              if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                block.writeVInt(bytes.length);
+                block.writeBytes(bytes, bytes.length);
+              }
+            }
+          }
+          blocks[i] = block.toArrayCopy();
+        }
+      }
+
+      compressedBlocks = new byte[numBlocks][];
+      long length = 0;
+      long compressedLength = 0;
+      try (Compressor compressor = compressionMode.newCompressor()) {
+        for (int i = 0; i < numBlocks; i++) {
+          compressedBlocks[i] = compress(compressor, blocks[i]);
+          length += blocks[i].length;
+          compressedLength += compressedBlocks[i].length;
+        }
+      }
+      log(
+          String.format(
+              Locale.ROOT,
+              "compression ratio of %s: %.2f",
+              mode,
+              length / (double) compressedLength),
+          true);
+    }
+  }
+
+  /** The per-thread state, which holds compressors and decompressors. */
+  @State(Scope.Thread)
+  public static class ThreadState {
+
+    private SplittableRandom random;
+    private Compressor compressor;
+    private Decompressor decompressor;
+    private final ByteArrayDataInput in = new ByteArrayDataInput();
+    private final BytesRef bytes = new BytesRef();
+
+    /** Instantiates a new Thread state. */
+    public ThreadState() {
+      // happy linter
+    }
+
+    /**
+     * Creates the compressor and decompressor of the thread.
+     *
+     * @param baseBenchState the base bench state
+     * @param state the state
+     */
+    @Setup(Level.Trial)
+    public void setup(BaseBenchState baseBenchState, BenchState state) {
+      random = new SplittableRandom(baseBenchState.getRandomSeed());
+      compressor = state.compressionMode.newCompressor();
+      decompressor = state.compressionMode.newDecompressor();
+    }
+  }
+
+  private static byte[] compress(Compressor compressor, byte[] block) throws IOException {
+    ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+    compressor.compress(block, 0, block.length, out);
+    return out.toArrayCopy();
+  }
+
+  /**
+   * Compresses a random block.
+   *
+   * @param state the state
+   * @param threadState the thread state
+   * @return the compressed bytes
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public byte[] compressBlock(BenchState state, ThreadState threadState) throws IOException {
+    int block = threadState.random.nextInt(state.numBlocks);
+    return compress(threadState.compressor, state.blocks[block]);
+  }
+
+  /**
+   * Decompresses a random block entirely.
+   *
+   * @param state the state
+   * @param threadState the thread state
+   * @return the decompressed bytes
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public BytesRef decompressBlock(BenchState state, ThreadState threadState) throws IOException {
+    int block = threadState.random.nextInt(state.numBlocks);
+    int length = state.blocks[block].length;
+    return decompress(threadState, state.compressedBlocks[block], length, 0, length);
+  }
+
+  /**
+   * Decompresses the bytes of a document at a random offset of a random block.
+   *
+   * @param state the state
+   * @param threadState the thread state
+   * @return the decompressed bytes
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public BytesRef decompressDocument(BenchState state, ThreadState threadState)
+      throws IOException {
+    int block = threadState.random.nextInt(state.numBlocks);
+    int length = state.blocks[block].length;
+    int documentLength = Math.min(length, state.documentLength);
+    int offset = threadState.random.nextInt(length - documentLength + 1);
+    return decompress(threadState, state.compressedBlocks[block], length, offset, documentLength);
+  }
+
+  private static BytesRef decompress(
+      ThreadState threadState, byte[] compressed, int originalLength, int offset, int length)
+      throws IOException {
+    threadState.in.reset(compressed);
+    threadState.decompressor.decompress(
+        threadState.in, originalLength, offset, length, threadState.bytes);
+    return threadState.bytes;
+  }
+}
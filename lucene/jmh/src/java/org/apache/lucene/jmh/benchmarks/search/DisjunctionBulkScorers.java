@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.jmh.benchmarks.search;
+
+import static org.apache.lucene.jmh.base.BaseBenchState.log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.FilterWeight;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the bulk scorers that may collect the top hits of pure disjunctions: MAXSCORE, WAND
+ * driven by the default bulk scorer, and the exhaustive BooleanScorer. Queries are the disjunctive
+ * tasks of the {@link SearchPerf} tasks file, run against the same index.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 5)
+@Fork(value = 1)
+@Timeout(time = 600)
+public class DisjunctionBulkScorers {
+
+  /** Instantiates a new DisjunctionBulkScorers benchmark. */
+  public DisjunctionBulkScorers() {
+    // happy linter
+  }
+
+  /** The type Bench state. */
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** The task category, only disjunctions are supported. */
+    @Param({"OrHighHigh", "OrHighMed", "OrHighLow"})
+    String category;
+
+    /** The Field name. */
+    @Param({"body"})
+    String fld;
+
+    /** The Top n. */
+    @Param({"10"})
+    int topn;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private final List<Query> queries = new ArrayList<>();
+    private int queryIndex;
+
+    /** Instantiates a new Bench state. */
+    public BenchState() {
+      // happy linter
+    }
+
+    /**
+     * Opens the index and parses the queries of the category from the tasks file.
+     *
+     * @throws Exception the exception
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      String index = System.getProperty("index", "work/index");
+      String tasksFile = System.getProperty("tasksFile", "work/tasks.txt");
+
+      directory = new MMapDirectory(Paths.get(index));
+      reader = DirectoryReader.open(directory);
+      searcher = new IndexSearcher(reader);
+      // disable caching so that each iteration actually scores the query
+      searcher.setQueryCache(null);
+
+      QueryParser queryParser = new QueryParser(fld, new StandardAnalyzer());
+      try (BufferedReader lines =
+          Files.newBufferedReader(Paths.get(tasksFile), StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = lines.readLine()) != null) {
+          // same format as the tasks parsed by TaskParser: "category: text # comment"
+          int spot = line.indexOf(':');
+          if (spot == -1 || line.substring(0, spot).equals(category) == false) {
+            continue;
+          }
+          int spot2 = line.indexOf(" #");
+          if (spot2 == -1) {
+            spot2 = line.length();
+          }
+          Query query = searcher.rewrite(queryParser.parse(line.substring(spot + 1, spot2)));
+          if (isPureDisjunction(query)) {
+            queries.add(query);
+          }
+        }
+      }
+      if (queries.isEmpty()) {
+        throw new IllegalArgumentException(
+            "No disjunctions found for category " + category + " in " + tasksFile);
+      }
+      log("Loaded " + queries.size() + " " + category + " queries from " + tasksFile);
+    }
+
+    private static boolean isPureDisjunction(Query query) {
+      if (query instanceof BooleanQuery == false) {
+        return false;
+      }
+      BooleanQuery bq = (BooleanQuery) query;
+      for (BooleanClause clause : bq.clauses()) {
+        if (clause.getOccur() != BooleanClause.Occur.SHOULD) {
+          return false;
+        }
+      }
+      return bq.clauses().size() >= 2 && bq.getMinimumNumberShouldMatch() <= 1;
+    }
+
+    /**
+     * Closes the index.
+     *
+     * @throws Exception the exception
+     */
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      reader.close();
+      directory.close();
+    }
+
+    private Query nextQuery() {
+      Query query = queries.get(queryIndex);
+      queryIndex = (queryIndex + 1) % queries.size();
+      return query;
+    }
+
+    private TopDocs search(Query query, ScoreMode scoreMode, boolean wand) throws IOException {
+      // only TOP_SCORES allows dynamic pruning, COMPLETE counts all hits
+      int totalHitsThreshold = scoreMode == ScoreMode.TOP_SCORES ? topn : Integer.MAX_VALUE;
+      TopScoreDocCollector collector = TopScoreDocCollector.create(topn, totalHitsThreshold);
+      Weight weight = searcher.createWeight(query, scoreMode, 1f);
+      if (wand) {
+        // FilterWeight doesn't forward bulkScorer: this makes the default bulk scorer
+        // iterate the WANDScorer
+        weight = new FilterWeight(weight) {};
+      }
+      for (LeafReaderContext context : reader.leaves()) {
+        BulkScorer scorer = weight.bulkScorer(context);
+        if (scorer != null) {
+          scorer.score(collector.getLeafCollector(context), context.reader().getLiveDocs());
+        }
+      }
+      return collector.topDocs();
+    }
+  }
+
+  /**
+   * Collects the top hits with the MAXSCORE bulk scorer.
+   *
+   * @param state the state
+   * @return the top docs
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public TopDocs maxScore(BenchState state) throws IOException {
+    return state.search(state.nextQuery(), ScoreMode.TOP_SCORES, false);
+  }
+
+  /**
+   * Collects the top hits with the WAND scorer.
+   *
+   * @param state the state
+   * @return the top docs
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public TopDocs wand(BenchState state) throws IOException {
+    return state.search(state.nextQuery(), ScoreMode.TOP_SCORES, true);
+  }
+
+  /**
+   * Collects the top hits with BooleanScorer, which scores all matches.
+   *
+   * @param state the state
+   * @return the top docs
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public TopDocs booleanScorer(BenchState state) throws IOException {
+    return state.search(state.nextQuery(), ScoreMode.COMPLETE, false);
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.jmh.benchmarks.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.BatchPKLookup;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.jmh.base.BaseBenchState;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares resolving a batch of primary keys one key at a time with {@link
+ * TermsEnum#seekExact(BytesRef)} on every segment, like the PKLookup task of luceneutil, with
+ * resolving the sorted batch at once with {@link BatchPKLookup}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 5)
+@Fork(value = 1)
+@Timeout(time = 600)
+public class PKLookups {
+
+  /** Instantiates a new PKLookups benchmark. */
+  public PKLookups() {
+    // happy linter
+  }
+
+  /** The type Bench state. */
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** The Num docs. */
+    @Param("5000000")
+    int numDocs;
+
+    /** The number of segments of the index. */
+    @Param("10")
+    int numSegments;
+
+    /** The number of keys that are resolved at once. */
+    @Param("4000")
+    int batchSize;
+
+    /** The fraction of keys that don't exist in the index. */
+    @Param("0.1")
+    double missingRatio;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private List<BytesRef[]> batches;
+    private int nextBatch;
+
+    /** Instantiates a new Bench state. */
+    public BenchState() {
+      // happy linter
+    }
+
+    /**
+     * Indexes documents with random ids and creates batches of keys to look up.
+     *
+     * @param baseBenchState the base bench state
+     * @throws Exception the exception
+     */
+    @Setup(Level.Trial)
+    public void setup(BaseBenchState baseBenchState) throws Exception {
+      SplittableRandom random = new SplittableRandom(baseBenchState.getRandomSeed());
+      directory = new ByteBuffersDirectory();
+      try (IndexWriter writer =
+          new IndexWriter(directory, new IndexWriterConfig().setRAMBufferSizeMB(256))) {
+        Document doc = new Document();
+        StringField field = new StringField("id", "", Field.Store.NO);
+        doc.add(field);
+        for (int i = 0; i < numDocs; i++) {
+          field.setStringValue(id(i));
+          writer.addDocument(doc);
+        }
+        writer.forceMerge(numSegments);
+      }
+      reader = DirectoryReader.open(directory);
+
+      batches = new ArrayList<>();
+      for (int b = 0; b < 64; ++b) {
+        BytesRef[] keys = new BytesRef[batchSize];
+        for (int i = 0; i < batchSize; ++i) {
+          int id = random.nextInt(numDocs);
+          if (random.nextDouble() < missingRatio) {
+            id += numDocs;
+          }
+          keys[i] = new BytesRef(id(id));
+        }
+        Arrays.sort(keys);
+        batches.add(keys);
+      }
+    }
+
+    private static String id(int i) {
+      // Base 36, prefixed with 0s to be length 6, like luceneutil ids
+      return String.format(Locale.ROOT, "%6s", Integer.toString(i, Character.MAX_RADIX))
+          .replace(' ', '0');
+    }
+
+    private BytesRef[] nextBatch() {
+      BytesRef[] batch = batches.get(nextBatch);
+      nextBatch = (nextBatch + 1) % batches.size();
+      return batch;
+    }
+
+    /**
+     * Closes the index.
+     *
+     * @throws Exception the exception
+     */
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      reader.close();
+      directory.close();
+    }
+  }
+
+  /**
+   * Resolves every key of a batch separately on each segment.
+   *
+   * @param state the state
+   * @return the resolved doc IDs
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public int[] seekExact(BenchState state) throws IOException {
+    BytesRef[] keys = state.nextBatch();
+    int[] docIDs = new int[keys.length];
+    Arrays.fill(docIDs, -1);
+    List<LeafReaderContext> leaves = state.reader.leaves();
+    TermsEnum[] termsEnums = new TermsEnum[leaves.size()];
+    for (int i = 0; i < leaves.size(); ++i) {
+      Terms terms = leaves.get(i).reader().terms("id");
+      termsEnums[i] = terms == null ? null : terms.iterator();
+    }
+    PostingsEnum postings = null;
+    for (int k = 0; k < keys.length; ++k) {
+      for (int i = 0; i < leaves.size(); ++i) {
+        if (termsEnums[i] != null && termsEnums[i].seekExact(keys[k])) {
+          Bits liveDocs = leaves.get(i).reader().getLiveDocs();
+          postings = termsEnums[i].postings(postings, PostingsEnum.NONE);
+          int doc = postings.nextDoc();
+          if (doc != DocIdSetIterator.NO_MORE_DOCS && (liveDocs == null || liveDocs.get(doc))) {
+            docIDs[k] = leaves.get(i).docBase + doc;
+            break;
+          }
+        }
+      }
+    }
+    return docIDs;
+  }
+
+  /**
+   * Resolves a batch with {@link BatchPKLookup}.
+   *
+   * @param state the state
+   * @return the resolved doc IDs
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public int[] batch(BenchState state) throws IOException {
+    BytesRef[] keys = state.nextBatch();
+    int[] docIDs = new int[keys.length];
+    new BatchPKLookup(state.reader, "id").lookup(keys, docIDs);
+    return docIDs;
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.jmh.benchmarks.search;
+
+import static org.apache.lucene.jmh.base.BaseBenchState.log;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.jmh.base.BaseBenchState;
+import org.apache.lucene.search.ConcurrentQueryCache;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCache;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput and hit rate of {@link LRUQueryCache} and {@link ConcurrentQueryCache}
+ * when many threads run cached filters concurrently. Filters are picked with a skewed
+ * distribution so that a working set of hot filters fits in the cache while less frequent filters
+ * keep evicting entries. The hit rate is reported at the end of each iteration as the fraction of
+ * per-segment lookups that were served by the cache: lookups that {@link LRUQueryCache} skips
+ * because its lock is busy count as misses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 5)
+@Fork(value = 1)
+@Timeout(time = 600)
+public class QueryCaches {
+
+  private static final QueryCachingPolicy ALWAYS_CACHE =
+      new QueryCachingPolicy() {
+        @Override
+        public void onUse(Query query) {}
+
+        @Override
+        public boolean shouldCache(Query query) {
+          return true;
+        }
+      };
+
+  /** Instantiates a new QueryCaches benchmark. */
+  public QueryCaches() {
+    // happy linter
+  }
+
+  /** The type Bench state. */
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** The query cache implementation. */
+    @Param({"LRUQueryCache", "ConcurrentQueryCache"})
+    String cache;
+
+    /** The Num docs. */
+    @Param("1000000")
+    int numDocs;
+
+    /** The number of segments of the index. */
+    @Param("8")
+    int numSegments;
+
+    /** The number of distinct filters. */
+    @Param("1000")
+    int numFilters;
+
+    /** The maximum number of cached filters. */
+    @Param("256")
+    int maxCachedQueries;
+
+    /** The skew of the distribution of filters, 1 is uniform. */
+    @Param("3")
+    double skew;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private QueryCache queryCache;
+    private Query[] filters;
+    private final LongAdder lookups = new LongAdder();
+    private long lastLookups;
+    private long lastHits;
+
+    /** Instantiates a new Bench state. */
+    public BenchState() {
+      // happy linter
+    }
+
+    /**
+     * Indexes documents that each match one of the filters and creates the query cache.
+     *
+     * @param baseBenchState the base bench state
+     * @throws Exception the exception
+     */
+    @Setup(Level.Trial)
+    public void setup(BaseBenchState baseBenchState) throws Exception {
+      SplittableRandom random = new SplittableRandom(baseBenchState.getRandomSeed());
+      directory = new ByteBuffersDirectory();
+      try (IndexWriter writer =
+          new IndexWriter(directory, new IndexWriterConfig().setRAMBufferSizeMB(256))) {
+        Document doc = new Document();
+        StringField field = new StringField("filter", "", Field.Store.NO);
+        doc.add(field);
+        for (int i = 0; i < numDocs; i++) {
+          field.setStringValue(Integer.toString(random.nextInt(numFilters)));
+          writer.addDocument(doc);
+        }
+        writer.forceMerge(numSegments);
+      }
+      reader = DirectoryReader.open(directory);
+
+      // the caches only differ by their concurrency: use the same limits
+      long maxRamBytesUsed = 64 * 1024L * 1024L;
+      switch (cache) {
+        case "LRUQueryCache":
+          queryCache = new LRUQueryCache(maxCachedQueries, maxRamBytesUsed, context -> true, 10);
+          break;
+        case "ConcurrentQueryCache":
+          queryCache =
+              new ConcurrentQueryCache(
+                  maxCachedQueries,
+                  maxRamBytesUsed,
+                  context -> true,
+                  10,
+                  ConcurrentQueryCache.DEFAULT_NUM_SHARDS);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown query cache: " + cache);
+      }
+      searcher = new IndexSearcher(reader);
+      searcher.setQueryCache(queryCache);
+      searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+
+      filters = new Query[numFilters];
+      for (int i = 0; i < numFilters; i++) {
+        filters[i] = new TermQuery(new Term("filter", Integer.toString(i)));
+      }
+    }
+
+    /** Reports the hit rate of the iteration. */
+    @TearDown(Level.Iteration)
+    public void reportHitRate() {
+      long lookups = this.lookups.sum() * reader.leaves().size();
+      long hits = hitCount();
+      log(
+          String.format(
+              Locale.ROOT,
+              "hit rate of %s: %.3f",
+              cache,
+              (hits - lastHits) / (double) Math.max(1, lookups - lastLookups)),
+          true);
+      lastLookups = lookups;
+      lastHits = hits;
+    }
+
+    private long hitCount() {
+      if (queryCache instanceof LRUQueryCache) {
+        return ((LRUQueryCache) queryCache).getHitCount();
+      } else {
+        return ((ConcurrentQueryCache) queryCache).getHitCount();
+      }
+    }
+
+    /**
+     * Closes the index.
+     *
+     * @throws Exception the exception
+     */
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      reader.close();
+      directory.close();
+    }
+  }
+
+  /** The per-thread state, which picks filters. */
+  @State(Scope.Thread)
+  public static class ThreadState {
+
+    private SplittableRandom random;
+
+    /** Instantiates a new Thread state. */
+    public ThreadState() {
+      // happy linter
+    }
+
+    /**
+     * Seeds the random generator of the thread.
+     *
+     * @param baseBenchState the base bench state
+     */
+    @Setup(Level.Trial)
+    public void setup(BaseBenchState baseBenchState) {
+      long seed = baseBenchState.getRandomSeed() ^ Thread.currentThread().getId();
+      random = new SplittableRandom(seed);
+    }
+
+    private Query nextFilter(BenchState state) {
+      // low indices are more frequent, the most frequent filters make up the working set
+      int index = (int) (state.numFilters * Math.pow(random.nextDouble(), state.skew));
+      return state.filters[index];
+    }
+  }
+
+  /**
+   * Runs a random cached filter.
+   *
+   * @param state the state
+   * @param threadState the thread state
+   * @return the top docs
+   * @throws IOException the io exception
+   */
+  @Benchmark
+  public TopDocs search(BenchState state, ThreadState threadState) throws IOException {
+    Query filter = threadState.nextFilter(state);
+    state.lookups.increment();
+    return state.searcher.search(new ConstantScoreQuery(filter), 10);
+  }
+}
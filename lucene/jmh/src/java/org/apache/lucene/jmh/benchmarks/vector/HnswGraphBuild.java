@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.jmh.benchmarks.vector;
+
+import static org.apache.lucene.jmh.base.BaseBenchState.log;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.RandomAccessVectorValuesProducer;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.jmh.base.BaseBenchState;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.VectorUtil;
+import org.apache.lucene.util.hnsw.HnswGraph;
+import org.apache.lucene.util.hnsw.HnswGraphBuilder;
+import org.apache.lucene.util.hnsw.NeighborQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The type. */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1)
+@Timeout(time = 600)
+public class HnswGraphBuild {
+
+  private static final int TOP_K = 10;
+
+  static {
+    log("build an HNSW graph with a varying number of concurrent workers and report its recall");
+  }
+
+  /** Instantiates a new HnswGraphBuild benchmark. */
+  public HnswGraphBuild() {
+    // happy linter
+  }
+
+  /** The type Bench state. */
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** The Num vectors. */
+    @Param("100000")
+    int numVectors;
+
+    /** The Dimension. */
+    @Param("128")
+    int dimension;
+
+    /** The Num workers. */
+    @Param({"1", "4", "16"})
+    int numWorkers;
+
+    /** The Max conn. */
+    @Param("16")
+    int maxConn;
+
+    /** The Beam width. */
+    @Param("100")
+    int beamWidth;
+
+    /** The Num queries used to measure recall. */
+    @Param("100")
+    int numQueries;
+
+    private VectorSimilarityFunction similarityFunction = VectorSimilarityFunction.DOT_PRODUCT;
+    private ArrayVectorValues vectors;
+    private float[][] queries;
+    private int[][] expected;
+    private long seed;
+    private ExecutorService executor;
+    private HnswGraph graph;
+
+    /** Instantiates a new Bench state. */
+    public BenchState() {
+      // happy linter
+    }
+
+    /**
+     * Benchmark setup.
+     *
+     * @param baseBenchState the base bench state
+     * @throws Exception the exception
+     */
+    @Setup(Level.Trial)
+    public void setup(BaseBenchState baseBenchState) throws Exception {
+      SplittableRandom random = new SplittableRandom(baseBenchState.getRandomSeed());
+      seed = random.nextLong();
+
+      float[][] values = new float[numVectors][];
+      for (int i = 0; i < numVectors; i++) {
+        values[i] = randomVector(random, dimension);
+      }
+      vectors = new ArrayVectorValues(values);
+
+      queries = new float[numQueries][];
+      expected = new int[numQueries][];
+      for (int i = 0; i < numQueries; i++) {
+        queries[i] = randomVector(random, dimension);
+        expected[i] = exactSearch(queries[i]);
+      }
+
+      if (numWorkers > 1) {
+        executor =
+            Executors.newFixedThreadPool(numWorkers, new NamedThreadFactory("HnswGraphBuild"));
+      }
+    }
+
+    /**
+     * Teardown, reports the recall of the last graph that was built.
+     *
+     * @throws Exception the exception
+     */
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      if (graph != null) {
+        log(
+            String.format(
+                Locale.ROOT, "recall@%d with %d workers: %.3f", TOP_K, numWorkers, recall()),
+            true);
+      }
+      if (executor != null) {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      }
+    }
+
+    private int[] exactSearch(float[] query) {
+      float[] scores = new float[numVectors];
+      // the head of the queue is the least similar of the best vectors collected so far
+      PriorityQueue<Integer> queue =
+          new PriorityQueue<>(
+              TOP_K + 1,
+              (a, b) ->
+                  similarityFunction.reversed
+                      ? Float.compare(scores[b], scores[a])
+                      : Float.compare(scores[a], scores[b]));
+      for (int i = 0; i < numVectors; i++) {
+        scores[i] = similarityFunction.compare(query, vectors.vectorValue(i));
+        queue.add(i);
+        if (queue.size() > TOP_K) {
+          queue.poll();
+        }
+      }
+      return queue.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private double recall() throws IOException {
+      int matches = 0;
+      SplittableRandom random = new SplittableRandom(seed);
+      for (int i = 0; i < numQueries; i++) {
+        NeighborQueue results =
+            HnswGraph.search(
+                queries[i],
+                TOP_K,
+                beamWidth,
+                vectors,
+                similarityFunction,
+                graph,
+                null,
+                Integer.MAX_VALUE,
+                random);
+        Set<Integer> expectedNodes = new HashSet<>();
+        for (int node : expected[i]) {
+          expectedNodes.add(node);
+        }
+        while (results.size() > 0) {
+          if (expectedNodes.contains(results.pop())) {
+            matches++;
+          }
+        }
+      }
+      return matches / (double) (numQueries * TOP_K);
+    }
+  }
+
+  /**
+   * build graph
+   *
+   * @param state the state
+   * @return the object
+   * @throws Exception the exception
+   */
+  @Benchmark
+  public Object buildGraph(BenchState state) throws Exception {
+    HnswGraphBuilder builder =
+        new HnswGraphBuilder(
+            state.vectors, state.similarityFunction, state.maxConn, state.beamWidth, state.seed);
+    state.graph = builder.build(state.vectors, state.executor, state.numWorkers);
+    return state.graph;
+  }
+
+  private static float[] randomVector(SplittableRandom random, int dimension) {
+    float[] vector = new float[dimension];
+    for (int i = 0; i < dimension; i++) {
+      vector[i] = (float) random.nextDouble(-1, 1);
+    }
+    VectorUtil.l2normalize(vector);
+    return vector;
+  }
+
+  /** Random access to vectors held in heap arrays. */
+  private static class ArrayVectorValues
+      implements RandomAccessVectorValues, RandomAccessVectorValuesProducer {
+
+    private final float[][] values;
+
+    ArrayVectorValues(float[][] values) {
+      this.values = values;
+    }
+
+    @Override
+    public RandomAccessVectorValues randomAccess() {
+      return new ArrayVectorValues(values);
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+
+    @Override
+    public int dimension() {
+      return values[0].length;
+    }
+
+    @Override
+    public float[] vectorValue(int targetOrd) {
+      return values[targetOrd];
+    }
+
+    @Override
+    public BytesRef binaryValue(int targetOrd) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
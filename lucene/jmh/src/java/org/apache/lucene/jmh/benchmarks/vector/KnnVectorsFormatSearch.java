@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.jmh.benchmarks.vector;
+
+import static org.apache.lucene.jmh.base.BaseBenchState.log;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.lucene90.Lucene90Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.jmh.base.BaseBenchState;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.VectorUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The type. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1)
+@Timeout(time = 600)
+public class KnnVectorsFormatSearch {
+
+  private static final int TOP_K = 10;
+
+  static {
+    log("search nearest vectors with a varying vectors format and report the recall");
+  }
+
+  /** Instantiates a new KnnVectorsFormatSearch benchmark. */
+  public KnnVectorsFormatSearch() {
+    // happy linter
+  }
+
+  /** The type Bench state. */
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** The name of the vectors format. */
+    @Param({"Lucene90HnswVectorsFormat", "HnswScalarQuantizedVectorsFormat"})
+    String format;
+
+    /** The Num vectors. */
+    @Param("100000")
+    int numVectors;
+
+    /** The Dimension. */
+    @Param("128")
+    int dimension;
+
+    /** The Num queries. */
+    @Param("100")
+    int numQueries;
+
+    private VectorSimilarityFunction similarityFunction = VectorSimilarityFunction.DOT_PRODUCT;
+    private float[][] vectors;
+    private float[][] queries;
+    private Directory directory;
+    private DirectoryReader reader;
+    private LeafReader leafReader;
+    private int queryIndex;
+
+    /** Instantiates a new Bench state. */
+    public BenchState() {
+      // happy linter
+    }
+
+    /**
+     * Indexes random vectors in a single segment.
+     *
+     * @param baseBenchState the base bench state
+     * @throws Exception the exception
+     */
+    @Setup(Level.Trial)
+    public void setup(BaseBenchState baseBenchState) throws Exception {
+      SplittableRandom random = new SplittableRandom(baseBenchState.getRandomSeed());
+      vectors = new float[numVectors][];
+      for (int i = 0; i < numVectors; i++) {
+        vectors[i] = randomVector(random, dimension);
+      }
+      queries = new float[numQueries][];
+      for (int i = 0; i < numQueries; i++) {
+        queries[i] = randomVector(random, dimension);
+      }
+
+      KnnVectorsFormat vectorsFormat = KnnVectorsFormat.forName(format);
+      IndexWriterConfig iwc =
+          new IndexWriterConfig()
+              .setCodec(
+                  new Lucene90Codec() {
+                    @Override
+                    public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+                      return vectorsFormat;
+                    }
+                  })
+              .setRAMBufferSizeMB(256);
+      directory = new ByteBuffersDirectory();
+      try (IndexWriter writer = new IndexWriter(directory, iwc)) {
+        for (int i = 0; i < numVectors; i++) {
+          Document doc = new Document();
+          doc.add(new StoredField("id", i));
+          doc.add(new KnnVectorField("vector", vectors[i], similarityFunction));
+          writer.addDocument(doc);
+        }
+        writer.forceMerge(1);
+      }
+      reader = DirectoryReader.open(directory);
+      leafReader = reader.leaves().get(0).reader();
+    }
+
+    /**
+     * Teardown, reports the recall of the format.
+     *
+     * @throws Exception the exception
+     */
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      log(String.format(Locale.ROOT, "recall@%d of %s: %.3f", TOP_K, format, recall()), true);
+      reader.close();
+      directory.close();
+    }
+
+    private double recall() throws IOException {
+      int matches = 0;
+      for (float[] query : queries) {
+        Set<Integer> expected = exactSearch(query);
+        TopDocs topDocs =
+            leafReader.searchNearestVectors("vector", query, TOP_K, null, Integer.MAX_VALUE);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+          int id = leafReader.document(scoreDoc.doc).getField("id").numericValue().intValue();
+          if (expected.contains(id)) {
+            matches++;
+          }
+        }
+      }
+      return matches / (double) (numQueries * TOP_K);
+    }
+
+    private Set<Integer> exactSearch(float[] query) {
+      float[] scores = new float[numVectors];
+      // the head of the queue is the least similar of the best vectors collected so far
+      PriorityQueue<Integer> queue =
+          new PriorityQueue<>(
+              TOP_K + 1,
+              (a, b) ->
+                  similarityFunction.reversed
+                      ? Float.compare(scores[b], scores[a])
+                      : Float.compare(scores[a], scores[b]));
+      for (int i = 0; i < numVectors; i++) {
+        scores[i] = similarityFunction.compare(query, vectors[i]);
+        queue.add(i);
+        if (queue.size() > TOP_K) {
+          queue.poll();
+        }
+      }
+      return new HashSet<>(queue);
+    }
+  }
+
+  /**
+   * search nearest vectors
+   *
+   * @param state the state
+   * @return the object
+   * @throws Exception the exception
+   */
+  @Benchmark
+  public Object search(BenchState state) throws Exception {
+    float[] query = state.queries[state.queryIndex++ % state.numQueries];
+    return state.leafReader.searchNearestVectors("vector", query, TOP_K, null, Integer.MAX_VALUE);
+  }
+
+  private static float[] randomVector(SplittableRandom random, int dimension) {
+    float[] vector = new float[dimension];
+    for (int i = 0; i < dimension; i++) {
+      vector[i] = (float) random.nextDouble(-1, 1);
+    }
+    VectorUtil.l2normalize(vector);
+    return vector;
+  }
+}
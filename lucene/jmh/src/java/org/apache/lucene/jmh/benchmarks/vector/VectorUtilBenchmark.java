@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.jmh.benchmarks.vector;
+
+import static org.apache.lucene.jmh.base.BaseBenchState.log;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.jmh.base.BaseBenchState;
+import org.apache.lucene.util.VectorUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the similarity computations of {@link VectorUtil}. Each computation is measured twice:
+ * in a JVM without the incubating Vector API, which uses scalar code, and in a JVM where it is
+ * enabled, which uses SIMD instructions if the JDK version matches the vectorized implementations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1)
+public class VectorUtilBenchmark {
+
+  private static final String VECTOR_API = "--add-modules=jdk.incubator.vector";
+
+  static {
+    log("compute vector similarities with scalar code and with the incubating vector API");
+  }
+
+  /** Instantiates a new VectorUtilBenchmark. */
+  public VectorUtilBenchmark() {
+    // happy linter
+  }
+
+  /** The type Bench state. */
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** The Dimension. */
+    @Param({"128", "384", "768", "1536"})
+    int dimension;
+
+    private float[] floatsA;
+    private float[] floatsB;
+    private byte[] bytesA;
+    private byte[] bytesB;
+
+    /** Instantiates a new Bench state. */
+    public BenchState() {
+      // happy linter
+    }
+
+    /**
+     * Benchmark setup.
+     *
+     * @param baseBenchState the base bench state
+     */
+    @Setup(Level.Trial)
+    public void setup(BaseBenchState baseBenchState) {
+      SplittableRandom random = new SplittableRandom(baseBenchState.getRandomSeed());
+      floatsA = new float[dimension];
+      floatsB = new float[dimension];
+      bytesA = new byte[dimension];
+      bytesB = new byte[dimension];
+      for (int i = 0; i < dimension; i++) {
+        floatsA[i] = (float) random.nextDouble(-1, 1);
+        floatsB[i] = (float) random.nextDouble(-1, 1);
+        bytesA[i] = (byte) random.nextInt(Byte.MIN_VALUE, Byte.MAX_VALUE + 1);
+        bytesB[i] = (byte) random.nextInt(Byte.MIN_VALUE, Byte.MAX_VALUE + 1);
+      }
+    }
+  }
+
+  /**
+   * float dot product, scalar
+   *
+   * @param state the state
+   * @return the dot product
+   */
+  @Benchmark
+  public float floatDotProductScalar(BenchState state) {
+    return VectorUtil.dotProduct(state.floatsA, state.floatsB);
+  }
+
+  /**
+   * float dot product, vector API
+   *
+   * @param state the state
+   * @return the dot product
+   */
+  @Benchmark
+  @Fork(value = 1, jvmArgsPrepend = VECTOR_API)
+  public float floatDotProductVector(BenchState state) {
+    return VectorUtil.dotProduct(state.floatsA, state.floatsB);
+  }
+
+  /**
+   * float square distance, scalar
+   *
+   * @param state the state
+   * @return the square distance
+   */
+  @Benchmark
+  public float floatSquareDistanceScalar(BenchState state) {
+    return VectorUtil.squareDistance(state.floatsA, state.floatsB);
+  }
+
+  /**
+   * float square distance, vector API
+   *
+   * @param state the state
+   * @return the square distance
+   */
+  @Benchmark
+  @Fork(value = 1, jvmArgsPrepend = VECTOR_API)
+  public float floatSquareDistanceVector(BenchState state) {
+    return VectorUtil.squareDistance(state.floatsA, state.floatsB);
+  }
+
+  /**
+   * byte dot product, scalar
+   *
+   * @param state the state
+   * @return the dot product
+   */
+  @Benchmark
+  public int byteDotProductScalar(BenchState state) {
+    return VectorUtil.dotProduct(state.bytesA, state.bytesB);
+  }
+
+  /**
+   * byte dot product, vector API
+   *
+   * @param state the state
+   * @return the dot product
+   */
+  @Benchmark
+  @Fork(value = 1, jvmArgsPrepend = VECTOR_API)
+  public int byteDotProductVector(BenchState state) {
+    return VectorUtil.dotProduct(state.bytesA, state.bytesB);
+  }
+
+  /**
+   * byte square distance, scalar
+   *
+   * @param state the state
+   * @return the square distance
+   */
+  @Benchmark
+  public int byteSquareDistanceScalar(BenchState state) {
+    return VectorUtil.squareDistance(state.bytesA, state.bytesB);
+  }
+
+  /**
+   * byte square distance, vector API
+   *
+   * @param state the state
+   * @return the square distance
+   */
+  @Benchmark
+  @Fork(value = 1, jvmArgsPrepend = VECTOR_API)
+  public int byteSquareDistanceVector(BenchState state) {
+    return VectorUtil.squareDistance(state.bytesA, state.bytesB);
+  }
+}
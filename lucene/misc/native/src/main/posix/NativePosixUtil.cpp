@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+#include <jni.h>
+#include <errno.h>
+#include <stdint.h>
+#include <string.h>
+#include <sys/mman.h>
+#include <unistd.h>
+
+/**
+ * POSIX Native IO methods.
+ */
+extern "C" {
+
+/**
+ * Utility to format an errno value into an exception.
+ */
+void throwIOException(JNIEnv *env, int error)
+{
+  jclass ioex = env->FindClass("java/io/IOException");
+
+  if (ioex != NULL) {
+    env->ThrowNew(ioex, strerror(error));
+  }
+}
+
+/**
+ * Advises the kernel about how the pages of a mapped direct buffer will be accessed. The start of
+ * the buffer is rounded down to a page boundary, as required by posix_madvise.
+ *
+ * Class:     org_apache_lucene_misc_store_NativePosixUtil
+ * Method:    madvise0
+ * Signature: (Ljava/nio/ByteBuffer;I)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_lucene_misc_store_NativePosixUtil_madvise0
+  (JNIEnv *env, jclass ignored, jobject buffer, jint advice)
+{
+  void *address = env->GetDirectBufferAddress(buffer);
+  jlong capacity = env->GetDirectBufferCapacity(buffer);
+  int osAdvice;
+
+  if (capacity == 0) {
+    // empty buffers may not be backed by a mapping
+    return;
+  }
+  if (address == NULL || capacity < 0) {
+    throwIOException(env, EINVAL);
+    return;
+  }
+
+  // keep in sync with the constants of NativePosixUtil
+  switch (advice) {
+    case 0: osAdvice = POSIX_MADV_NORMAL; break;
+    case 1: osAdvice = POSIX_MADV_RANDOM; break;
+    case 2: osAdvice = POSIX_MADV_SEQUENTIAL; break;
+    case 3: osAdvice = POSIX_MADV_WILLNEED; break;
+    default:
+      throwIOException(env, EINVAL);
+      return;
+  }
+
+  uintptr_t pageSize = (uintptr_t) sysconf(_SC_PAGESIZE);
+  uintptr_t start = ((uintptr_t) address) & ~(pageSize - 1);
+  size_t length = (size_t) (((uintptr_t) address) + capacity - start);
+
+  // unlike madvise, posix_madvise returns the error number instead of setting errno
+  int result = posix_madvise((void *) start, length, osAdvice);
+  if (result != 0) {
+    throwIOException(env, result);
+  }
+}
+
+} /* extern "C" */
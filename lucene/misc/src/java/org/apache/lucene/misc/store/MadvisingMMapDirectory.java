@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.misc.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import org.apache.lucene.store.FSLockFactory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.LockFactory;
+import org.apache.lucene.store.MMapDirectory;
+
+/**
+ * An {@link MMapDirectory} that translates the {@link IOContext} of opened files into {@code
+ * madvise} hints, so that the kernel does not read ahead of random accesses, like seeks in terms
+ * indexes or vector searches, and reads ahead aggressively for sequential ones, like merges:
+ *
+ * <ul>
+ *   <li>{@link IOContext#randomAccess} maps to {@link NativePosixUtil#MADV_RANDOM};
+ *   <li>{@link IOContext#readOnce} and {@link IOContext.Context#MERGE} map to {@link
+ *       NativePosixUtil#MADV_SEQUENTIAL};
+ *   <li>other contexts are left to the kernel's defaults.
+ * </ul>
+ *
+ * <p>Subclasses may override {@link #advice(IOContext)}, eg. to return {@link
+ * NativePosixUtil#MADV_WILLNEED} for files that should be read in the background.
+ *
+ * <p>The hints need the native library of this module on Linux or macOS (see {@link
+ * NativePosixUtil}). Without it, this directory behaves exactly like {@link MMapDirectory}.
+ *
+ * @lucene.experimental
+ */
+public class MadvisingMMapDirectory extends MMapDirectory {
+
+  /**
+   * Create a new MadvisingMMapDirectory for the named location.
+   *
+   * @param path the path of the directory
+   * @param lockFactory the lock factory to use
+   * @throws IOException If there is a low-level I/O error
+   */
+  public MadvisingMMapDirectory(Path path, LockFactory lockFactory) throws IOException {
+    super(path, lockFactory);
+  }
+
+  /**
+   * Create a new MadvisingMMapDirectory for the named location and {@link
+   * FSLockFactory#getDefault()}.
+   *
+   * @param path the path of the directory
+   * @throws IOException If there is a low-level I/O error
+   */
+  public MadvisingMMapDirectory(Path path) throws IOException {
+    this(path, FSLockFactory.getDefault());
+  }
+
+  @Override
+  protected void adviseMapping(ByteBuffer region, IOContext context) throws IOException {
+    if (NativePosixUtil.isAvailable() == false) {
+      return;
+    }
+    final int advice = advice(context);
+    if (advice != NativePosixUtil.MADV_NORMAL) {
+      NativePosixUtil.madvise(region, advice);
+    }
+  }
+
+  /**
+   * Returns the {@code madvise} hint for files opened with the given context, as one of the {@code
+   * MADV_*} constants of {@link NativePosixUtil}. {@link NativePosixUtil#MADV_NORMAL} leaves the
+   * mapping untouched.
+   */
+  protected int advice(IOContext context) {
+    if (context.randomAccess) {
+      return NativePosixUtil.MADV_RANDOM;
+    } else if (context.readOnce || context.context == IOContext.Context.MERGE) {
+      return NativePosixUtil.MADV_SEQUENTIAL;
+    } else {
+      return NativePosixUtil.MADV_NORMAL;
+    }
+  }
+}
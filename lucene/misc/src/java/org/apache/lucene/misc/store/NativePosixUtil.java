@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.misc.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import org.apache.lucene.util.Constants;
+
+/**
+ * Provides access to {@code posix_madvise} through the native library of this module, if it was
+ * compiled for the current platform and can be found in the {@code java.library.path}.
+ *
+ * @lucene.experimental
+ */
+public final class NativePosixUtil {
+
+  /** No special treatment. */
+  public static final int MADV_NORMAL = 0;
+  /** Pages will be accessed in random order: read-ahead is not useful. */
+  public static final int MADV_RANDOM = 1;
+  /** Pages will be accessed in sequential order: read ahead aggressively. */
+  public static final int MADV_SEQUENTIAL = 2;
+  /** Pages will be accessed soon: start reading them in the background. */
+  public static final int MADV_WILLNEED = 3;
+
+  private static final boolean AVAILABLE =
+      AccessController.doPrivileged((PrivilegedAction<Boolean>) NativePosixUtil::loadLibrary);
+
+  private NativePosixUtil() {}
+
+  private static boolean loadLibrary() {
+    if (Constants.WINDOWS) {
+      // the Windows library only provides WindowsDirectory
+      return false;
+    }
+    try {
+      System.loadLibrary("LuceneNativeIO");
+      return true;
+    } catch (@SuppressWarnings("unused") UnsatisfiedLinkError | SecurityException e) {
+      return false;
+    }
+  }
+
+  /** Returns true if the native library is loaded, so that {@link #madvise} may be called. */
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  /**
+   * Advises the operating system about how the pages of the given memory-mapped buffer will be
+   * accessed. The advice applies to the whole capacity of the buffer, extended to the page
+   * boundary before its start.
+   *
+   * @param buffer a direct buffer over memory-mapped bytes
+   * @param advice one of the {@code MADV_*} constants of this class
+   * @throws UnsupportedOperationException if the native library is not {@link #isAvailable()
+   *     available}
+   * @throws IOException if the operating system rejects the advice
+   */
+  public static void madvise(ByteBuffer buffer, int advice) throws IOException {
+    if (AVAILABLE == false) {
+      throw new UnsupportedOperationException("the LuceneNativeIO library is not available");
+    }
+    if (buffer.isDirect() == false) {
+      throw new IllegalArgumentException("madvise only works with direct buffers");
+    }
+    if (advice < MADV_NORMAL || advice > MADV_WILLNEED) {
+      throw new IllegalArgumentException("invalid advice: " + advice);
+    }
+    madvise0(buffer, advice);
+  }
+
+  private static native void madvise0(ByteBuffer buffer, int advice) throws IOException;
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.misc.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.apache.lucene.store.BaseDirectoryTestCase;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.MergeInfo;
+
+/** Tests MadvisingMMapDirectory, with or without the native library */
+public class TestMadvisingMMapDirectory extends BaseDirectoryTestCase {
+
+  @Override
+  protected Directory getDirectory(Path path) throws IOException {
+    return new MadvisingMMapDirectory(path);
+  }
+
+  public void testAdvice() throws IOException {
+    try (MadvisingMMapDirectory dir = new MadvisingMMapDirectory(createTempDir())) {
+      assertEquals(NativePosixUtil.MADV_RANDOM, dir.advice(IOContext.RANDOM));
+      assertEquals(NativePosixUtil.MADV_SEQUENTIAL, dir.advice(IOContext.READONCE));
+      assertEquals(
+          NativePosixUtil.MADV_SEQUENTIAL,
+          dir.advice(new IOContext(new MergeInfo(10, 1024, false, 1))));
+      assertEquals(NativePosixUtil.MADV_NORMAL, dir.advice(IOContext.READ));
+      assertEquals(NativePosixUtil.MADV_NORMAL, dir.advice(IOContext.DEFAULT));
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.misc.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import org.apache.lucene.util.LuceneTestCase;
+import org.junit.Rule;
+import org.junit.rules.TestRule;
+
+public class TestNativePosixUtil extends LuceneTestCase {
+  @Rule
+  public static TestRule requiresNative =
+      new NativeLibEnableRule(
+          EnumSet.of(
+              NativeLibEnableRule.OperatingSystem.LINUX, NativeLibEnableRule.OperatingSystem.MAC));
+
+  public void testMadvise() throws IOException {
+    assertTrue(NativePosixUtil.isAvailable());
+    Path file = createTempDir().resolve("test");
+    Files.write(file, new byte[3 * 4096 + 17]);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // not aligned with a page boundary
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 5, 2 * 4096);
+      NativePosixUtil.madvise(buffer, NativePosixUtil.MADV_RANDOM);
+      NativePosixUtil.madvise(buffer, NativePosixUtil.MADV_SEQUENTIAL);
+      NativePosixUtil.madvise(buffer, NativePosixUtil.MADV_WILLNEED);
+      NativePosixUtil.madvise(buffer, NativePosixUtil.MADV_NORMAL);
+      assertEquals(0, buffer.get(42));
+      expectThrows(IllegalArgumentException.class, () -> NativePosixUtil.madvise(buffer, 42));
+    }
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> NativePosixUtil.madvise(ByteBuffer.allocate(16), NativePosixUtil.MADV_RANDOM));
+  }
+}
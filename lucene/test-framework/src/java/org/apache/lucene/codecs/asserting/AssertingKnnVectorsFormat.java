@@ -99,8 +99,9 @@ public class AssertingKnnVectorsFormat extends KnnVectorsFormat {
     }
 
     @Override
-    public TopDocs search(String field, float[] target, int k, Bits acceptDocs) throws IOException {
-      TopDocs hits = delegate.search(field, target, k, acceptDocs);
+    public TopDocs search(String field, float[] target, int k, Bits acceptDocs, int visitedLimit)
+        throws IOException {
+      TopDocs hits = delegate.search(field, target, k, acceptDocs, visitedLimit);
       assert hits != null;
       assert hits.scoreDocs.length <= k;
       return hits;
@@ -18,6 +18,7 @@ package org.apache.lucene.codecs.asserting;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.function.IntFunction;
 import org.apache.lucene.codecs.StoredFieldsFormat;
 import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.StoredFieldsWriter;
@@ -76,6 +77,25 @@ public class AssertingStoredFieldsFormat extends StoredFieldsFormat {
       in.visitDocument(n, visitor);
     }
 
+    @Override
+    public void visitDocuments(int[] docIDs, int count, IntFunction<StoredFieldVisitor> visitors)
+        throws IOException {
+      AssertingCodec.assertThread("StoredFieldsReader", creationThread);
+      for (int i = 0; i < count; ++i) {
+        assert docIDs[i] >= 0 && docIDs[i] < maxDoc;
+      }
+      final int[] visited = new int[1];
+      in.visitDocuments(
+          docIDs,
+          count,
+          i -> {
+            // documents are visited in order
+            assert i == visited[0]++;
+            return visitors.apply(i);
+          });
+      assert visited[0] == count;
+    }
+
     @Override
     public StoredFieldsReader clone() {
       assert merging == false : "Merge instances do not support cloning";
@@ -40,7 +40,7 @@ public abstract class CompressingCodec extends FilterCodec {
       int maxDocsPerChunk,
       boolean withSegmentSuffix,
       int blockShift) {
-    switch (random.nextInt(6)) {
+    switch (random.nextInt(7)) {
       case 0:
         return new FastCompressingCodec(chunkSize, maxDocsPerChunk, withSegmentSuffix, blockShift);
       case 1:
@@ -57,6 +57,9 @@ public abstract class CompressingCodec extends FilterCodec {
       case 5:
         return new LZ4WithPresetCompressingCodec(
             chunkSize, maxDocsPerChunk, withSegmentSuffix, blockShift);
+      case 6:
+        return new LZ4HuffmanWithPresetCompressingCodec(
+            chunkSize, maxDocsPerChunk, withSegmentSuffix, blockShift);
       default:
         throw new AssertionError();
     }
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+import org.apache.lucene.codecs.lucene90.LZ4HuffmanWithPresetDictCompressionMode;
+
+/** CompressionCodec that uses {@link LZ4HuffmanWithPresetDictCompressionMode}. */
+public class LZ4HuffmanWithPresetCompressingCodec extends CompressingCodec {
+
+  /** Constructor that allows to configure the chunk size. */
+  public LZ4HuffmanWithPresetCompressingCodec(
+      int chunkSize, int maxDocsPerChunk, boolean withSegmentSuffix, int blockSize) {
+    super(
+        "LZ4HuffmanWithPresetCompressingStoredFieldsData",
+        withSegmentSuffix ? "LZ4HuffmanWithPresetCompressingStoredFields" : "",
+        new LZ4HuffmanWithPresetDictCompressionMode(),
+        chunkSize,
+        maxDocsPerChunk,
+        blockSize);
+  }
+
+  /** No-arg constructor. */
+  public LZ4HuffmanWithPresetCompressingCodec() {
+    // 10 sub blocks of 48kB, so that sub blocks and their dictionary fit in the window of LZ4
+    this(10 * 48 * 1024, 4096, false, 10);
+  }
+}
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Objects;
 import org.apache.lucene.index.PointValues.IntersectVisitor;
 import org.apache.lucene.index.PointValues.Relation;
+import org.apache.lucene.search.DocAndFreqBuffer;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
@@ -405,6 +406,37 @@ public class AssertingLeafReader extends FilterLeafReader {
       return doc = advanced;
     }
 
+    @Override
+    public void nextPostings(int upTo, DocAndFreqBuffer buffer) throws IOException {
+      assertThread("Docs enums", creationThread);
+      assert state != DocsEnumState.START : "nextPostings() called before nextDoc()/advance()";
+      final int startDoc = doc;
+      in.nextPostings(upTo, buffer);
+      assert buffer.size >= 0;
+      if (buffer.size == 0) {
+        assert startDoc >= upTo : "empty buffer while " + startDoc + " < upTo=" + upTo;
+        assert in.docID() == startDoc : "nextPostings() moved without returning postings";
+      } else {
+        assert buffer.docs[0] == startDoc
+            : "nextPostings() must start on doc " + startDoc + ", got " + buffer.docs[0];
+        for (int i = 0; i < buffer.size; ++i) {
+          assert buffer.docs[i] < upTo : buffer.docs[i] + " >= upTo=" + upTo;
+          assert i == 0 || buffer.docs[i] > buffer.docs[i - 1] : "doc IDs out of order";
+        }
+        doc = in.docID();
+        assert doc > buffer.docs[buffer.size - 1]
+            : "iterator on " + doc + " after returning " + buffer.docs[buffer.size - 1];
+        if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+          state = DocsEnumState.FINISHED;
+          positionMax = 0;
+        } else {
+          state = DocsEnumState.ITERATING;
+          positionMax = super.freq();
+        }
+        positionCount = 0;
+      }
+    }
+
     @Override
     public int docID() {
       assertThread("Docs enums", creationThread);
@@ -546,6 +578,11 @@ public class AssertingLeafReader extends FilterLeafReader {
       return assertingPostings.advance(target);
     }
 
+    @Override
+    public void nextPostings(int upTo, DocAndFreqBuffer buffer) throws IOException {
+      assertingPostings.nextPostings(upTo, buffer);
+    }
+
     @Override
     public long cost() {
       return assertingPostings.cost();
@@ -18,6 +18,7 @@ package org.apache.lucene.index;
 
 import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
 
+import com.carrotsearch.randomizedtesting.generators.RandomPicks;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
@@ -29,12 +30,14 @@ import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.KnnVectorField;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.VectorUtil;
@@ -118,8 +121,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
       IllegalArgumentException expected =
           expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc2));
       String errMsg =
-          "cannot change field \"f\" from vector dimension=4, vector similarity function=DOT_PRODUCT "
-              + "to inconsistent vector dimension=3, vector similarity function=DOT_PRODUCT";
+          "cannot change field \"f\" from vector dimension=4, vector encoding=FLOAT32, "
+              + "vector similarity function=DOT_PRODUCT to inconsistent vector dimension=3, "
+              + "vector encoding=FLOAT32, vector similarity function=DOT_PRODUCT";
       assertEquals(errMsg, expected.getMessage());
     }
   }
@@ -155,8 +159,51 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
       IllegalArgumentException expected =
           expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc2));
       String errMsg =
-          "cannot change field \"f\" from vector dimension=4, vector similarity function=DOT_PRODUCT "
-              + "to inconsistent vector dimension=4, vector similarity function=EUCLIDEAN";
+          "cannot change field \"f\" from vector dimension=4, vector encoding=FLOAT32, "
+              + "vector similarity function=DOT_PRODUCT to inconsistent vector dimension=4, "
+              + "vector encoding=FLOAT32, vector similarity function=EUCLIDEAN";
+      assertEquals(errMsg, expected.getMessage());
+    }
+  }
+
+  public void testIllegalVectorEncodingChange() throws Exception {
+    // illegal change in the same segment
+    try (Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+      Document doc = new Document();
+      doc.add(new KnnVectorField("f", new float[4], VectorSimilarityFunction.DOT_PRODUCT));
+      w.addDocument(doc);
+
+      Document doc2 = new Document();
+      doc2.add(
+          new KnnVectorField(
+              "f", new BytesRef(new byte[4]), VectorSimilarityFunction.DOT_PRODUCT));
+      IllegalArgumentException expected =
+          expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc2));
+      String errMsg =
+          "Inconsistency of field data structures across documents for field [f] of doc [1]."
+              + " vector encoding: expected 'FLOAT32', but it has 'BYTE'.";
+      assertEquals(errMsg, expected.getMessage());
+    }
+
+    // illegal change a different segment
+    try (Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+      Document doc = new Document();
+      doc.add(new KnnVectorField("f", new float[4], VectorSimilarityFunction.DOT_PRODUCT));
+      w.addDocument(doc);
+      w.commit();
+
+      Document doc2 = new Document();
+      doc2.add(
+          new KnnVectorField(
+              "f", new BytesRef(new byte[4]), VectorSimilarityFunction.DOT_PRODUCT));
+      IllegalArgumentException expected =
+          expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc2));
+      String errMsg =
+          "cannot change field \"f\" from vector dimension=4, vector encoding=FLOAT32, "
+              + "vector similarity function=DOT_PRODUCT to inconsistent vector dimension=4, "
+              + "vector encoding=BYTE, vector similarity function=DOT_PRODUCT";
       assertEquals(errMsg, expected.getMessage());
     }
   }
@@ -175,8 +222,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
         IllegalArgumentException expected =
             expectThrows(IllegalArgumentException.class, () -> w2.addDocument(doc2));
         assertEquals(
-            "cannot change field \"f\" from vector dimension=4, vector similarity function=DOT_PRODUCT "
-                + "to inconsistent vector dimension=1, vector similarity function=DOT_PRODUCT",
+            "cannot change field \"f\" from vector dimension=4, vector encoding=FLOAT32, "
+                + "vector similarity function=DOT_PRODUCT to inconsistent vector dimension=1, "
+                + "vector encoding=FLOAT32, vector similarity function=DOT_PRODUCT",
             expected.getMessage());
       }
     }
@@ -196,8 +244,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
         IllegalArgumentException expected =
             expectThrows(IllegalArgumentException.class, () -> w2.addDocument(doc2));
         assertEquals(
-            "cannot change field \"f\" from vector dimension=4, vector similarity function=DOT_PRODUCT "
-                + "to inconsistent vector dimension=4, vector similarity function=EUCLIDEAN",
+            "cannot change field \"f\" from vector dimension=4, vector encoding=FLOAT32, "
+                + "vector similarity function=DOT_PRODUCT to inconsistent vector dimension=4, "
+                + "vector encoding=FLOAT32, vector similarity function=EUCLIDEAN",
             expected.getMessage());
       }
     }
@@ -296,8 +345,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
             expectThrows(
                 IllegalArgumentException.class, () -> w2.addIndexes(new Directory[] {dir}));
         assertEquals(
-            "cannot change field \"f\" from vector dimension=5, vector similarity function=DOT_PRODUCT "
-                + "to inconsistent vector dimension=4, vector similarity function=DOT_PRODUCT",
+            "cannot change field \"f\" from vector dimension=5, vector encoding=FLOAT32, "
+                + "vector similarity function=DOT_PRODUCT to inconsistent vector dimension=4, "
+                + "vector encoding=FLOAT32, vector similarity function=DOT_PRODUCT",
             expected.getMessage());
       }
     }
@@ -318,8 +368,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
         IllegalArgumentException expected =
             expectThrows(IllegalArgumentException.class, () -> w2.addIndexes(dir));
         assertEquals(
-            "cannot change field \"f\" from vector dimension=4, vector similarity function=EUCLIDEAN "
-                + "to inconsistent vector dimension=4, vector similarity function=DOT_PRODUCT",
+            "cannot change field \"f\" from vector dimension=4, vector encoding=FLOAT32, "
+                + "vector similarity function=EUCLIDEAN to inconsistent vector dimension=4, "
+                + "vector encoding=FLOAT32, vector similarity function=DOT_PRODUCT",
             expected.getMessage());
       }
     }
@@ -343,8 +394,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
                   IllegalArgumentException.class,
                   () -> w2.addIndexes(new CodecReader[] {(CodecReader) getOnlyLeafReader(r)}));
           assertEquals(
-              "cannot change field \"f\" from vector dimension=5, vector similarity function=DOT_PRODUCT "
-                  + "to inconsistent vector dimension=4, vector similarity function=DOT_PRODUCT",
+              "cannot change field \"f\" from vector dimension=5, vector encoding=FLOAT32, "
+                  + "vector similarity function=DOT_PRODUCT to inconsistent vector dimension=4, "
+                  + "vector encoding=FLOAT32, vector similarity function=DOT_PRODUCT",
               expected.getMessage());
         }
       }
@@ -369,8 +421,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
                   IllegalArgumentException.class,
                   () -> w2.addIndexes(new CodecReader[] {(CodecReader) getOnlyLeafReader(r)}));
           assertEquals(
-              "cannot change field \"f\" from vector dimension=4, vector similarity function=EUCLIDEAN "
-                  + "to inconsistent vector dimension=4, vector similarity function=DOT_PRODUCT",
+              "cannot change field \"f\" from vector dimension=4, vector encoding=FLOAT32, "
+                  + "vector similarity function=EUCLIDEAN to inconsistent vector dimension=4, "
+                  + "vector encoding=FLOAT32, vector similarity function=DOT_PRODUCT",
               expected.getMessage());
         }
       }
@@ -393,8 +446,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
           IllegalArgumentException expected =
               expectThrows(IllegalArgumentException.class, () -> TestUtil.addIndexesSlowly(w2, r));
           assertEquals(
-              "cannot change field \"f\" from vector dimension=5, vector similarity function=DOT_PRODUCT "
-                  + "to inconsistent vector dimension=4, vector similarity function=DOT_PRODUCT",
+              "cannot change field \"f\" from vector dimension=5, vector encoding=FLOAT32, "
+                  + "vector similarity function=DOT_PRODUCT to inconsistent vector dimension=4, "
+                  + "vector encoding=FLOAT32, vector similarity function=DOT_PRODUCT",
               expected.getMessage());
         }
       }
@@ -417,8 +471,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
           IllegalArgumentException expected =
               expectThrows(IllegalArgumentException.class, () -> TestUtil.addIndexesSlowly(w2, r));
           assertEquals(
-              "cannot change field \"f\" from vector dimension=4, vector similarity function=EUCLIDEAN "
-                  + "to inconsistent vector dimension=4, vector similarity function=DOT_PRODUCT",
+              "cannot change field \"f\" from vector dimension=4, vector encoding=FLOAT32, "
+                  + "vector similarity function=EUCLIDEAN to inconsistent vector dimension=4, "
+                  + "vector encoding=FLOAT32, vector similarity function=DOT_PRODUCT",
               expected.getMessage());
         }
       }
@@ -807,6 +862,76 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
     }
   }
 
+  /**
+   * Index random byte vectors, and verify that they can be read back, and that searches rank hits
+   * according to the similarity of the bytes.
+   */
+  public void testRandomBytes() throws Exception {
+    IndexWriterConfig iwc = newIndexWriterConfig();
+    if (random().nextBoolean()) {
+      iwc.setIndexSort(new Sort(new SortField("sortkey", SortField.Type.INT)));
+    }
+    String fieldName = "field";
+    VectorSimilarityFunction similarityFunction =
+        RandomPicks.randomFrom(random(), VectorSimilarityFunction.values());
+    try (Directory dir = newDirectory();
+        IndexWriter iw = new IndexWriter(dir, iwc)) {
+      int numDoc = atLeast(100);
+      int dimension = atLeast(10);
+      byte[][] values = new byte[numDoc][];
+      for (int i = 0; i < numDoc; i++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+        doc.add(new NumericDocValuesField("sortkey", random().nextInt(100)));
+        if (random().nextInt(7) != 3) {
+          values[i] = new byte[dimension];
+          random().nextBytes(values[i]);
+          doc.add(new KnnVectorField(fieldName, new BytesRef(values[i]), similarityFunction));
+        }
+        iw.addDocument(doc);
+        if (random().nextInt(10) == 3) {
+          iw.commit();
+        }
+      }
+      if (random().nextBoolean()) {
+        iw.forceMerge(1);
+      }
+      float[] target = new float[dimension];
+      for (int i = 0; i < dimension; i++) {
+        target[i] = random().nextInt(256) - 128;
+      }
+      BytesRef byteTarget = VectorUtil.toBytesRef(target);
+      try (IndexReader reader = DirectoryReader.open(iw)) {
+        for (LeafReaderContext ctx : reader.leaves()) {
+          VectorValues vectorValues = ctx.reader().getVectorValues(fieldName);
+          if (vectorValues == null) {
+            continue;
+          }
+          int docId;
+          while ((docId = vectorValues.nextDoc()) != NO_MORE_DOCS) {
+            byte[] expected = values[Integer.parseInt(ctx.reader().document(docId).get("id"))];
+            assertEquals(new BytesRef(expected), vectorValues.binaryValue());
+            float[] v = vectorValues.vectorValue();
+            for (int i = 0; i < dimension; i++) {
+              assertEquals(expected[i], v[i], 0);
+            }
+          }
+          TopDocs results =
+              ctx.reader().searchNearestVectors(fieldName, target, 10, null, Integer.MAX_VALUE);
+          float lastScore = Float.POSITIVE_INFINITY;
+          for (ScoreDoc scoreDoc : results.scoreDocs) {
+            byte[] value = values[Integer.parseInt(ctx.reader().document(scoreDoc.doc).get("id"))];
+            float score =
+                similarityFunction.convertToScore(
+                    similarityFunction.compare(byteTarget, new BytesRef(value)));
+            assertTrue(score <= lastScore);
+            lastScore = score;
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Index random vectors, sometimes skipping documents, sometimes updating a document, sometimes
    * merging, sometimes sorting the index, using an HNSW similarity function so as to also produce a
@@ -874,7 +999,9 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
             k = numLiveDocsWithVectors;
           }
           TopDocs results =
-              ctx.reader().searchNearestVectors(fieldName, randomVector(dimension), k, liveDocs);
+              ctx.reader()
+                  .searchNearestVectors(
+                      fieldName, randomVector(dimension), k, liveDocs, Integer.MAX_VALUE);
           assertEquals(Math.min(k, size), results.scoreDocs.length);
           for (int i = 0; i < k - 1; i++) {
             assertTrue(results.scoreDocs[i].score >= results.scoreDocs[i + 1].score);
@@ -960,6 +1087,13 @@ public abstract class BaseKnnVectorsFormatTestCase extends BaseIndexFileFormatTe
     assertEquals(2, VectorSimilarityFunction.values().length);
   }
 
+  public void testVectorEncodingIdentifiers() {
+    // the ordinals of vector encodings are written to the index
+    assertEquals(0, VectorEncoding.BYTE.ordinal());
+    assertEquals(1, VectorEncoding.FLOAT32.ordinal());
+    assertEquals(2, VectorEncoding.values().length);
+  }
+
   public void testAdvance() throws Exception {
     try (Directory dir = newDirectory()) {
       try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
@@ -46,6 +46,7 @@ import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.TermsEnum.SeekStatus;
+import org.apache.lucene.search.DocAndFreqBuffer;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
@@ -640,6 +641,96 @@ public abstract class BasePostingsFormatTestCase extends BaseIndexFileFormatTest
     }
   }
 
+  public void testNextPostings() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter iw = new IndexWriter(dir, new IndexWriterConfig(null));
+    FieldType docsAndFreqs = new FieldType(StringField.TYPE_NOT_STORED);
+    docsAndFreqs.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+    FieldType positions = new FieldType(StringField.TYPE_NOT_STORED);
+    positions.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS);
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      // a mix of dense and sparse terms so that both full blocks and tail blocks get exercised
+      for (String term : new String[] {"dense", "common", "medium", "rare"}) {
+        boolean hasTerm =
+            term.equals("dense")
+                ? random().nextInt(20) != 0
+                : random().nextInt(term.length()) == 0;
+        if (hasTerm) {
+          int freq = TestUtil.nextInt(random(), 1, 1 << random().nextInt(3));
+          for (int j = 0; j < freq; ++j) {
+            doc.add(new StringField("docs", term, Field.Store.NO));
+            doc.add(new Field("freqs", term, docsAndFreqs));
+            doc.add(new Field("positions", term, positions));
+          }
+        }
+      }
+      iw.addDocument(doc);
+    }
+    DirectoryReader reader = DirectoryReader.open(iw);
+    iw.close();
+
+    for (LeafReaderContext context : reader.leaves()) {
+      for (String field : new String[] {"docs", "freqs", "positions"}) {
+        Terms terms = context.reader().terms(field);
+        if (terms == null) {
+          continue;
+        }
+        boolean hasFreqs = field.equals("docs") == false;
+        TermsEnum termsEnum = terms.iterator();
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+          // NONE and FREQS get a docs enum, POSITIONS a postings enum, each with their own
+          // implementation of nextPostings in block-based formats
+          for (int flags : new int[] {NONE, FREQS, POSITIONS}) {
+            assertNextPostings(
+                termsEnum.postings(null, flags),
+                termsEnum.postings(null, flags),
+                hasFreqs && flags != NONE);
+          }
+          assertNextPostings(termsEnum.postings(null, FREQS), termsEnum.impacts(FREQS), hasFreqs);
+        }
+      }
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  private static void assertNextPostings(
+      PostingsEnum expected, PostingsEnum actual, boolean checkFreqs) throws IOException {
+    DocAndFreqBuffer buffer = new DocAndFreqBuffer();
+    assertEquals(expected.nextDoc(), actual.nextDoc());
+    while (actual.docID() != DocIdSetIterator.NO_MORE_DOCS) {
+      if (random().nextInt(5) == 0) {
+        // mix bulk reads with regular iteration
+        int target = actual.docID() + TestUtil.nextInt(random(), 1, 300);
+        assertEquals(expected.advance(target), actual.advance(target));
+        continue;
+      }
+      if (checkFreqs && random().nextBoolean()) {
+        // frequencies of the current block may have been decoded already
+        assertEquals(expected.freq(), actual.freq());
+      }
+      int upTo =
+          random().nextBoolean()
+              ? DocIdSetIterator.NO_MORE_DOCS
+              : actual.docID() + random().nextInt(300);
+      actual.nextPostings(upTo, buffer);
+      if (buffer.size == 0) {
+        assertTrue(actual.docID() >= upTo);
+      }
+      for (int i = 0; i < buffer.size; ++i) {
+        assertEquals(expected.docID(), buffer.docs[i]);
+        if (checkFreqs) {
+          assertEquals(expected.freq(), buffer.freqs[i]);
+        }
+        expected.nextDoc();
+      }
+      assertEquals(expected.docID(), actual.docID());
+    }
+  }
+
   public void testPostingsEnumDocsOnly() throws Exception {
     Directory dir = newDirectory();
     IndexWriterConfig iwc = new IndexWriterConfig(null);
@@ -26,10 +26,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -38,6 +40,7 @@ import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.StoredFieldsFormat;
 import org.apache.lucene.codecs.simpletext.SimpleTextCodec;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
@@ -56,6 +59,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.MockDirectoryWrapper;
 import org.apache.lucene.store.MockDirectoryWrapper.Throttling;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.TestUtil;
@@ -381,6 +385,82 @@ public abstract class BaseStoredFieldsFormatTestCase extends BaseIndexFileFormat
     dir.close();
   }
 
+  public void testVisitDocuments() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwConf.setMaxBufferedDocs(RandomNumbers.randomIntBetween(random(), 2, 30));
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir, iwConf);
+
+    final String[] fieldNames = {"id", "small", "large", "number"};
+    final int numDocs = atLeast(300);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if (random().nextInt(10) != 0) { // some documents are empty
+        doc.add(new StoredField("id", Integer.toString(i)));
+        if (random().nextBoolean()) {
+          doc.add(new StoredField("small", TestUtil.randomSimpleString(random(), 10)));
+        }
+        if (random().nextInt(5) == 0) {
+          doc.add(new StoredField("large", TestUtil.randomSimpleString(random(), 1000, 5000)));
+        }
+        for (int j = random().nextInt(3); j > 0; --j) {
+          doc.add(new StoredField("number", random().nextLong()));
+        }
+      }
+      iw.addDocument(doc);
+    }
+    iw.commit();
+    iw.close();
+
+    final DirectoryReader reader = DirectoryReader.open(dir);
+    for (LeafReaderContext context : reader.leaves()) {
+      final CodecReader leafReader = (CodecReader) context.reader();
+      final int maxDoc = leafReader.maxDoc();
+      final int[] docIDs = new int[maxDoc];
+      int count = 0;
+      final int density = random().nextInt(5);
+      for (int doc = 0; doc < maxDoc; ++doc) {
+        if (random().nextInt(5) <= density) {
+          docIDs[count++] = doc;
+        }
+      }
+      final Set<String> fieldsToLoad = new HashSet<>();
+      for (String field : fieldNames) {
+        if (random().nextBoolean()) {
+          fieldsToLoad.add(field);
+        }
+      }
+
+      final DocumentStoredFieldVisitor[] visitors = new DocumentStoredFieldVisitor[count];
+      leafReader
+          .getFieldsReader()
+          .visitDocuments(
+              docIDs,
+              count,
+              i -> visitors[i] = new DocumentStoredFieldVisitor(fieldsToLoad));
+      for (int i = 0; i < count; ++i) {
+        final Document expected = leafReader.document(docIDs[i], fieldsToLoad);
+        assertNotNull(visitors[i]);
+        assertEquals(expected.toString(), visitors[i].getDocument().toString());
+      }
+
+      if (count >= 2) {
+        final int[] unsorted = ArrayUtil.copyOfSubArray(docIDs, 0, count);
+        final int i = random().nextInt(count - 1);
+        unsorted[i + 1] = unsorted[i];
+        expectThrows(
+            IllegalArgumentException.class,
+            () ->
+                leafReader
+                    .getFieldsReader()
+                    .visitDocuments(
+                        unsorted, unsorted.length, j -> new DocumentStoredFieldVisitor()));
+      }
+    }
+    reader.close();
+    dir.close();
+  }
+
   public void testEmptyDocs() throws IOException {
     Directory dir = newDirectory();
     IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
@@ -73,6 +73,13 @@ public class AssertingIndexSearcher extends IndexSearcher {
     super.search(leaves, weight, AssertingCollector.wrap(collector));
   }
 
+  @Override
+  protected void search(LeafReaderContextPartition[] partitions, Weight weight, Collector collector)
+      throws IOException {
+    assert weight instanceof AssertingWeight;
+    super.search(partitions, weight, AssertingCollector.wrap(collector));
+  }
+
   @Override
   public String toString() {
     return "AssertingIndexSearcher(" + super.toString() + ")";
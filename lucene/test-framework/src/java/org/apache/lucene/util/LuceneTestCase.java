@@ -1878,7 +1878,7 @@ public abstract class LuceneTestCase extends Assert {
     } else {
       // Make a totally random IOContext:
       final IOContext context;
-      switch (random.nextInt(5)) {
+      switch (random.nextInt(6)) {
         case 0:
           context = IOContext.DEFAULT;
           break;
@@ -1894,6 +1894,9 @@ public abstract class LuceneTestCase extends Assert {
         case 4:
           context = new IOContext(new FlushInfo(randomNumDocs, size));
           break;
+        case 5:
+          context = IOContext.RANDOM;
+          break;
         default:
           context = IOContext.DEFAULT;
       }
@@ -1220,6 +1220,22 @@ public final class TestUtil {
     };
   }
 
+  /**
+   * Return a Codec that can read any of the default codecs and formats, but always writes in the
+   * specified format.
+   */
+  public static Codec alwaysKnnVectorsFormat(final KnnVectorsFormat format) {
+    if (LuceneTestCase.VERBOSE) {
+      System.out.println("TestUtil: forcing knn vectors format to:" + format);
+    }
+    return new AssertingCodec() {
+      @Override
+      public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+        return format;
+      }
+    };
+  }
+
   /**
    * Returns the actual default codec (e.g. LuceneMNCodec) for this version of Lucene. This may be
    * different than {@link Codec#getDefault()} because that is randomized.